@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.gradle
+
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.plugins.JavaPlugin
+import org.gradle.api.tasks.JavaExec
+import org.gradle.api.tasks.SourceSet
+
+/**
+ * Gradle plugin that adds a {@code jmh} source set ({@code src/jmh/java}) to a
+ * Java project, wires the JMH annotation processor into its compilation and
+ * registers a {@code jmh} task that runs the benchmarks it contains.
+ *
+ * <p>Benchmarks are compiled against the main output and the main compile
+ * classpath (including {@code optional} dependencies) of the project. The
+ * {@code jmh} task reports throughput along with the allocation rate of the
+ * GC profiler; it accepts the following project properties:
+ * <ul>
+ * <li>{@code jmh.include}: regular expression selecting the benchmarks to run</li>
+ * <li>{@code jmh.profilers}: comma-separated list of profilers (default {@code gc})</li>
+ * <li>{@code jmh.args}: additional raw arguments passed to the JMH runner</li>
+ * </ul>
+ *
+ * @since 5.1.21
+ */
+class JmhPlugin implements Plugin<Project> {
+
+	static final String JMH_VERSION = "1.21"
+
+	@Override
+	public void apply(Project project) {
+		project.plugins.withType(JavaPlugin) {
+			SourceSet main = project.sourceSets.main
+			SourceSet jmh = project.sourceSets.create("jmh")
+			jmh.compileClasspath += main.output + main.compileClasspath
+			jmh.runtimeClasspath += main.output + main.compileClasspath
+
+			project.dependencies.add("jmhCompile", "org.openjdk.jmh:jmh-core:${JMH_VERSION}")
+			project.dependencies.add("jmhAnnotationProcessor", "org.openjdk.jmh:jmh-generator-annprocess:${JMH_VERSION}")
+
+			project.tasks.create("jmh", JavaExec) { task ->
+				task.group = "verification"
+				task.description = "Runs the JMH benchmarks of this project."
+				task.dependsOn(jmh.classesTaskName)
+				task.main = "org.openjdk.jmh.Main"
+				task.classpath = jmh.runtimeClasspath
+				def resultFile = new File(project.buildDir, "reports/jmh/results.json")
+				task.outputs.file(resultFile)
+				task.doFirst {
+					resultFile.parentFile.mkdirs()
+					def arguments = []
+					if (project.hasProperty("jmh.include")) {
+						arguments << project.property("jmh.include")
+					}
+					def profilers = project.hasProperty("jmh.profilers") ? project.property("jmh.profilers") : "gc"
+					profilers.toString().split(",").each { profiler ->
+						arguments << "-prof" << profiler.trim()
+					}
+					arguments << "-rf" << "json" << "-rff" << resultFile.absolutePath
+					if (project.hasProperty("jmh.args")) {
+						arguments.addAll(project.property("jmh.args").toString().split(" "))
+					}
+					task.args = arguments
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Benchmarks for determining the basic properties of a set of bean classes
+ * on first access, through the JavaBeans {@link Introspector} (with its caches
+ * flushed, as on startup) or through {@link SimpleBeanInfoFactory}'s algorithm.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanInfoBenchmark {
+
+	@Benchmark
+	public void determineProperties(BeanInfoState state, Blackhole bh) throws IntrospectionException {
+		if (state.introspector) {
+			Introspector.flushCaches();
+		}
+		for (Class<?> beanClass : state.beanClasses) {
+			if (state.introspector) {
+				BeanInfo beanInfo = Introspector.getBeanInfo(beanClass);
+				bh.consume(new ExtendedBeanInfo(beanInfo).getPropertyDescriptors());
+			}
+			else {
+				bh.consume(PropertyDescriptorUtils.determineBasicProperties(beanClass));
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanInfoState {
+
+		@Param({"introspector", "simple"})
+		public String strategy;
+
+		public boolean introspector;
+
+		public Class<?>[] beanClasses = new Class<?>[] {
+				DefaultListableBeanFactory.class, RootBeanDefinition.class, GenericBeanDefinition.class,
+				BeanWrapperImpl.class, MutablePropertyValues.class, PropertyDescriptor.class,
+				Date.class, ArrayList.class, HashMap.class};
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.introspector = "introspector".equals(this.strategy);
+		}
+	}
+
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for binding 20 property values through a {@link BeanWrapperImpl},
+ * with property methods invoked reflectively or through generated accessors.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public void setPropertyValues(BeanWrapperState state, Blackhole bh) {
+		BeanWrapperImpl bw = state.createBeanWrapper();
+		bw.setPropertyValues(state.propertyValues);
+		bh.consume(bw.getWrappedInstance());
+	}
+
+	@Benchmark
+	public void setPropertyValuesWithConversion(BeanWrapperState state, Blackhole bh) {
+		BeanWrapperImpl bw = state.createBeanWrapper();
+		bw.setPropertyValues(state.stringPropertyValues);
+		bh.consume(bw.getWrappedInstance());
+	}
+
+	@Benchmark
+	public void getPropertyValues(BeanWrapperState state, Blackhole bh) {
+		for (PropertyValue pv : state.propertyValues.getPropertyValues()) {
+			bh.consume(state.populatedBeanWrapper.getPropertyValue(pv.getName()));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanWrapperState {
+
+		@Param({"reflection", "generated"})
+		public String accessors;
+
+		public MutablePropertyValues propertyValues;
+
+		public MutablePropertyValues stringPropertyValues;
+
+		public BeanWrapperImpl populatedBeanWrapper;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.propertyValues = new MutablePropertyValues();
+			this.stringPropertyValues = new MutablePropertyValues();
+			for (int i = 0; i < 5; i++) {
+				this.propertyValues.add("name" + i, "name" + i);
+				this.propertyValues.add("count" + i, i);
+				this.propertyValues.add("amount" + i, (long) i * 1000);
+				this.propertyValues.add("active" + i, (i % 2 == 0));
+				this.stringPropertyValues.add("name" + i, "name" + i);
+				this.stringPropertyValues.add("count" + i, String.valueOf(i));
+				this.stringPropertyValues.add("amount" + i, String.valueOf(i * 1000));
+				this.stringPropertyValues.add("active" + i, String.valueOf(i % 2 == 0));
+			}
+			this.populatedBeanWrapper = createBeanWrapper();
+			this.populatedBeanWrapper.setPropertyValues(this.propertyValues);
+		}
+
+		public BeanWrapperImpl createBeanWrapper() {
+			BeanWrapperImpl bw = new BeanWrapperImpl(new TwentyPropertiesBean());
+			bw.setUseGeneratedAccessors("generated".equals(this.accessors));
+			return bw;
+		}
+	}
+
+
+	public static class TwentyPropertiesBean {
+
+		private String name0;
+
+		private String name1;
+
+		private String name2;
+
+		private String name3;
+
+		private String name4;
+
+		private int count0;
+
+		private int count1;
+
+		private int count2;
+
+		private int count3;
+
+		private int count4;
+
+		private long amount0;
+
+		private long amount1;
+
+		private long amount2;
+
+		private long amount3;
+
+		private long amount4;
+
+		private boolean active0;
+
+		private boolean active1;
+
+		private boolean active2;
+
+		private boolean active3;
+
+		private boolean active4;
+
+		public String getName0() {
+			return this.name0;
+		}
+
+		public void setName0(String name0) {
+			this.name0 = name0;
+		}
+
+		public String getName1() {
+			return this.name1;
+		}
+
+		public void setName1(String name1) {
+			this.name1 = name1;
+		}
+
+		public String getName2() {
+			return this.name2;
+		}
+
+		public void setName2(String name2) {
+			this.name2 = name2;
+		}
+
+		public String getName3() {
+			return this.name3;
+		}
+
+		public void setName3(String name3) {
+			this.name3 = name3;
+		}
+
+		public String getName4() {
+			return this.name4;
+		}
+
+		public void setName4(String name4) {
+			this.name4 = name4;
+		}
+
+		public int getCount0() {
+			return this.count0;
+		}
+
+		public void setCount0(int count0) {
+			this.count0 = count0;
+		}
+
+		public int getCount1() {
+			return this.count1;
+		}
+
+		public void setCount1(int count1) {
+			this.count1 = count1;
+		}
+
+		public int getCount2() {
+			return this.count2;
+		}
+
+		public void setCount2(int count2) {
+			this.count2 = count2;
+		}
+
+		public int getCount3() {
+			return this.count3;
+		}
+
+		public void setCount3(int count3) {
+			this.count3 = count3;
+		}
+
+		public int getCount4() {
+			return this.count4;
+		}
+
+		public void setCount4(int count4) {
+			this.count4 = count4;
+		}
+
+		public long getAmount0() {
+			return this.amount0;
+		}
+
+		public void setAmount0(long amount0) {
+			this.amount0 = amount0;
+		}
+
+		public long getAmount1() {
+			return this.amount1;
+		}
+
+		public void setAmount1(long amount1) {
+			this.amount1 = amount1;
+		}
+
+		public long getAmount2() {
+			return this.amount2;
+		}
+
+		public void setAmount2(long amount2) {
+			this.amount2 = amount2;
+		}
+
+		public long getAmount3() {
+			return this.amount3;
+		}
+
+		public void setAmount3(long amount3) {
+			this.amount3 = amount3;
+		}
+
+		public long getAmount4() {
+			return this.amount4;
+		}
+
+		public void setAmount4(long amount4) {
+			this.amount4 = amount4;
+		}
+
+		public boolean isActive0() {
+			return this.active0;
+		}
+
+		public void setActive0(boolean active0) {
+			this.active0 = active0;
+		}
+
+		public boolean isActive1() {
+			return this.active1;
+		}
+
+		public void setActive1(boolean active1) {
+			this.active1 = active1;
+		}
+
+		public boolean isActive2() {
+			return this.active2;
+		}
+
+		public void setActive2(boolean active2) {
+			this.active2 = active2;
+		}
+
+		public boolean isActive3() {
+			return this.active3;
+		}
+
+		public void setActive3(boolean active3) {
+			this.active3 = active3;
+		}
+
+		public boolean isActive4() {
+			return this.active4;
+		}
+
+		public void setActive4(boolean active4) {
+			this.active4 = active4;
+		}
+	}
+
+}
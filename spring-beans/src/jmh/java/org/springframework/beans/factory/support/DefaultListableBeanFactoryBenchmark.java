@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+/**
+ * Benchmarks for bean retrieval from a {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public void getSingletonByName(BeanFactoryState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("singleton"));
+	}
+
+	@Benchmark
+	public void getSingletonByType(BeanFactoryState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean(SingletonBean.class));
+	}
+
+	@Benchmark
+	public void getPrototypeByName(BeanFactoryState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("prototype"));
+	}
+
+	@Benchmark
+	public void getPrototypeWithDependencies(BeanFactoryState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("prototypeWithDependencies"));
+	}
+
+	@Benchmark
+	public void getPrototypeWithAutowiringAndInitMethod(BeanFactoryState state, Blackhole bh) {
+		bh.consume(state.beanFactory.getBean("prototypeWithAutowiring"));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryState {
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			AutowiredAnnotationBeanPostProcessor autowiredProcessor = new AutowiredAnnotationBeanPostProcessor();
+			autowiredProcessor.setBeanFactory(this.beanFactory);
+			this.beanFactory.addBeanPostProcessor(autowiredProcessor);
+
+			RootBeanDefinition singleton = new RootBeanDefinition(SingletonBean.class);
+			this.beanFactory.registerBeanDefinition("singleton", singleton);
+
+			RootBeanDefinition prototype = new RootBeanDefinition(PrototypeBean.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+
+			RootBeanDefinition withDependencies = new RootBeanDefinition(PrototypeBean.class);
+			withDependencies.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			withDependencies.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("singleton"));
+			withDependencies.getPropertyValues().add("name", "benchmark");
+			this.beanFactory.registerBeanDefinition("prototypeWithDependencies", withDependencies);
+
+			RootBeanDefinition withAutowiring = new RootBeanDefinition(AutowiredPrototypeBean.class);
+			withAutowiring.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			withAutowiring.setInitMethodName("init");
+			this.beanFactory.registerBeanDefinition("prototypeWithAutowiring", withAutowiring);
+
+			this.beanFactory.freezeConfiguration();
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class SingletonBean {
+	}
+
+
+	public static class PrototypeBean {
+
+		private final SingletonBean singleton;
+
+		private String name;
+
+		public PrototypeBean() {
+			this.singleton = null;
+		}
+
+		public PrototypeBean(SingletonBean singleton) {
+			this.singleton = singleton;
+		}
+
+		public SingletonBean getSingleton() {
+			return this.singleton;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+
+	public static class AutowiredPrototypeBean {
+
+		private final SingletonBean singleton;
+
+		@Autowired
+		private SingletonBean field;
+
+		private boolean initialized;
+
+		public AutowiredPrototypeBean(SingletonBean singleton) {
+			this.singleton = singleton;
+		}
+
+		public void init() {
+			this.initialized = (this.singleton != null && this.field != null);
+		}
+
+		public boolean isInitialized() {
+			return this.initialized;
+		}
+	}
+
+}
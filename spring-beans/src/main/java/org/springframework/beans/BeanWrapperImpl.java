@@ -25,6 +25,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
@@ -62,6 +63,24 @@ import org.springframework.util.ReflectionUtils;
  */
 public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements BeanWrapper {
 
+	/**
+	 * System property that instructs Spring to access bean properties through
+	 * classes generated per bean class instead of through reflection by default:
+	 * {@code "spring.beans.generatedAccessors"}.
+	 * <p>The default is "false", invoking read and write methods reflectively.
+	 * Consider switching this flag to "true" for applications that bind a large
+	 * number of property values, e.g. in data binding or bean property row mapping,
+	 * at the expense of generating an accessor class for every bean class involved.
+	 * <p>Can also be set via the {@link SpringProperties} mechanism.
+	 * @since 5.1.21
+	 * @see #setUseGeneratedAccessors
+	 */
+	public static final String GENERATED_ACCESSORS_PROPERTY_NAME = "spring.beans.generatedAccessors";
+
+	private static final boolean shouldUseGeneratedAccessors =
+			SpringProperties.getFlag(GENERATED_ACCESSORS_PROPERTY_NAME);
+
+
 	/**
 	 * Cached introspections results for this object, to prevent encountering
 	 * the cost of JavaBeans introspection every time.
@@ -75,6 +94,8 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	private boolean useGeneratedAccessors = shouldUseGeneratedAccessors;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +153,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setUseGeneratedAccessors(parent.useGeneratedAccessors);
 	}
 
 
@@ -193,6 +215,28 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		return this.acc;
 	}
 
+	/**
+	 * Set whether to invoke the read and write methods of bean properties
+	 * through a class generated per bean class rather than through reflection.
+	 * <p>Default is "false", unless the {@link #GENERATED_ACCESSORS_PROPERTY_NAME}
+	 * system property has been set to "true". Nested BeanWrappers inherit this setting.
+	 * <p>Properties whose methods cannot be invoked by a generated class, e.g.
+	 * non-public methods, as well as any access in the presence of a
+	 * SecurityManager, go through reflection in any case.
+	 * @since 5.1.21
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether bean properties are accessed through generated classes.
+	 * @since 5.1.21
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
 
 	/**
 	 * Convert the given value for the specified property to the latter's type.
@@ -227,8 +271,15 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Override
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
-		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
-		return (pd != null ? new BeanPropertyHandler(pd) : null);
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		PropertyDescriptor pd = cachedIntrospectionResults.getPropertyDescriptor(propertyName);
+		if (pd == null) {
+			return null;
+		}
+		GeneratedPropertyAccessor generatedAccessor =
+				(this.useGeneratedAccessors && System.getSecurityManager() == null ?
+						cachedIntrospectionResults.getGeneratedAccessor(pd) : null);
+		return new BeanPropertyHandler(pd, generatedAccessor);
 	}
 
 	@Override
@@ -265,9 +316,13 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		private final PropertyDescriptor pd;
 
-		public BeanPropertyHandler(PropertyDescriptor pd) {
+		@Nullable
+		private final GeneratedPropertyAccessor generatedAccessor;
+
+		public BeanPropertyHandler(PropertyDescriptor pd, @Nullable GeneratedPropertyAccessor generatedAccessor) {
 			super(pd.getPropertyType(), pd.getReadMethod() != null, pd.getWriteMethod() != null);
 			this.pd = pd;
+			this.generatedAccessor = generatedAccessor;
 		}
 
 		@Override
@@ -289,6 +344,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Override
 		@Nullable
 		public Object getValue() throws Exception {
+			if (this.generatedAccessor != null && this.generatedAccessor.isReadable()) {
+				return this.generatedAccessor.getValue(getWrappedInstance());
+			}
 			Method readMethod = this.pd.getReadMethod();
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
@@ -311,6 +369,10 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		@Override
 		public void setValue(@Nullable Object value) throws Exception {
+			if (this.generatedAccessor != null && this.generatedAccessor.isWritable(value)) {
+				this.generatedAccessor.setValue(getWrappedInstance(), value);
+				return;
+			}
 			Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
@@ -92,6 +92,24 @@ public final class CachedIntrospectionResults {
 	 */
 	public static final String IGNORE_BEANINFO_PROPERTY_NAME = "spring.beaninfo.ignore";
 
+	/**
+	 * System property that instructs Spring to determine bean properties from
+	 * the public methods of bean classes directly, not calling the JavaBeans
+	 * {@link Introspector} at all: "spring.beaninfo.introspector.ignore".
+	 * <p>The default is "false", introspecting bean classes through the JavaBeans
+	 * {@code Introspector}. Consider switching this flag to "true" in order to
+	 * avoid the cost of the {@code Introspector} on startup and on first binding
+	 * to a class, e.g. for the many DTO classes of a web application. Bean
+	 * properties are determined according to the standard JavaBeans naming rules
+	 * then, with explicit {@code BeanInfo} classes being ignored (as with the
+	 * {@link #IGNORE_BEANINFO_PROPERTY_NAME} flag) and indexed properties being
+	 * limited to their array or collection accessors.
+	 * <p>Can also be set via the {@link SpringProperties} mechanism.
+	 * @since 5.1.21
+	 * @see SimpleBeanInfoFactory
+	 */
+	public static final String IGNORE_INTROSPECTOR_PROPERTY_NAME = "spring.beaninfo.introspector.ignore";
+
 	private static final PropertyDescriptor[] EMPTY_PROPERTY_DESCRIPTOR_ARRAY = {};
 
 
@@ -260,6 +278,10 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** GeneratedPropertyAccessor objects keyed by property name String, lazily initialized. */
+	@Nullable
+	private volatile Map<String, GeneratedPropertyAccessor> generatedAccessors;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -375,4 +397,23 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return an accessor for the given property that invokes its read and
+	 * write methods through a class generated for the bean class, generating
+	 * that class on first access.
+	 * @param pd the property descriptor as obtained from this instance
+	 * @return the accessor, or {@code null} if the property cannot be accessed
+	 * through a generated class (to be accessed through reflection then)
+	 * @since 5.1.21
+	 */
+	@Nullable
+	GeneratedPropertyAccessor getGeneratedAccessor(PropertyDescriptor pd) {
+		Map<String, GeneratedPropertyAccessor> accessors = this.generatedAccessors;
+		if (accessors == null) {
+			accessors = GeneratedPropertyAccessor.forProperties(getBeanClass(), getPropertyDescriptors());
+			this.generatedAccessors = accessors;
+		}
+		return accessors.get(pd.getName());
+	}
+
 }
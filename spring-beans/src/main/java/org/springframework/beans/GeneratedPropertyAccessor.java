@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cglib.reflect.FastClass;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Accessor for a single bean property, invoking its read and write methods
+ * through a class generated for the bean class (a CGLIB {@link FastClass})
+ * rather than through reflection.
+ *
+ * <p>The generated class dispatches to direct method invocations by index,
+ * so a call site for a given bean class remains monomorphic and may get
+ * inlined by the JIT compiler. Methods that the generated class cannot
+ * invoke, e.g. private or inaccessible methods, are not covered by an
+ * accessor: callers are expected to fall back to reflection then.
+ *
+ * @since 5.1.21
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ * @see CachedIntrospectionResults#getGeneratedAccessor
+ */
+final class GeneratedPropertyAccessor {
+
+	private static final Log logger = LogFactory.getLog(GeneratedPropertyAccessor.class);
+
+	private static final Object[] NO_ARGS = {};
+
+
+	private final FastClass fastClass;
+
+	private final int readIndex;
+
+	private final int writeIndex;
+
+	@Nullable
+	private final Class<?> writeType;
+
+
+	private GeneratedPropertyAccessor(FastClass fastClass, int readIndex, int writeIndex, @Nullable Class<?> writeType) {
+		this.fastClass = fastClass;
+		this.readIndex = readIndex;
+		this.writeIndex = writeIndex;
+		this.writeType = writeType;
+	}
+
+
+	/**
+	 * Return whether the property can be read through this accessor.
+	 */
+	public boolean isReadable() {
+		return (this.readIndex >= 0);
+	}
+
+	/**
+	 * Return whether the given value can be written through this accessor.
+	 * <p>Values not assignable to the parameter type of the write method,
+	 * including {@code null} for a primitive type, are to be written through
+	 * reflection, which reports them as illegal arguments.
+	 */
+	public boolean isWritable(@Nullable Object value) {
+		return (this.writeIndex >= 0 && this.writeType != null && ClassUtils.isAssignableValue(this.writeType, value));
+	}
+
+	/**
+	 * Invoke the read method of the property on the given bean instance.
+	 * @throws InvocationTargetException if the read method threw an exception
+	 */
+	@Nullable
+	public Object getValue(Object target) throws InvocationTargetException {
+		return this.fastClass.invoke(this.readIndex, target, NO_ARGS);
+	}
+
+	/**
+	 * Invoke the write method of the property on the given bean instance.
+	 * @throws InvocationTargetException if the write method threw an exception
+	 */
+	public void setValue(Object target, @Nullable Object value) throws InvocationTargetException {
+		this.fastClass.invoke(this.writeIndex, target, new Object[] {value});
+	}
+
+
+	/**
+	 * Create accessors for the given properties of the given bean class.
+	 * @param beanClass the bean class to generate an accessor class for
+	 * @param pds the properties of the bean class
+	 * @return the accessors keyed by property name, with properties that
+	 * cannot be accessed through a generated class being left out
+	 * (an empty map if no accessor class can be generated at all)
+	 */
+	static Map<String, GeneratedPropertyAccessor> forProperties(Class<?> beanClass, PropertyDescriptor[] pds) {
+		FastClass fastClass = generateFastClass(beanClass);
+		if (fastClass == null) {
+			return Collections.emptyMap();
+		}
+		Map<String, GeneratedPropertyAccessor> accessors = new HashMap<>(pds.length * 2);
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			Method writeMethod = pd.getWriteMethod();
+			if (writeMethod != null && pd instanceof GenericTypeAwarePropertyDescriptor) {
+				writeMethod = ((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess();
+			}
+			int readIndex = getIndex(fastClass, readMethod);
+			int writeIndex = getIndex(fastClass, writeMethod);
+			if (readIndex >= 0 || writeIndex >= 0) {
+				Class<?> writeType = (writeIndex >= 0 ? writeMethod.getParameterTypes()[0] : null);
+				accessors.put(pd.getName(), new GeneratedPropertyAccessor(fastClass, readIndex, writeIndex, writeType));
+			}
+		}
+		return accessors;
+	}
+
+	@Nullable
+	private static FastClass generateFastClass(Class<?> beanClass) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || beanClass.isInterface() || beanClass.isArray() || beanClass.isPrimitive()) {
+			// No place to define a generated class in, or nothing to invoke methods on
+			return null;
+		}
+		try {
+			FastClass.Generator generator = new FastClass.Generator();
+			generator.setType(beanClass);
+			generator.setClassLoader(classLoader);
+			return generator.create();
+		}
+		catch (RuntimeException | LinkageError ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot generate property accessors for class [" + beanClass.getName() +
+						"] - falling back to reflection: " + ex);
+			}
+			return null;
+		}
+	}
+
+	private static int getIndex(FastClass fastClass, @Nullable Method method) {
+		return (method != null ? fastClass.getIndex(method.getName(), method.getParameterTypes()) : -1);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,21 @@
 package org.springframework.beans;
 
 import java.beans.IntrospectionException;
+import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
@@ -32,6 +44,117 @@ import org.springframework.util.ObjectUtils;
  */
 abstract class PropertyDescriptorUtils {
 
+	private static final Log logger = LogFactory.getLog(PropertyDescriptorUtils.class);
+
+	/** Order of preference for overloaded write methods: non-bridge methods first, then by parameter type. */
+	private static final Comparator<Method> WRITE_METHOD_ORDER = Comparator.comparing(Method::isBridge).thenComparing(
+			method -> method.getParameterTypes()[0].getName(), Comparator.reverseOrder());
+
+	/**
+	 * Simple introspection algorithm for basic set/get/is accessor methods,
+	 * building corresponding JavaBeans property descriptors for them.
+	 * <p>This follows the naming rules of the JavaBeans {@link Introspector}
+	 * for read and write methods, and additionally accepts non-void returning
+	 * and static write methods as {@link ExtendedBeanInfo} does. It does not
+	 * consider {@code BeanInfo} classes, nor indexed read and write methods
+	 * which Spring's property accessors do not use in the first place.
+	 * <p>In case of several read methods for the same property, an {@code is}
+	 * method takes precedence over a {@code get} method, and a more specific
+	 * return type over a less specific one (e.g. a covariant override over its
+	 * bridge method). The parameter type of a write method needs to be the return
+	 * type of the read method or a subtype of it, with an exact match taking
+	 * precedence. Among several remaining overloaded write methods, the choice
+	 * is made by parameter type name, whereas the {@code Introspector} picks an
+	 * arbitrary one.
+	 * @param beanClass the target class to introspect
+	 * @return a collection of property descriptors, in the alphabetical order
+	 * of their names
+	 * @since 5.1.21
+	 * @see SimpleBeanInfoFactory
+	 */
+	public static Collection<PropertyDescriptor> determineBasicProperties(Class<?> beanClass) {
+		Map<String, Method> readMethods = new TreeMap<>();
+		Map<String, List<Method>> writeMethods = new LinkedHashMap<>();
+		for (Method method : beanClass.getMethods()) {
+			String methodName = method.getName();
+			int nParams = method.getParameterCount();
+			if (nParams == 0 && !Modifier.isStatic(method.getModifiers())) {
+				String propertyName;
+				if (methodName.startsWith("get") && method.getReturnType() != void.class) {
+					propertyName = Introspector.decapitalize(methodName.substring(3));
+				}
+				else if (methodName.startsWith("is") && method.getReturnType() == boolean.class) {
+					propertyName = Introspector.decapitalize(methodName.substring(2));
+				}
+				else {
+					continue;
+				}
+				if (!propertyName.isEmpty()) {
+					readMethods.merge(propertyName, method, PropertyDescriptorUtils::chooseReadMethod);
+				}
+			}
+			else if (nParams == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+				String propertyName = Introspector.decapitalize(methodName.substring(3));
+				writeMethods.computeIfAbsent(propertyName, key -> new ArrayList<>(1)).add(method);
+			}
+		}
+		for (String propertyName : writeMethods.keySet()) {
+			readMethods.putIfAbsent(propertyName, null);
+		}
+
+		List<PropertyDescriptor> pds = new ArrayList<>(readMethods.size());
+		for (Map.Entry<String, Method> entry : readMethods.entrySet()) {
+			String propertyName = entry.getKey();
+			Method readMethod = entry.getValue();
+			List<Method> candidates = writeMethods.get(propertyName);
+			Method writeMethod = (candidates != null ? chooseWriteMethod(readMethod, candidates) : null);
+			if (readMethod == null && writeMethod == null) {
+				continue;
+			}
+			try {
+				pds.add(new ExtendedBeanInfo.SimplePropertyDescriptor(propertyName, readMethod, writeMethod));
+			}
+			catch (IntrospectionException ex) {
+				// Probably simply a method that wasn't meant to follow the JavaBeans pattern...
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring invalid bean property '" + propertyName + "': " + ex.getMessage());
+				}
+			}
+		}
+		return pds;
+	}
+
+	private static Method chooseReadMethod(Method existing, Method candidate) {
+		boolean existingIs = existing.getName().startsWith("is");
+		boolean candidateIs = candidate.getName().startsWith("is");
+		if (existingIs != candidateIs) {
+			// Same as the JavaBeans Introspector: an "is" method takes precedence
+			return (existingIs ? existing : candidate);
+		}
+		if (existing.getReturnType() != candidate.getReturnType()) {
+			return (existing.getReturnType().isAssignableFrom(candidate.getReturnType()) ? candidate : existing);
+		}
+		return (existing.isBridge() ? candidate : existing);
+	}
+
+	@Nullable
+	private static Method chooseWriteMethod(@Nullable Method readMethod, List<Method> candidates) {
+		Class<?> propertyType = (readMethod != null ? readMethod.getReturnType() : null);
+		Method match = null;
+		for (Method candidate : candidates) {
+			Class<?> paramType = candidate.getParameterTypes()[0];
+			if (paramType == propertyType) {
+				return candidate;
+			}
+			if ((propertyType == null || propertyType.isAssignableFrom(paramType)) &&
+					(match == null || WRITE_METHOD_ORDER.compare(candidate, match) < 0)) {
+				match = candidate;
+			}
+		}
+		return match;
+	}
+
+
 	/**
 	 * See {@link java.beans.FeatureDescriptor}.
 	 */
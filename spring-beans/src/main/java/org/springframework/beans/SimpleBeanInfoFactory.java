@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.BeanDescriptor;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.beans.SimpleBeanInfo;
+import java.util.Collection;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link BeanInfoFactory} implementation that determines the JavaBeans
+ * properties of bean classes from their public methods directly, without
+ * going through the JavaBeans {@link java.beans.Introspector}.
+ *
+ * <p>Only active if the {@link CachedIntrospectionResults#IGNORE_INTROSPECTOR_PROPERTY_NAME}
+ * system property has been set to "true". The resulting {@code BeanInfo}
+ * covers the same basic properties as {@link ExtendedBeanInfoFactory}, including
+ * non-void returning write methods, but no indexed properties, method or event
+ * descriptors, and no customizations through explicit {@code BeanInfo} classes.
+ *
+ * <p>Ordered right before {@link ExtendedBeanInfoFactory}, allowing other
+ * user-defined {@link BeanInfoFactory} types to take precedence.
+ *
+ * @since 5.1.21
+ * @see PropertyDescriptorUtils#determineBasicProperties
+ * @see CachedIntrospectionResults
+ */
+public class SimpleBeanInfoFactory implements BeanInfoFactory, Ordered {
+
+	private static final boolean shouldIgnoreIntrospector =
+			SpringProperties.getFlag(CachedIntrospectionResults.IGNORE_INTROSPECTOR_PROPERTY_NAME);
+
+
+	/**
+	 * Return a {@code BeanInfo} with the basic properties of the given
+	 * bean class, if the JavaBeans {@code Introspector} is to be ignored.
+	 */
+	@Override
+	@Nullable
+	public BeanInfo getBeanInfo(Class<?> beanClass) throws IntrospectionException {
+		if (!shouldIgnoreIntrospector) {
+			return null;
+		}
+		Collection<PropertyDescriptor> pds = PropertyDescriptorUtils.determineBasicProperties(beanClass);
+		return new SimpleBeanInfo() {
+			@Override
+			public BeanDescriptor getBeanDescriptor() {
+				return new BeanDescriptor(beanClass);
+			}
+			@Override
+			public PropertyDescriptor[] getPropertyDescriptors() {
+				return pds.toArray(new PropertyDescriptor[0]);
+			}
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE - 1;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.springframework.core.CollectionFactory;
 import org.springframework.core.convert.ConversionFailedException;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.core.convert.support.ConversionPlan;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.NumberUtils;
@@ -123,10 +124,11 @@ class TypeConverterDelegate {
 		// No custom editor but custom ConversionService specified?
 		ConversionService conversionService = this.propertyEditorRegistry.getConversionService();
 		if (editor == null && conversionService != null && newValue != null && typeDescriptor != null) {
-			TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
-			if (conversionService.canConvert(sourceTypeDesc, typeDescriptor)) {
+			ConversionPlan conversionPlan =
+					ConversionPlan.forTypes(conversionService, TypeDescriptor.forObject(newValue), typeDescriptor);
+			if (conversionPlan.isConvertible()) {
 				try {
-					return (T) conversionService.convert(newValue, sourceTypeDesc, typeDescriptor);
+					return (T) conversionPlan.convert(newValue);
 				}
 				catch (ConversionFailedException ex) {
 					// fallback to default conversion logic below
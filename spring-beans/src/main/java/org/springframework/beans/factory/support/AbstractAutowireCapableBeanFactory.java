@@ -76,6 +76,7 @@ import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.core.PriorityOrdered;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -2027,8 +2028,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 
 		Object wrappedBean = bean;
 		if (mbd == null || !mbd.isSynthetic()) {
-			// 在初始化前应用 BeanPostProcessor的postProcessBeforeInitialization 方法，允许对 bean 实例进行包装
-			wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			StartupStep postProcess = getApplicationStartup()
+					.start("spring.beans.post-process.before-initialization").tag("beanName", beanName);
+			try {
+				// 在初始化前应用 BeanPostProcessor的postProcessBeforeInitialization 方法，允许对 bean 实例进行包装
+				wrappedBean = applyBeanPostProcessorsBeforeInitialization(wrappedBean, beanName);
+			}
+			finally {
+				postProcess.end();
+			}
 		}
 
 		try {
@@ -2043,8 +2051,15 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 					beanName, "Invocation of init method failed", ex);
 		}
 		if (mbd == null || !mbd.isSynthetic()) {
-			// 在初始化后应用 BeanPostProcessor的postProcessAfterInitialization 方法，允许对 bean实例进行包装
-			wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			StartupStep postProcess = getApplicationStartup()
+					.start("spring.beans.post-process.after-initialization").tag("beanName", beanName);
+			try {
+				// 在初始化后应用 BeanPostProcessor的postProcessAfterInitialization 方法，允许对 bean实例进行包装
+				wrappedBean = applyBeanPostProcessorsAfterInitialization(wrappedBean, beanName);
+			}
+			finally {
+				postProcess.end();
+			}
 		}
 		// 返回wrappedBean
 		return wrappedBean;
@@ -2138,6 +2153,31 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 		// 拿到初始化方法的方法名
 		String initMethodName = mbd.getInitMethodName();
 		Assert.state(initMethodName != null, "No init method set");
+		// Reuse the init method resolved for a previous instance of the same bean class
+		boolean cacheable = (mbd.hasBeanClass() && bean.getClass() == mbd.getBeanClass());
+		Method methodToInvoke = (cacheable ? mbd.resolvedInitMethod : null);
+		if (methodToInvoke == null || !methodToInvoke.getName().equals(initMethodName)) {
+			methodToInvoke = resolveCustomInitMethod(beanName, bean, mbd, initMethodName);
+			if (methodToInvoke == null) {
+				return;
+			}
+			if (cacheable) {
+				mbd.resolvedInitMethod = methodToInvoke;
+			}
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Invoking init method  '" + initMethodName + "' on bean with name '" + beanName + "'");
+		}
+		invokeCustomInitMethod(bean, methodToInvoke);
+	}
+
+	/**
+	 * Resolve the specified custom init method on the given bean,
+	 * or return {@code null} if a non-enforced init method does not exist.
+	 */
+	@Nullable
+	private Method resolveCustomInitMethod(String beanName, Object bean, RootBeanDefinition mbd, String initMethodName) {
 		// 根据方法名拿到方法
 		Method initMethod = (mbd.isNonPublicAccessAllowed() ?
 				BeanUtils.findMethod(bean.getClass(), initMethodName) :
@@ -2156,15 +2196,16 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
 				}
 				// Ignore non-existent default lifecycle methods.
 				// 如果设置了非强制，找不到则直接返回
-				return;
+				return null;
 			}
 		}
+		return ClassUtils.getInterfaceMethodIfPossible(initMethod);
+	}
 
-		if (logger.isTraceEnabled()) {
-			logger.trace("Invoking init method  '" + initMethodName + "' on bean with name '" + beanName + "'");
-		}
-		Method methodToInvoke = ClassUtils.getInterfaceMethodIfPossible(initMethod);
-
+	/**
+	 * Invoke the given resolved init method on the given bean.
+	 */
+	private void invokeCustomInitMethod(Object bean, Method methodToInvoke) throws Throwable {
 		// 调用初始化方法
 		if (System.getSecurityManager() != null) {
 			AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
@@ -69,6 +69,8 @@ import org.springframework.core.DecoratingClassLoader;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -163,6 +165,9 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 	@Nullable
 	private SecurityContextProvider securityContextProvider;
 
+	/** Application startup metrics. */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 	/** Map from bean name to merged RootBeanDefinition. */
 	private final Map<String, RootBeanDefinition> mergedBeanDefinitions = new ConcurrentHashMap<>(256);
 
@@ -309,7 +314,12 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				markBeanAsCreated(beanName);
 			}
 
+			StartupStep beanCreation = this.applicationStartup.start("spring.beans.instantiate")
+					.tag("beanName", name);
 			try {
+				if (requiredType != null) {
+					beanCreation.tag("beanType", requiredType::toString);
+				}
 				// 将存储 XML 配置文件的 GenericBeanDefinition 转换 RootBeanDefinition 如果指定
 				// BeanName 是子 Bean 的话同时会合并父类的相关属性
 				// 根据 beanName 重新获取 MergedBeanDefinition（在上文markBeanAsCreated(beanName) 中将 MergedBeanDefinition 删除了，这边获取一个新的）
@@ -466,10 +476,15 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 				}
 			}
 			catch (BeansException ex) {
+				beanCreation.tag("exception", ex.getClass().toString());
+				beanCreation.tag("message", String.valueOf(ex.getMessage()));
 				// 如果创建bean实例过程中出现异常，则将beanName从alreadyCreated缓存中移除
 				cleanupAfterBeanCreationFailure(beanName);
 				throw ex;
 			}
+			finally {
+				beanCreation.end();
+			}
 		}
 		// 检查需要的类型是否符合 bean 的实际类型
 		// Check if required type matches the type of the actual bean instance.
@@ -1052,6 +1067,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		return this.scopes.get(scopeName);
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "applicationStartup should not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	/**
 	 * Set the security context provider for this bean factory. If a security manager
 	 * is set, interaction with the user code will be executed using the privileged
@@ -1079,6 +1105,7 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		setCacheBeanMetadata(otherFactory.isCacheBeanMetadata());
 		setBeanExpressionResolver(otherFactory.getBeanExpressionResolver());
 		setConversionService(otherFactory.getConversionService());
+		setApplicationStartup(otherFactory.getApplicationStartup());
 		if (otherFactory instanceof AbstractBeanFactory) {
 			AbstractBeanFactory otherAbstractFactory = (AbstractBeanFactory) otherFactory;
 			this.propertyEditorRegistrars.addAll(otherAbstractFactory.propertyEditorRegistrars);
@@ -1538,6 +1565,41 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
 		this.mergedBeanDefinitions.remove(beanName);
 	}
 
+	/**
+	 * Replace the cached merged bean definition for the specified singleton
+	 * with a {@link CompactRootBeanDefinition}, releasing the metadata that
+	 * is only needed for creating the bean.
+	 * @param beanName the name of a fully created singleton
+	 * @return whether the merged bean definition has been replaced
+	 * @since 5.1.21
+	 */
+	boolean compactMergedBeanDefinition(String beanName) {
+		synchronized (this.mergedBeanDefinitions) {
+			RootBeanDefinition mbd = this.mergedBeanDefinitions.get(beanName);
+			if (mbd == null || mbd instanceof CompactRootBeanDefinition || !mbd.isSingleton()) {
+				return false;
+			}
+			this.mergedBeanDefinitions.put(beanName, new CompactRootBeanDefinition(mbd));
+			return true;
+		}
+	}
+
+	/**
+	 * Remove the compact merged bean definition for the specified bean, if any,
+	 * recreating the full merged bean definition on next access.
+	 * @param beanName the name of the bean, or {@code null} for all beans
+	 * @return whether any merged bean definition has been removed
+	 * @since 5.1.21
+	 * @see #compactMergedBeanDefinition
+	 */
+	boolean clearCompactMergedBeanDefinitions(@Nullable String beanName) {
+		if (beanName == null) {
+			return this.mergedBeanDefinitions.values().removeIf(mbd -> mbd instanceof CompactRootBeanDefinition);
+		}
+		RootBeanDefinition mbd = this.mergedBeanDefinitions.get(beanName);
+		return (mbd instanceof CompactRootBeanDefinition && this.mergedBeanDefinitions.remove(beanName, mbd));
+	}
+
 	/**
 	 * Clear the merged bean definition cache, removing entries for beans
 	 * which are not considered eligible for full metadata caching yet.
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+/**
+ * Compact variant of a merged {@link RootBeanDefinition} for a singleton that
+ * has been fully created in a frozen bean factory configuration.
+ *
+ * <p>Retains the metadata that is still consulted at runtime: bean class and
+ * resolved target types, scope and flags, factory bean and factory method
+ * (including the resolved constructor or factory method), qualifiers and
+ * attributes for autowire candidate checks, and init and destroy method names.
+ * Constructor argument values, property values, resolved constructor arguments
+ * and externally managed members, which are only needed for creating the bean,
+ * are released.
+ *
+ * @since 5.1.21
+ * @see DefaultListableBeanFactory#setCompactFrozenBeanDefinitions
+ */
+@SuppressWarnings("serial")
+final class CompactRootBeanDefinition extends RootBeanDefinition {
+
+	/**
+	 * Create a compact copy of the given merged bean definition.
+	 * @param original the merged bean definition of a fully created singleton
+	 */
+	CompactRootBeanDefinition(RootBeanDefinition original) {
+		super();
+		if (original.hasBeanClass()) {
+			setBeanClass(original.getBeanClass());
+		}
+		else {
+			setBeanClassName(original.getBeanClassName());
+		}
+		setScope(original.getScope());
+		setAbstract(original.isAbstract());
+		setLazyInit(original.isLazyInit());
+		setAutowireMode(original.getAutowireMode());
+		setDependencyCheck(original.getDependencyCheck());
+		setDependsOn(original.getDependsOn());
+		setAutowireCandidate(original.isAutowireCandidate());
+		setPrimary(original.isPrimary());
+		copyQualifiersFrom(original);
+		setInstanceSupplier(original.getInstanceSupplier());
+		setNonPublicAccessAllowed(original.isNonPublicAccessAllowed());
+		setLenientConstructorResolution(original.isLenientConstructorResolution());
+		setFactoryBeanName(original.getFactoryBeanName());
+		setFactoryMethodName(original.getFactoryMethodName());
+		// Shared rather than copied: rare, and relevant for the type of the bean instance
+		setMethodOverrides(original.getMethodOverrides());
+		setInitMethodName(original.getInitMethodName());
+		setEnforceInitMethod(original.isEnforceInitMethod());
+		setDestroyMethodName(original.getDestroyMethodName());
+		setEnforceDestroyMethod(original.isEnforceDestroyMethod());
+		setSynthetic(original.isSynthetic());
+		setRole(original.getRole());
+		setDescription(original.getDescription());
+		setResource(original.getResource());
+		setSource(original.getSource());
+		copyAttributesFrom(original);
+
+		setDecoratedDefinition(original.getDecoratedDefinition());
+		setQualifiedElement(original.getQualifiedElement());
+		this.allowCaching = original.allowCaching;
+		this.isFactoryMethodUnique = original.isFactoryMethodUnique;
+		this.targetType = original.targetType;
+		this.resolvedTargetType = original.resolvedTargetType;
+		this.factoryMethodReturnType = original.factoryMethodReturnType;
+		this.factoryMethodToIntrospect = original.factoryMethodToIntrospect;
+		synchronized (original.constructorArgumentLock) {
+			this.resolvedConstructorOrFactoryMethod = original.resolvedConstructorOrFactoryMethod;
+		}
+		this.postProcessed = true;
+		this.beforeInstantiationResolved = original.beforeInstantiationResolved;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,11 +43,13 @@ import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.InjectionPoint;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
 import org.springframework.beans.factory.UnsatisfiedDependencyException;
 import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
 import org.springframework.beans.factory.config.DependencyDescriptor;
@@ -929,6 +931,11 @@ class ConstructorResolver {
 
 	/**
 	 * Resolve the prepared arguments stored in the given bean definition.
+	 * <p>On first resolution, i.e. when creating a further instance of the bean
+	 * after its first successful creation, the resolved method parameters get
+	 * cached along with the prepared arguments, and autowired arguments that
+	 * resolved to a single bean are replaced with a shortcut to that bean
+	 * once the bean factory's configuration has been frozen.
 	 */
 	private Object[] resolvePreparedArguments(String beanName, RootBeanDefinition mbd, BeanWrapper bw,
 			Executable executable, Object[] argsToResolve, boolean fallback) {
@@ -939,13 +946,46 @@ class ConstructorResolver {
 				new BeanDefinitionValueResolver(this.beanFactory, beanName, mbd, converter);
 		Class<?>[] paramTypes = executable.getParameterTypes();
 
+		MethodParameter[] methodParams;
+		synchronized (mbd.constructorArgumentLock) {
+			methodParams = (mbd.preparedConstructorArguments == argsToResolve ?
+					mbd.preparedConstructorParameters : null);
+		}
+		Object[] argsToCache = null;
+		if (methodParams == null) {
+			methodParams = new MethodParameter[argsToResolve.length];
+			for (int argIndex = 0; argIndex < argsToResolve.length; argIndex++) {
+				MethodParameter methodParam = MethodParameter.forExecutable(executable, argIndex);
+				GenericTypeResolver.resolveParameterType(methodParam, executable.getDeclaringClass());
+				methodParams[argIndex] = methodParam;
+			}
+			argsToCache = argsToResolve.clone();
+		}
+		boolean shortcutAutowiredArguments = (argsToCache != null &&
+				this.beanFactory instanceof ConfigurableListableBeanFactory &&
+				((ConfigurableListableBeanFactory) this.beanFactory).isConfigurationFrozen());
+
 		Object[] resolvedArgs = new Object[argsToResolve.length];
 		for (int argIndex = 0; argIndex < argsToResolve.length; argIndex++) {
 			Object argValue = argsToResolve[argIndex];
-			MethodParameter methodParam = MethodParameter.forExecutable(executable, argIndex);
-			GenericTypeResolver.resolveParameterType(methodParam, executable.getDeclaringClass());
+			MethodParameter methodParam = methodParams[argIndex];
 			if (argValue instanceof AutowiredArgumentMarker) {
-				argValue = resolveAutowiredArgument(methodParam, beanName, null, converter, fallback);
+				// Resolve against a copy: dependency resolution may adapt the parameter's nesting level
+				Set<String> autowiredBeanNames = (shortcutAutowiredArguments ? new LinkedHashSet<>(1) : null);
+				argValue = resolveAutowiredArgument(
+						new MethodParameter(methodParam), beanName, autowiredBeanNames, converter, fallback);
+				if (autowiredBeanNames != null && autowiredBeanNames.size() == 1) {
+					String autowiredBeanName = autowiredBeanNames.iterator().next();
+					Class<?> paramType = methodParam.getParameterType();
+					if (this.beanFactory.containsBean(autowiredBeanName) &&
+							this.beanFactory.isTypeMatch(autowiredBeanName, paramType)) {
+						argsToCache[argIndex] = new ShortcutDependencyDescriptor(
+								new DependencyDescriptor(methodParam, true), autowiredBeanName, paramType);
+					}
+				}
+			}
+			else if (argValue instanceof ShortcutDependencyDescriptor) {
+				argValue = this.beanFactory.resolveDependency((DependencyDescriptor) argValue, beanName, null, converter);
 			}
 			else if (argValue instanceof BeanMetadataElement) {
 				argValue = valueResolver.resolveValueIfNecessary("constructor argument", argValue);
@@ -964,6 +1004,15 @@ class ConstructorResolver {
 						"] to required type [" + paramType.getName() + "]: " + ex.getMessage());
 			}
 		}
+
+		if (argsToCache != null) {
+			synchronized (mbd.constructorArgumentLock) {
+				if (mbd.preparedConstructorArguments == argsToResolve) {
+					mbd.preparedConstructorArguments = argsToCache;
+					mbd.preparedConstructorParameters = methodParams;
+				}
+			}
+		}
 		return resolvedArgs;
 	}
 
@@ -1098,6 +1147,7 @@ class ConstructorResolver {
 				if (this.resolveNecessary) {
 					// 如果参数需要解析，则将preparedArguments放到preparedConstructorArguments缓存
 					mbd.preparedConstructorArguments = this.preparedArguments;
+					mbd.preparedConstructorParameters = null;
 				}
 				else {
 					// 如果参数不需要解析，则将arguments放到resolvedConstructorArguments缓存
@@ -1115,6 +1165,30 @@ class ConstructorResolver {
 	}
 
 
+	/**
+	 * DependencyDescriptor variant with a pre-resolved target bean name,
+	 * replacing an autowired argument in a cached argument array.
+	 */
+	@SuppressWarnings("serial")
+	private static class ShortcutDependencyDescriptor extends DependencyDescriptor {
+
+		private final String shortcut;
+
+		private final Class<?> requiredType;
+
+		public ShortcutDependencyDescriptor(DependencyDescriptor original, String shortcut, Class<?> requiredType) {
+			super(original);
+			this.shortcut = shortcut;
+			this.requiredType = requiredType;
+		}
+
+		@Override
+		public Object resolveShortcut(BeanFactory beanFactory) {
+			return beanFactory.getBean(this.shortcut, this.requiredType);
+		}
+	}
+
+
 	/**
 	 * Delegate for checking Java 6's {@link ConstructorProperties} annotation.
 	 */
@@ -29,8 +29,11 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -72,15 +75,21 @@ import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CompositeIterator;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -119,6 +128,34 @@ import org.springframework.util.StringUtils;
 public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFactory
 		implements ConfigurableListableBeanFactory, BeanDefinitionRegistry, Serializable {
 
+	/**
+	 * System property that specifies the default number of threads to use for
+	 * pre-instantiating singletons: {@code "spring.beans.preInstantiation.parallelism"}.
+	 * <p>Can also be set via the {@link org.springframework.core.SpringProperties}
+	 * mechanism. Not set by default, i.e. singletons are pre-instantiated one
+	 * after the other in registration order.
+	 * @since 5.1.21
+	 * @see #setPreInstantiationParallelism
+	 */
+	public static final String PRE_INSTANTIATION_PARALLELISM_PROPERTY_NAME =
+			"spring.beans.preInstantiation.parallelism";
+
+	/**
+	 * System property that instructs Spring to compact the merged bean definitions
+	 * of created singletons once the configuration has been frozen:
+	 * {@code "spring.beans.compactFrozenBeanDefinitions"}.
+	 * <p>Can also be set via the {@link org.springframework.core.SpringProperties}
+	 * mechanism. Not set by default, i.e. merged bean definitions are retained as-is.
+	 * @since 5.1.21
+	 * @see #setCompactFrozenBeanDefinitions
+	 */
+	public static final String COMPACT_FROZEN_BEAN_DEFINITIONS_PROPERTY_NAME =
+			"spring.beans.compactFrozenBeanDefinitions";
+
+	private static final boolean shouldCompactFrozenBeanDefinitions =
+			SpringProperties.getFlag(COMPACT_FROZEN_BEAN_DEFINITIONS_PROPERTY_NAME);
+
+
 	@Nullable
 	private static Class<?> javaxInjectProviderClass;
 
@@ -138,6 +175,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories =
 			new ConcurrentHashMap<>(8);
 
+	/** Cache of post-processor types, indicating whether they override {@code predictBeanType}. */
+	private static final Map<Class<?>, Boolean> typePredictingPostProcessorTypes =
+			new ConcurrentReferenceHashMap<>(16);
+
 	/** Optional id for this factory, for serialization purposes. */
 	@Nullable
 	private String serializationId;
@@ -155,6 +196,16 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Resolver to use for checking if a bean definition is an autowire candidate. */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
+	/** Number of threads to use for pre-instantiating singletons. */
+	private int preInstantiationParallelism = getDefaultPreInstantiationParallelism();
+
+	/** Optional callback for the critical path of parallel pre-instantiation. */
+	@Nullable
+	private Consumer<PreInstantiationCriticalPath> preInstantiationCriticalPathCallback;
+
+	/** Whether to compact the merged bean definitions of created singletons once frozen. */
+	private boolean compactFrozenBeanDefinitions = shouldCompactFrozenBeanDefinitions;
+
 	/** Map from dependency type to corresponding autowired value. */
 	// 赋值时机：org/springframework/context/support/AbstractApplicationContext.java:prepareBeanFactory():760
 	private final Map<Class<?>, Object> resolvableDependencies = new ConcurrentHashMap<>(16);
@@ -185,6 +236,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether bean definition metadata may be cached for all beans. */
 	private volatile boolean configurationFrozen;
 
+	/** Index of bean definition names by type, in sync with the merged bean definitions. */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex;
+
 
 	/**
 	 * Create a new DefaultListableBeanFactory.
@@ -320,6 +375,94 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.autowireCandidateResolver;
 	}
 
+	/**
+	 * Set the number of threads to use for pre-instantiating singletons.
+	 * <p>Default is 1, unless specified otherwise through the
+	 * {@link #PRE_INSTANTIATION_PARALLELISM_PROPERTY_NAME} property: singletons
+	 * are instantiated one after the other, in registration order. A higher value
+	 * instantiates independent singletons concurrently, in the order of a
+	 * dependency graph derived from the bean definitions: their {@code dependsOn}
+	 * declarations, bean references in constructor arguments and property values,
+	 * factory bean references, and the types of potential injection points.
+	 * Any other dependencies are resolved on demand, with a singleton that is
+	 * already in creation by another thread being awaited rather than created twice.
+	 * <p>Circular references within the graph are created by the same thread,
+	 * and {@link SmartInitializingSingleton} callbacks are triggered in
+	 * registration order once all singletons have been created, as usual.
+	 * Only turn this on for bean classes whose constructors, setters and
+	 * initialization callbacks may run concurrently with those of other beans.
+	 * @since 5.1.21
+	 * @see #preInstantiateSingletons()
+	 * @see #setPreInstantiationCriticalPathCallback
+	 */
+	public void setPreInstantiationParallelism(int preInstantiationParallelism) {
+		this.preInstantiationParallelism = preInstantiationParallelism;
+	}
+
+	/**
+	 * Return the number of threads to use for pre-instantiating singletons.
+	 * @since 5.1.21
+	 */
+	public int getPreInstantiationParallelism() {
+		return this.preInstantiationParallelism;
+	}
+
+	/**
+	 * Set a callback to receive the critical path of each parallel
+	 * pre-instantiation, i.e. the chain of dependent singletons that
+	 * determined its overall duration.
+	 * <p>The critical path is also logged at debug level.
+	 * @since 5.1.21
+	 * @see #setPreInstantiationParallelism
+	 */
+	public void setPreInstantiationCriticalPathCallback(
+			@Nullable Consumer<PreInstantiationCriticalPath> preInstantiationCriticalPathCallback) {
+
+		this.preInstantiationCriticalPathCallback = preInstantiationCriticalPathCallback;
+	}
+
+	/**
+	 * Set whether to compact the merged bean definitions of singletons once they
+	 * have been fully created in a frozen configuration, releasing the constructor
+	 * argument values, property values and resolved constructor arguments that are
+	 * only needed for creating the bean. This reduces the heap retained after
+	 * startup in case of large numbers of bean definitions.
+	 * <p>Default is "false", unless specified otherwise through the
+	 * {@link #COMPACT_FROZEN_BEAN_DEFINITIONS_PROPERTY_NAME} property. Note that
+	 * {@link #getMergedBeanDefinition} returns the compact definition for such
+	 * singletons, whereas {@link #getBeanDefinition} keeps returning the original
+	 * bean definition. Prototype and scoped beans are not affected, and the full
+	 * merged bean definition gets recreated if a singleton is destroyed.
+	 * @since 5.1.21
+	 * @see #freezeConfiguration()
+	 */
+	public void setCompactFrozenBeanDefinitions(boolean compactFrozenBeanDefinitions) {
+		this.compactFrozenBeanDefinitions = compactFrozenBeanDefinitions;
+	}
+
+	/**
+	 * Return whether to compact the merged bean definitions of created singletons
+	 * once the configuration has been frozen.
+	 * @since 5.1.21
+	 */
+	public boolean isCompactFrozenBeanDefinitions() {
+		return this.compactFrozenBeanDefinitions;
+	}
+
+	private static int getDefaultPreInstantiationParallelism() {
+		String parallelism = SpringProperties.getProperty(PRE_INSTANTIATION_PARALLELISM_PROPERTY_NAME);
+		if (!StringUtils.hasText(parallelism)) {
+			return 1;
+		}
+		try {
+			return Integer.parseInt(parallelism.trim());
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalStateException("Invalid value for property '" +
+					PRE_INSTANTIATION_PARALLELISM_PROPERTY_NAME + "': " + parallelism, ex);
+		}
+	}
+
 
 	@Override
 	public void copyConfigurationFrom(ConfigurableBeanFactory otherFactory) {
@@ -329,6 +472,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.preInstantiationParallelism = otherListableFactory.preInstantiationParallelism;
+			this.preInstantiationCriticalPathCallback = otherListableFactory.preInstantiationCriticalPathCallback;
+			this.compactFrozenBeanDefinitions = otherListableFactory.compactFrozenBeanDefinitions;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
 					BeanUtils.instantiateClass(otherListableFactory.getAutowireCandidateResolver().getClass()));
@@ -512,8 +658,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions, or the candidates from the type index if available.
+		for (String beanName : getBeanDefinitionNamesToMatch(type)) {
 			// Only consider bean as eligible if the bean name is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
 				try {
@@ -598,6 +744,163 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine the names of the bean definitions to check against the given type.
+	 * <p>This is narrowed down to the beans that may match the raw type, in
+	 * registration order: beans whose type is determined by their bean class alone
+	 * are indexed by all of their supertypes, whereas beans with factory methods,
+	 * instance suppliers, {@code FactoryBean} classes, types predicted differently
+	 * by a post-processor etc are considered as candidates for any type.
+	 * <p>The index is kept in sync with the merged bean definitions: entries are
+	 * refreshed once their merged bean definition has been cleared, e.g. when
+	 * the bean gets created after a {@code BeanFactoryPostProcessor} changed
+	 * its bean class, and the index is rebuilt after the metadata cache has
+	 * been cleared or a type-predicting post-processor has been added.
+	 * @param type the type to match
+	 * @return the bean definition names to check
+	 * @since 5.1.21
+	 */
+	private List<String> getBeanDefinitionNamesToMatch(ResolvableType type) {
+		Class<?> rawType = type.resolve();
+		if (rawType == null || getTempClassLoader() != null) {
+			return this.beanDefinitionNames;
+		}
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index == null) {
+			index = buildBeanTypeIndex();
+			if (index == null) {
+				return this.beanDefinitionNames;
+			}
+		}
+		else {
+			refreshBeanTypeIndex(index);
+		}
+		return index.getCandidateNames(rawType);
+	}
+
+	/**
+	 * Build the type index for the current bean definitions,
+	 * resolving their bean classes where necessary.
+	 * @return the index, or {@code null} if the bean definitions have
+	 * been modified in the meantime
+	 */
+	@Nullable
+	private BeanTypeIndex buildBeanTypeIndex() {
+		List<String> beanNames = this.beanDefinitionNames;
+		BeanTypeIndex index = new BeanTypeIndex(beanNames.size());
+		for (String beanName : beanNames) {
+			index.add(beanName, determineIndexableType(beanName));
+		}
+		synchronized (this.beanDefinitionMap) {
+			if (beanNames != this.beanDefinitionNames || beanNames.size() != index.size()) {
+				return null;
+			}
+			this.beanTypeIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Determine the indexable types of the beans whose merged bean definitions
+	 * have been cleared since they were indexed.
+	 */
+	private void refreshBeanTypeIndex(BeanTypeIndex index) {
+		BeanTypeIndex.StaleEntries staleEntries = index.getStaleEntries();
+		if (staleEntries != null) {
+			List<Class<?>> beanTypes = new ArrayList<>(staleEntries.beanNames.size());
+			for (String beanName : staleEntries.beanNames) {
+				beanTypes.add(determineIndexableType(beanName));
+			}
+			index.refresh(staleEntries, beanTypes);
+		}
+	}
+
+	/**
+	 * Determine the type that a bean of the given name can be indexed by,
+	 * i.e. its bean class if that is guaranteed to be the type of the bean
+	 * instance. A singleton instance which has been created already is checked
+	 * as well, since a post-processor may have returned a wrapped instance.
+	 * @param beanName the name of the bean
+	 * @return the bean class, or {@code null} if the bean needs to be checked
+	 * against any type
+	 */
+	@Nullable
+	private Class<?> determineIndexableType(String beanName) {
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract() || mbd.getFactoryMethodName() != null || mbd.getInstanceSupplier() != null ||
+					mbd.hasMethodOverrides() || mbd.getDecoratedDefinition() != null || mbd.targetType != null) {
+				return null;
+			}
+			Class<?> beanClass;
+			if (mbd.hasBeanClass()) {
+				beanClass = mbd.getBeanClass();
+			}
+			else if (mbd.getBeanClassName() != null &&
+					(!mbd.isLazyInit() || isAllowEagerClassLoading())) {
+				beanClass = resolveBeanClass(mbd, beanName);
+			}
+			else {
+				return null;
+			}
+			if (beanClass == null || FactoryBean.class.isAssignableFrom(beanClass) ||
+					!isTypePredictedAsBeanClass(beanName, mbd, beanClass)) {
+				return null;
+			}
+			Object singletonInstance = getSingleton(beanName, false);
+			return (singletonInstance == null || singletonInstance.getClass() == beanClass ? beanClass : null);
+		}
+		catch (BeansException ex) {
+			// Leave it to type matching to report or ignore the failure.
+			return null;
+		}
+	}
+
+	/**
+	 * Determine whether the registered post-processors predict the given bean
+	 * class as the type of the bean, i.e. whether none of the post-processors
+	 * implementing {@link SmartInstantiationAwareBeanPostProcessor#predictBeanType}
+	 * predicts a different type. Such predictions are only relied upon for
+	 * singletons, expecting them to change once the singleton gets created,
+	 * which is when its indexed type is checked again.
+	 */
+	private boolean isTypePredictedAsBeanClass(String beanName, RootBeanDefinition mbd, Class<?> beanClass) {
+		if (mbd.isSynthetic() || !hasInstantiationAwareBeanPostProcessors()) {
+			return true;
+		}
+		for (BeanPostProcessor bp : getBeanPostProcessors()) {
+			if (isTypePredicting(bp)) {
+				if (!mbd.isSingleton()) {
+					return false;
+				}
+				Class<?> predicted = ((SmartInstantiationAwareBeanPostProcessor) bp).predictBeanType(beanClass, beanName);
+				if (predicted != null && predicted != beanClass) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Determine whether the given post-processor may predict a bean type
+	 * different from the bean class, i.e. whether it implements
+	 * {@link SmartInstantiationAwareBeanPostProcessor#predictBeanType}.
+	 */
+	private static boolean isTypePredicting(BeanPostProcessor bp) {
+		return (bp instanceof SmartInstantiationAwareBeanPostProcessor &&
+				typePredictingPostProcessorTypes.computeIfAbsent(bp.getClass(), postProcessorClass -> {
+					Method method = ReflectionUtils.findMethod(
+							postProcessorClass, "predictBeanType", Class.class, String.class);
+					if (method == null) {
+						return true;
+					}
+					Class<?> declaringClass = method.getDeclaringClass();
+					return (declaringClass != SmartInstantiationAwareBeanPostProcessor.class &&
+							declaringClass != InstantiationAwareBeanPostProcessorAdapter.class);
+				}));
+	}
+
 	/**
 	 * Check whether the specified bean would need to be eagerly initialized
 	 * in order to determine its type.
@@ -818,16 +1121,29 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return iterator;
 	}
 
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		if (isTypePredicting(beanPostProcessor)) {
+			this.beanTypeIndex = null;
+		}
+	}
+
 	@Override
 	protected void clearMergedBeanDefinition(String beanName) {
 		super.clearMergedBeanDefinition(beanName);
 		this.mergedBeanDefinitionHolders.remove(beanName);
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index != null) {
+			index.invalidate(beanName);
+		}
 	}
 
 	@Override
 	public void clearMetadataCache() {
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
+		this.beanTypeIndex = null;
 		clearByTypeCache();
 	}
 
@@ -836,6 +1152,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// 冻结标志改为 true`
 		this.configurationFrozen = true;
 		this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
+		if (this.compactFrozenBeanDefinitions) {
+			for (String beanName : this.frozenBeanDefinitionNames) {
+				if (containsSingleton(beanName)) {
+					compactMergedBeanDefinition(beanName);
+				}
+			}
+		}
 	}
 
 	@Override
@@ -867,57 +1190,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// Trigger initialization of all non-lazy singleton beans...
 		// 翻译：触发所有非惰性单例bean的初始化...
 		// 遍历beanNames，触发所有非懒加载单例bean的初始化
-		for (String beanName : beanNames) {
-			// 获取beanName对应的MergedBeanDefinition
-			// getMergedLocalBeanDefinition 参考链接：https://blog.csdn.net/v123411739/article/details/87907784#t0
-
-			//  如果包含 parent 属性，则需要进行 merge。他不会改之前的 beanDefinition 的定义，而是新创建一个 beanDefinition
-			// 	<bean id = "test" class = "com.zsj.core.test.controller.aop.TestBean" abstract="true">
-			// 	<bean id = "test2" class = "com.zsj.core.test.controller.aop.TestBean" parent="test">
-
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-
-			// !bd.isAbstract() 代表的不是抽象类，而是抽象的 beanDefinition，例如下面
-			// 	<bean id = "test" class = "com.zsj.core.test.controller.aop.TestBean" abstract="true">
-
-			// 不是抽象的抽象的 beanDefinition、是单例、不是懒加载
-			// bd对应的Bean实例：不是抽象类 && 是单例 && 不是懒加载
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				// 判断beanName对应的bean是否为FactoryBean
-				if (isFactoryBean(beanName)) {
-					// 通过beanName获取FactoryBean实例
-					// 通过getBean(&beanName)拿到的是FactoryBean本身；通过getBean(beanName)拿到的是FactoryBean创建的Bean实例
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						FactoryBean<?> factory = (FactoryBean<?>) bean;
-						// 判断这个FactoryBean是否希望急切的初始化
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged(
-									(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-							// 等价于：
-							// isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
-							//                        @Override
-							//                        public Boolean run() {
-							//                            return ((SmartFactoryBean<?>) factory).isEagerInit();
-							//                        }
-							//                    }, getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							// 如果希望急切的初始化，则通过beanName获取bean实例
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					// 如果beanName对应的bean不是FactoryBean，只是普通Bean，通过beanName获取bean实例
-					getBean(beanName);
-				}
+		if (this.preInstantiationParallelism > 1) {
+			new ParallelSingletonPreInstantiator(this, this.preInstantiationParallelism,
+					this.preInstantiationCriticalPathCallback).preInstantiate(beanNames);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -931,19 +1210,87 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			Object singletonInstance = getSingleton(beanName);
 			// 判断singletonInstance是否实现了SmartInitializingSingleton接口
 			if (singletonInstance instanceof SmartInitializingSingleton) {
+				StartupStep smartInitialize = getApplicationStartup().start("spring.beans.smart-initialize")
+						.tag("beanName", beanName);
 				SmartInitializingSingleton smartSingleton = (SmartInitializingSingleton) singletonInstance;
-				if (System.getSecurityManager() != null) {
-					// 触发SmartInitializingSingleton实现类的afterSingletonsInstantiated方法
-					AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+				try {
+					if (System.getSecurityManager() != null) {
+						// 触发SmartInitializingSingleton实现类的afterSingletonsInstantiated方法
+						AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
+							smartSingleton.afterSingletonsInstantiated();
+							return null;
+						}, getAccessControlContext());
+					}
+					else {
+						// 触发SmartInitializingSingleton实现类的afterSingletonsInstantiated方法
 						smartSingleton.afterSingletonsInstantiated();
-						return null;
-					}, getAccessControlContext());
+					}
 				}
-				else {
-					// 触发SmartInitializingSingleton实现类的afterSingletonsInstantiated方法
-					smartSingleton.afterSingletonsInstantiated();
+				finally {
+					smartInitialize.end();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Pre-instantiate the given bean if it is a non-lazy singleton,
+	 * including the object exposed by an eager-init {@link SmartFactoryBean}.
+	 * @param beanName the name of the bean
+	 * @since 5.1.21
+	 * @see #preInstantiateSingletons()
+	 */
+	void preInstantiateSingleton(String beanName) {
+		// 获取beanName对应的MergedBeanDefinition
+		// getMergedLocalBeanDefinition 参考链接：https://blog.csdn.net/v123411739/article/details/87907784#t0
+
+		//  如果包含 parent 属性，则需要进行 merge。他不会改之前的 beanDefinition 的定义，而是新创建一个 beanDefinition
+		// 	<bean id = "test" class = "com.zsj.core.test.controller.aop.TestBean" abstract="true">
+		// 	<bean id = "test2" class = "com.zsj.core.test.controller.aop.TestBean" parent="test">
+
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+
+		// !bd.isAbstract() 代表的不是抽象类，而是抽象的 beanDefinition，例如下面
+		// 	<bean id = "test" class = "com.zsj.core.test.controller.aop.TestBean" abstract="true">
+
+		// 不是抽象的抽象的 beanDefinition、是单例、不是懒加载
+		// bd对应的Bean实例：不是抽象类 && 是单例 && 不是懒加载
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			// 判断beanName对应的bean是否为FactoryBean
+			if (isFactoryBean(beanName)) {
+				// 通过beanName获取FactoryBean实例
+				// 通过getBean(&beanName)拿到的是FactoryBean本身；通过getBean(beanName)拿到的是FactoryBean创建的Bean实例
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					FactoryBean<?> factory = (FactoryBean<?>) bean;
+					// 判断这个FactoryBean是否希望急切的初始化
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged(
+								(PrivilegedAction<Boolean>) ((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+						// 等价于：
+						// isEagerInit = AccessController.doPrivileged(new PrivilegedAction<Boolean>() {
+						//                        @Override
+						//                        public Boolean run() {
+						//                            return ((SmartFactoryBean<?>) factory).isEagerInit();
+						//                        }
+						//                    }, getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						// 如果希望急切的初始化，则通过beanName获取bean实例
+						getBean(beanName);
+					}
 				}
 			}
+			else {
+				// 如果beanName对应的bean不是FactoryBean，只是普通Bean，通过beanName获取bean实例
+				getBean(beanName);
+			}
 		}
 	}
 
@@ -1009,6 +1356,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			// 将本次传进来的beanName 和 BeanDefinition映射放入beanDefinitionMap缓存（以供后续创建bean时使用）
 			this.beanDefinitionMap.put(beanName, beanDefinition);
+			this.beanTypeIndex = null;
 		}
 		else {
 			// hasBeanCreationStarted:表示已经存在bean开始创建了（开始getBean()了吧~~~）
@@ -1049,6 +1397,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 			// 这里的意思是：但凡你新增了一个新的Bean定义信息，之前已经冻结的就清空呗~~~
 			this.frozenBeanDefinitionNames = null;
+			BeanTypeIndex index = this.beanTypeIndex;
+			if (index != null) {
+				// Determine the type on next lookup: no merging or class loading during registration
+				index.add(beanName, null);
+				index.invalidate(beanName);
+			}
 		}
 
 		// 如果存在相同beanName的BeanDefinition，并且beanName已经存在单例对象，则将该beanName对应的缓存信息、单例对象清除，
@@ -1088,6 +1442,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		this.beanTypeIndex = null;
 
 		resetBeanDefinition(beanName);
 	}
@@ -1150,11 +1505,35 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		clearByTypeCache();
 	}
 
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		BeanTypeIndex index = this.beanTypeIndex;
+		if (index != null) {
+			index.checkInstanceType(beanName, singletonObject.getClass());
+		}
+		if (this.compactFrozenBeanDefinitions && this.configurationFrozen) {
+			compactMergedBeanDefinition(beanName);
+		}
+	}
+
+	@Override
+	boolean compactMergedBeanDefinition(String beanName) {
+		if (super.compactMergedBeanDefinition(beanName)) {
+			this.mergedBeanDefinitionHolders.remove(beanName);
+			return true;
+		}
+		return false;
+	}
+
 	@Override
 	public void destroySingletons() {
 		super.destroySingletons();
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
 		clearByTypeCache();
+		if (clearCompactMergedBeanDefinitions(null)) {
+			this.mergedBeanDefinitionHolders.clear();
+		}
 	}
 
 	@Override
@@ -1162,6 +1541,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.destroySingleton(beanName);
 		removeManualSingletonName(beanName);
 		clearByTypeCache();
+		if (clearCompactMergedBeanDefinitions(beanName)) {
+			this.mergedBeanDefinitionHolders.remove(beanName);
+		}
 	}
 
 	private void removeManualSingletonName(String beanName) {
@@ -1994,6 +2376,175 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Index of bean definition names by the supertypes of their bean class,
+	 * tracking positions in registration order.
+	 */
+	private static final class BeanTypeIndex {
+
+		private final List<String> beanNames;
+
+		private final List<Class<?>> beanTypes;
+
+		private final Map<String, Integer> positions;
+
+		private final Map<Class<?>, BitSet> positionsByType = new HashMap<>(256);
+
+		private final BitSet unindexed = new BitSet();
+
+		/** Positions of beans whose merged bean definition has been cleared since indexing. */
+		private final BitSet stale = new BitSet();
+
+		private int invalidationCount;
+
+		BeanTypeIndex(int expectedSize) {
+			this.beanNames = new ArrayList<>(expectedSize);
+			this.beanTypes = new ArrayList<>(expectedSize);
+			this.positions = new HashMap<>(expectedSize * 4 / 3 + 1);
+		}
+
+		synchronized void add(String beanName, @Nullable Class<?> beanType) {
+			int position = this.beanNames.size();
+			this.beanNames.add(beanName);
+			this.beanTypes.add(beanType);
+			this.positions.put(beanName, position);
+			index(position, beanType);
+		}
+
+		private void index(int position, @Nullable Class<?> beanType) {
+			if (beanType == null) {
+				this.unindexed.set(position);
+				return;
+			}
+			for (Class<?> type : getTypeHierarchy(beanType)) {
+				this.positionsByType.computeIfAbsent(type, key -> new BitSet()).set(position);
+			}
+		}
+
+		private void unindex(int position) {
+			Class<?> beanType = this.beanTypes.get(position);
+			if (beanType == null) {
+				return;
+			}
+			for (Class<?> type : getTypeHierarchy(beanType)) {
+				BitSet positions = this.positionsByType.get(type);
+				if (positions != null) {
+					positions.clear(position);
+				}
+			}
+		}
+
+		private static Set<Class<?>> getTypeHierarchy(Class<?> beanType) {
+			Set<Class<?>> types = new HashSet<>();
+			Class<?> current = beanType;
+			while (current != null) {
+				addInterfaces(current, types);
+				current = current.getSuperclass();
+			}
+			return types;
+		}
+
+		private static void addInterfaces(Class<?> type, Set<Class<?>> types) {
+			if (types.add(type)) {
+				for (Class<?> ifc : type.getInterfaces()) {
+					addInterfaces(ifc, types);
+				}
+			}
+		}
+
+		/**
+		 * Mark the entry of the given bean as stale, considering the bean as a
+		 * candidate for any type until its entry has been refreshed.
+		 */
+		synchronized void invalidate(String beanName) {
+			Integer position = this.positions.get(beanName);
+			if (position != null) {
+				this.stale.set(position);
+				this.invalidationCount++;
+			}
+		}
+
+		/**
+		 * Return the entries to {@link #refresh}, if any.
+		 */
+		@Nullable
+		synchronized StaleEntries getStaleEntries() {
+			if (this.stale.isEmpty()) {
+				return null;
+			}
+			List<String> beanNames = new ArrayList<>(this.stale.cardinality());
+			for (int i = this.stale.nextSetBit(0); i >= 0; i = this.stale.nextSetBit(i + 1)) {
+				beanNames.add(this.beanNames.get(i));
+			}
+			return new StaleEntries(beanNames, this.invalidationCount);
+		}
+
+		/**
+		 * Replace the given stale entries with the given types, unless further
+		 * entries have been invalidated in the meantime.
+		 */
+		synchronized void refresh(StaleEntries staleEntries, List<Class<?>> beanTypes) {
+			if (staleEntries.invalidationCount != this.invalidationCount) {
+				return;
+			}
+			for (int i = 0; i < beanTypes.size(); i++) {
+				int position = this.positions.get(staleEntries.beanNames.get(i));
+				Class<?> beanType = beanTypes.get(i);
+				unindex(position);
+				this.beanTypes.set(position, beanType);
+				this.unindexed.clear(position);
+				index(position, beanType);
+				this.stale.clear(position);
+			}
+		}
+
+		/**
+		 * Check the type of the given singleton instance, which may differ from
+		 * the bean class in case of a post-processor returning a wrapped instance.
+		 */
+		synchronized void checkInstanceType(String beanName, Class<?> instanceType) {
+			Integer position = this.positions.get(beanName);
+			if (position != null && this.beanTypes.get(position) != instanceType) {
+				this.unindexed.set(position);
+			}
+		}
+
+		synchronized List<String> getCandidateNames(Class<?> type) {
+			BitSet candidates = (BitSet) this.unindexed.clone();
+			candidates.or(this.stale);
+			BitSet indexed = this.positionsByType.get(type);
+			if (indexed != null) {
+				candidates.or(indexed);
+			}
+			List<String> result = new ArrayList<>(candidates.cardinality());
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				result.add(this.beanNames.get(i));
+			}
+			return result;
+		}
+
+		synchronized int size() {
+			return this.beanNames.size();
+		}
+
+
+		/**
+		 * Snapshot of stale entries, to be refreshed outside of the index lock.
+		 */
+		static final class StaleEntries {
+
+			final List<String> beanNames;
+
+			final int invalidationCount;
+
+			StaleEntries(List<String> beanNames, int invalidationCount) {
+				this.beanNames = beanNames;
+				this.invalidationCount = invalidationCount;
+			}
+		}
+	}
+
+
 	/**
 	 * Minimal id reference to the factory.
 	 * Resolved to the actual factory instance on deserialization.
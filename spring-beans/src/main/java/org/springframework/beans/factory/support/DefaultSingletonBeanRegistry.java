@@ -98,6 +98,15 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	@Nullable
 	private Set<Exception> suppressedExceptions;
 
+	/** Whether singletons may be created by several threads concurrently. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Threads creating singletons in concurrent mode: bean name to creating thread. */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Singletons awaited in concurrent mode: waiting thread to bean name. */
+	private final Map<Thread, String> awaitedSingletons = new HashMap<>(16);
+
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	private boolean singletonsCurrentlyInDestruction = false;
 
@@ -209,6 +218,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		// 循环依赖讲解文章：https://zhuanlan.zhihu.com/p/157611040
 		// 如果单例对象缓存中没有，并且该beanName对应的单例bean正在创建中
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			if (this.concurrentSingletonCreation && !isCreationVisibleToCurrentThread(beanName)) {
+				// In creation by another thread: to be awaited rather than referenced early
+				return null;
+			}
 			// earlySingletonObjects，完成实例化，但是还未进行属性注入及初始化的对象
 			// 从早期单例对象缓存中获取单例对象（之所称成为早期单例对象，是因为earlySingletonObjects里
 			// 的对象的都是通过提前曝光的ObjectFactory创建出来的，还未进行属性填充等操作）
@@ -264,6 +277,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		// 加锁，避免重复创建单例对象
 		synchronized (this.singletonObjects) {
 			// 首先检查 beanName 对应的 bean 实例是否在缓存中存在，如果已经存在，则直接返回
@@ -331,6 +347,151 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent
+	 * creation mode: the singleton lock is only held for claiming the creation
+	 * of the singleton, with other threads requesting it waiting for its completion.
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonObjects) {
+			Object singletonObject = this.singletonObjects.get(beanName);
+			while (singletonObject == null) {
+				Thread creatingThread = this.singletonCreationThreads.get(beanName);
+				if (creatingThread == null || creatingThread == currentThread) {
+					break;
+				}
+				if (isAwaiting(creatingThread, currentThread)) {
+					// Circular reference across threads: resolvable through an early reference only
+					singletonObject = getSingleton(beanName, true);
+					if (singletonObject != null) {
+						return singletonObject;
+					}
+					throw new BeanCurrentlyInCreationException(beanName,
+							"Requested bean is currently in creation by another thread which in turn waits " +
+							"for a bean in creation by the current thread: Is there an unresolvable circular reference?");
+				}
+				this.awaitedSingletons.put(currentThread, beanName);
+				try {
+					this.singletonObjects.wait();
+				}
+				catch (InterruptedException ex) {
+					currentThread.interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for creation of singleton by another thread", ex);
+				}
+				finally {
+					this.awaitedSingletons.remove(currentThread);
+				}
+				singletonObject = this.singletonObjects.get(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, currentThread);
+		}
+
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		finally {
+			synchronized (this.singletonObjects) {
+				try {
+					afterSingletonCreation(beanName);
+					if (newSingleton) {
+						addSingleton(beanName, singletonObject);
+					}
+				}
+				finally {
+					this.singletonCreationThreads.remove(beanName);
+					this.singletonObjects.notifyAll();
+				}
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Determine whether the creation of the given singleton is visible to the
+	 * current thread in concurrent creation mode: only if created by the current
+	 * thread, or by a thread that (indirectly) waits for a singleton in creation
+	 * by the current thread, i.e. in case of a circular reference.
+	 */
+	private boolean isCreationVisibleToCurrentThread(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonObjects) {
+			Thread creatingThread = this.singletonCreationThreads.get(beanName);
+			return (creatingThread == null || creatingThread == currentThread ||
+					isAwaiting(creatingThread, currentThread));
+		}
+	}
+
+	/**
+	 * Determine whether the given thread waits for a singleton in creation by the
+	 * target thread, either directly or through a chain of waiting threads.
+	 * <p>To be called within the singleton lock.
+	 */
+	private boolean isAwaiting(Thread thread, Thread targetThread) {
+		Thread current = thread;
+		for (int i = 0; i <= this.awaitedSingletons.size(); i++) {
+			String awaitedSingleton = this.awaitedSingletons.get(current);
+			if (awaitedSingleton == null) {
+				return false;
+			}
+			current = this.singletonCreationThreads.get(awaitedSingleton);
+			if (current == null) {
+				return false;
+			}
+			if (current == targetThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Specify whether singletons may be created by several threads concurrently.
+	 * <p>In concurrent mode, a singleton requested while in creation by another
+	 * thread is awaited rather than exposed as early reference, unless that
+	 * thread in turn waits for the requesting thread (a circular reference).
+	 * Otherwise, the singleton lock is held for the entire creation of a singleton.
+	 * <p>Only to be switched while no singletons are in creation.
+	 * @since 5.1.21
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		synchronized (this.singletonObjects) {
+			this.concurrentSingletonCreation = concurrentSingletonCreation;
+		}
+	}
+
+	/**
+	 * Return whether singletons may be created by several threads concurrently.
+	 * @since 5.1.21
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -393,9 +554,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Return whether the specified bean is currently in creation.
+	 * <p>In {@linkplain #setConcurrentSingletonCreation concurrent creation mode},
+	 * a singleton in creation by another thread only counts if that thread
+	 * (indirectly) waits for the current thread; otherwise the singleton is
+	 * to be awaited rather than treated as a circular reference.
+	 * @param beanName the name of the bean
+	 */
 	public boolean isCurrentlyInCreation(String beanName) {
 		Assert.notNull(beanName, "Bean name must not be null");
-		return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName));
+		return (!this.inCreationCheckExclusions.contains(beanName) && isActuallyInCreation(beanName) &&
+				(!this.concurrentSingletonCreation || isCreationVisibleToCurrentThread(beanName)));
 	}
 
 	protected boolean isActuallyInCreation(String beanName) {
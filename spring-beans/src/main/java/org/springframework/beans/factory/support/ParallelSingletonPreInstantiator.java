@@ -0,0 +1,672 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.ResolvableType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Delegate for pre-instantiating the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory} on several threads.
+ *
+ * <p>Derives a dependency graph from the bean definitions: {@code dependsOn}
+ * declarations, factory bean references, bean references in constructor
+ * arguments and property values (including inner bean definitions), and the
+ * types of potentially autowired constructor and factory method parameters,
+ * annotated fields and methods. Cycles in that graph are collapsed into a
+ * single node whose singletons get created by one thread in registration
+ * order, just like without parallelism. Independent nodes are then
+ * instantiated on a dedicated {@link ForkJoinPool} as soon as all nodes
+ * they depend on have completed.
+ *
+ * <p>The graph only serves for ordering: dependencies it does not capture,
+ * e.g. beans looked up programmatically, are created on demand, with the
+ * bean factory in {@linkplain DefaultSingletonBeanRegistry#setConcurrentSingletonCreation
+ * concurrent creation mode} making a thread wait for a singleton that is
+ * in creation by another thread. A singleton that turns out to be part of an
+ * unresolvable circular reference across threads is instantiated again
+ * sequentially, once all other singletons have been processed.
+ *
+ * @since 5.1.21
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ */
+final class ParallelSingletonPreInstantiator {
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final int parallelism;
+
+	@Nullable
+	private final Consumer<PreInstantiationCriticalPath> criticalPathCallback;
+
+	private final Log logger;
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	private final List<String> deferredBeanNames = Collections.synchronizedList(new ArrayList<>());
+
+	private final Map<String, Class<?>> targetTypes = new HashMap<>();
+
+	private final Object completionMonitor = new Object();
+
+	private int outstandingTasks;
+
+
+	ParallelSingletonPreInstantiator(DefaultListableBeanFactory beanFactory, int parallelism,
+			@Nullable Consumer<PreInstantiationCriticalPath> criticalPathCallback) {
+
+		this.beanFactory = beanFactory;
+		this.parallelism = parallelism;
+		this.criticalPathCallback = criticalPathCallback;
+		this.logger = beanFactory.getLogger();
+	}
+
+
+	/**
+	 * Pre-instantiate the non-lazy singletons among the given bean names.
+	 * @param beanNames the names of all bean definitions, in registration order
+	 * @throws BeansException if one of the singletons could not be created
+	 */
+	public void preInstantiate(List<String> beanNames) throws BeansException {
+		List<String> candidateNames = new ArrayList<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				candidateNames.add(beanName);
+			}
+		}
+		if (candidateNames.size() < 2 || Thread.holdsLock(this.beanFactory.getSingletonMutex())) {
+			// Nothing to parallelize, or worker threads could not obtain the singleton lock
+			for (String beanName : candidateNames) {
+				this.beanFactory.preInstantiateSingleton(beanName);
+			}
+			return;
+		}
+
+		List<Node> nodes = buildGraph(candidateNames);
+		long startTime = System.nanoTime();
+		execute(nodes);
+		Duration elapsedTime = Duration.ofNanos(System.nanoTime() - startTime);
+
+		Throwable ex = this.failure.get();
+		if (ex instanceof RuntimeException) {
+			throw (RuntimeException) ex;
+		}
+		if (ex instanceof Error) {
+			throw (Error) ex;
+		}
+
+		List<String> deferredBeanNames = new ArrayList<>(this.deferredBeanNames);
+		deferredBeanNames.sort((name1, name2) -> candidateNames.indexOf(name1) - candidateNames.indexOf(name2));
+		for (String beanName : deferredBeanNames) {
+			this.beanFactory.preInstantiateSingleton(beanName);
+		}
+
+		PreInstantiationCriticalPath criticalPath = determineCriticalPath(nodes, elapsedTime);
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("Pre-instantiated " + candidateNames.size() + " singletons in " +
+					nodes.size() + " dependency graph nodes: " + criticalPath);
+		}
+		if (this.criticalPathCallback != null) {
+			this.criticalPathCallback.accept(criticalPath);
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Dependency graph
+	//---------------------------------------------------------------------
+
+	private List<Node> buildGraph(List<String> beanNames) {
+		Map<String, Integer> indexes = new HashMap<>(beanNames.size() * 2);
+		for (int i = 0; i < beanNames.size(); i++) {
+			indexes.put(beanNames.get(i), i);
+		}
+		int[][] dependencies = new int[beanNames.size()][];
+		for (int i = 0; i < beanNames.size(); i++) {
+			Set<Integer> dependencyIndexes = new LinkedHashSet<>();
+			for (String dependency : determineDependencies(beanNames.get(i), beanNames.subList(0, i))) {
+				Integer index = indexes.get(this.beanFactory.transformedBeanName(dependency));
+				if (index != null && index != i) {
+					dependencyIndexes.add(index);
+				}
+			}
+			dependencies[i] = dependencyIndexes.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		// Collapse circular references into one node each, ordered by registration
+		List<List<Integer>> components = new StronglyConnectedComponents(dependencies).getComponents();
+		components.sort((c1, c2) -> c1.get(0) - c2.get(0));
+		Node[] nodesByIndex = new Node[beanNames.size()];
+		List<Node> nodes = new ArrayList<>(components.size());
+		for (List<Integer> component : components) {
+			Node node = new Node(component.size());
+			for (int index : component) {
+				node.beanNames.add(beanNames.get(index));
+				nodesByIndex[index] = node;
+			}
+			nodes.add(node);
+		}
+		for (int i = 0; i < beanNames.size(); i++) {
+			Node node = nodesByIndex[i];
+			for (int index : dependencies[i]) {
+				Node dependency = nodesByIndex[index];
+				if (dependency != node && node.dependencies.add(dependency)) {
+					dependency.dependents.add(node);
+				}
+			}
+		}
+		for (Node node : nodes) {
+			node.pendingDependencies.set(node.dependencies.size());
+		}
+		return nodes;
+	}
+
+	private Set<String> determineDependencies(String beanName, List<String> precedingBeanNames) {
+		Set<String> dependencies = new LinkedHashSet<>();
+		RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+		collectDependencies(mbd, dependencies);
+		try {
+			Set<Class<?>> dependencyTypes = new LinkedHashSet<>();
+			collectAutowiredDependencies(beanName, mbd, dependencies, dependencyTypes);
+			for (Class<?> dependencyType : dependencyTypes) {
+				String[] candidateNames = this.beanFactory.getBeanNamesForType(dependencyType, true, false);
+				if (candidateNames.length > 0) {
+					Collections.addAll(dependencies, candidateNames);
+				}
+				else {
+					// Possibly declared with a less specific type, matching once created:
+					// as if created in registration order, only preceding beans qualify
+					for (String candidateName : precedingBeanNames) {
+						if (determineTargetType(candidateName).isAssignableFrom(dependencyType)) {
+							dependencies.add(candidateName);
+						}
+					}
+				}
+			}
+		}
+		catch (BeansException | LinkageError ex) {
+			// Bean class not resolvable yet: to be reported on actual creation
+			if (this.logger.isTraceEnabled()) {
+				this.logger.trace("Could not determine autowired dependencies of bean '" + beanName + "'", ex);
+			}
+		}
+		return dependencies;
+	}
+
+	private void collectDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			Collections.addAll(dependencies, dependsOn);
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(bd.getFactoryBeanName());
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getIndexedArgumentValues().values()) {
+				collectReferences(valueHolder.getValue(), dependencies);
+			}
+			for (ValueHolder valueHolder : bd.getConstructorArgumentValues().getGenericArgumentValues()) {
+				collectReferences(valueHolder.getValue(), dependencies);
+			}
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectReferences(pv.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void collectReferences(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				dependencies.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectReferences(element, dependencies);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectReferences(entry.getKey(), dependencies);
+				collectReferences(entry.getValue(), dependencies);
+			}
+		}
+	}
+
+	/**
+	 * Collect the dependencies that the given bean may have autowired, by type
+	 * or by name. Without access to the post-processors' injection metadata,
+	 * this conservatively assumes that annotated fields, annotated void methods
+	 * and the constructors of annotation-driven beans are subject to autowiring:
+	 * an excess dependency merely limits parallelism.
+	 */
+	private void collectAutowiredDependencies(String beanName, RootBeanDefinition mbd,
+			Set<String> dependencies, Set<Class<?>> dependencyTypes) {
+
+		int autowireMode = mbd.getResolvedAutowireMode();
+		String factoryMethodName = mbd.getFactoryMethodName();
+		if (factoryMethodName != null) {
+			if (autowireMode == AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR) {
+				String factoryBeanName = mbd.getFactoryBeanName();
+				Class<?> factoryClass = null;
+				if (factoryBeanName == null) {
+					factoryClass = this.beanFactory.resolveBeanClass(mbd, beanName);
+				}
+				else if (this.beanFactory.containsBeanDefinition(factoryBeanName)) {
+					factoryClass = this.beanFactory.determineTargetType(
+							factoryBeanName, this.beanFactory.getMergedLocalBeanDefinition(factoryBeanName));
+				}
+				if (factoryClass != null) {
+					for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(factoryClass))) {
+						if (method.getName().equals(factoryMethodName)) {
+							for (int i = 0; i < method.getParameterCount(); i++) {
+								addDependencyType(ResolvableType.forMethodParameter(method, i), dependencyTypes);
+							}
+						}
+					}
+				}
+			}
+		}
+		else if (mbd.getInstanceSupplier() == null) {
+			Class<?> beanClass = this.beanFactory.resolveBeanClass(mbd, beanName);
+			if (beanClass != null) {
+				Constructor<?>[] ctors = beanClass.getDeclaredConstructors();
+				for (Constructor<?> ctor : ctors) {
+					if (ctors.length == 1 || ctor.getDeclaredAnnotations().length > 0 ||
+							autowireMode == AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR) {
+						for (int i = 0; i < ctor.getParameterCount(); i++) {
+							addDependencyType(ResolvableType.forConstructorParameter(ctor, i), dependencyTypes);
+						}
+					}
+				}
+			}
+		}
+
+		Class<?> targetType = this.beanFactory.determineTargetType(beanName, mbd);
+		if (targetType == null) {
+			return;
+		}
+		Class<?> userClass = ClassUtils.getUserClass(targetType);
+		ReflectionUtils.doWithFields(userClass, field -> {
+			if (!Modifier.isStatic(field.getModifiers()) && field.getDeclaredAnnotations().length > 0) {
+				addDependencyType(ResolvableType.forField(field, userClass), dependencyTypes);
+			}
+		});
+		ReflectionUtils.doWithMethods(userClass, method -> {
+			if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() == void.class &&
+					method.getDeclaredAnnotations().length > 0) {
+				for (int i = 0; i < method.getParameterCount(); i++) {
+					addDependencyType(ResolvableType.forMethodParameter(method, i, userClass), dependencyTypes);
+				}
+			}
+		}, ReflectionUtils.USER_DECLARED_METHODS);
+		if (autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_NAME ||
+				autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE) {
+			for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(userClass)) {
+				Method writeMethod = pd.getWriteMethod();
+				if (writeMethod != null) {
+					if (autowireMode == AutowireCapableBeanFactory.AUTOWIRE_BY_NAME) {
+						dependencies.add(pd.getName());
+					}
+					else {
+						addDependencyType(ResolvableType.forMethodParameter(writeMethod, 0, userClass), dependencyTypes);
+					}
+				}
+			}
+		}
+	}
+
+	private Class<?> determineTargetType(String beanName) {
+		// Object for a bean of unknown type, matching any dependency
+		return this.targetTypes.computeIfAbsent(beanName, name -> {
+			try {
+				Class<?> targetType = this.beanFactory.determineTargetType(
+						name, this.beanFactory.getMergedLocalBeanDefinition(name));
+				return (targetType != null ? targetType : Object.class);
+			}
+			catch (BeansException | LinkageError ex) {
+				return Object.class;
+			}
+		});
+	}
+
+	private static void addDependencyType(ResolvableType type, Set<Class<?>> dependencyTypes) {
+		Class<?> rawType = type.resolve();
+		if (rawType == null || ObjectFactory.class.isAssignableFrom(rawType) ||
+				rawType.getName().equals("javax.inject.Provider")) {
+			// Lazy resolution: no dependency at creation time
+			return;
+		}
+		if (rawType == Optional.class) {
+			addDependencyType(type.getGeneric(0), dependencyTypes);
+		}
+		else if (rawType.isArray()) {
+			addDependencyType(type.getComponentType(), dependencyTypes);
+		}
+		else if (Collection.class.isAssignableFrom(rawType)) {
+			addDependencyType(type.asCollection().getGeneric(0), dependencyTypes);
+		}
+		else if (Map.class.isAssignableFrom(rawType)) {
+			addDependencyType(type.asMap().getGeneric(1), dependencyTypes);
+		}
+		else if (rawType != Object.class && !BeanUtils.isSimpleProperty(rawType)) {
+			dependencyTypes.add(rawType);
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Execution
+	//---------------------------------------------------------------------
+
+	private void execute(List<Node> nodes) {
+		List<Node> initialNodes = new ArrayList<>();
+		for (Node node : nodes) {
+			if (node.dependencies.isEmpty()) {
+				initialNodes.add(node);
+			}
+		}
+		ClassLoader beanClassLoader = this.beanFactory.getBeanClassLoader();
+		AtomicInteger threadCount = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(Math.min(this.parallelism, nodes.size()), forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("singleton-preinstantiation-" + threadCount.incrementAndGet());
+			thread.setContextClassLoader(beanClassLoader);
+			return thread;
+		}, null, false);
+
+		this.beanFactory.setConcurrentSingletonCreation(true);
+		try {
+			for (Node node : initialNodes) {
+				submit(pool, node);
+			}
+			awaitCompletion();
+		}
+		finally {
+			pool.shutdown();
+			this.beanFactory.setConcurrentSingletonCreation(false);
+		}
+	}
+
+	private void submit(ForkJoinPool pool, Node node) {
+		synchronized (this.completionMonitor) {
+			this.outstandingTasks++;
+		}
+		pool.execute(() -> {
+			try {
+				if (this.failure.get() == null && instantiate(node)) {
+					for (Node dependent : node.dependents) {
+						if (dependent.pendingDependencies.decrementAndGet() == 0 && this.failure.get() == null) {
+							submit(pool, dependent);
+						}
+					}
+				}
+			}
+			finally {
+				synchronized (this.completionMonitor) {
+					this.outstandingTasks--;
+					if (this.outstandingTasks == 0) {
+						this.completionMonitor.notifyAll();
+					}
+				}
+			}
+		});
+	}
+
+	private boolean instantiate(Node node) {
+		try {
+			for (String beanName : node.beanNames) {
+				long beanStartTime = System.nanoTime();
+				try {
+					this.beanFactory.preInstantiateSingleton(beanName);
+				}
+				catch (BeanCreationException ex) {
+					if (!ex.contains(BeanCurrentlyInCreationException.class)) {
+						throw ex;
+					}
+					if (this.logger.isDebugEnabled()) {
+						this.logger.debug("Deferring pre-instantiation of singleton '" + beanName +
+								"' due to circular reference across threads: " + ex);
+					}
+					this.deferredBeanNames.add(beanName);
+				}
+				node.beanDurations.put(beanName, Duration.ofNanos(System.nanoTime() - beanStartTime));
+			}
+			return true;
+		}
+		catch (RuntimeException | Error ex) {
+			this.failure.compareAndSet(null, ex);
+			return false;
+		}
+		finally {
+			node.endTime = System.nanoTime();
+		}
+	}
+
+	private void awaitCompletion() {
+		boolean interrupted = false;
+		synchronized (this.completionMonitor) {
+			while (this.outstandingTasks > 0) {
+				try {
+					this.completionMonitor.wait();
+				}
+				catch (InterruptedException ex) {
+					// Stop scheduling further singletons but let running ones complete
+					interrupted = true;
+					this.failure.compareAndSet(null,
+							new BeanCreationException("Interrupted during parallel pre-instantiation of singletons"));
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private PreInstantiationCriticalPath determineCriticalPath(List<Node> nodes, Duration elapsedTime) {
+		Node last = latestCompleted(nodes);
+		Deque<Node> path = new ArrayDeque<>();
+		while (last != null) {
+			path.addFirst(last);
+			last = latestCompleted(last.dependencies);
+		}
+		Map<String, Duration> beanDurations = new LinkedHashMap<>();
+		for (Node node : path) {
+			beanDurations.putAll(node.beanDurations);
+		}
+		return new PreInstantiationCriticalPath(
+				beanDurations, elapsedTime, Math.min(this.parallelism, nodes.size()));
+	}
+
+	@Nullable
+	private static Node latestCompleted(Collection<Node> nodes) {
+		Node latest = null;
+		for (Node node : nodes) {
+			if (node.endTime != 0 && (latest == null || node.endTime - latest.endTime > 0)) {
+				latest = node;
+			}
+		}
+		return latest;
+	}
+
+
+	/**
+	 * A node in the dependency graph: one or more singletons
+	 * to be created by the same thread, in the given order.
+	 */
+	private static final class Node {
+
+		final List<String> beanNames;
+
+		final Set<Node> dependencies = new LinkedHashSet<>();
+
+		final List<Node> dependents = new ArrayList<>();
+
+		final AtomicInteger pendingDependencies = new AtomicInteger();
+
+		final Map<String, Duration> beanDurations;
+
+		volatile long endTime;
+
+		Node(int size) {
+			this.beanNames = new ArrayList<>(size);
+			this.beanDurations = new LinkedHashMap<>(size * 2);
+		}
+	}
+
+
+	/**
+	 * Tarjan's algorithm for the strongly connected components of a graph,
+	 * given as array of dependency indexes per vertex. Each component lists
+	 * its vertices in ascending order.
+	 */
+	private static final class StronglyConnectedComponents {
+
+		private final int[][] edges;
+
+		private final int[] indexes;
+
+		private final int[] lowLinks;
+
+		private final boolean[] onStack;
+
+		/** Position of the next dependency to visit per vertex. */
+		private final int[] nextEdges;
+
+		private final Deque<Integer> stack = new ArrayDeque<>();
+
+		private final List<List<Integer>> components = new ArrayList<>();
+
+		private int index = 1;
+
+		StronglyConnectedComponents(int[][] edges) {
+			this.edges = edges;
+			this.indexes = new int[edges.length];
+			this.lowLinks = new int[edges.length];
+			this.onStack = new boolean[edges.length];
+			this.nextEdges = new int[edges.length];
+			for (int v = 0; v < edges.length; v++) {
+				if (this.indexes[v] == 0) {
+					connect(v);
+				}
+			}
+		}
+
+		/**
+		 * Visit all vertices reachable from the given vertex, iteratively rather
+		 * than recursively so that long dependency chains cannot overflow the
+		 * thread stack.
+		 */
+		private void connect(int root) {
+			Deque<Integer> path = new ArrayDeque<>();
+			visit(root, path);
+			while (!path.isEmpty()) {
+				int v = path.peek();
+				int[] vEdges = this.edges[v];
+				if (this.nextEdges[v] < vEdges.length) {
+					int w = vEdges[this.nextEdges[v]++];
+					if (this.indexes[w] == 0) {
+						visit(w, path);
+					}
+					else if (this.onStack[w]) {
+						this.lowLinks[v] = Math.min(this.lowLinks[v], this.indexes[w]);
+					}
+					continue;
+				}
+				path.pop();
+				if (!path.isEmpty()) {
+					int parent = path.peek();
+					this.lowLinks[parent] = Math.min(this.lowLinks[parent], this.lowLinks[v]);
+				}
+				if (this.lowLinks[v] == this.indexes[v]) {
+					List<Integer> component = new ArrayList<>();
+					int w;
+					do {
+						w = this.stack.pop();
+						this.onStack[w] = false;
+						component.add(w);
+					}
+					while (w != v);
+					Collections.sort(component);
+					this.components.add(component);
+				}
+			}
+		}
+
+		private void visit(int v, Deque<Integer> path) {
+			this.indexes[v] = this.index;
+			this.lowLinks[v] = this.index;
+			this.index++;
+			this.stack.push(v);
+			this.onStack[v] = true;
+			path.push(v);
+		}
+
+		List<List<Integer>> getComponents() {
+			return this.components;
+		}
+	}
+
+}
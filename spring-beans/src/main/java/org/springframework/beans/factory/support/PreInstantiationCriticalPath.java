@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The critical path of a parallel pre-instantiation of singletons: the chain
+ * of singletons, each one waiting for the completion of its predecessor, that
+ * finished last and therefore determined the overall duration.
+ *
+ * <p>The duration of each singleton covers the creation of dependencies that
+ * were not pre-instantiated on their own before, as well as any time spent
+ * waiting for dependencies in creation by other threads.
+ *
+ * @since 5.1.21
+ * @see DefaultListableBeanFactory#setPreInstantiationParallelism
+ * @see DefaultListableBeanFactory#setPreInstantiationCriticalPathCallback
+ */
+public final class PreInstantiationCriticalPath {
+
+	private final Map<String, Duration> beanDurations;
+
+	private final Duration elapsedTime;
+
+	private final int parallelism;
+
+
+	PreInstantiationCriticalPath(Map<String, Duration> beanDurations, Duration elapsedTime, int parallelism) {
+		this.beanDurations = Collections.unmodifiableMap(new LinkedHashMap<>(beanDurations));
+		this.elapsedTime = elapsedTime;
+		this.parallelism = parallelism;
+	}
+
+
+	/**
+	 * Return the names of the singletons on the critical path, in creation order.
+	 */
+	public List<String> getBeanNames() {
+		return new ArrayList<>(this.beanDurations.keySet());
+	}
+
+	/**
+	 * Return the creation time of each singleton on the critical path,
+	 * keyed by bean name in creation order.
+	 */
+	public Map<String, Duration> getBeanDurations() {
+		return this.beanDurations;
+	}
+
+	/**
+	 * Return the accumulated creation time of the singletons on the critical path.
+	 */
+	public Duration getDuration() {
+		Duration duration = Duration.ZERO;
+		for (Duration beanDuration : this.beanDurations.values()) {
+			duration = duration.plus(beanDuration);
+		}
+		return duration;
+	}
+
+	/**
+	 * Return the time elapsed for the parallel pre-instantiation as a whole.
+	 */
+	public Duration getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	/**
+	 * Return the maximum number of threads used for the pre-instantiation.
+	 */
+	public int getParallelism() {
+		return this.parallelism;
+	}
+
+
+	@Override
+	public String toString() {
+		StringJoiner path = new StringJoiner(" -> ");
+		this.beanDurations.forEach((beanName, duration) -> path.add(beanName + " (" + duration.toMillis() + " ms)"));
+		return "Critical path of " + this.beanDurations.size() + " singletons taking " +
+				getDuration().toMillis() + " ms of " + this.elapsedTime.toMillis() + " ms elapsed with parallelism " +
+				this.parallelism + ": " + path;
+	}
+
+}
@@ -0,0 +1,1478 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import org.springframework.beans.BeanMetadataAttribute;
+import org.springframework.beans.BeanMetadataAttributeAccessor;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanNameReference;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.parsing.BeanComponentDefinition;
+import org.springframework.beans.factory.parsing.BeanEntry;
+import org.springframework.beans.factory.parsing.ConstructorArgumentEntry;
+import org.springframework.beans.factory.parsing.ParseState;
+import org.springframework.beans.factory.parsing.PropertyEntry;
+import org.springframework.beans.factory.parsing.QualifierEntry;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
+import org.springframework.beans.factory.support.LookupOverride;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+import org.springframework.beans.factory.support.MethodOverride;
+import org.springframework.beans.factory.support.ReplaceOverride;
+import org.springframework.core.env.Profiles;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Parser for a single XML bean definition document, reading it from an
+ * {@link XMLStreamReader} and registering bean definitions as it goes.
+ *
+ * <p>Applies the rules of {@link DefaultBeanDefinitionDocumentReader} and
+ * {@link BeanDefinitionParserDelegate} to the elements of the "spring-beans"
+ * namespace. Elements and attributes of other namespaces are turned into DOM
+ * nodes and passed to the {@link BeanDefinitionParserDelegate} for the
+ * enclosing {@code <beans>} element, which dispatches them to the
+ * corresponding {@link NamespaceHandler}.
+ *
+ * @since 5.1.21
+ * @see StaxBeanDefinitionReader
+ */
+final class StaxBeanDefinitionParser {
+
+	private static final Log logger = LogFactory.getLog(StaxBeanDefinitionParser.class);
+
+	private final XmlReaderContext readerContext;
+
+	private final XMLStreamReader reader;
+
+	private final ParseState parseState = new ParseState();
+
+	/** Number of currently open elements, including the current start element. */
+	private int depth;
+
+	@Nullable
+	private BeansScope scope;
+
+	/** Container element for DOM fragments, lazily created. */
+	@Nullable
+	private Element fragmentContainer;
+
+
+	StaxBeanDefinitionParser(XmlReaderContext readerContext, XMLStreamReader reader) {
+		this.readerContext = readerContext;
+		this.reader = reader;
+	}
+
+
+	/**
+	 * Parse the document and register its bean definitions.
+	 */
+	public void parse() throws XMLStreamException {
+		while (this.reader.hasNext()) {
+			if (next() == XMLStreamConstants.START_ELEMENT) {
+				if (isDefaultNamespace()) {
+					parseBeansElement();
+				}
+				else {
+					this.scope = new BeansScope(createDelegate(readAttributes(false), null), null);
+					parseCustomElement();
+				}
+				break;
+			}
+		}
+		// Read up to the end of the document, e.g. for validation
+		while (this.reader.hasNext()) {
+			next();
+		}
+	}
+
+
+	// Document structure
+
+	private void parseBeansElement() throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		BeansScope parent = this.scope;
+		BeansScope scope = new BeansScope(createDelegate(attributes, parent), parent);
+		for (int i = 0; i < this.reader.getNamespaceCount(); i++) {
+			scope.addNamespace(this.reader.getNamespacePrefix(i), this.reader.getNamespaceURI(i));
+		}
+
+		String profileSpec = attributes.get(DefaultBeanDefinitionDocumentReader.PROFILE_ATTRIBUTE);
+		if (StringUtils.hasText(profileSpec)) {
+			String[] specifiedProfiles = StringUtils.tokenizeToStringArray(
+					profileSpec, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+			if (!this.readerContext.getEnvironment().acceptsProfiles(Profiles.of(specifiedProfiles))) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Skipped XML bean definition file due to specified profiles [" + profileSpec +
+							"] not matching: " + this.readerContext.getResource());
+				}
+				return;
+			}
+		}
+
+		this.scope = scope;
+		try {
+			int beansDepth = this.depth;
+			while (nextChildElement(beansDepth)) {
+				if (isDefaultNamespace()) {
+					String localName = this.reader.getLocalName();
+					if (DefaultBeanDefinitionDocumentReader.IMPORT_ELEMENT.equals(localName)) {
+						parseImportElement();
+					}
+					else if (DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT.equals(localName)) {
+						parseAliasElement();
+					}
+					else if (BeanDefinitionParserDelegate.BEAN_ELEMENT.equals(localName)) {
+						processBeanElement();
+					}
+					else if (DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT.equals(localName)) {
+						parseBeansElement();
+					}
+				}
+				else {
+					parseCustomElement();
+				}
+			}
+		}
+		finally {
+			this.scope = parent;
+		}
+	}
+
+	/**
+	 * Create the delegate for a {@code <beans>} element, with its defaults
+	 * populated as in {@link BeanDefinitionParserDelegate#populateDefaults}.
+	 */
+	private BeanDefinitionParserDelegate createDelegate(ElementAttributes root, @Nullable BeansScope parent) {
+		BeanDefinitionParserDelegate delegate = new BeanDefinitionParserDelegate(this.readerContext);
+		DocumentDefaultsDefinition defaults = delegate.getDefaults();
+		DocumentDefaultsDefinition parentDefaults = (parent != null ? parent.delegate.getDefaults() : null);
+
+		String lazyInit = root.get(BeanDefinitionParserDelegate.DEFAULT_LAZY_INIT_ATTRIBUTE);
+		if (isDefaultValue(lazyInit)) {
+			lazyInit = (parentDefaults != null ? parentDefaults.getLazyInit() : BeanDefinitionParserDelegate.FALSE_VALUE);
+		}
+		defaults.setLazyInit(lazyInit);
+
+		String merge = root.get(BeanDefinitionParserDelegate.DEFAULT_MERGE_ATTRIBUTE);
+		if (isDefaultValue(merge)) {
+			merge = (parentDefaults != null ? parentDefaults.getMerge() : BeanDefinitionParserDelegate.FALSE_VALUE);
+		}
+		defaults.setMerge(merge);
+
+		String autowire = root.get(BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_ATTRIBUTE);
+		if (isDefaultValue(autowire)) {
+			autowire = (parentDefaults != null ? parentDefaults.getAutowire() : BeanDefinitionParserDelegate.AUTOWIRE_NO_VALUE);
+		}
+		defaults.setAutowire(autowire);
+
+		if (root.has(BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_CANDIDATES_ATTRIBUTE)) {
+			defaults.setAutowireCandidates(root.get(BeanDefinitionParserDelegate.DEFAULT_AUTOWIRE_CANDIDATES_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setAutowireCandidates(parentDefaults.getAutowireCandidates());
+		}
+
+		if (root.has(BeanDefinitionParserDelegate.DEFAULT_INIT_METHOD_ATTRIBUTE)) {
+			defaults.setInitMethod(root.get(BeanDefinitionParserDelegate.DEFAULT_INIT_METHOD_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setInitMethod(parentDefaults.getInitMethod());
+		}
+
+		if (root.has(BeanDefinitionParserDelegate.DEFAULT_DESTROY_METHOD_ATTRIBUTE)) {
+			defaults.setDestroyMethod(root.get(BeanDefinitionParserDelegate.DEFAULT_DESTROY_METHOD_ATTRIBUTE));
+		}
+		else if (parentDefaults != null) {
+			defaults.setDestroyMethod(parentDefaults.getDestroyMethod());
+		}
+
+		this.readerContext.fireDefaultsRegistered(defaults);
+		return delegate;
+	}
+
+	/**
+	 * Parse an "import" element and load the bean definitions from the given
+	 * resource, as in {@link DefaultBeanDefinitionDocumentReader#importBeanDefinitionResource}.
+	 */
+	private void parseImportElement() {
+		String location = readAttributes(false).get(DefaultBeanDefinitionDocumentReader.RESOURCE_ATTRIBUTE);
+		if (!StringUtils.hasText(location)) {
+			error("Resource location must not be empty");
+			return;
+		}
+
+		// Resolve system properties: e.g. "${user.dir}"
+		location = this.readerContext.getEnvironment().resolveRequiredPlaceholders(location);
+
+		Set<Resource> actualResources = new LinkedHashSet<>(4);
+		boolean absoluteLocation = false;
+		try {
+			absoluteLocation = ResourcePatternUtils.isUrl(location) || ResourceUtils.toURI(location).isAbsolute();
+		}
+		catch (URISyntaxException ex) {
+			// cannot convert to an URI, considering the location relative
+			// unless it is the well-known Spring prefix "classpath*:"
+		}
+
+		if (absoluteLocation) {
+			try {
+				int importCount = this.readerContext.getReader().loadBeanDefinitions(location, actualResources);
+				if (logger.isTraceEnabled()) {
+					logger.trace("Imported " + importCount + " bean definitions from URL location [" + location + "]");
+				}
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to import bean definitions from URL location [" + location + "]", ex);
+			}
+		}
+		else {
+			try {
+				int importCount;
+				Resource relativeResource = this.readerContext.getResource().createRelative(location);
+				if (relativeResource.exists()) {
+					importCount = this.readerContext.getReader().loadBeanDefinitions(relativeResource);
+					actualResources.add(relativeResource);
+				}
+				else {
+					String baseLocation = this.readerContext.getResource().getURL().toString();
+					importCount = this.readerContext.getReader().loadBeanDefinitions(
+							StringUtils.applyRelativePath(baseLocation, location), actualResources);
+				}
+				if (logger.isTraceEnabled()) {
+					logger.trace("Imported " + importCount + " bean definitions from relative location [" + location + "]");
+				}
+			}
+			catch (IOException ex) {
+				error("Failed to resolve current resource location", ex);
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to import bean definitions from relative location [" + location + "]", ex);
+			}
+		}
+		Resource[] actResArray = actualResources.toArray(new Resource[0]);
+		this.readerContext.fireImportProcessed(location, actResArray, null);
+	}
+
+	private void parseAliasElement() {
+		ElementAttributes attributes = readAttributes(false);
+		String name = attributes.get(DefaultBeanDefinitionDocumentReader.NAME_ATTRIBUTE);
+		String alias = attributes.get(DefaultBeanDefinitionDocumentReader.ALIAS_ATTRIBUTE);
+		boolean valid = true;
+		if (!StringUtils.hasText(name)) {
+			error("Name must not be empty");
+			valid = false;
+		}
+		if (!StringUtils.hasText(alias)) {
+			error("Alias must not be empty");
+			valid = false;
+		}
+		if (valid) {
+			try {
+				this.readerContext.getRegistry().registerAlias(name, alias);
+			}
+			catch (Exception ex) {
+				error("Failed to register alias '" + alias + "' for bean with name '" + name + "'", ex);
+			}
+			this.readerContext.fireAliasRegistered(name, alias, null);
+		}
+	}
+
+	private void processBeanElement() throws XMLStreamException {
+		BeanDefinitionHolder bdHolder = parseBeanElement(null);
+		if (bdHolder != null) {
+			try {
+				BeanDefinitionReaderUtils.registerBeanDefinition(bdHolder, this.readerContext.getRegistry());
+			}
+			catch (BeanDefinitionStoreException ex) {
+				error("Failed to register bean definition with name '" + bdHolder.getBeanName() + "'", ex);
+			}
+			this.readerContext.fireComponentRegistered(new BeanComponentDefinition(bdHolder));
+		}
+	}
+
+	private void parseCustomElement() throws XMLStreamException {
+		Element element = readFragment(getFragmentContainer());
+		try {
+			getDelegate().parseCustomElement(element);
+		}
+		finally {
+			getFragmentContainer().removeChild(element);
+		}
+	}
+
+
+	// Bean definitions
+
+	/**
+	 * Parse a "bean" element, including the decoration through custom namespace
+	 * attributes and nested elements, as in
+	 * {@link BeanDefinitionParserDelegate#parseBeanDefinitionElement(Element, BeanDefinition)}
+	 * and {@link BeanDefinitionParserDelegate#decorateBeanDefinitionIfRequired}.
+	 */
+	@Nullable
+	private BeanDefinitionHolder parseBeanElement(@Nullable BeanDefinition containingBean) throws XMLStreamException {
+		int beanDepth = this.depth;
+		ElementAttributes attributes = readAttributes(true);
+		String id = attributes.get(BeanDefinitionParserDelegate.ID_ATTRIBUTE);
+		String nameAttr = attributes.get(BeanDefinitionParserDelegate.NAME_ATTRIBUTE);
+
+		List<String> aliases = new ArrayList<>();
+		if (StringUtils.hasLength(nameAttr)) {
+			String[] nameArr = StringUtils.tokenizeToStringArray(
+					nameAttr, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS);
+			aliases.addAll(Arrays.asList(nameArr));
+		}
+
+		String beanName = id;
+		if (!StringUtils.hasText(beanName) && !aliases.isEmpty()) {
+			beanName = aliases.remove(0);
+			if (logger.isTraceEnabled()) {
+				logger.trace("No XML 'id' specified - using '" + beanName +
+						"' as bean name and " + aliases + " as aliases");
+			}
+		}
+
+		if (containingBean == null) {
+			checkNameUniqueness(beanName, aliases);
+		}
+
+		Element decoratorHost = null;
+		if (attributes.customAttributes != null) {
+			decoratorHost = createDecoratorHost();
+			for (String[] attribute : attributes.customAttributes) {
+				decoratorHost.setAttributeNS(attribute[0], attribute[1], attribute[2]);
+			}
+		}
+
+		try {
+			AbstractBeanDefinition beanDefinition = null;
+			this.parseState.push(new BeanEntry(beanName));
+			String className = (attributes.has(BeanDefinitionParserDelegate.CLASS_ATTRIBUTE) ?
+					attributes.get(BeanDefinitionParserDelegate.CLASS_ATTRIBUTE).trim() : null);
+			try {
+				String parent = (attributes.has(BeanDefinitionParserDelegate.PARENT_ATTRIBUTE) ?
+						attributes.get(BeanDefinitionParserDelegate.PARENT_ATTRIBUTE) : null);
+				beanDefinition = getDelegate().createBeanDefinition(className, parent);
+				parseBeanDefinitionAttributes(attributes, beanName, containingBean, beanDefinition);
+				decoratorHost = parseBeanSubElements(beanDefinition, decoratorHost);
+				beanDefinition.setResource(this.readerContext.getResource());
+			}
+			catch (ClassNotFoundException ex) {
+				error("Bean class [" + className + "] not found", ex);
+				beanDefinition = null;
+			}
+			catch (NoClassDefFoundError err) {
+				error("Class that bean class [" + className + "] depends on not found", err);
+				beanDefinition = null;
+			}
+			catch (XMLStreamException ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				error("Unexpected failure during bean definition parsing", ex);
+				beanDefinition = null;
+			}
+			finally {
+				this.parseState.pop();
+			}
+			skipElement(beanDepth);
+			if (beanDefinition == null) {
+				return null;
+			}
+
+			if (!StringUtils.hasText(beanName)) {
+				try {
+					if (containingBean != null) {
+						beanName = BeanDefinitionReaderUtils.generateBeanName(
+								beanDefinition, this.readerContext.getRegistry(), true);
+					}
+					else {
+						beanName = this.readerContext.generateBeanName(beanDefinition);
+						// Register an alias for the plain bean class name, if still possible,
+						// if the generator returned the class name plus a suffix.
+						// This is expected for Spring 1.2/2.0 backwards compatibility.
+						String beanClassName = beanDefinition.getBeanClassName();
+						if (beanClassName != null &&
+								beanName.startsWith(beanClassName) && beanName.length() > beanClassName.length() &&
+								!this.readerContext.getRegistry().isBeanNameInUse(beanClassName)) {
+							aliases.add(beanClassName);
+						}
+					}
+					if (logger.isTraceEnabled()) {
+						logger.trace("Neither XML 'id' nor 'name' specified - " +
+								"using generated bean name [" + beanName + "]");
+					}
+				}
+				catch (Exception ex) {
+					error(ex.getMessage());
+					return null;
+				}
+			}
+			BeanDefinitionHolder holder =
+					new BeanDefinitionHolder(beanDefinition, beanName, StringUtils.toStringArray(aliases));
+
+			if (decoratorHost != null) {
+				BeanDefinitionParserDelegate delegate = getDelegate();
+				// Same order of attributes as in a DOM-based read
+				NamedNodeMap hostAttributes = decoratorHost.getAttributes();
+				for (int i = 0; i < hostAttributes.getLength(); i++) {
+					holder = delegate.decorateIfRequired(hostAttributes.item(i), holder, containingBean);
+				}
+				for (Node node = decoratorHost.getFirstChild(); node != null; node = node.getNextSibling()) {
+					holder = delegate.decorateIfRequired(node, holder, containingBean);
+				}
+			}
+			return holder;
+		}
+		finally {
+			if (decoratorHost != null) {
+				getFragmentContainer().removeChild(decoratorHost);
+			}
+		}
+	}
+
+	private void checkNameUniqueness(String beanName, List<String> aliases) {
+		Set<String> usedNames = getScope().usedNames;
+		String foundName = null;
+
+		if (StringUtils.hasText(beanName) && usedNames.contains(beanName)) {
+			foundName = beanName;
+		}
+		if (foundName == null) {
+			foundName = CollectionUtils.findFirstMatch(usedNames, aliases);
+		}
+		if (foundName != null) {
+			error("Bean name '" + foundName + "' is already used in this <beans> element");
+		}
+
+		usedNames.add(beanName);
+		usedNames.addAll(aliases);
+	}
+
+	private void parseBeanDefinitionAttributes(ElementAttributes attributes, String beanName,
+			@Nullable BeanDefinition containingBean, AbstractBeanDefinition bd) {
+
+		DocumentDefaultsDefinition defaults = getDelegate().getDefaults();
+
+		if (attributes.has("singleton")) {
+			error("Old 1.x 'singleton' attribute in use - upgrade to 'scope' declaration");
+		}
+		else if (attributes.has(BeanDefinitionParserDelegate.SCOPE_ATTRIBUTE)) {
+			bd.setScope(attributes.get(BeanDefinitionParserDelegate.SCOPE_ATTRIBUTE));
+		}
+		else if (containingBean != null) {
+			// Take default from containing bean in case of an inner bean definition.
+			bd.setScope(containingBean.getScope());
+		}
+
+		if (attributes.has(BeanDefinitionParserDelegate.ABSTRACT_ATTRIBUTE)) {
+			bd.setAbstract(BeanDefinitionParserDelegate.TRUE_VALUE.equals(
+					attributes.get(BeanDefinitionParserDelegate.ABSTRACT_ATTRIBUTE)));
+		}
+
+		String lazyInit = attributes.get(BeanDefinitionParserDelegate.LAZY_INIT_ATTRIBUTE);
+		if (isDefaultValue(lazyInit)) {
+			lazyInit = defaults.getLazyInit();
+		}
+		bd.setLazyInit(BeanDefinitionParserDelegate.TRUE_VALUE.equals(lazyInit));
+
+		bd.setAutowireMode(getDelegate().getAutowireMode(attributes.get(BeanDefinitionParserDelegate.AUTOWIRE_ATTRIBUTE)));
+
+		if (attributes.has(BeanDefinitionParserDelegate.DEPENDS_ON_ATTRIBUTE)) {
+			String dependsOn = attributes.get(BeanDefinitionParserDelegate.DEPENDS_ON_ATTRIBUTE);
+			bd.setDependsOn(StringUtils.tokenizeToStringArray(
+					dependsOn, BeanDefinitionParserDelegate.MULTI_VALUE_ATTRIBUTE_DELIMITERS));
+		}
+
+		String autowireCandidate = attributes.get(BeanDefinitionParserDelegate.AUTOWIRE_CANDIDATE_ATTRIBUTE);
+		if (isDefaultValue(autowireCandidate)) {
+			String candidatePattern = defaults.getAutowireCandidates();
+			if (candidatePattern != null) {
+				String[] patterns = StringUtils.commaDelimitedListToStringArray(candidatePattern);
+				bd.setAutowireCandidate(PatternMatchUtils.simpleMatch(patterns, beanName));
+			}
+		}
+		else {
+			bd.setAutowireCandidate(BeanDefinitionParserDelegate.TRUE_VALUE.equals(autowireCandidate));
+		}
+
+		if (attributes.has(BeanDefinitionParserDelegate.PRIMARY_ATTRIBUTE)) {
+			bd.setPrimary(BeanDefinitionParserDelegate.TRUE_VALUE.equals(
+					attributes.get(BeanDefinitionParserDelegate.PRIMARY_ATTRIBUTE)));
+		}
+
+		if (attributes.has(BeanDefinitionParserDelegate.INIT_METHOD_ATTRIBUTE)) {
+			bd.setInitMethodName(attributes.get(BeanDefinitionParserDelegate.INIT_METHOD_ATTRIBUTE));
+		}
+		else if (defaults.getInitMethod() != null) {
+			bd.setInitMethodName(defaults.getInitMethod());
+			bd.setEnforceInitMethod(false);
+		}
+
+		if (attributes.has(BeanDefinitionParserDelegate.DESTROY_METHOD_ATTRIBUTE)) {
+			bd.setDestroyMethodName(attributes.get(BeanDefinitionParserDelegate.DESTROY_METHOD_ATTRIBUTE));
+		}
+		else if (defaults.getDestroyMethod() != null) {
+			bd.setDestroyMethodName(defaults.getDestroyMethod());
+			bd.setEnforceDestroyMethod(false);
+		}
+
+		if (attributes.has(BeanDefinitionParserDelegate.FACTORY_METHOD_ATTRIBUTE)) {
+			bd.setFactoryMethodName(attributes.get(BeanDefinitionParserDelegate.FACTORY_METHOD_ATTRIBUTE));
+		}
+		if (attributes.has(BeanDefinitionParserDelegate.FACTORY_BEAN_ATTRIBUTE)) {
+			bd.setFactoryBeanName(attributes.get(BeanDefinitionParserDelegate.FACTORY_BEAN_ATTRIBUTE));
+		}
+	}
+
+	/**
+	 * Parse the sub-elements of a "bean" element, collecting nested custom
+	 * namespace elements in the given host element for later decoration.
+	 * @return the decorator host element, if any
+	 */
+	@Nullable
+	private Element parseBeanSubElements(AbstractBeanDefinition bd, @Nullable Element decoratorHost)
+			throws XMLStreamException {
+
+		int beanDepth = this.depth;
+		boolean descriptionFound = false;
+		List<MethodOverride> lookupOverrides = null;
+		List<MethodOverride> replaceOverrides = null;
+		while (nextChildElement(beanDepth)) {
+			if (!isDefaultNamespace()) {
+				if (decoratorHost == null) {
+					decoratorHost = createDecoratorHost();
+				}
+				readFragment(decoratorHost);
+				continue;
+			}
+			String localName = this.reader.getLocalName();
+			if (BeanDefinitionParserDelegate.DESCRIPTION_ELEMENT.equals(localName)) {
+				if (!descriptionFound) {
+					bd.setDescription(readText());
+					descriptionFound = true;
+				}
+			}
+			else if (BeanDefinitionParserDelegate.META_ELEMENT.equals(localName)) {
+				parseMetaElement(bd);
+			}
+			else if (BeanDefinitionParserDelegate.LOOKUP_METHOD_ELEMENT.equals(localName)) {
+				ElementAttributes attributes = readAttributes(false);
+				if (lookupOverrides == null) {
+					lookupOverrides = new ArrayList<>(4);
+				}
+				lookupOverrides.add(new LookupOverride(
+						attributes.get(BeanDefinitionParserDelegate.NAME_ATTRIBUTE),
+						attributes.get(BeanDefinitionParserDelegate.BEAN_ELEMENT)));
+			}
+			else if (BeanDefinitionParserDelegate.REPLACED_METHOD_ELEMENT.equals(localName)) {
+				if (replaceOverrides == null) {
+					replaceOverrides = new ArrayList<>(4);
+				}
+				replaceOverrides.add(parseReplacedMethodElement());
+			}
+			else if (BeanDefinitionParserDelegate.CONSTRUCTOR_ARG_ELEMENT.equals(localName)) {
+				parseConstructorArgElement(bd);
+			}
+			else if (BeanDefinitionParserDelegate.PROPERTY_ELEMENT.equals(localName)) {
+				parsePropertyElement(bd);
+			}
+			else if (BeanDefinitionParserDelegate.QUALIFIER_ELEMENT.equals(localName)) {
+				parseQualifierElement(bd);
+			}
+		}
+		// Same order of overrides as in a DOM-based read
+		if (lookupOverrides != null) {
+			lookupOverrides.forEach(bd.getMethodOverrides()::addOverride);
+		}
+		if (replaceOverrides != null) {
+			replaceOverrides.forEach(bd.getMethodOverrides()::addOverride);
+		}
+		return decoratorHost;
+	}
+
+	private void parseMetaElement(BeanMetadataAttributeAccessor attributeAccessor) {
+		ElementAttributes attributes = readAttributes(false);
+		attributeAccessor.addMetadataAttribute(
+				new BeanMetadataAttribute(attributes.get(BeanDefinitionParserDelegate.KEY_ATTRIBUTE),
+						attributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE)));
+	}
+
+	private ReplaceOverride parseReplacedMethodElement() throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		ReplaceOverride replaceOverride =
+				new ReplaceOverride(attributes.get(BeanDefinitionParserDelegate.NAME_ATTRIBUTE),
+						attributes.get(BeanDefinitionParserDelegate.REPLACER_ATTRIBUTE));
+		int replacedMethodDepth = this.depth;
+		while (nextChildElement(replacedMethodDepth)) {
+			if (BeanDefinitionParserDelegate.ARG_TYPE_ELEMENT.equals(this.reader.getLocalName())) {
+				String match = readAttributes(false).get(BeanDefinitionParserDelegate.ARG_TYPE_MATCH_ATTRIBUTE);
+				match = (StringUtils.hasText(match) ? match : readText());
+				if (StringUtils.hasText(match)) {
+					replaceOverride.addTypeIdentifier(match);
+				}
+			}
+		}
+		return replaceOverride;
+	}
+
+	private void parseConstructorArgElement(BeanDefinition bd) throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		String indexAttr = attributes.get(BeanDefinitionParserDelegate.INDEX_ATTRIBUTE);
+		String typeAttr = attributes.get(BeanDefinitionParserDelegate.TYPE_ATTRIBUTE);
+		String nameAttr = attributes.get(BeanDefinitionParserDelegate.NAME_ATTRIBUTE);
+		if (StringUtils.hasLength(indexAttr)) {
+			int index;
+			try {
+				index = Integer.parseInt(indexAttr);
+			}
+			catch (NumberFormatException ex) {
+				error("Attribute 'index' of tag 'constructor-arg' must be an integer");
+				return;
+			}
+			if (index < 0) {
+				error("'index' cannot be lower than 0");
+				return;
+			}
+			try {
+				this.parseState.push(new ConstructorArgumentEntry(index));
+				ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(
+						parsePropertyValue(attributes, bd, null, null));
+				if (StringUtils.hasLength(typeAttr)) {
+					valueHolder.setType(typeAttr);
+				}
+				if (StringUtils.hasLength(nameAttr)) {
+					valueHolder.setName(nameAttr);
+				}
+				if (bd.getConstructorArgumentValues().hasIndexedArgumentValue(index)) {
+					error("Ambiguous constructor-arg entries for index " + index);
+				}
+				else {
+					bd.getConstructorArgumentValues().addIndexedArgumentValue(index, valueHolder);
+				}
+			}
+			finally {
+				this.parseState.pop();
+			}
+		}
+		else {
+			try {
+				this.parseState.push(new ConstructorArgumentEntry());
+				ConstructorArgumentValues.ValueHolder valueHolder = new ConstructorArgumentValues.ValueHolder(
+						parsePropertyValue(attributes, bd, null, null));
+				if (StringUtils.hasLength(typeAttr)) {
+					valueHolder.setType(typeAttr);
+				}
+				if (StringUtils.hasLength(nameAttr)) {
+					valueHolder.setName(nameAttr);
+				}
+				bd.getConstructorArgumentValues().addGenericArgumentValue(valueHolder);
+			}
+			finally {
+				this.parseState.pop();
+			}
+		}
+	}
+
+	private void parsePropertyElement(BeanDefinition bd) throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		String propertyName = attributes.get(BeanDefinitionParserDelegate.NAME_ATTRIBUTE);
+		if (!StringUtils.hasLength(propertyName)) {
+			error("Tag 'property' must have a 'name' attribute");
+			return;
+		}
+		this.parseState.push(new PropertyEntry(propertyName));
+		try {
+			if (bd.getPropertyValues().contains(propertyName)) {
+				error("Multiple 'property' definitions for property '" + propertyName + "'");
+				return;
+			}
+			List<BeanMetadataAttribute> metaAttributes = new ArrayList<>(0);
+			Object val = parsePropertyValue(attributes, bd, propertyName, metaAttributes);
+			PropertyValue pv = new PropertyValue(propertyName, val);
+			metaAttributes.forEach(pv::addMetadataAttribute);
+			bd.getPropertyValues().addPropertyValue(pv);
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+	private void parseQualifierElement(AbstractBeanDefinition bd) throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		String typeName = attributes.get(BeanDefinitionParserDelegate.TYPE_ATTRIBUTE);
+		if (!StringUtils.hasLength(typeName)) {
+			error("Tag 'qualifier' must have a 'type' attribute");
+			return;
+		}
+		this.parseState.push(new QualifierEntry(typeName));
+		try {
+			AutowireCandidateQualifier qualifier = new AutowireCandidateQualifier(typeName);
+			String value = attributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE);
+			if (StringUtils.hasLength(value)) {
+				qualifier.setAttribute(AutowireCandidateQualifier.VALUE_KEY, value);
+			}
+			int qualifierDepth = this.depth;
+			while (nextChildElement(qualifierDepth)) {
+				if (isDefaultNamespace() &&
+						BeanDefinitionParserDelegate.QUALIFIER_ATTRIBUTE_ELEMENT.equals(this.reader.getLocalName())) {
+					ElementAttributes attributeAttributes = readAttributes(false);
+					String attributeName = attributeAttributes.get(BeanDefinitionParserDelegate.KEY_ATTRIBUTE);
+					String attributeValue = attributeAttributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE);
+					if (StringUtils.hasLength(attributeName) && StringUtils.hasLength(attributeValue)) {
+						qualifier.addMetadataAttribute(new BeanMetadataAttribute(attributeName, attributeValue));
+					}
+					else {
+						error("Qualifier 'attribute' tag must have a 'name' and 'value'");
+						return;
+					}
+				}
+			}
+			bd.addQualifier(qualifier);
+		}
+		finally {
+			this.parseState.pop();
+		}
+	}
+
+
+	// Values
+
+	/**
+	 * Get the value of a property or constructor-arg element, as in
+	 * {@link BeanDefinitionParserDelegate#parsePropertyValue}.
+	 */
+	@Nullable
+	private Object parsePropertyValue(ElementAttributes attributes, BeanDefinition bd,
+			@Nullable String propertyName, @Nullable List<BeanMetadataAttribute> metaAttributes)
+			throws XMLStreamException {
+
+		String elementName = (propertyName != null ?
+				"<property> element for property '" + propertyName + "'" :
+				"<constructor-arg> element");
+
+		boolean hasRefAttribute = attributes.has(BeanDefinitionParserDelegate.REF_ATTRIBUTE);
+		boolean hasValueAttribute = attributes.has(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE);
+		boolean hasSubElement = false;
+		Object subElementValue = null;
+
+		int elementDepth = this.depth;
+		while (nextChildElement(elementDepth)) {
+			String localName = this.reader.getLocalName();
+			if (BeanDefinitionParserDelegate.DESCRIPTION_ELEMENT.equals(localName)) {
+				continue;
+			}
+			if (BeanDefinitionParserDelegate.META_ELEMENT.equals(localName)) {
+				if (metaAttributes != null && isDefaultNamespace()) {
+					ElementAttributes metaElementAttributes = readAttributes(false);
+					metaAttributes.add(new BeanMetadataAttribute(
+							metaElementAttributes.get(BeanDefinitionParserDelegate.KEY_ATTRIBUTE),
+							metaElementAttributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE)));
+				}
+				continue;
+			}
+			if (hasSubElement) {
+				error(elementName + " must not contain more than one sub-element");
+			}
+			else {
+				hasSubElement = true;
+				if (!hasRefAttribute && !hasValueAttribute) {
+					subElementValue = parsePropertySubElement(bd, null);
+				}
+			}
+		}
+
+		if ((hasRefAttribute && hasValueAttribute) ||
+				((hasRefAttribute || hasValueAttribute) && hasSubElement)) {
+			error(elementName +
+					" is only allowed to contain either 'ref' attribute OR 'value' attribute OR sub-element");
+		}
+
+		if (hasRefAttribute) {
+			String refName = attributes.get(BeanDefinitionParserDelegate.REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error(elementName + " contains empty 'ref' attribute");
+			}
+			return new RuntimeBeanReference(refName);
+		}
+		else if (hasValueAttribute) {
+			return new TypedStringValue(attributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE));
+		}
+		else if (hasSubElement) {
+			return subElementValue;
+		}
+		else {
+			// Neither child element nor "ref" or "value" attribute found.
+			error(elementName + " must specify a ref or value");
+			return null;
+		}
+	}
+
+	/**
+	 * Parse a value, ref or collection sub-element of a property or
+	 * constructor-arg element, as in
+	 * {@link BeanDefinitionParserDelegate#parsePropertySubElement(Element, BeanDefinition, String)}.
+	 */
+	@Nullable
+	private Object parsePropertySubElement(@Nullable BeanDefinition bd, @Nullable String defaultValueType)
+			throws XMLStreamException {
+
+		if (!isDefaultNamespace()) {
+			return parseNestedCustomElement(bd);
+		}
+		String localName = this.reader.getLocalName();
+		if (BeanDefinitionParserDelegate.BEAN_ELEMENT.equals(localName)) {
+			return parseBeanElement(bd);
+		}
+		else if (BeanDefinitionParserDelegate.REF_ELEMENT.equals(localName)) {
+			ElementAttributes attributes = readAttributes(false);
+			// A generic reference to any name of any bean.
+			String refName = attributes.get(BeanDefinitionParserDelegate.BEAN_REF_ATTRIBUTE);
+			boolean toParent = false;
+			if (!StringUtils.hasLength(refName)) {
+				// A reference to the id of another bean in a parent context.
+				refName = attributes.get(BeanDefinitionParserDelegate.PARENT_REF_ATTRIBUTE);
+				toParent = true;
+				if (!StringUtils.hasLength(refName)) {
+					error("'bean' or 'parent' is required for <ref> element");
+					return null;
+				}
+			}
+			if (!StringUtils.hasText(refName)) {
+				error("<ref> element contains empty target attribute");
+				return null;
+			}
+			return new RuntimeBeanReference(refName, toParent);
+		}
+		else if (BeanDefinitionParserDelegate.IDREF_ELEMENT.equals(localName)) {
+			String refName = readAttributes(false).get(BeanDefinitionParserDelegate.BEAN_REF_ATTRIBUTE);
+			if (!StringUtils.hasLength(refName)) {
+				error("'bean' is required for <idref> element");
+				return null;
+			}
+			if (!StringUtils.hasText(refName)) {
+				error("<idref> element contains empty target attribute");
+				return null;
+			}
+			return new RuntimeBeanNameReference(refName);
+		}
+		else if (BeanDefinitionParserDelegate.VALUE_ELEMENT.equals(localName)) {
+			return parseValueElement(defaultValueType);
+		}
+		else if (BeanDefinitionParserDelegate.NULL_ELEMENT.equals(localName)) {
+			// It's a distinguished null value. Let's wrap it in a TypedStringValue
+			// object in order to preserve the source location.
+			return new TypedStringValue(null);
+		}
+		else if (BeanDefinitionParserDelegate.ARRAY_ELEMENT.equals(localName)) {
+			ElementAttributes attributes = readAttributes(false);
+			String elementType = attributes.get(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+			ManagedArray target = new ManagedArray(elementType, 4);
+			target.setElementTypeName(elementType);
+			target.setMergeEnabled(parseMergeAttribute(attributes));
+			parseCollectionElements(target, bd, elementType);
+			return target;
+		}
+		else if (BeanDefinitionParserDelegate.LIST_ELEMENT.equals(localName)) {
+			ElementAttributes attributes = readAttributes(false);
+			String defaultElementType = attributes.get(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+			ManagedList<Object> target = new ManagedList<>();
+			target.setElementTypeName(defaultElementType);
+			target.setMergeEnabled(parseMergeAttribute(attributes));
+			parseCollectionElements(target, bd, defaultElementType);
+			return target;
+		}
+		else if (BeanDefinitionParserDelegate.SET_ELEMENT.equals(localName)) {
+			ElementAttributes attributes = readAttributes(false);
+			String defaultElementType = attributes.get(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+			ManagedSet<Object> target = new ManagedSet<>();
+			target.setElementTypeName(defaultElementType);
+			target.setMergeEnabled(parseMergeAttribute(attributes));
+			parseCollectionElements(target, bd, defaultElementType);
+			return target;
+		}
+		else if (BeanDefinitionParserDelegate.MAP_ELEMENT.equals(localName)) {
+			return parseMapElement(bd);
+		}
+		else if (BeanDefinitionParserDelegate.PROPS_ELEMENT.equals(localName)) {
+			return parsePropsElement();
+		}
+		else {
+			error("Unknown property sub-element: [" + qualifiedName() + "]");
+			return null;
+		}
+	}
+
+	private Object parseValueElement(@Nullable String defaultTypeName) throws XMLStreamException {
+		String specifiedTypeName = readAttributes(false).get(BeanDefinitionParserDelegate.TYPE_ATTRIBUTE);
+		String value = readText();
+		String typeName = specifiedTypeName;
+		if (!StringUtils.hasText(typeName)) {
+			typeName = defaultTypeName;
+		}
+		try {
+			TypedStringValue typedValue = getDelegate().buildTypedStringValue(value, typeName);
+			typedValue.setSpecifiedTypeName(specifiedTypeName);
+			return typedValue;
+		}
+		catch (ClassNotFoundException ex) {
+			error("Type class [" + typeName + "] not found for <value> element", ex);
+			return value;
+		}
+	}
+
+	private void parseCollectionElements(Collection<Object> target, @Nullable BeanDefinition bd,
+			String defaultElementType) throws XMLStreamException {
+
+		int collectionDepth = this.depth;
+		while (nextChildElement(collectionDepth)) {
+			if (!BeanDefinitionParserDelegate.DESCRIPTION_ELEMENT.equals(this.reader.getLocalName())) {
+				target.add(parsePropertySubElement(bd, defaultElementType));
+			}
+		}
+	}
+
+	private Object parseMapElement(@Nullable BeanDefinition bd) throws XMLStreamException {
+		ElementAttributes attributes = readAttributes(false);
+		String defaultKeyType = attributes.get(BeanDefinitionParserDelegate.KEY_TYPE_ATTRIBUTE);
+		String defaultValueType = attributes.get(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+
+		ManagedMap<Object, Object> map = new ManagedMap<>();
+		map.setKeyTypeName(defaultKeyType);
+		map.setValueTypeName(defaultValueType);
+		map.setMergeEnabled(parseMergeAttribute(attributes));
+
+		int mapDepth = this.depth;
+		while (nextChildElement(mapDepth)) {
+			if (BeanDefinitionParserDelegate.ENTRY_ELEMENT.equals(this.reader.getLocalName())) {
+				parseEntryElement(map, bd, defaultKeyType, defaultValueType);
+			}
+		}
+		return map;
+	}
+
+	private void parseEntryElement(ManagedMap<Object, Object> map, @Nullable BeanDefinition bd,
+			String defaultKeyType, String defaultValueType) throws XMLStreamException {
+
+		ElementAttributes attributes = readAttributes(false);
+		boolean hasKeyAttribute = attributes.has(BeanDefinitionParserDelegate.KEY_ATTRIBUTE);
+		boolean hasKeyRefAttribute = attributes.has(BeanDefinitionParserDelegate.KEY_REF_ATTRIBUTE);
+		boolean hasValueAttribute = attributes.has(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE);
+		boolean hasValueRefAttribute = attributes.has(BeanDefinitionParserDelegate.VALUE_REF_ATTRIBUTE);
+		boolean hasValueTypeAttribute = attributes.has(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+
+		// Should only have one value child element: ref, value, list, etc.
+		// Optionally, there might be a key child element.
+		boolean hasKeyElement = false;
+		boolean hasValueElement = false;
+		Object keyElementValue = null;
+		Object valueElementValue = null;
+		int entryDepth = this.depth;
+		while (nextChildElement(entryDepth)) {
+			String localName = this.reader.getLocalName();
+			if (BeanDefinitionParserDelegate.KEY_ELEMENT.equals(localName)) {
+				if (hasKeyElement) {
+					error("<entry> element is only allowed to contain one <key> sub-element");
+				}
+				else {
+					hasKeyElement = true;
+					if (!hasKeyAttribute && !hasKeyRefAttribute) {
+						keyElementValue = parseKeyElement(bd, defaultKeyType);
+					}
+				}
+			}
+			else if (!BeanDefinitionParserDelegate.DESCRIPTION_ELEMENT.equals(localName)) {
+				// Child element is what we're looking for.
+				if (hasValueElement) {
+					error("<entry> element must not contain more than one value sub-element");
+				}
+				else {
+					hasValueElement = true;
+					if (!hasValueAttribute && !hasValueRefAttribute) {
+						valueElementValue = parsePropertySubElement(bd, defaultValueType);
+					}
+				}
+			}
+		}
+
+		// Extract key from attribute or sub-element.
+		Object key = null;
+		if ((hasKeyAttribute && hasKeyRefAttribute) ||
+				(hasKeyAttribute || hasKeyRefAttribute) && hasKeyElement) {
+			error("<entry> element is only allowed to contain either " +
+					"a 'key' attribute OR a 'key-ref' attribute OR a <key> sub-element");
+		}
+		if (hasKeyAttribute) {
+			key = buildTypedStringValueForMap(attributes.get(BeanDefinitionParserDelegate.KEY_ATTRIBUTE), defaultKeyType);
+		}
+		else if (hasKeyRefAttribute) {
+			String refName = attributes.get(BeanDefinitionParserDelegate.KEY_REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error("<entry> element contains empty 'key-ref' attribute");
+			}
+			key = new RuntimeBeanReference(refName);
+		}
+		else if (hasKeyElement) {
+			key = keyElementValue;
+		}
+		else {
+			error("<entry> element must specify a key");
+		}
+
+		// Extract value from attribute or sub-element.
+		Object value = null;
+		if ((hasValueAttribute && hasValueRefAttribute) ||
+				(hasValueAttribute || hasValueRefAttribute) && hasValueElement) {
+			error("<entry> element is only allowed to contain either " +
+					"'value' attribute OR 'value-ref' attribute OR <value> sub-element");
+		}
+		if ((hasValueTypeAttribute && hasValueRefAttribute) ||
+				(hasValueTypeAttribute && !hasValueAttribute) ||
+				(hasValueTypeAttribute && hasValueElement)) {
+			error("<entry> element is only allowed to contain a 'value-type' " +
+					"attribute when it has a 'value' attribute");
+		}
+		if (hasValueAttribute) {
+			String valueType = attributes.get(BeanDefinitionParserDelegate.VALUE_TYPE_ATTRIBUTE);
+			if (!StringUtils.hasText(valueType)) {
+				valueType = defaultValueType;
+			}
+			value = buildTypedStringValueForMap(attributes.get(BeanDefinitionParserDelegate.VALUE_ATTRIBUTE), valueType);
+		}
+		else if (hasValueRefAttribute) {
+			String refName = attributes.get(BeanDefinitionParserDelegate.VALUE_REF_ATTRIBUTE);
+			if (!StringUtils.hasText(refName)) {
+				error("<entry> element contains empty 'value-ref' attribute");
+			}
+			value = new RuntimeBeanReference(refName);
+		}
+		else if (hasValueElement) {
+			value = valueElementValue;
+		}
+		else {
+			error("<entry> element must specify a value");
+		}
+
+		// Add final key and value to the Map.
+		map.put(key, value);
+	}
+
+	private Object buildTypedStringValueForMap(String value, String defaultTypeName) {
+		try {
+			return getDelegate().buildTypedStringValue(value, defaultTypeName);
+		}
+		catch (ClassNotFoundException ex) {
+			error("Type class [" + defaultTypeName + "] not found for Map key/value type", ex);
+			return value;
+		}
+	}
+
+	@Nullable
+	private Object parseKeyElement(@Nullable BeanDefinition bd, String defaultKeyTypeName)
+			throws XMLStreamException {
+
+		boolean hasSubElement = false;
+		Object subElementValue = null;
+		int keyDepth = this.depth;
+		while (nextChildElement(keyDepth)) {
+			// Child element is what we're looking for.
+			if (hasSubElement) {
+				error("<key> element must not contain more than one value sub-element");
+			}
+			else {
+				hasSubElement = true;
+				subElementValue = parsePropertySubElement(bd, defaultKeyTypeName);
+			}
+		}
+		return subElementValue;
+	}
+
+	private Object parsePropsElement() throws XMLStreamException {
+		ManagedProperties props = new ManagedProperties();
+		props.setMergeEnabled(parseMergeAttribute(readAttributes(false)));
+		int propsDepth = this.depth;
+		while (nextChildElement(propsDepth)) {
+			if (BeanDefinitionParserDelegate.PROP_ELEMENT.equals(this.reader.getLocalName())) {
+				String key = readAttributes(false).get(BeanDefinitionParserDelegate.KEY_ATTRIBUTE);
+				// Trim the text value to avoid unwanted whitespace
+				// caused by typical XML formatting.
+				String value = readText().trim();
+				props.put(new TypedStringValue(key), new TypedStringValue(value));
+			}
+		}
+		return props;
+	}
+
+	private boolean parseMergeAttribute(ElementAttributes attributes) {
+		String value = attributes.get(BeanDefinitionParserDelegate.MERGE_ATTRIBUTE);
+		if (isDefaultValue(value)) {
+			value = getDelegate().getDefaults().getMerge();
+		}
+		return BeanDefinitionParserDelegate.TRUE_VALUE.equals(value);
+	}
+
+	@Nullable
+	private BeanDefinitionHolder parseNestedCustomElement(@Nullable BeanDefinition containingBd)
+			throws XMLStreamException {
+
+		Element element = readFragment(getFragmentContainer());
+		try {
+			BeanDefinition innerDefinition = getDelegate().parseCustomElement(element, containingBd);
+			if (innerDefinition == null) {
+				error("Incorrect usage of element '" + element.getNodeName() + "' in a nested manner. " +
+						"This tag cannot be used nested inside <property>.");
+				return null;
+			}
+			String id = element.getNodeName() + BeanDefinitionReaderUtils.GENERATED_BEAN_NAME_SEPARATOR +
+					ObjectUtils.getIdentityHexString(innerDefinition);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Using generated bean name [" + id +
+						"] for nested custom element '" + element.getNodeName() + "'");
+			}
+			return new BeanDefinitionHolder(innerDefinition, id);
+		}
+		finally {
+			getFragmentContainer().removeChild(element);
+		}
+	}
+
+
+	// Stream navigation
+
+	private int next() throws XMLStreamException {
+		int eventType = this.reader.next();
+		if (eventType == XMLStreamConstants.START_ELEMENT) {
+			this.depth++;
+		}
+		else if (eventType == XMLStreamConstants.END_ELEMENT) {
+			this.depth--;
+		}
+		return eventType;
+	}
+
+	/**
+	 * Move to the next child element of the element at the given depth,
+	 * skipping any content of previous child elements not read yet.
+	 * @return {@code true} if positioned on the start of a child element,
+	 * {@code false} if positioned on the end of the parent element
+	 */
+	private boolean nextChildElement(int parentDepth) throws XMLStreamException {
+		while (this.reader.hasNext()) {
+			int eventType = next();
+			if (eventType == XMLStreamConstants.START_ELEMENT && this.depth == parentDepth + 1) {
+				return true;
+			}
+			if (eventType == XMLStreamConstants.END_ELEMENT && this.depth == parentDepth - 1) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Move to the end of the element at the given depth, unless already there.
+	 */
+	private void skipElement(int elementDepth) throws XMLStreamException {
+		while (this.depth >= elementDepth && this.reader.hasNext()) {
+			next();
+		}
+	}
+
+	/**
+	 * Read the text content of the current element, ignoring nested elements,
+	 * as in {@link org.springframework.util.xml.DomUtils#getTextValue}.
+	 */
+	private String readText() throws XMLStreamException {
+		int elementDepth = this.depth;
+		StringBuilder text = new StringBuilder();
+		while (this.reader.hasNext()) {
+			int eventType = next();
+			if (eventType == XMLStreamConstants.END_ELEMENT && this.depth == elementDepth - 1) {
+				break;
+			}
+			if (this.depth == elementDepth && (eventType == XMLStreamConstants.CHARACTERS ||
+					eventType == XMLStreamConstants.CDATA || eventType == XMLStreamConstants.SPACE ||
+					eventType == XMLStreamConstants.ENTITY_REFERENCE)) {
+				text.append(this.reader.getText());
+			}
+		}
+		return text.toString();
+	}
+
+	private boolean isDefaultNamespace() {
+		String namespaceUri = this.reader.getNamespaceURI();
+		return (!StringUtils.hasLength(namespaceUri) || BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI.equals(namespaceUri));
+	}
+
+	private String qualifiedName() {
+		String prefix = this.reader.getPrefix();
+		String localName = this.reader.getLocalName();
+		return (StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName);
+	}
+
+	private ElementAttributes readAttributes(boolean collectCustomAttributes) {
+		int count = this.reader.getAttributeCount();
+		ElementAttributes attributes = new ElementAttributes(count);
+		for (int i = 0; i < count; i++) {
+			String namespaceUri = this.reader.getAttributeNamespace(i);
+			String localName = this.reader.getAttributeLocalName(i);
+			if (!StringUtils.hasLength(namespaceUri)) {
+				attributes.values.put(localName, this.reader.getAttributeValue(i));
+			}
+			else if (collectCustomAttributes) {
+				String prefix = this.reader.getAttributePrefix(i);
+				attributes.addCustomAttribute(namespaceUri,
+						(StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName),
+						this.reader.getAttributeValue(i));
+			}
+		}
+		return attributes;
+	}
+
+
+	// DOM fragments for custom namespace handlers
+
+	/**
+	 * Read the current element into a DOM fragment, appended to the given parent.
+	 */
+	private Element readFragment(Node parent) throws XMLStreamException {
+		Document document = parent.getOwnerDocument();
+		int elementDepth = this.depth;
+		Element root = createElement(document);
+		// Namespaces declared on enclosing <beans> elements, e.g. for QName values
+		for (Map.Entry<String, String> namespace : getScope().namespaces.entrySet()) {
+			String attributeName = (namespace.getKey().isEmpty() ?
+					XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + namespace.getKey());
+			if (!root.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, localPart(attributeName))) {
+				root.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, attributeName, namespace.getValue());
+			}
+		}
+		parent.appendChild(root);
+
+		Node current = root;
+		while (this.reader.hasNext()) {
+			int eventType = next();
+			if (eventType == XMLStreamConstants.START_ELEMENT) {
+				Element child = createElement(document);
+				current.appendChild(child);
+				current = child;
+			}
+			else if (eventType == XMLStreamConstants.END_ELEMENT) {
+				if (this.depth == elementDepth - 1) {
+					break;
+				}
+				current = current.getParentNode();
+			}
+			else if (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.SPACE) {
+				current.appendChild(document.createTextNode(this.reader.getText()));
+			}
+			else if (eventType == XMLStreamConstants.CDATA) {
+				current.appendChild(document.createCDATASection(this.reader.getText()));
+			}
+		}
+		return root;
+	}
+
+	private Element createElement(Document document) {
+		String namespaceUri = this.reader.getNamespaceURI();
+		Element element = document.createElementNS(
+				(StringUtils.hasLength(namespaceUri) ? namespaceUri : null), qualifiedName());
+		for (int i = 0; i < this.reader.getNamespaceCount(); i++) {
+			String prefix = this.reader.getNamespacePrefix(i);
+			element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, (StringUtils.hasLength(prefix) ?
+					XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix : XMLConstants.XMLNS_ATTRIBUTE),
+					this.reader.getNamespaceURI(i));
+		}
+		for (int i = 0; i < this.reader.getAttributeCount(); i++) {
+			String attributeNamespace = this.reader.getAttributeNamespace(i);
+			String prefix = this.reader.getAttributePrefix(i);
+			String localName = this.reader.getAttributeLocalName(i);
+			element.setAttributeNS((StringUtils.hasLength(attributeNamespace) ? attributeNamespace : null),
+					(StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName),
+					this.reader.getAttributeValue(i));
+		}
+		return element;
+	}
+
+	/**
+	 * Create a "bean" element to hold the custom attributes and nested custom
+	 * elements of a bean definition, for decoration by their namespace handlers.
+	 */
+	private Element createDecoratorHost() {
+		Element container = getFragmentContainer();
+		Element host = container.getOwnerDocument().createElementNS(
+				BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI, BeanDefinitionParserDelegate.BEAN_ELEMENT);
+		container.appendChild(host);
+		return host;
+	}
+
+	private Element getFragmentContainer() {
+		Element container = this.fragmentContainer;
+		if (container == null) {
+			try {
+				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+				factory.setNamespaceAware(true);
+				Document document = factory.newDocumentBuilder().newDocument();
+				container = document.createElementNS(
+						BeanDefinitionParserDelegate.BEANS_NAMESPACE_URI, DefaultBeanDefinitionDocumentReader.NESTED_BEANS_ELEMENT);
+				document.appendChild(container);
+				this.fragmentContainer = container;
+			}
+			catch (ParserConfigurationException ex) {
+				throw new IllegalStateException("Failed to create DOM document for custom namespace elements", ex);
+			}
+		}
+		return container;
+	}
+
+
+	// Common helpers
+
+	private BeansScope getScope() {
+		BeansScope scope = this.scope;
+		if (scope == null) {
+			throw new IllegalStateException("No <beans> element in scope");
+		}
+		return scope;
+	}
+
+	private BeanDefinitionParserDelegate getDelegate() {
+		return getScope().delegate;
+	}
+
+	private void error(String message) {
+		this.readerContext.error(message, null, this.parseState.snapshot());
+	}
+
+	private void error(String message, Throwable cause) {
+		this.readerContext.error(message, null, this.parseState.snapshot(), cause);
+	}
+
+	private static boolean isDefaultValue(String value) {
+		return (BeanDefinitionParserDelegate.DEFAULT_VALUE.equals(value) || "".equals(value));
+	}
+
+	private static String localPart(String qualifiedName) {
+		int index = qualifiedName.indexOf(':');
+		return (index != -1 ? qualifiedName.substring(index + 1) : qualifiedName);
+	}
+
+
+	/**
+	 * State for an enclosing {@code <beans>} element.
+	 */
+	private static final class BeansScope {
+
+		final BeanDefinitionParserDelegate delegate;
+
+		final Set<String> usedNames = new HashSet<>();
+
+		final Map<String, String> namespaces;
+
+		BeansScope(BeanDefinitionParserDelegate delegate, @Nullable BeansScope parent) {
+			this.delegate = delegate;
+			this.namespaces = (parent != null ? new HashMap<>(parent.namespaces) : new HashMap<>(4));
+		}
+
+		void addNamespace(@Nullable String prefix, @Nullable String namespaceUri) {
+			if (namespaceUri != null) {
+				this.namespaces.put(prefix != null ? prefix : "", namespaceUri);
+			}
+		}
+	}
+
+
+	/**
+	 * The attributes of a start element: values of unqualified attributes
+	 * by local name, plus namespace URI, qualified name and value of
+	 * attributes in other namespaces where requested.
+	 */
+	private static final class ElementAttributes {
+
+		final Map<String, String> values;
+
+		@Nullable
+		List<String[]> customAttributes;
+
+		ElementAttributes(int count) {
+			this.values = new HashMap<>(count < 12 ? 16 : count * 2);
+		}
+
+		/**
+		 * Return the attribute value, or an empty String if not present,
+		 * as with {@link Element#getAttribute}.
+		 */
+		String get(String name) {
+			String value = this.values.get(name);
+			return (value != null ? value : "");
+		}
+
+		boolean has(String name) {
+			return this.values.containsKey(name);
+		}
+
+		void addCustomAttribute(String namespaceUri, String qualifiedName, String value) {
+			if (this.customAttributes == null) {
+				this.customAttributes = new ArrayList<>(2);
+			}
+			this.customAttributes.add(new String[] {namespaceUri, qualifiedName, value});
+		}
+	}
+
+}
@@ -0,0 +1,717 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.util.StreamReaderDelegate;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
+import org.w3c.dom.ls.LSInput;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.xml.SimpleSaxErrorHandler;
+import org.springframework.util.xml.StaxUtils;
+
+/**
+ * Streaming variant of {@link XmlBeanDefinitionReader}, reading the XML document
+ * with StAX and registering each bean definition as soon as its element has been
+ * read, instead of loading a DOM tree for the entire document upfront.
+ *
+ * <p>Elements of the "spring-beans" namespace are parsed straight from the
+ * stream, following the same rules as {@link DefaultBeanDefinitionDocumentReader}
+ * and {@link BeanDefinitionParserDelegate}. DOM fragments are only built for
+ * custom namespace elements and attributes, which are handed to their
+ * {@link NamespaceHandler} just like in a DOM-based read. {@code <import>}
+ * elements are loaded through this reader again, streaming as well.
+ *
+ * <p>XSD validation is performed on the fly, against a {@link Schema} compiled
+ * once per distinct {@code xsi:schemaLocation} declaration of the root element
+ * and reused for all further documents, also by other reader instances
+ * resolving schemas against the same ClassLoader (unless a custom
+ * {@link #setEntityResolver EntityResolver} has been specified). Since
+ * validation is usually not needed at runtime for a configuration that does
+ * not change after deployment, it can be performed at build time through
+ * {@link #validate(Resource)} and switched off at runtime, either through
+ * {@link #setValidating} or through the {@value #IGNORE_VALIDATION_PROPERTY_NAME}
+ * property. Documents which require DTD validation are read through the
+ * DOM-based algorithm of the superclass.
+ *
+ * <p>Note that this reader does not expose the XML elements as source metadata,
+ * and that default attribute values declared in a schema are not applied
+ * to custom namespace elements, just like with a non-validating
+ * {@link XmlBeanDefinitionReader}. Schemas which cannot be resolved through the
+ * {@link #setEntityResolver EntityResolver} (by default, the mappings in
+ * {@code META-INF/spring.schemas}) fail the read rather than being fetched
+ * over the network.
+ *
+ * <p>Since streamed documents are not loaded as a DOM tree, all documents are
+ * read through the DOM-based algorithm of the superclass as soon as one of its
+ * DOM-based extension points is in use: a custom {@link #setDocumentLoader
+ * DocumentLoader} or {@link #setDocumentReaderClass document reader class},
+ * or an overridden {@link #doLoadDocument} or
+ * {@link #createBeanDefinitionDocumentReader()} method.
+ *
+ * @since 5.1.21
+ * @see #setValidating
+ * @see #validate(Resource)
+ */
+public class StaxBeanDefinitionReader extends XmlBeanDefinitionReader {
+
+	/**
+	 * System property that instructs Spring to skip the validation of XML bean
+	 * definition documents read by a {@code StaxBeanDefinitionReader}, e.g. for
+	 * configuration files which have been validated at build time:
+	 * {@value}. The default is "false".
+	 * <p>May alternatively be configured as a Spring property, e.g. in a
+	 * {@code spring.properties} file on the classpath.
+	 * @see #setValidating
+	 */
+	public static final String IGNORE_VALIDATION_PROPERTY_NAME = "spring.xml.stax.ignoreValidation";
+
+	private static final boolean shouldIgnoreValidation =
+			SpringProperties.getFlag(IGNORE_VALIDATION_PROPERTY_NAME);
+
+	private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+	/**
+	 * Compiled schemas shared across reader instances with default entity
+	 * resolution, per ClassLoader that schemas are resolved against.
+	 */
+	private static final Map<ClassLoader, Map<String, Schema>> sharedSchemaCaches =
+			new ConcurrentReferenceHashMap<>(4);
+
+
+	private ErrorHandler errorHandler = new SimpleSaxErrorHandler(logger);
+
+	@Nullable
+	private XMLInputFactory inputFactory;
+
+	@Nullable
+	private SchemaFactory schemaFactory;
+
+	private boolean customEntityResolver;
+
+	@Nullable
+	private Map<String, Schema> schemaCache;
+
+	private boolean customDocumentLoader;
+
+	private boolean customDocumentReaderClass;
+
+	private final boolean documentHandlingOverridden;
+
+
+	/**
+	 * Create new StaxBeanDefinitionReader for the given bean factory.
+	 * @param registry the BeanFactory to load bean definitions into,
+	 * in the form of a BeanDefinitionRegistry
+	 */
+	public StaxBeanDefinitionReader(BeanDefinitionRegistry registry) {
+		super(registry);
+		if (shouldIgnoreValidation) {
+			setValidating(false);
+		}
+		this.documentHandlingOverridden = (isOverridden("doLoadDocument", InputSource.class, Resource.class) ||
+				isOverridden("createBeanDefinitionDocumentReader"));
+	}
+
+	private boolean isOverridden(String methodName, Class<?>... paramTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), methodName, paramTypes);
+		return (method != null && method.getDeclaringClass() != XmlBeanDefinitionReader.class);
+	}
+
+
+	@Override
+	public void setEntityResolver(@Nullable EntityResolver entityResolver) {
+		super.setEntityResolver(entityResolver);
+		this.customEntityResolver = (entityResolver != null);
+		this.schemaCache = null;
+	}
+
+	@Override
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		super.setErrorHandler(errorHandler);
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A custom DocumentLoader switches this reader to the DOM-based algorithm
+	 * of the superclass for all documents.
+	 */
+	@Override
+	public void setDocumentLoader(@Nullable DocumentLoader documentLoader) {
+		super.setDocumentLoader(documentLoader);
+		this.customDocumentLoader = (documentLoader != null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>A document reader class other than {@link DefaultBeanDefinitionDocumentReader}
+	 * switches this reader to the DOM-based algorithm of the superclass for all
+	 * documents, since bean definitions are otherwise parsed straight from the
+	 * stream rather than through a {@link BeanDefinitionDocumentReader}.
+	 */
+	@Override
+	public void setDocumentReaderClass(Class<? extends BeanDefinitionDocumentReader> documentReaderClass) {
+		super.setDocumentReaderClass(documentReaderClass);
+		this.customDocumentReaderClass = (documentReaderClass != DefaultBeanDefinitionDocumentReader.class);
+	}
+
+	/**
+	 * Validate the given XML bean definition document against the schemas
+	 * declared by its root element, without registering any bean definitions.
+	 * <p>Meant for checking configuration files at build time, e.g. from a test,
+	 * so that validation can be switched off when reading them at runtime.
+	 * Imported documents are not validated: pass those in individually.
+	 * Documents with a DTD declaration are validated against the DTD.
+	 * @param resource the resource descriptor for the XML file
+	 * @throws BeanDefinitionStoreException if the document is invalid
+	 * or cannot be read
+	 */
+	public void validate(Resource resource) throws BeanDefinitionStoreException {
+		Assert.notNull(resource, "Resource must not be null");
+		try (InputStream inputStream = resource.getInputStream()) {
+			if (detectValidationMode(resource) == VALIDATION_DTD) {
+				InputSource inputSource = new InputSource(inputStream);
+				inputSource.setSystemId(resource.getDescription());
+				new DefaultDocumentLoader().loadDocument(
+						inputSource, getEntityResolver(), this.errorHandler, VALIDATION_DTD, isNamespaceAware());
+				return;
+			}
+			XMLStreamReader streamReader = new ValidatingStreamReader(
+					getInputFactory().createXMLStreamReader(inputStream), resource);
+			try {
+				while (streamReader.hasNext()) {
+					streamReader.next();
+				}
+			}
+			finally {
+				streamReader.close();
+			}
+		}
+		catch (Throwable ex) {
+			throw translateException(ex, resource);
+		}
+	}
+
+	/**
+	 * Actually load bean definitions from the specified XML file, streaming
+	 * through the document unless it requires DTD validation or a DOM-based
+	 * extension point of the superclass is in use.
+	 * @param inputSource the SAX InputSource to read from
+	 * @param resource the resource descriptor for the XML file
+	 * @return the number of bean definitions found
+	 * @throws BeanDefinitionStoreException in case of loading or parsing errors
+	 */
+	@Override
+	protected int doLoadBeanDefinitions(InputSource inputSource, Resource resource)
+			throws BeanDefinitionStoreException {
+
+		int validationMode = getValidationModeForResource(resource);
+		if (validationMode == VALIDATION_DTD || this.customDocumentLoader || this.customDocumentReaderClass ||
+				this.documentHandlingOverridden) {
+			return super.doLoadBeanDefinitions(inputSource, resource);
+		}
+
+		try {
+			XMLStreamReader streamReader = createStreamReader(inputSource);
+			if (validationMode != VALIDATION_NONE) {
+				streamReader = new ValidatingStreamReader(streamReader, resource);
+			}
+			try {
+				int countBefore = getRegistry().getBeanDefinitionCount();
+				new StaxBeanDefinitionParser(createReaderContext(resource), streamReader).parse();
+				int count = getRegistry().getBeanDefinitionCount() - countBefore;
+				if (logger.isDebugEnabled()) {
+					logger.debug("Loaded " + count + " bean definitions from " + resource);
+				}
+				return count;
+			}
+			finally {
+				streamReader.close();
+			}
+		}
+		catch (Throwable ex) {
+			throw translateException(ex, resource);
+		}
+	}
+
+	private XMLStreamReader createStreamReader(InputSource inputSource) throws XMLStreamException {
+		XMLInputFactory inputFactory = getInputFactory();
+		Reader characterStream = inputSource.getCharacterStream();
+		if (characterStream != null) {
+			return inputFactory.createXMLStreamReader(characterStream);
+		}
+		InputStream byteStream = inputSource.getByteStream();
+		if (byteStream != null) {
+			String encoding = inputSource.getEncoding();
+			return (encoding != null ? inputFactory.createXMLStreamReader(byteStream, encoding) :
+					inputFactory.createXMLStreamReader(byteStream));
+		}
+		return inputFactory.createXMLStreamReader(new StreamSource(inputSource.getSystemId()));
+	}
+
+	private XMLInputFactory getInputFactory() {
+		XMLInputFactory inputFactory = this.inputFactory;
+		if (inputFactory == null) {
+			inputFactory = StaxUtils.createDefensiveInputFactory();
+			this.inputFactory = inputFactory;
+		}
+		return inputFactory;
+	}
+
+	private BeanDefinitionStoreException translateException(Throwable ex, Resource resource) {
+		if (ex instanceof BeanDefinitionStoreException) {
+			return (BeanDefinitionStoreException) ex;
+		}
+		if (ex instanceof XMLStreamException) {
+			XMLStreamException xse = (XMLStreamException) ex;
+			SAXParseException parseEx;
+			if (xse.getNestedException() instanceof SAXParseException) {
+				parseEx = (SAXParseException) xse.getNestedException();
+			}
+			else {
+				Location location = xse.getLocation();
+				parseEx = (location != null ?
+						new SAXParseException(xse.getMessage(), location.getPublicId(), location.getSystemId(),
+								location.getLineNumber(), location.getColumnNumber(), xse) :
+						new SAXParseException(xse.getMessage(), null, xse));
+			}
+			return new XmlBeanDefinitionStoreException(resource.getDescription(),
+					"Line " + parseEx.getLineNumber() + " in XML document from " + resource + " is invalid", parseEx);
+		}
+		if (ex instanceof SAXException) {
+			return new XmlBeanDefinitionStoreException(resource.getDescription(),
+					"XML document from " + resource + " is invalid", (SAXException) ex);
+		}
+		if (ex instanceof IOException) {
+			return new BeanDefinitionStoreException(resource.getDescription(),
+					"IOException parsing XML document from " + resource, ex);
+		}
+		return new BeanDefinitionStoreException(resource.getDescription(),
+				"Unexpected exception parsing XML document from " + resource, ex);
+	}
+
+	/**
+	 * Return the schema for the given {@code xsi:schemaLocation} declaration,
+	 * compiling it on first use.
+	 * @param schemaLocation pairs of namespace and schema location,
+	 * as declared on the root element of a document
+	 */
+	private Schema getSchema(String schemaLocation) throws SAXException {
+		Map<String, Schema> schemaCache = getSchemaCache();
+		Schema schema = schemaCache.get(schemaLocation);
+		if (schema == null) {
+			synchronized (schemaCache) {
+				schema = schemaCache.get(schemaLocation);
+				if (schema == null) {
+					schema = compileSchema(schemaLocation);
+					schemaCache.put(schemaLocation, schema);
+					if (logger.isTraceEnabled()) {
+						logger.trace("Compiled XML schema for [" + schemaLocation + "]");
+					}
+				}
+			}
+		}
+		return schema;
+	}
+
+	private Map<String, Schema> getSchemaCache() {
+		Map<String, Schema> schemaCache = this.schemaCache;
+		if (schemaCache == null) {
+			ClassLoader classLoader = null;
+			if (!this.customEntityResolver) {
+				ResourceLoader resourceLoader = getResourceLoader();
+				classLoader = (resourceLoader != null ? resourceLoader.getClassLoader() : getBeanClassLoader());
+				if (classLoader == null) {
+					classLoader = ClassUtils.getDefaultClassLoader();
+				}
+			}
+			schemaCache = (classLoader != null ?
+					sharedSchemaCaches.computeIfAbsent(classLoader, key -> new ConcurrentHashMap<>(8)) :
+					new ConcurrentHashMap<>(8));
+			this.schemaCache = schemaCache;
+		}
+		return schemaCache;
+	}
+
+	private Schema compileSchema(String schemaLocation) throws SAXException {
+		EntityResolver entityResolver = getEntityResolver();
+		SchemaFactory schemaFactory = this.schemaFactory;
+		if (schemaFactory == null) {
+			schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+			schemaFactory.setErrorHandler(this.errorHandler);
+			schemaFactory.setResourceResolver(new EntityResolverAdapter(entityResolver));
+			this.schemaFactory = schemaFactory;
+		}
+		String[] tokens = StringUtils.tokenizeToStringArray(schemaLocation, " \t\n\r");
+		List<Source> sources = new ArrayList<>(tokens.length / 2);
+		for (int i = 1; i < tokens.length; i += 2) {
+			sources.add(new SAXSource(resolveEntity(entityResolver, tokens[i])));
+		}
+		return schemaFactory.newSchema(sources.toArray(new Source[0]));
+	}
+
+	private static InputSource resolveEntity(EntityResolver entityResolver, String systemId) throws SAXException {
+		InputSource inputSource;
+		try {
+			inputSource = entityResolver.resolveEntity(null, systemId);
+		}
+		catch (IOException ex) {
+			throw new SAXException("Failed to resolve XML schema [" + systemId + "]", ex);
+		}
+		if (inputSource == null) {
+			throw new SAXException(unresolvableSchemaMessage(systemId));
+		}
+		return inputSource;
+	}
+
+	private static String unresolvableSchemaMessage(String systemId) {
+		return "Unable to resolve XML schema [" + systemId + "] through the configured EntityResolver: " +
+				"schemas are not fetched over the network - check META-INF/spring.schemas";
+	}
+
+
+	/**
+	 * {@link XMLStreamReader} decorator which validates the events passing
+	 * through it, feeding them into a {@link ValidatorHandler} for the schema
+	 * declared by the root element.
+	 */
+	private class ValidatingStreamReader extends StreamReaderDelegate implements Locator {
+
+		private final Resource resource;
+
+		private final AttributesImpl attributes = new AttributesImpl();
+
+		@Nullable
+		private ValidatorHandler validatorHandler;
+
+		public ValidatingStreamReader(XMLStreamReader reader, Resource resource) {
+			super(reader);
+			this.resource = resource;
+		}
+
+		@Override
+		public int next() throws XMLStreamException {
+			int eventType = super.next();
+			try {
+				handleEvent(eventType);
+			}
+			catch (SAXException ex) {
+				throw new XMLStreamException(ex.getMessage(), getLocation(), ex);
+			}
+			return eventType;
+		}
+
+		@Override
+		public int nextTag() throws XMLStreamException {
+			int eventType = next();
+			while (eventType == XMLStreamConstants.CHARACTERS && isWhiteSpace() ||
+					eventType == XMLStreamConstants.CDATA && isWhiteSpace() ||
+					eventType == XMLStreamConstants.SPACE ||
+					eventType == XMLStreamConstants.PROCESSING_INSTRUCTION ||
+					eventType == XMLStreamConstants.COMMENT) {
+				eventType = next();
+			}
+			if (eventType != XMLStreamConstants.START_ELEMENT && eventType != XMLStreamConstants.END_ELEMENT) {
+				throw new XMLStreamException("Expected start or end tag", getLocation());
+			}
+			return eventType;
+		}
+
+		@Override
+		public String getElementText() throws XMLStreamException {
+			StringBuilder text = new StringBuilder();
+			int eventType = next();
+			while (eventType != XMLStreamConstants.END_ELEMENT) {
+				if (eventType == XMLStreamConstants.START_ELEMENT) {
+					throw new XMLStreamException("Element text must not contain elements", getLocation());
+				}
+				if (eventType != XMLStreamConstants.COMMENT &&
+						eventType != XMLStreamConstants.PROCESSING_INSTRUCTION) {
+					text.append(getText());
+				}
+				eventType = next();
+			}
+			return text.toString();
+		}
+
+		private void handleEvent(int eventType) throws SAXException {
+			ValidatorHandler handler = this.validatorHandler;
+			if (handler == null) {
+				if (eventType != XMLStreamConstants.START_ELEMENT) {
+					return;
+				}
+				String schemaLocation = getAttributeValue(
+						XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, SCHEMA_LOCATION_ATTRIBUTE);
+				handler = getSchema(schemaLocation != null ? schemaLocation : "").newValidatorHandler();
+				handler.setErrorHandler(errorHandler);
+				handler.setDocumentLocator(this);
+				handler.startDocument();
+				this.validatorHandler = handler;
+			}
+			switch (eventType) {
+				case XMLStreamConstants.START_ELEMENT:
+					for (int i = 0; i < getNamespaceCount(); i++) {
+						handler.startPrefixMapping(nullSafe(getNamespacePrefix(i)), nullSafe(getNamespaceURI(i)));
+					}
+					this.attributes.clear();
+					for (int i = 0; i < getAttributeCount(); i++) {
+						String prefix = getAttributePrefix(i);
+						String localName = getAttributeLocalName(i);
+						this.attributes.addAttribute(nullSafe(getAttributeNamespace(i)), localName,
+								(StringUtils.hasLength(prefix) ? prefix + ":" + localName : localName),
+								"CDATA", getAttributeValue(i));
+					}
+					handler.startElement(nullSafe(getNamespaceURI()), getLocalName(), qualifiedName(), this.attributes);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					handler.endElement(nullSafe(getNamespaceURI()), getLocalName(), qualifiedName());
+					for (int i = 0; i < getNamespaceCount(); i++) {
+						handler.endPrefixMapping(nullSafe(getNamespacePrefix(i)));
+					}
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					handler.characters(getTextCharacters(), getTextStart(), getTextLength());
+					break;
+				case XMLStreamConstants.END_DOCUMENT:
+					handler.endDocument();
+					break;
+			}
+		}
+
+		private String qualifiedName() {
+			String prefix = getPrefix();
+			return (StringUtils.hasLength(prefix) ? prefix + ":" + getLocalName() : getLocalName());
+		}
+
+		private String nullSafe(@Nullable String value) {
+			return (value != null ? value : "");
+		}
+
+		@Override
+		@Nullable
+		public String getPublicId() {
+			return getLocation().getPublicId();
+		}
+
+		@Override
+		public String getSystemId() {
+			String systemId = getLocation().getSystemId();
+			return (systemId != null ? systemId : this.resource.getDescription());
+		}
+
+		@Override
+		public int getLineNumber() {
+			return getLocation().getLineNumber();
+		}
+
+		@Override
+		public int getColumnNumber() {
+			return getLocation().getColumnNumber();
+		}
+	}
+
+
+	/**
+	 * {@link LSResourceResolver} adapter for an {@link EntityResolver}, resolving
+	 * schemas included or imported by another schema as on a DOM-based read.
+	 */
+	private static class EntityResolverAdapter implements LSResourceResolver {
+
+		private final EntityResolver entityResolver;
+
+		public EntityResolverAdapter(EntityResolver entityResolver) {
+			this.entityResolver = entityResolver;
+		}
+
+		@Override
+		@Nullable
+		public LSInput resolveResource(String type, @Nullable String namespaceURI, @Nullable String publicId,
+				@Nullable String systemId, @Nullable String baseURI) {
+
+			if (systemId == null) {
+				return null;
+			}
+			String location = systemId;
+			if (baseURI != null) {
+				try {
+					location = URI.create(baseURI).resolve(systemId).toString();
+				}
+				catch (IllegalArgumentException ex) {
+					// Keep the system id as declared
+				}
+			}
+			InputSource inputSource;
+			try {
+				inputSource = this.entityResolver.resolveEntity(publicId, location);
+			}
+			catch (SAXException | IOException ex) {
+				throw new IllegalStateException("Failed to resolve XML schema [" + location + "]", ex);
+			}
+			if (inputSource == null) {
+				throw new IllegalStateException(unresolvableSchemaMessage(location));
+			}
+			return new InputSourceInput(inputSource, baseURI);
+		}
+	}
+
+
+	/**
+	 * {@link LSInput} for a resolved SAX {@link InputSource}.
+	 */
+	private static class InputSourceInput implements LSInput {
+
+		private final InputSource inputSource;
+
+		@Nullable
+		private final String baseURI;
+
+		public InputSourceInput(InputSource inputSource, @Nullable String baseURI) {
+			this.inputSource = inputSource;
+			this.baseURI = baseURI;
+		}
+
+		@Override
+		@Nullable
+		public Reader getCharacterStream() {
+			return this.inputSource.getCharacterStream();
+		}
+
+		@Override
+		public void setCharacterStream(Reader characterStream) {
+			this.inputSource.setCharacterStream(characterStream);
+		}
+
+		@Override
+		@Nullable
+		public InputStream getByteStream() {
+			return this.inputSource.getByteStream();
+		}
+
+		@Override
+		public void setByteStream(InputStream byteStream) {
+			this.inputSource.setByteStream(byteStream);
+		}
+
+		@Override
+		@Nullable
+		public String getStringData() {
+			return null;
+		}
+
+		@Override
+		public void setStringData(String stringData) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		@Nullable
+		public String getSystemId() {
+			return this.inputSource.getSystemId();
+		}
+
+		@Override
+		public void setSystemId(String systemId) {
+			this.inputSource.setSystemId(systemId);
+		}
+
+		@Override
+		@Nullable
+		public String getPublicId() {
+			return this.inputSource.getPublicId();
+		}
+
+		@Override
+		public void setPublicId(String publicId) {
+			this.inputSource.setPublicId(publicId);
+		}
+
+		@Override
+		@Nullable
+		public String getBaseURI() {
+			return this.baseURI;
+		}
+
+		@Override
+		public void setBaseURI(String baseURI) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		@Nullable
+		public String getEncoding() {
+			return this.inputSource.getEncoding();
+		}
+
+		@Override
+		public void setEncoding(String encoding) {
+			this.inputSource.setEncoding(encoding);
+		}
+
+		@Override
+		public boolean getCertifiedText() {
+			return false;
+		}
+
+		@Override
+		public void setCertifiedText(boolean certifiedText) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BeanWrapperImpl} tests with generated property accessors, running
+ * all {@link BeanWrapperTests} against accessors generated per bean class.
+ *
+ * @since 5.1.21
+ */
+public class BeanWrapperGeneratedAccessorTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setUseGeneratedAccessors(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void generatedAccessorsForPublicProperties() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		GeneratedPropertyAccessor accessor = results.getGeneratedAccessor(results.getPropertyDescriptor("name"));
+		assertNotNull(accessor);
+		assertTrue(accessor.isReadable());
+		assertTrue(accessor.isWritable("tom"));
+		assertTrue(accessor.isWritable(null));
+		assertFalse(accessor.isWritable(1));
+
+		accessor = results.getGeneratedAccessor(results.getPropertyDescriptor("age"));
+		assertNotNull(accessor);
+		assertTrue(accessor.isWritable(1));
+		assertFalse(accessor.isWritable(null));
+	}
+
+	@Test
+	public void propertyMethodsNotInvokedThroughReflection() {
+		InvocationRecordingBean target = new InvocationRecordingBean();
+		BeanWrapper accessor = createAccessor(target);
+		accessor.setPropertyValue("name", "tom");
+		accessor.setPropertyValue("age", "42");
+		assertEquals("tom", accessor.getPropertyValue("name"));
+		assertEquals(42, accessor.getPropertyValue("age"));
+		assertEquals(4, target.invocations);
+		assertFalse("Unexpected reflective invocation", target.reflective);
+	}
+
+	@Test
+	public void nestedBeanWrapperInheritsSetting() {
+		InvocationRecordingBean target = new InvocationRecordingBean();
+		target.setNested(new InvocationRecordingBean());
+		BeanWrapper accessor = createAccessor(target);
+		accessor.setPropertyValue("nested.name", "tom");
+		assertEquals("tom", accessor.getPropertyValue("nested.name"));
+		assertEquals(2, target.getNested().invocations);
+		assertFalse("Unexpected reflective invocation", target.getNested().reflective);
+	}
+
+	@Test
+	public void propertyOfJdkClassAccessedThroughReflection() {
+		Date target = new Date();
+		BeanWrapperImpl accessor = createAccessor(target);
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(Date.class);
+		assertNull(results.getGeneratedAccessor(accessor.getPropertyDescriptor("time")));
+		accessor.setPropertyValue("time", "1000");
+		assertEquals(1000L, target.getTime());
+		assertEquals(1000L, accessor.getPropertyValue("time"));
+	}
+
+	@Test
+	public void exceptionFromGeneratedAccessor() {
+		InvocationRecordingBean target = new InvocationRecordingBean();
+		BeanWrapper accessor = createAccessor(target);
+		try {
+			accessor.setPropertyValue("name", "fail");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+			assertEquals("fail", ex.getCause().getMessage());
+		}
+	}
+
+
+	public static class InvocationRecordingBean {
+
+		private String name;
+
+		private int age;
+
+		private InvocationRecordingBean nested;
+
+		int invocations;
+
+		boolean reflective;
+
+		public String getName() {
+			record();
+			return this.name;
+		}
+
+		public void setName(String name) {
+			record();
+			if ("fail".equals(name)) {
+				throw new IllegalArgumentException(name);
+			}
+			this.name = name;
+		}
+
+		public int getAge() {
+			record();
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			record();
+			this.age = age;
+		}
+
+		public InvocationRecordingBean getNested() {
+			return this.nested;
+		}
+
+		public void setNested(InvocationRecordingBean nested) {
+			this.nested = nested;
+		}
+
+		private void record() {
+			this.invocations++;
+			// Caller of the property method: a generated class rather than a reflective accessor
+			String invoker = new Throwable().getStackTrace()[2].getClassName();
+			this.reflective |= !invoker.startsWith(InvocationRecordingBean.class.getName() + "$$FastClass");
+		}
+	}
+
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.tests.sample.beans.BooleanTestBean;
+import org.springframework.tests.sample.beans.DerivedTestBean;
+import org.springframework.tests.sample.beans.GenericBean;
+import org.springframework.tests.sample.beans.GenericIntegerBean;
+import org.springframework.tests.sample.beans.IndexedTestBean;
+import org.springframework.tests.sample.beans.NestedTestBean;
+import org.springframework.tests.sample.beans.NumberTestBean;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link SimpleBeanInfoFactory} and the underlying
+ * {@link PropertyDescriptorUtils#determineBasicProperties} algorithm,
+ * verifying the latter against the JavaBeans {@link Introspector}.
+ *
+ * @since 5.1.21
+ */
+public class SimpleBeanInfoFactoryTests {
+
+	@Test
+	public void notActiveByDefault() throws IntrospectionException {
+		assertNull(new SimpleBeanInfoFactory().getBeanInfo(TestBean.class));
+	}
+
+	@Test
+	public void registeredBeforeExtendedBeanInfoFactory() {
+		List<BeanInfoFactory> factories =
+				SpringFactoriesLoader.loadFactories(BeanInfoFactory.class, getClass().getClassLoader());
+		int simpleIndex = -1;
+		int extendedIndex = -1;
+		for (int i = 0; i < factories.size(); i++) {
+			if (factories.get(i) instanceof SimpleBeanInfoFactory) {
+				simpleIndex = i;
+			}
+			else if (factories.get(i) instanceof ExtendedBeanInfoFactory) {
+				extendedIndex = i;
+			}
+		}
+		assertTrue(simpleIndex >= 0);
+		assertTrue(simpleIndex < extendedIndex);
+	}
+
+	@Test
+	public void sameAsIntrospectorForSampleBeans() throws IntrospectionException {
+		assertSameAsIntrospector(TestBean.class);
+		assertSameAsIntrospector(DerivedTestBean.class);
+		assertSameAsIntrospector(NestedTestBean.class);
+		assertSameAsIntrospector(IndexedTestBean.class);
+		assertSameAsIntrospector(BooleanTestBean.class);
+		assertSameAsIntrospector(NumberTestBean.class);
+		assertSameAsIntrospector(GenericBean.class);
+		assertSameAsIntrospector(GenericIntegerBean.class);
+	}
+
+	@Test
+	public void sameAsIntrospectorForFrameworkAndJdkClasses() throws IntrospectionException {
+		assertSameAsIntrospector(DefaultListableBeanFactory.class);
+		assertSameAsIntrospector(RootBeanDefinition.class);
+		assertSameAsIntrospector(GenericBeanDefinition.class);
+		assertSameAsIntrospector(MutablePropertyValues.class);
+		assertSameAsIntrospector(Date.class);
+		assertSameAsIntrospector(ArrayList.class);
+		assertSameAsIntrospector(HashMap.class);
+		assertSameAsIntrospector(Thread.class);
+		assertSameAsIntrospector(Object.class);
+		assertSameAsIntrospector(Runnable.class);
+	}
+
+	@Test
+	public void isReadMethodTakesPrecedence() throws IntrospectionException {
+		assertSameAsIntrospector(IsAndGetBean.class);
+		PropertyDescriptor pd = getPropertyDescriptor(IsAndGetBean.class, "active");
+		assertEquals("isActive", pd.getReadMethod().getName());
+	}
+
+	@Test
+	public void covariantReadMethod() throws IntrospectionException {
+		assertSameAsIntrospector(CovariantBean.class);
+		PropertyDescriptor pd = getPropertyDescriptor(CovariantBean.class, "value");
+		assertEquals(String.class, pd.getPropertyType());
+		assertFalse(pd.getReadMethod().isBridge());
+	}
+
+	@Test
+	public void nonVoidAndStaticWriteMethods() throws IntrospectionException {
+		assertSameAsIntrospector(NonVoidWriteMethodBean.class);
+		assertNotNull(getPropertyDescriptor(NonVoidWriteMethodBean.class, "name").getWriteMethod());
+		assertNotNull(getPropertyDescriptor(NonVoidWriteMethodBean.class, "shared").getWriteMethod());
+		assertNull(getPropertyDescriptor(NonVoidWriteMethodBean.class, "instance"));
+	}
+
+	@Test
+	public void overloadedWriteMethodsMatchedAgainstReadMethod() throws IntrospectionException {
+		assertSameAsIntrospector(OverloadedWriteMethodBean.class);
+		PropertyDescriptor pd = getPropertyDescriptor(OverloadedWriteMethodBean.class, "number");
+		assertEquals(Integer.class, pd.getWriteMethod().getParameterTypes()[0]);
+		pd = getPropertyDescriptor(OverloadedWriteMethodBean.class, "text");
+		assertEquals(String.class, pd.getWriteMethod().getParameterTypes()[0]);
+	}
+
+	@Test
+	public void incompatibleWriteMethodIgnored() throws IntrospectionException {
+		assertSameAsIntrospector(IncompatibleWriteMethodBean.class);
+		PropertyDescriptor pd = getPropertyDescriptor(IncompatibleWriteMethodBean.class, "value");
+		assertNotNull(pd.getReadMethod());
+		assertNull(pd.getWriteMethod());
+	}
+
+	@Test
+	public void indexedAccessMethodsIgnored() throws IntrospectionException {
+		assertSameAsIntrospector(IndexedAccessBean.class);
+		assertNull(getPropertyDescriptor(IndexedAccessBean.class, "item"));
+		PropertyDescriptor pd = getPropertyDescriptor(IndexedAccessBean.class, "items");
+		assertEquals(String[].class, pd.getPropertyType());
+		assertNotNull(pd.getWriteMethod());
+	}
+
+	@Test
+	public void defaultMethodsFromInterfaces() throws IntrospectionException {
+		PropertyDescriptor pd = getPropertyDescriptor(DefaultMethodBean.class, "name");
+		assertEquals("getName", pd.getReadMethod().getName());
+		assertEquals("setName", pd.getWriteMethod().getName());
+	}
+
+
+	@Nullable
+	private static PropertyDescriptor getPropertyDescriptor(Class<?> beanClass, String propertyName) {
+		for (PropertyDescriptor pd : PropertyDescriptorUtils.determineBasicProperties(beanClass)) {
+			if (pd.getName().equals(propertyName)) {
+				return pd;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Compare the properties as exposed by {@link CachedIntrospectionResults}, i.e.
+	 * with bridge methods resolved, for the basic properties of the given class
+	 * versus the standard Introspector (with ExtendedBeanInfo where applicable).
+	 */
+	private static void assertSameAsIntrospector(Class<?> beanClass) throws IntrospectionException {
+		BeanInfo beanInfo = new ExtendedBeanInfoFactory().getBeanInfo(beanClass);
+		if (beanInfo == null) {
+			beanInfo = Introspector.getBeanInfo(beanClass);
+		}
+		List<PropertyDescriptor> expectedPds = new ArrayList<>();
+		for (PropertyDescriptor pd : beanInfo.getPropertyDescriptors()) {
+			// Indexed-only properties are not accessible through Spring's property accessors
+			if (pd.getReadMethod() != null || pd.getWriteMethod() != null) {
+				expectedPds.add(pd);
+			}
+		}
+		Map<String, PropertyDescriptor> expected = resolve(beanClass, expectedPds);
+		Map<String, PropertyDescriptor> actual = resolve(beanClass, PropertyDescriptorUtils.determineBasicProperties(beanClass));
+		assertEquals(beanClass.getName(), expected.keySet(), actual.keySet());
+		for (PropertyDescriptor expectedPd : expected.values()) {
+			PropertyDescriptor actualPd = actual.get(expectedPd.getName());
+			String property = beanClass.getName() + "." + expectedPd.getName();
+			assertEquals(property, expectedPd.getReadMethod(), actualPd.getReadMethod());
+			assertEquals(property, expectedPd.getWriteMethod(), actualPd.getWriteMethod());
+			assertEquals(property, expectedPd.getPropertyType(), actualPd.getPropertyType());
+		}
+	}
+
+	private static Map<String, PropertyDescriptor> resolve(Class<?> beanClass, Collection<PropertyDescriptor> pds)
+			throws IntrospectionException {
+
+		Map<String, PropertyDescriptor> resolved = new TreeMap<>();
+		for (PropertyDescriptor pd : pds) {
+			resolved.put(pd.getName(), new GenericTypeAwarePropertyDescriptor(
+					beanClass, pd.getName(), pd.getReadMethod(), pd.getWriteMethod(), null));
+		}
+		return resolved;
+	}
+
+
+	public static class IsAndGetBean {
+
+		public boolean isActive() {
+			return true;
+		}
+
+		public boolean getActive() {
+			return false;
+		}
+
+		public void setActive(boolean active) {
+		}
+	}
+
+
+	public static class CovariantBase {
+
+		public Object getValue() {
+			return null;
+		}
+	}
+
+
+	public static class CovariantBean extends CovariantBase {
+
+		@Override
+		public String getValue() {
+			return "";
+		}
+
+		public void setValue(String value) {
+		}
+	}
+
+
+	public static class NonVoidWriteMethodBean {
+
+		public String getName() {
+			return null;
+		}
+
+		public NonVoidWriteMethodBean setName(String name) {
+			return this;
+		}
+
+		public static void setShared(String shared) {
+		}
+
+		public static String getInstance() {
+			return null;
+		}
+	}
+
+
+	public static class OverloadedWriteMethodBean {
+
+		public Integer getNumber() {
+			return null;
+		}
+
+		public void setNumber(String number) {
+		}
+
+		public void setNumber(Integer number) {
+		}
+
+		public String getText() {
+			return null;
+		}
+
+		public void setText(Object text) {
+		}
+
+		public void setText(String text) {
+		}
+	}
+
+
+	public static class IncompatibleWriteMethodBean {
+
+		public String getValue() {
+			return null;
+		}
+
+		public void setValue(Object value) {
+		}
+	}
+
+
+	public static class IndexedAccessBean {
+
+		public String[] getItems() {
+			return null;
+		}
+
+		public void setItems(String[] items) {
+		}
+
+		public String getItems(int index) {
+			return null;
+		}
+
+		public void setItems(int index, String item) {
+		}
+
+		public String getItem(int index) {
+			return null;
+		}
+
+		public void setItem(int index, String item) {
+		}
+	}
+
+
+	public interface NameHolder {
+
+		default String getName() {
+			return null;
+		}
+
+		default void setName(String name) {
+		}
+	}
+
+
+	public static class DefaultMethodBean implements NameHolder {
+	}
+
+}
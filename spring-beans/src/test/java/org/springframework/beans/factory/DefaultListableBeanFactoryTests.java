@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.beans.factory;
 import java.io.Closeable;
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.security.AccessControlContext;
 import java.security.AccessController;
@@ -37,8 +38,13 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import javax.annotation.Priority;
 import javax.security.auth.Subject;
@@ -76,7 +82,9 @@ import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionOverrideException;
 import org.springframework.beans.factory.support.ChildBeanDefinition;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
 import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.PreInstantiationCriticalPath;
 import org.springframework.beans.factory.support.PropertiesBeanDefinitionReader;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.factory.xml.ConstructorDependenciesBean;
@@ -92,6 +100,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.lang.Nullable;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
+import org.springframework.tests.sample.beans.AgeHolder;
 import org.springframework.tests.sample.beans.DependenciesBean;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.ITestBean;
@@ -1432,6 +1441,455 @@ public class DefaultListableBeanFactoryTests {
 		assertThat(bean.getBeanName(), equalTo("bd1"));
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition factoryMethodDefinition = new RootBeanDefinition(TestBeanFactory.class);
+		factoryMethodDefinition.setFactoryMethodName("createTestBean");
+		lbf.registerBeanDefinition("factoryMethod", factoryMethodDefinition);
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		lbf.registerBeanDefinition("factoryBean", new RootBeanDefinition(DummyFactory.class));
+		RootBeanDefinition abstractDefinition = new RootBeanDefinition(TestBean.class);
+		abstractDefinition.setAbstract(true);
+		lbf.registerBeanDefinition("abstract", abstractDefinition);
+		lbf.registerBeanDefinition("derived", new ChildBeanDefinition("abstract", DerivedTestBean.class, null, null));
+		lbf.registerBeanDefinition("byName", new GenericBeanDefinition());
+		((GenericBeanDefinition) lbf.getBeanDefinition("byName")).setBeanClassName(TestBean.class.getName());
+
+		Class<?>[] types = {TestBean.class, ITestBean.class, AgeHolder.class, DerivedTestBean.class, NestedTestBean.class,
+				Object.class, FactoryBean.class, Serializable.class, Runnable.class};
+		String[][] expected = new String[types.length][];
+		String[][] expectedWithoutEagerInit = new String[types.length][];
+		for (int i = 0; i < types.length; i++) {
+			expected[i] = lbf.getBeanNamesForType(types[i]);
+			expectedWithoutEagerInit[i] = lbf.getBeanNamesForType(types[i], true, false);
+		}
+		lbf.freezeConfiguration();
+		for (int i = 0; i < types.length; i++) {
+			assertArrayEquals(types[i].getName(), expected[i], lbf.getBeanNamesForType(types[i]));
+			assertArrayEquals(types[i].getName(), expectedWithoutEagerInit[i],
+					lbf.getBeanNamesForType(types[i], true, false));
+		}
+		assertArrayEquals(new String[] {"tb1", "factoryMethod", "factoryBean", "derived", "byName"},
+				lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "factoryMethod", "factoryBean", "derived", "byName"},
+				lbf.getBeanNamesForType(AgeHolder.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithLateRegistrationAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb1"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+
+		lbf.registerBeanDefinition("tb2", new RootBeanDefinition(DerivedTestBean.class));
+		GenericBeanDefinition byName = new GenericBeanDefinition();
+		byName.setBeanClassName(TestBean.class.getName());
+		lbf.registerBeanDefinition("tb3", byName);
+		assertArrayEquals(new String[] {"tb1", "tb2", "tb3"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb2"}, lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"tb2", "tb3"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+		lbf.removeBeanDefinition("tb2");
+		assertArrayEquals(new String[] {"tb3"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb1"}, lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithWrappedSingletonAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return (beanName.equals("wrapped") ? new DerivedTestBean() : bean);
+			}
+		});
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("wrapped", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[0], lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+
+		lbf.preInstantiateSingletons();
+		assertArrayEquals(new String[] {"wrapped"}, lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb", "wrapped"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithWrappedSingletonInstantiatedBeforeFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return (beanName.equals("wrapped") ? Proxy.newProxyInstance(getClass().getClassLoader(),
+						new Class<?>[] {Runnable.class}, (proxy, method, args) -> null) : bean);
+			}
+		});
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("wrapped", new RootBeanDefinition(TestBean.class));
+		lbf.preInstantiateSingletons();
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"wrapped"}, lbf.getBeanNamesForType(Runnable.class, true, false));
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(TestBean.class, true, false));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithPredictedTypeAgainstFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				return (beanName.equals("predicted") ? DerivedTestBean.class : null);
+			}
+		});
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("predicted", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"predicted"}, lbf.getBeanNamesForType(DerivedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithChangedBeanClassBeforeFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+
+		((RootBeanDefinition) lbf.getBeanDefinition("tb")).setBeanClass(NestedTestBean.class);
+		((RootBeanDefinition) lbf.getBeanDefinition("nested")).setBeanClass(DerivedTestBean.class);
+		lbf.clearMetadataCache();
+		assertArrayEquals(new String[] {"nested"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb"}, lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+
+		((RootBeanDefinition) lbf.getBeanDefinition("tb")).setBeanClass(TestBean.class);
+		lbf.getBean("tb");
+		assertArrayEquals(new String[] {"tb", "nested"}, lbf.getBeanNamesForType(ITestBean.class, true, false));
+		assertArrayEquals(new String[0], lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithPredictedTypeBeforeFrozen() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("predicted", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition prototype = new RootBeanDefinition(NestedTestBean.class);
+		prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("prototype", prototype);
+		assertArrayEquals(new String[0], lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+
+		lbf.addBeanPostProcessor(new InstantiationAwareBeanPostProcessorAdapter() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				if (beanName.equals("predicted")) {
+					return DerivedTestBean.class;
+				}
+				return (beanName.equals("prototype") ? TestBean.class : beanClass);
+			}
+		});
+		assertArrayEquals(new String[] {"predicted"}, lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+		assertArrayEquals(new String[] {"tb", "predicted", "prototype"},
+				lbf.getBeanNamesForType(TestBean.class, true, false));
+		assertArrayEquals(new String[0], lbf.getBeanNamesForType(NestedTestBean.class, true, false));
+
+		lbf.registerBeanDefinition("late", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb", "predicted", "prototype", "late"},
+				lbf.getBeanNamesForType(TestBean.class, true, false));
+		assertArrayEquals(new String[] {"predicted"}, lbf.getBeanNamesForType(DerivedTestBean.class, true, false));
+	}
+
+	@Test
+	public void testCompactFrozenBeanDefinitions() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setCompactFrozenBeanDefinitions(true);
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("name", "singleton");
+		bd.setInitMethodName("toString");
+		bd.setAttribute("attr", "value");
+		lbf.registerBeanDefinition("singleton", bd);
+		bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("name", "lazy");
+		bd.setLazyInit(true);
+		lbf.registerBeanDefinition("lazy", bd);
+		bd = new RootBeanDefinition(NestedTestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.getConstructorArgumentValues().addGenericArgumentValue("prototype");
+		lbf.registerBeanDefinition("prototype", bd);
+		lbf.freezeConfiguration();
+		lbf.preInstantiateSingletons();
+
+		BeanDefinition mbd = lbf.getMergedBeanDefinition("singleton");
+		assertFalse(mbd.hasPropertyValues());
+		assertEquals(TestBean.class.getName(), mbd.getBeanClassName());
+		assertEquals("toString", mbd.getInitMethodName());
+		assertEquals("value", mbd.getAttribute("attr"));
+		assertTrue(lbf.getBeanDefinition("singleton").hasPropertyValues());
+		assertEquals("singleton", lbf.getBean("singleton", TestBean.class).getName());
+		assertTrue(lbf.isSingleton("singleton"));
+		assertTrue(lbf.isTypeMatch("singleton", ITestBean.class));
+
+		assertTrue(lbf.getMergedBeanDefinition("lazy").hasPropertyValues());
+		assertEquals("lazy", lbf.getBean("lazy", TestBean.class).getName());
+		assertFalse(lbf.getMergedBeanDefinition("lazy").hasPropertyValues());
+
+		assertEquals("prototype", lbf.getBean("prototype", NestedTestBean.class).getCompany());
+		assertTrue(lbf.getMergedBeanDefinition("prototype").hasConstructorArgumentValues());
+		assertEquals("prototype", lbf.getBean("prototype", NestedTestBean.class).getCompany());
+		assertArrayEquals(new String[] {"singleton", "lazy"}, lbf.getBeanNamesForType(TestBean.class));
+	}
+
+	@Test
+	public void testCompactFrozenBeanDefinitionsRecreatedForDestroyedSingleton() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setCompactFrozenBeanDefinitions(true);
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("name", "tb");
+		lbf.registerBeanDefinition("tb", bd);
+		lbf.freezeConfiguration();
+		lbf.preInstantiateSingletons();
+		TestBean tb = lbf.getBean("tb", TestBean.class);
+		assertFalse(lbf.getMergedBeanDefinition("tb").hasPropertyValues());
+
+		lbf.destroySingleton("tb");
+		TestBean recreated = lbf.getBean("tb", TestBean.class);
+		assertNotSame(tb, recreated);
+		assertEquals("tb", recreated.getName());
+
+		lbf.destroySingletons();
+		assertTrue(lbf.getMergedBeanDefinition("tb").hasPropertyValues());
+		assertEquals("tb", lbf.getBean("tb", TestBean.class).getName());
+	}
+
+	@Test
+	public void testFrozenBeanDefinitionsNotCompactedByDefault() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("name", "tb");
+		lbf.registerBeanDefinition("tb", bd);
+		lbf.freezeConfiguration();
+		lbf.preInstantiateSingletons();
+		assertFalse(lbf.isCompactFrozenBeanDefinitions());
+		assertTrue(lbf.getMergedBeanDefinition("tb").hasPropertyValues());
+	}
+
+	@Test
+	public void testPrototypeWithAutowiredConstructorArgumentInFrozenConfiguration() {
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorDependency.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		lbf.registerBeanDefinition("prototype", bd);
+		lbf.freezeConfiguration();
+		TestBean spouse = lbf.getBean("spouse", TestBean.class);
+		ConstructorDependency first = lbf.getBean("prototype", ConstructorDependency.class);
+		ConstructorDependency second = lbf.getBean("prototype", ConstructorDependency.class);
+		ConstructorDependency third = lbf.getBean("prototype", ConstructorDependency.class);
+		assertNotSame(first, second);
+		assertNotSame(second, third);
+		assertSame(spouse, first.spouse);
+		assertSame(spouse, second.spouse);
+		assertSame(spouse, third.spouse);
+		assertEquals("prototype", third.beanName);
+
+		lbf.destroySingleton("spouse");
+		ConstructorDependency fourth = lbf.getBean("prototype", ConstructorDependency.class);
+		assertNotSame(spouse, fourth.spouse);
+		assertSame(lbf.getBean("spouse"), fourth.spouse);
+	}
+
+	@Test
+	public void testPrototypeWithAutowiredConstructorArgumentPicksUpNewCandidateIfNotFrozen() {
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class));
+		RootBeanDefinition bd = new RootBeanDefinition(ConstructorDependency.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.setAutowireMode(RootBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+		lbf.registerBeanDefinition("prototype", bd);
+		assertSame(lbf.getBean("spouse"), lbf.getBean("prototype", ConstructorDependency.class).spouse);
+		assertSame(lbf.getBean("spouse"), lbf.getBean("prototype", ConstructorDependency.class).spouse);
+
+		RootBeanDefinition primary = new RootBeanDefinition(TestBean.class);
+		primary.setPrimary(true);
+		lbf.registerBeanDefinition("primarySpouse", primary);
+		assertSame(lbf.getBean("primarySpouse"), lbf.getBean("prototype", ConstructorDependency.class).spouse);
+	}
+
+	@Test
+	public void testPrototypeWithInitMethodInvokedForEachInstance() {
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		bd.setInitMethodName("haveBirthday");
+		lbf.registerBeanDefinition("prototype", bd);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(1, lbf.getBean("prototype", TestBean.class).getAge());
+		}
+	}
+
+	@Test
+	public void testParallelPreInstantiation() {
+		CyclicBarrier barrier = new CyclicBarrier(3);
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(3);
+		for (String beanName : new String[] {"a", "b", "c"}) {
+			lbf.registerBeanDefinition(beanName, parallelInitBeanDefinition(initOrder, null)
+					.addPropertyValue("barrier", barrier).getBeanDefinition());
+		}
+		lbf.preInstantiateSingletons();
+		assertThat(initOrder.subList(0, 3), containsInAnyOrder("a", "b", "c"));
+		assertEquals(3, Stream.of("a", "b", "c")
+				.map(beanName -> lbf.getBean(beanName, ParallelInitBean.class).initThread).distinct().count());
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithDependencies() {
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("d", parallelInitBeanDefinition(initOrder, null)
+				.addDependsOn("c").getBeanDefinition());
+		lbf.registerBeanDefinition("c", parallelInitBeanDefinition(initOrder, "b").getBeanDefinition());
+		lbf.registerBeanDefinition("b", BeanDefinitionBuilder.genericBeanDefinition(ParallelInitBean.class)
+				.addConstructorArgValue(initOrder).addConstructorArgReference("a").getBeanDefinition());
+		lbf.registerBeanDefinition("a", parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		lbf.registerBeanDefinition("x", parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		lbf.preInstantiateSingletons();
+		assertThat(initOrder.subList(0, 5), containsInAnyOrder("a", "b", "c", "d", "x"));
+		assertThat(initOrder.indexOf("a"), lessThan(initOrder.indexOf("b")));
+		assertThat(initOrder.indexOf("b"), lessThan(initOrder.indexOf("c")));
+		assertThat(initOrder.indexOf("c"), lessThan(initOrder.indexOf("d")));
+		assertSame(lbf.getBean("a"), lbf.getBean("b", ParallelInitBean.class).dependency);
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithLongDependencyChain() throws Exception {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(2);
+		int length = 20000;
+		for (int i = 0; i < length - 1; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(Object.class);
+			bd.setDependsOn("bean" + (i + 1));
+			lbf.registerBeanDefinition("bean" + i, bd);
+		}
+		lbf.registerBeanDefinition("bean" + (length - 1), new RootBeanDefinition(Object.class));
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread thread = new Thread(null, () -> {
+			try {
+				lbf.preInstantiateSingletons();
+			}
+			catch (Throwable ex) {
+				failure.set(ex);
+			}
+		}, "preInstantiation", 256 * 1024);
+		thread.start();
+		thread.join();
+		assertNull(failure.get());
+		assertTrue(lbf.containsSingleton("bean0"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCircularReference() {
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("a", parallelInitBeanDefinition(initOrder, "b").getBeanDefinition());
+		lbf.registerBeanDefinition("b", parallelInitBeanDefinition(initOrder, "a").getBeanDefinition());
+		lbf.registerBeanDefinition("x", parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		lbf.preInstantiateSingletons();
+		assertSame(lbf.getBean("b"), lbf.getBean("a", ParallelInitBean.class).dependency);
+		assertSame(lbf.getBean("a"), lbf.getBean("b", ParallelInitBean.class).dependency);
+		assertSame(lbf.getBean("a", ParallelInitBean.class).initThread,
+				lbf.getBean("b", ParallelInitBean.class).initThread);
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithCircularReferenceAcrossThreads() {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(2);
+		lbf.registerBeanDefinition("a", parallelInitBeanDefinition(initOrder, null)
+				.addPropertyValue("barrier", barrier).addPropertyValue("lookup", "b").getBeanDefinition());
+		lbf.registerBeanDefinition("b", parallelInitBeanDefinition(initOrder, null)
+				.addPropertyValue("barrier", barrier).addPropertyValue("lookup", "a").getBeanDefinition());
+		lbf.preInstantiateSingletons();
+		assertSame(lbf.getBean("b"), lbf.getBean("a", ParallelInitBean.class).dependency);
+		assertSame(lbf.getBean("a"), lbf.getBean("b", ParallelInitBean.class).dependency);
+		assertThat(initOrder.subList(0, 2), containsInAnyOrder("a", "b"));
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithSmartInitializingSingletons() {
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		List<String> beanNames = Arrays.asList("e", "d", "c", "b", "a");
+		for (String beanName : beanNames) {
+			lbf.registerBeanDefinition(beanName, parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		}
+		lbf.preInstantiateSingletons();
+		assertEquals(beanNames, initOrder.stream().filter(name -> name.startsWith("afterSingletonsInstantiated:"))
+				.map(name -> name.substring(name.indexOf(':') + 1)).collect(Collectors.toList()));
+		assertThat(initOrder.indexOf("afterSingletonsInstantiated:e"), greaterThan(initOrder.indexOf("a")));
+	}
+
+	@Test
+	public void testParallelPreInstantiationCriticalPath() {
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		List<PreInstantiationCriticalPath> criticalPaths = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.setPreInstantiationCriticalPathCallback(criticalPaths::add);
+		lbf.registerBeanDefinition("x", parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		lbf.registerBeanDefinition("a", parallelInitBeanDefinition(initOrder, null)
+				.addPropertyValue("delay", 50).getBeanDefinition());
+		lbf.registerBeanDefinition("b", parallelInitBeanDefinition(initOrder, "a")
+				.addPropertyValue("delay", 50).getBeanDefinition());
+		lbf.registerBeanDefinition("c", parallelInitBeanDefinition(initOrder, "b")
+				.addPropertyValue("delay", 50).getBeanDefinition());
+		lbf.preInstantiateSingletons();
+		assertEquals(1, criticalPaths.size());
+		PreInstantiationCriticalPath criticalPath = criticalPaths.get(0);
+		assertEquals(Arrays.asList("a", "b", "c"), criticalPath.getBeanNames());
+		assertThat(criticalPath.getBeanDurations().get("b").toMillis(), greaterThanOrEqualTo(50L));
+		assertThat(criticalPath.getDuration().toMillis(), greaterThanOrEqualTo(150L));
+		assertThat(criticalPath.getElapsedTime(), greaterThanOrEqualTo(criticalPath.getDuration()));
+		assertEquals(4, criticalPath.getParallelism());
+	}
+
+	@Test
+	public void testParallelPreInstantiationWithFailure() {
+		List<String> initOrder = new CopyOnWriteArrayList<>();
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.setPreInstantiationParallelism(4);
+		lbf.registerBeanDefinition("a", parallelInitBeanDefinition(initOrder, null).getBeanDefinition());
+		lbf.registerBeanDefinition("failing", parallelInitBeanDefinition(initOrder, "a")
+				.addPropertyValue("fail", true).getBeanDefinition());
+		lbf.registerBeanDefinition("b", parallelInitBeanDefinition(initOrder, "failing").getBeanDefinition());
+		try {
+			lbf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("failing", ex.getBeanName());
+		}
+		assertFalse(lbf.containsSingleton("failing"));
+		assertFalse(lbf.containsSingleton("b"));
+		assertSame(lbf.getBean("a"), lbf.getBean("a"));
+	}
+
+	private static BeanDefinitionBuilder parallelInitBeanDefinition(
+			List<String> initOrder, @Nullable String dependency) {
+
+		BeanDefinitionBuilder builder = BeanDefinitionBuilder.genericBeanDefinition(ParallelInitBean.class)
+				.addConstructorArgValue(initOrder);
+		if (dependency != null) {
+			builder.addPropertyReference("dependency", dependency);
+		}
+		return builder;
+	}
+
 	@Test
 	public void testGetBeanByTypeDefinedInParent() {
 		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
@@ -3456,6 +3914,91 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class ParallelInitBean
+			implements BeanNameAware, BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
+
+		private final List<String> initOrder;
+
+		private String beanName;
+
+		private BeanFactory beanFactory;
+
+		public Object dependency;
+
+		private CyclicBarrier barrier;
+
+		private String lookup;
+
+		private long delay;
+
+		private boolean fail;
+
+		public Thread initThread;
+
+		public ParallelInitBean(List<String> initOrder) {
+			this.initOrder = initOrder;
+		}
+
+		public ParallelInitBean(List<String> initOrder, Object dependency) {
+			this.initOrder = initOrder;
+			this.dependency = dependency;
+		}
+
+		public void setDependency(Object dependency) {
+			this.dependency = dependency;
+		}
+
+		public void setBarrier(CyclicBarrier barrier) {
+			this.barrier = barrier;
+		}
+
+		public void setLookup(String lookup) {
+			this.lookup = lookup;
+		}
+
+		public void setDelay(long delay) {
+			this.delay = delay;
+		}
+
+		public void setFail(boolean fail) {
+			this.fail = fail;
+		}
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+		}
+
+		@Override
+		public void setBeanFactory(BeanFactory beanFactory) {
+			this.beanFactory = beanFactory;
+		}
+
+		@Override
+		public void afterPropertiesSet() throws Exception {
+			this.initThread = Thread.currentThread();
+			if (this.barrier != null) {
+				this.barrier.await(10, TimeUnit.SECONDS);
+			}
+			if (this.lookup != null) {
+				this.dependency = this.beanFactory.getBean(this.lookup);
+			}
+			if (this.delay > 0) {
+				Thread.sleep(this.delay);
+			}
+			if (this.fail) {
+				throw new IllegalStateException("Failing on purpose");
+			}
+			this.initOrder.add(this.beanName);
+		}
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			this.initOrder.add("afterSingletonsInstantiated:" + this.beanName);
+		}
+	}
+
+
 	enum NonPublicEnum {
 
 		VALUE_1, VALUE_2;
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.xml;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXParseException;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.Mergeable;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link StaxBeanDefinitionReader}, mostly checking that it
+ * registers the same bean definitions as {@link XmlBeanDefinitionReader}.
+ *
+ * @since 5.1.21
+ */
+public class StaxBeanDefinitionReaderTests {
+
+	private static final String[] SCHEMA_BASED_RESOURCES = {
+			"collections.xml", "collectionsWithDefaultTypes.xml", "withMeta.xml", "schemaValidated.xml",
+			"testUtilNamespace.xml", "simplePropertyNamespaceHandlerTests.xml",
+			"simpleConstructorNamespaceHandlerTests.xml", "autowire-with-inclusion.xml",
+			"autowire-with-selective-inclusion.xml", "NestedBeansElementTests-context.xml",
+			"NestedBeansElementAttributeRecursionTests-autowire-candidates-context.xml",
+			"NestedBeansElementAttributeRecursionTests-autowire-context.xml",
+			"NestedBeansElementAttributeRecursionTests-init-destroy-context.xml",
+			"NestedBeansElementAttributeRecursionTests-lazy-context.xml",
+			"NestedBeansElementAttributeRecursionTests-merge-context.xml",
+			"ProfileXmlBeanDefinitionTests-defaultAndDevProfile.xml",
+			"ProfileXmlBeanDefinitionTests-multiProfile.xml", "ProfileXmlBeanDefinitionTests-noProfile.xml"};
+
+	private static final String[] DTD_BASED_RESOURCES = {
+			"collectionMerging.xml", "factory-methods.xml", "beanNameGeneration.xml",
+			"defaultLifecycleMethods.xml", "autowire-with-exclusion.xml",
+			"autowire-constructor-with-exclusion.xml", "test.xml", "validateWithDtd.xml"};
+
+
+	@Test
+	public void schemaBasedDefinitionsMatchDomBasedReader() {
+		for (String resource : SCHEMA_BASED_RESOURCES) {
+			assertSameBeanDefinitions(resource, false);
+		}
+	}
+
+	@Test
+	public void definitionsMatchDomBasedReaderWithoutValidation() {
+		for (String resource : SCHEMA_BASED_RESOURCES) {
+			assertSameBeanDefinitions(resource, true);
+		}
+		for (String resource : DTD_BASED_RESOURCES) {
+			assertSameBeanDefinitions(resource, true);
+		}
+	}
+
+	@Test
+	public void dtdBasedDefinitions() {
+		for (String resource : DTD_BASED_RESOURCES) {
+			assertSameBeanDefinitions(resource, false);
+		}
+	}
+
+	@Test
+	public void loadDefinitions() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		new StaxBeanDefinitionReader(bf).loadBeanDefinitions(new ClassPathResource("schemaValidated.xml", getClass()));
+
+		TestBean foo = (TestBean) bf.getBean("fooBean");
+		assertNotNull("Spouse is null", foo.getSpouse());
+		assertEquals("Incorrect number of friends", 2, foo.getFriends().size());
+	}
+
+	@Test
+	public void invalidDocument() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		try {
+			reader.loadBeanDefinitions(new ClassPathResource("invalidPerSchema.xml", getClass()));
+			fail("Should not be able to parse a file with errors");
+		}
+		catch (BeansException ex) {
+			assertTrue(ex.getCause() instanceof SAXParseException);
+			assertTrue(ex.getMessage().contains("Line 6"));
+		}
+	}
+
+	@Test
+	public void invalidDocumentWithoutValidation() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		reader.setValidating(false);
+		reader.loadBeanDefinitions(new ClassPathResource("invalidPerSchema.xml", getClass()));
+		assertEquals(0, bf.getBeanDefinitionCount());
+	}
+
+	@Test
+	public void validateAhead() {
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.validate(new ClassPathResource("schemaValidated.xml", getClass()));
+		reader.validate(new ClassPathResource("validateWithDtd.xml", getClass()));
+		try {
+			reader.validate(new ClassPathResource("invalidPerSchema.xml", getClass()));
+			fail("Should have failed validation");
+		}
+		catch (BeansException ex) {
+			assertTrue(ex.getCause() instanceof SAXParseException);
+		}
+	}
+
+	@Test
+	public void importedDefinitions() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		reader.setValidating(false);
+		reader.loadBeanDefinitions(new ClassPathResource("import.xml", getClass()));
+		assertTrue(bf.containsBeanDefinition("rod"));
+	}
+
+	@Test
+	public void profiles() {
+		StandardEnvironment environment = new StandardEnvironment();
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		reader.setEnvironment(environment);
+		reader.loadBeanDefinitions(new ClassPathResource("ProfileXmlBeanDefinitionTests-devProfile.xml", getClass()));
+		assertFalse(bf.containsBeanDefinition("foo"));
+
+		environment.setActiveProfiles("dev");
+		bf = new DefaultListableBeanFactory();
+		reader = new StaxBeanDefinitionReader(bf);
+		reader.setEnvironment(environment);
+		reader.loadBeanDefinitions(new ClassPathResource("ProfileXmlBeanDefinitionTests-devProfile.xml", getClass()));
+		assertTrue(bf.containsBeanDefinition("foo"));
+	}
+
+	@Test
+	public void unresolvableSchema() {
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(new DefaultListableBeanFactory());
+		reader.setEntityResolver((publicId, systemId) -> null);
+		try {
+			reader.loadBeanDefinitions(new ClassPathResource("schemaValidated.xml", getClass()));
+			fail("Should have thrown BeanDefinitionStoreException");
+		}
+		catch (BeanDefinitionStoreException ex) {
+			assertTrue(ex.getMessage(), ex.getMessage().contains("spring-beans"));
+		}
+	}
+
+	@Test
+	public void customDocumentReaderClass() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		reader.setDocumentReaderClass(MarkerDocumentReader.class);
+		reader.loadBeanDefinitions(new ClassPathResource("schemaValidated.xml", getClass()));
+		assertTrue(bf.containsBeanDefinition("fooBean"));
+		assertTrue(bf.containsBeanDefinition(MarkerDocumentReader.MARKER_BEAN_NAME));
+	}
+
+	@Test
+	public void overriddenDocumentReaderCreation() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf) {
+			@Override
+			protected BeanDefinitionDocumentReader createBeanDefinitionDocumentReader() {
+				return new MarkerDocumentReader();
+			}
+		};
+		reader.loadBeanDefinitions(new ClassPathResource("schemaValidated.xml", getClass()));
+		assertTrue(bf.containsBeanDefinition("fooBean"));
+		assertTrue(bf.containsBeanDefinition(MarkerDocumentReader.MARKER_BEAN_NAME));
+	}
+
+	@Test
+	public void customDocumentLoader() {
+		AtomicInteger loadedDocuments = new AtomicInteger();
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(bf);
+		reader.setDocumentLoader((inputSource, entityResolver, errorHandler, validationMode, namespaceAware) -> {
+			loadedDocuments.incrementAndGet();
+			return new DefaultDocumentLoader().loadDocument(
+					inputSource, entityResolver, errorHandler, validationMode, namespaceAware);
+		});
+		reader.loadBeanDefinitions(new ClassPathResource("schemaValidated.xml", getClass()));
+		assertTrue(bf.containsBeanDefinition("fooBean"));
+		assertEquals(1, loadedDocuments.get());
+	}
+
+	@Test(expected = BeanDefinitionParsingException.class)
+	public void duplicateBeanName() {
+		new StaxBeanDefinitionReader(new DefaultListableBeanFactory()).loadBeanDefinitions(
+				new ClassPathResource("DuplicateBeanIdTests-sameLevel-context.xml", getClass()));
+	}
+
+
+	private void assertSameBeanDefinitions(String resourceName, boolean ignoreValidation) {
+		Resource resource = new ClassPathResource(resourceName, getClass());
+		DefaultListableBeanFactory expected = new DefaultListableBeanFactory();
+		new XmlBeanDefinitionReader(expected).loadBeanDefinitions(resource);
+		DefaultListableBeanFactory actual = new DefaultListableBeanFactory();
+		StaxBeanDefinitionReader reader = new StaxBeanDefinitionReader(actual);
+		if (ignoreValidation) {
+			reader.setValidating(false);
+		}
+		assertEquals(resourceName, expected.getBeanDefinitionCount(), reader.loadBeanDefinitions(resource));
+
+		for (String beanName : expected.getBeanDefinitionNames()) {
+			String message = resourceName + " - " + beanName;
+			assertTrue(message, actual.containsBeanDefinition(beanName));
+			assertArrayEquals(message, expected.getAliases(beanName), actual.getAliases(beanName));
+			assertSameBeanDefinition(message,
+					expected.getBeanDefinition(beanName), actual.getBeanDefinition(beanName));
+		}
+	}
+
+	private void assertSameBeanDefinition(String message, BeanDefinition expected, BeanDefinition actual) {
+		// Compare values separately, ignoring generated names of inner beans
+		AbstractBeanDefinition expectedFlat = ((AbstractBeanDefinition) expected).cloneBeanDefinition();
+		expectedFlat.setPropertyValues(null);
+		expectedFlat.setConstructorArgumentValues(null);
+		AbstractBeanDefinition actualFlat = ((AbstractBeanDefinition) actual).cloneBeanDefinition();
+		actualFlat.setPropertyValues(null);
+		actualFlat.setConstructorArgumentValues(null);
+		assertEquals(message, expectedFlat, actualFlat);
+		assertEquals(message, expected.getResourceDescription(), actual.getResourceDescription());
+
+		List<PropertyValue> expectedProperties = expected.getPropertyValues().getPropertyValueList();
+		List<PropertyValue> actualProperties = actual.getPropertyValues().getPropertyValueList();
+		assertEquals(message, expectedProperties.size(), actualProperties.size());
+		for (int i = 0; i < expectedProperties.size(); i++) {
+			String propertyMessage = message + "." + expectedProperties.get(i).getName();
+			assertEquals(propertyMessage, expectedProperties.get(i).getName(), actualProperties.get(i).getName());
+			assertArrayEquals(propertyMessage,
+					expectedProperties.get(i).attributeNames(), actualProperties.get(i).attributeNames());
+			assertSameValue(propertyMessage, expectedProperties.get(i).getValue(), actualProperties.get(i).getValue());
+		}
+
+		ConstructorArgumentValues expectedArgs = expected.getConstructorArgumentValues();
+		ConstructorArgumentValues actualArgs = actual.getConstructorArgumentValues();
+		assertEquals(message, expectedArgs.getIndexedArgumentValues().keySet(),
+				actualArgs.getIndexedArgumentValues().keySet());
+		expectedArgs.getIndexedArgumentValues().forEach((index, holder) ->
+				assertSameArgument(message + "[" + index + "]", holder, actualArgs.getIndexedArgumentValues().get(index)));
+		assertEquals(message, expectedArgs.getGenericArgumentValues().size(), actualArgs.getGenericArgumentValues().size());
+		for (int i = 0; i < expectedArgs.getGenericArgumentValues().size(); i++) {
+			assertSameArgument(message + "[generic " + i + "]", expectedArgs.getGenericArgumentValues().get(i),
+					actualArgs.getGenericArgumentValues().get(i));
+		}
+	}
+
+	private void assertSameArgument(String message,
+			ConstructorArgumentValues.ValueHolder expected, ConstructorArgumentValues.ValueHolder actual) {
+
+		assertEquals(message, expected.getType(), actual.getType());
+		assertEquals(message, expected.getName(), actual.getName());
+		assertSameValue(message, expected.getValue(), actual.getValue());
+	}
+
+	private void assertSameValue(String message, Object expected, Object actual) {
+		if (expected instanceof BeanDefinitionHolder) {
+			assertTrue(message, actual instanceof BeanDefinitionHolder);
+			BeanDefinitionHolder expectedHolder = (BeanDefinitionHolder) expected;
+			BeanDefinitionHolder actualHolder = (BeanDefinitionHolder) actual;
+			if (!expectedHolder.getBeanName().contains("#")) {
+				assertEquals(message, expectedHolder.getBeanName(), actualHolder.getBeanName());
+			}
+			assertArrayEquals(message, expectedHolder.getAliases(), actualHolder.getAliases());
+			assertSameBeanDefinition(message, expectedHolder.getBeanDefinition(), actualHolder.getBeanDefinition());
+		}
+		else if (expected instanceof Collection) {
+			assertEquals(message, expected.getClass(), actual.getClass());
+			assertEquals(message, ((Mergeable) expected).isMergeEnabled(), ((Mergeable) actual).isMergeEnabled());
+			assertEquals(message, ((Collection<?>) expected).size(), ((Collection<?>) actual).size());
+			Iterator<?> it = ((Collection<?>) actual).iterator();
+			for (Object element : (Collection<?>) expected) {
+				assertSameValue(message, element, it.next());
+			}
+		}
+		else if (expected instanceof Map) {
+			assertEquals(message, expected.getClass(), actual.getClass());
+			assertEquals(message, ((Mergeable) expected).isMergeEnabled(), ((Mergeable) actual).isMergeEnabled());
+			assertEquals(message, ((Map<?, ?>) expected).size(), ((Map<?, ?>) actual).size());
+			Iterator<? extends Map.Entry<?, ?>> it = ((Map<?, ?>) actual).entrySet().iterator();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) expected).entrySet()) {
+				Map.Entry<?, ?> actualEntry = it.next();
+				assertSameValue(message, entry.getKey(), actualEntry.getKey());
+				assertSameValue(message, entry.getValue(), actualEntry.getValue());
+			}
+		}
+		else if (expected instanceof Object[]) {
+			assertArrayEquals(message, (Object[]) expected, (Object[]) actual);
+		}
+		else {
+			assertEquals(message, expected, actual);
+		}
+	}
+
+
+	public static class MarkerDocumentReader extends DefaultBeanDefinitionDocumentReader {
+
+		static final String MARKER_BEAN_NAME = "documentReaderMarker";
+
+		@Override
+		protected void postProcessXml(Element root) {
+			getReaderContext().getRegistry().registerBeanDefinition(
+					MARKER_BEAN_NAME, new RootBeanDefinition(Object.class));
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Benchmarks comparing {@link BoundedCache} with the unbounded
+ * {@link ConcurrentMapCache} for a read-through access pattern
+ * over Zipfian-distributed keys.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class BoundedCacheBenchmark {
+
+	@Benchmark
+	public void readThrough(CacheState cacheState, KeyState keyState, Blackhole bh) {
+		Integer key = keyState.nextKey();
+		Cache.ValueWrapper wrapper = cacheState.cache.get(key);
+		if (wrapper != null) {
+			bh.consume(wrapper.get());
+		}
+		else {
+			cacheState.cache.put(key, key);
+			bh.consume(key);
+		}
+	}
+
+	@Benchmark
+	public void read(CacheState cacheState, KeyState keyState, Blackhole bh) {
+		bh.consume(cacheState.cache.get(keyState.nextKey()));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class CacheState {
+
+		@Param({"bounded", "concurrentMap"})
+		public String cacheType;
+
+		@Param({"10000"})
+		public int maximumSize;
+
+		public Cache cache;
+
+		@Setup(Level.Iteration)
+		public void setup(ZipfianKeys keys) {
+			this.cache = ("bounded".equals(this.cacheType) ?
+					new BoundedCache("benchmark", this.maximumSize) : new ConcurrentMapCache("benchmark"));
+			// Warm up with the most frequent keys
+			for (int i = 0; i < this.maximumSize; i++) {
+				Integer key = keys.samples[i];
+				this.cache.put(key, key);
+			}
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ZipfianKeys {
+
+		@Param({"1000000"})
+		public int keySpace;
+
+		@Param({"0.99"})
+		public double skew;
+
+		public Integer[] samples;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			double[] cumulative = new double[this.keySpace];
+			double sum = 0;
+			for (int i = 0; i < this.keySpace; i++) {
+				sum += 1 / Math.pow(i + 1, this.skew);
+				cumulative[i] = sum;
+			}
+			Random random = new Random(42);
+			this.samples = new Integer[1 << 20];
+			for (int i = 0; i < this.samples.length; i++) {
+				int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+				this.samples[i] = (index >= 0 ? index : Math.min(-index - 1, this.keySpace - 1));
+			}
+		}
+	}
+
+
+	@State(Scope.Thread)
+	public static class KeyState {
+
+		private Integer[] samples;
+
+		private int index;
+
+		@Setup(Level.Trial)
+		public void setup(ZipfianKeys keys) {
+			this.samples = keys.samples;
+			this.index = ThreadLocalRandom.current().nextInt(this.samples.length);
+		}
+
+		public Integer nextKey() {
+			this.index = (this.index + 1) & (this.samples.length - 1);
+			return this.samples[this.index];
+		}
+	}
+
+}
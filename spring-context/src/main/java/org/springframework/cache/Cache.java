@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.cache;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import org.springframework.lang.Nullable;
 
@@ -100,6 +102,55 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the value to which this cache maps the specified key, wrapped
+	 * in a {@link CompletableFuture}. This operation should not block, but
+	 * may return an already completed future if the value is available
+	 * immediately.
+	 * <p>The returned future completes with {@code null} if the cache contains
+	 * no mapping for this key; otherwise with the cached value (which may be
+	 * {@code null} itself) in a {@link ValueWrapper}.
+	 * <p>The default implementation delegates to {@link #get(Object)}. Cache
+	 * providers backed by a non-blocking client should override it.
+	 * @param key the key whose associated value is to be returned
+	 * @return a future for the cached value in a {@link ValueWrapper},
+	 * completing with {@code null} if there is no mapping for this key
+	 * @since 5.1.21
+	 * @see #retrieve(Object, Supplier)
+	 */
+	default CompletableFuture<ValueWrapper> retrieve(Object key) {
+		return CompletableFuture.completedFuture(get(key));
+	}
+
+	/**
+	 * Return the value to which this cache maps the specified key, obtaining
+	 * that value from {@code valueLoader} if necessary. This is the non-blocking
+	 * variant of {@link #get(Object, Callable)}.
+	 * <p>If the future returned by {@code valueLoader} completes exceptionally,
+	 * the returned future completes with the same exception and nothing is
+	 * stored in the cache.
+	 * <p>The default implementation delegates to {@link #get(Object)} and
+	 * {@link #put(Object, Object)} and does not synchronize concurrent loads
+	 * of the same key. Cache providers backed by a non-blocking client should
+	 * override it.
+	 * @param key the key whose associated value is to be returned
+	 * @param valueLoader the supplier of a future for the value to cache
+	 * @return a future for the value to which this cache maps the specified key
+	 * @since 5.1.21
+	 * @see #retrieve(Object)
+	 */
+	@SuppressWarnings("unchecked")
+	default <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+		ValueWrapper wrapper = get(key);
+		if (wrapper != null) {
+			return CompletableFuture.completedFuture((T) wrapper.get());
+		}
+		return valueLoader.get().thenApply(value -> {
+			put(key, value);
+			return value;
+		});
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
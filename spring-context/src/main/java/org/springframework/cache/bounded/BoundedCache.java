@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation backed by a
+ * {@link BoundedCacheStore}: a dependency-free local cache with a maximum size
+ * or weight, W-TinyLFU eviction, optional expiration and soft values, and
+ * statistics.
+ *
+ * <p>Concurrent {@link #get(Object, Callable)} calls for the same missing key
+ * share a single invocation of the value loader. A value loader must not load
+ * the same key of the same cache again: such a recursive load is rejected with
+ * an {@link IllegalStateException}.
+ *
+ * <p>Typically used through {@link BoundedCacheManager}.
+ *
+ * @since 5.1.21
+ * @see BoundedCacheStore#builder()
+ */
+public class BoundedCache extends AbstractValueAdaptingCache {
+
+	private final String name;
+
+	private final BoundedCacheStore store;
+
+	private final ConcurrentMap<Object, Load> loads = new ConcurrentHashMap<>(16);
+
+
+	/**
+	 * Create a new BoundedCache with the specified name, holding
+	 * up to the given number of entries.
+	 * @param name the name of the cache
+	 * @param maximumSize the maximum number of entries
+	 */
+	public BoundedCache(String name, long maximumSize) {
+		this(name, BoundedCacheStore.builder().maximumSize(maximumSize).build(), true);
+	}
+
+	/**
+	 * Create a new BoundedCache with the specified name and the given store.
+	 * @param name the name of the cache
+	 * @param store the backing store
+	 * @param allowNullValues whether to accept and convert {@code null}
+	 * values for this cache
+	 */
+	public BoundedCache(String name, BoundedCacheStore store, boolean allowNullValues) {
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.notNull(store, "Store must not be null");
+		this.name = name;
+		this.store = store;
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	@Override
+	public final BoundedCacheStore getNativeCache() {
+		return this.store;
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this cache.
+	 */
+	public BoundedCacheStatistics getStatistics() {
+		return this.store.getStatistics();
+	}
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		return this.store.get(key);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = this.store.get(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+
+		Load load = new Load();
+		Load existingLoad = this.loads.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			if (existingLoad.owner == Thread.currentThread()) {
+				throw new IllegalStateException("Recursive load of key '" + key + "' in cache '" + this.name + "'");
+			}
+			try {
+				return (T) fromStoreValue(existingLoad.join());
+			}
+			catch (CompletionException ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+			}
+		}
+		try {
+			// Re-check without recording another miss: a load may have completed meanwhile
+			storeValue = this.store.get(key, false);
+			if (storeValue == null) {
+				storeValue = toStoreValue(valueLoader.call());
+				this.store.put(key, storeValue);
+			}
+			load.complete(storeValue);
+			return (T) fromStoreValue(storeValue);
+		}
+		catch (Throwable ex) {
+			load.completeExceptionally(ex);
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		finally {
+			this.loads.remove(key, load);
+		}
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.store.put(key, toStoreValue(value));
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		Object existing = this.store.putIfAbsent(key, toStoreValue(value));
+		return toValueWrapper(existing);
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.store.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		this.store.clear();
+	}
+
+
+	/**
+	 * An in-flight value load, remembering the loading thread
+	 * in order to detect recursive loads of the same key.
+	 */
+	private static class Load extends CompletableFuture<Object> {
+
+		final Thread owner = Thread.currentThread();
+	}
+
+}
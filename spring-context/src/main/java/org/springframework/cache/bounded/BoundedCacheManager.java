@@ -0,0 +1,246 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntBiFunction;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link BoundedCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>A bounded alternative to {@link org.springframework.cache.concurrent.ConcurrentMapCacheManager}:
+ * each cache holds up to a {@linkplain #setMaximumSize maximum number} of entries
+ * (or a {@linkplain #setMaximumWeight maximum total weight}), evicting entries
+ * according to their recency and frequency of use, and can let entries
+ * {@linkplain #setExpireAfterWrite expire} after a fixed duration.
+ *
+ * <p>Note: A change of any cache setting will reset all existing caches,
+ * if any, to reconfigure them with the new settings.
+ *
+ * @since 5.1.21
+ * @see BoundedCache
+ */
+public class BoundedCacheManager implements CacheManager {
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private boolean dynamic = true;
+
+	private boolean allowNullValues = true;
+
+	private long maximumSize = 10_000;
+
+	private long maximumWeight = -1;
+
+	@Nullable
+	private ToIntBiFunction<Object, Object> weigher;
+
+	@Nullable
+	private Duration expireAfterWrite;
+
+	@Nullable
+	private Duration expireAfterAccess;
+
+	private boolean softValues = false;
+
+
+	/**
+	 * Construct a dynamic BoundedCacheManager,
+	 * lazily creating cache instances as they are being requested.
+	 */
+	public BoundedCacheManager() {
+	}
+
+	/**
+	 * Construct a static BoundedCacheManager,
+	 * managing caches for the specified cache names only.
+	 */
+	public BoundedCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime.
+	 * <p>Calling this with a {@code null} collection argument resets the
+	 * mode to 'dynamic', allowing for further creation of caches again.
+	 */
+	public void setCacheNames(@Nullable Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			for (String name : cacheNames) {
+				this.cacheMap.put(name, createBoundedCache(name));
+			}
+			this.dynamic = false;
+		}
+		else {
+			this.dynamic = true;
+		}
+	}
+
+	/**
+	 * Specify whether to accept and convert {@code null} values for all caches
+	 * in this cache manager. Default is "true".
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		if (allowNullValues != this.allowNullValues) {
+			this.allowNullValues = allowNullValues;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return whether this cache manager accepts and converts {@code null} values
+	 * for all of its caches.
+	 */
+	public boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+	/**
+	 * Specify the maximum number of entries of each cache. Default is 10000.
+	 * <p>Replaces any {@linkplain #setMaximumWeight maximum weight}.
+	 */
+	public void setMaximumSize(long maximumSize) {
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+		this.maximumSize = maximumSize;
+		this.maximumWeight = -1;
+		this.weigher = null;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the maximum total weight of the entries of each cache,
+	 * replacing the {@linkplain #setMaximumSize maximum size}.
+	 * @param maximumWeight the maximum total weight
+	 * @param weigher the function returning the weight of an entry, invoked with
+	 * the key and the value (the internal null holder for {@code null} values)
+	 */
+	public void setMaximumWeight(long maximumWeight, ToIntBiFunction<Object, Object> weigher) {
+		Assert.isTrue(maximumWeight > 0, "Maximum weight must be greater than 0");
+		Assert.notNull(weigher, "Weigher must not be null");
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the duration after which entries expire once stored or replaced.
+	 * Default is none.
+	 */
+	public void setExpireAfterWrite(@Nullable Duration expireAfterWrite) {
+		this.expireAfterWrite = expireAfterWrite;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify the duration after which entries expire once stored, replaced
+	 * or last read. Default is none.
+	 */
+	public void setExpireAfterAccess(@Nullable Duration expireAfterAccess) {
+		this.expireAfterAccess = expireAfterAccess;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify whether to hold values through soft references, allowing the garbage
+	 * collector to reclaim them under memory pressure. Default is "false".
+	 */
+	public void setSoftValues(boolean softValues) {
+		if (softValues != this.softValues) {
+			this.softValues = softValues;
+			recreateCaches();
+		}
+	}
+
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMap.keySet());
+	}
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && this.dynamic) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = createBoundedCache(name);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	private void recreateCaches() {
+		for (Map.Entry<String, Cache> entry : this.cacheMap.entrySet()) {
+			entry.setValue(createBoundedCache(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Create a new BoundedCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the BoundedCache (or a decorator thereof)
+	 */
+	protected Cache createBoundedCache(String name) {
+		return new BoundedCache(name, createStoreBuilder().build(), isAllowNullValues());
+	}
+
+	/**
+	 * Create a {@link BoundedCacheStore.Builder} reflecting the settings
+	 * of this cache manager.
+	 */
+	protected BoundedCacheStore.Builder createStoreBuilder() {
+		BoundedCacheStore.Builder builder = BoundedCacheStore.builder();
+		if (this.weigher != null) {
+			builder.maximumWeight(this.maximumWeight, this.weigher);
+		}
+		else {
+			builder.maximumSize(this.maximumSize);
+		}
+		if (this.expireAfterWrite != null) {
+			builder.expireAfterWrite(this.expireAfterWrite);
+		}
+		if (this.expireAfterAccess != null) {
+			builder.expireAfterAccess(this.expireAfterAccess);
+		}
+		if (this.softValues) {
+			builder.softValues();
+		}
+		return builder;
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+/**
+ * Snapshot of the statistics of a {@link BoundedCacheStore}.
+ *
+ * @since 5.1.21
+ * @see BoundedCacheStore#getStatistics()
+ */
+public final class BoundedCacheStatistics {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long putCount;
+
+	private final long evictionCount;
+
+	private final long evictionWeight;
+
+	private final long expirationCount;
+
+	private final long collectionCount;
+
+
+	BoundedCacheStatistics(long hitCount, long missCount, long putCount, long evictionCount,
+			long evictionWeight, long expirationCount, long collectionCount) {
+
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.putCount = putCount;
+		this.evictionCount = evictionCount;
+		this.evictionWeight = evictionWeight;
+		this.expirationCount = expirationCount;
+		this.collectionCount = collectionCount;
+	}
+
+
+	/**
+	 * Return the number of lookups that returned a cached value.
+	 */
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * Return the number of lookups that did not find a cached value.
+	 */
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * Return the ratio of hits to lookups, or 1.0 if there were no lookups.
+	 */
+	public double getHitRate() {
+		long requestCount = this.hitCount + this.missCount;
+		return (requestCount == 0 ? 1.0 : (double) this.hitCount / requestCount);
+	}
+
+	/**
+	 * Return the number of values stored.
+	 */
+	public long getPutCount() {
+		return this.putCount;
+	}
+
+	/**
+	 * Return the number of entries evicted to honor the maximum weight.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * Return the total weight of the entries evicted to honor the maximum weight.
+	 */
+	public long getEvictionWeight() {
+		return this.evictionWeight;
+	}
+
+	/**
+	 * Return the number of entries removed because they expired.
+	 */
+	public long getExpirationCount() {
+		return this.expirationCount;
+	}
+
+	/**
+	 * Return the number of entries removed because their soft
+	 * value had been reclaimed by the garbage collector.
+	 */
+	public long getCollectionCount() {
+		return this.collectionCount;
+	}
+
+	@Override
+	public String toString() {
+		return "BoundedCacheStatistics [hits = " + this.hitCount + ", misses = " + this.missCount +
+				", puts = " + this.putCount + ", evictions = " + this.evictionCount +
+				", evictionWeight = " + this.evictionWeight + ", expirations = " + this.expirationCount +
+				", collections = " + this.collectionCount + "]";
+	}
+
+}
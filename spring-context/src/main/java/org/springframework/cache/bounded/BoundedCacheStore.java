@@ -0,0 +1,789 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, optionally expiring, thread-safe key-value store backing a
+ * {@link BoundedCache}.
+ *
+ * <p>Entries are looked up in a {@link ConcurrentHashMap} without locking.
+ * Eviction follows the W-TinyLFU policy, partitioned into segments with a lock
+ * each: new entries enter a small LRU admission window; entries leaving the
+ * window move on to the probation part of a segmented LRU main space, where the
+ * newest and the least recently used entry compete for admission based on their
+ * estimated access frequencies, the less frequent one being evicted. Entries
+ * accessed while on probation get promoted to the protected part of the main
+ * space. This keeps frequently used entries resident even under scans of
+ * one-off keys, for a fraction of the bookkeeping of an exact LFU policy.
+ *
+ * <p>Reads record the access in the eviction policy only if the lock of the
+ * segment in question is immediately available, so that a read never blocks:
+ * under heavy contention, some accesses go unrecorded.
+ *
+ * <p>Entries can expire a fixed time after their creation or last replacement
+ * and/or after their last access. Expired entries are never returned; they get
+ * removed when encountered, incrementally as part of writes to their segment,
+ * or on {@link #cleanUp()}.
+ *
+ * @since 5.1.21
+ * @see #builder()
+ */
+public final class BoundedCacheStore {
+
+	private static final int MINIMUM_SEGMENT_WEIGHT = 128;
+
+	private static final int EXPIRATION_SCAN_LIMIT = 16;
+
+	private static final int WINDOW = 0;
+
+	private static final int PROBATION = 1;
+
+	private static final int PROTECTED = 2;
+
+	private static final int REMOVED = -1;
+
+
+	private final ConcurrentMap<Object, Node> data = new ConcurrentHashMap<>(256);
+
+	private final Segment[] segments;
+
+	private final long maximumWeight;
+
+	@Nullable
+	private final ToIntBiFunction<Object, Object> weigher;
+
+	private final long expireAfterWriteNanos;
+
+	private final long expireAfterAccessNanos;
+
+	private final boolean expiring;
+
+	private final boolean softValues;
+
+	private final LongSupplier ticker;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder putCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder evictionWeight = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+	private final LongAdder collectionCount = new LongAdder();
+
+
+	private BoundedCacheStore(Builder builder) {
+		this.maximumWeight = builder.maximumWeight;
+		this.weigher = builder.weigher;
+		this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+		this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+		this.expiring = (this.expireAfterWriteNanos > 0 || this.expireAfterAccessNanos > 0);
+		this.softValues = builder.softValues;
+		this.ticker = builder.ticker;
+
+		int maximumSegments = Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 4;
+		int segmentCount = 1;
+		while (segmentCount < maximumSegments && segmentCount * 2L * MINIMUM_SEGMENT_WEIGHT <= this.maximumWeight) {
+			segmentCount <<= 1;
+		}
+		this.segments = new Segment[segmentCount];
+		long remainder = this.maximumWeight % segmentCount;
+		for (int i = 0; i < segmentCount; i++) {
+			this.segments[i] = new Segment(this.maximumWeight / segmentCount + (i < remainder ? 1 : 0));
+		}
+	}
+
+
+	/**
+	 * Return the value stored for the given key, if any.
+	 * @param key the key to look up
+	 * @return the value, or {@code null} if none stored or expired
+	 */
+	@Nullable
+	public Object get(Object key) {
+		return get(key, true);
+	}
+
+	/**
+	 * Return the value stored for the given key, if any.
+	 * @param key the key to look up
+	 * @param recordStats whether to record the lookup as a hit or miss
+	 * @return the value, or {@code null} if none stored or expired
+	 */
+	@Nullable
+	Object get(Object key, boolean recordStats) {
+		Node node = this.data.get(key);
+		if (node != null) {
+			long now = (this.expiring ? this.ticker.getAsLong() : 0);
+			Object value = node.getValue();
+			if (value != null && !isExpired(node, now)) {
+				if (this.expireAfterAccessNanos > 0) {
+					node.accessTime = now;
+				}
+				segmentFor(node.hash).recordAccess(node);
+				if (recordStats) {
+					this.hitCount.increment();
+				}
+				return value;
+			}
+			segmentFor(node.hash).removeStale(node);
+		}
+		if (recordStats) {
+			this.missCount.increment();
+		}
+		return null;
+	}
+
+	/**
+	 * Store the given value for the given key, replacing any existing value.
+	 * @param key the key
+	 * @param value the value
+	 */
+	public void put(Object key, Object value) {
+		doPut(key, value, false);
+	}
+
+	/**
+	 * Store the given value for the given key unless a value is present already.
+	 * @param key the key
+	 * @param value the value
+	 * @return the existing value, or {@code null} if the given value has been stored
+	 */
+	@Nullable
+	public Object putIfAbsent(Object key, Object value) {
+		return doPut(key, value, true);
+	}
+
+	@Nullable
+	private Object doPut(Object key, Object value, boolean onlyIfAbsent) {
+		int hash = hash(key);
+		int weight = weigh(key, value);
+		long now = (this.expiring ? this.ticker.getAsLong() : 0);
+		Segment segment = segmentFor(hash);
+		segment.lock();
+		try {
+			Node existing = this.data.get(key);
+			if (existing != null) {
+				Object existingValue = existing.getValue();
+				if (existingValue == null || isExpired(existing, now)) {
+					segment.removeNode(existing, existingValue == null ? this.collectionCount : this.expirationCount);
+					existing = null;
+				}
+				else if (onlyIfAbsent) {
+					if (this.expireAfterAccessNanos > 0) {
+						existing.accessTime = now;
+					}
+					segment.onAccess(existing);
+					return existingValue;
+				}
+			}
+			Node node = new Node(key, hash, value, weight, now, segment.referenceQueue);
+			this.data.put(key, node);
+			if (existing != null) {
+				segment.replace(existing, node);
+			}
+			else {
+				segment.add(node);
+			}
+			this.putCount.increment();
+			segment.maintain(now);
+			return null;
+		}
+		finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Remove the value for the given key, if any.
+	 * @param key the key
+	 * @return {@code true} if a value was present
+	 */
+	public boolean remove(Object key) {
+		Segment segment = segmentFor(hash(key));
+		segment.lock();
+		try {
+			Node node = this.data.get(key);
+			if (node != null) {
+				segment.removeNode(node, null);
+				return true;
+			}
+			return false;
+		}
+		finally {
+			segment.unlock();
+		}
+	}
+
+	/**
+	 * Remove all entries.
+	 */
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.lock();
+			try {
+				segment.clear();
+			}
+			finally {
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Remove all expired entries and entries with reclaimed soft values.
+	 */
+	public void cleanUp() {
+		long now = (this.expiring ? this.ticker.getAsLong() : 0);
+		for (Segment segment : this.segments) {
+			segment.lock();
+			try {
+				segment.purgeCollected();
+				if (this.expiring) {
+					segment.expire(now, Integer.MAX_VALUE);
+				}
+			}
+			finally {
+				segment.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Return the number of entries, possibly including expired entries
+	 * that have not been removed yet.
+	 */
+	public long estimatedSize() {
+		return this.data.size();
+	}
+
+	/**
+	 * Return the total weight of all entries.
+	 */
+	public long weightedSize() {
+		long weightedSize = 0;
+		for (Segment segment : this.segments) {
+			segment.lock();
+			try {
+				weightedSize += segment.weight;
+			}
+			finally {
+				segment.unlock();
+			}
+		}
+		return weightedSize;
+	}
+
+	/**
+	 * Return the maximum total weight of all entries.
+	 */
+	public long getMaximumWeight() {
+		return this.maximumWeight;
+	}
+
+	/**
+	 * Return a snapshot of the statistics of this store.
+	 */
+	public BoundedCacheStatistics getStatistics() {
+		return new BoundedCacheStatistics(this.hitCount.sum(), this.missCount.sum(), this.putCount.sum(),
+				this.evictionCount.sum(), this.evictionWeight.sum(), this.expirationCount.sum(),
+				this.collectionCount.sum());
+	}
+
+
+	private int weigh(Object key, Object value) {
+		if (this.weigher == null) {
+			return 1;
+		}
+		int weight = this.weigher.applyAsInt(key, value);
+		Assert.state(weight >= 0, "Weigher must not return a negative weight");
+		return weight;
+	}
+
+	private boolean isExpired(Node node, long now) {
+		return ((this.expireAfterWriteNanos > 0 && now - node.writeTime >= this.expireAfterWriteNanos) ||
+				(this.expireAfterAccessNanos > 0 && now - node.accessTime >= this.expireAfterAccessNanos));
+	}
+
+	private Segment segmentFor(int hash) {
+		// Fibonacci hashing, so that small integer keys spread across all segments too
+		return this.segments[((hash * 0x9e3779b9) >>> 16) & (this.segments.length - 1)];
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+
+	/**
+	 * Return a builder for a {@link BoundedCacheStore}.
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+
+	/**
+	 * Builder for a {@link BoundedCacheStore}.
+	 */
+	public static final class Builder {
+
+		private long maximumWeight = 10_000;
+
+		@Nullable
+		private ToIntBiFunction<Object, Object> weigher;
+
+		private long expireAfterWriteNanos;
+
+		private long expireAfterAccessNanos;
+
+		private boolean softValues;
+
+		private LongSupplier ticker = System::nanoTime;
+
+		private Builder() {
+		}
+
+		/**
+		 * Set the maximum number of entries. Default is 10000.
+		 */
+		public Builder maximumSize(long maximumSize) {
+			Assert.isTrue(maximumSize > 0, "Maximum size must be greater than 0");
+			this.maximumWeight = maximumSize;
+			this.weigher = null;
+			return this;
+		}
+
+		/**
+		 * Set the maximum total weight of all entries,
+		 * as determined by the given weigher.
+		 * @param maximumWeight the maximum total weight
+		 * @param weigher the function returning the (non-negative) weight of an
+		 * entry, invoked with the key and the value once the entry gets stored
+		 */
+		public Builder maximumWeight(long maximumWeight, ToIntBiFunction<Object, Object> weigher) {
+			Assert.isTrue(maximumWeight > 0, "Maximum weight must be greater than 0");
+			Assert.notNull(weigher, "Weigher must not be null");
+			this.maximumWeight = maximumWeight;
+			this.weigher = weigher;
+			return this;
+		}
+
+		/**
+		 * Let entries expire once the given duration has passed
+		 * since their creation or last replacement.
+		 */
+		public Builder expireAfterWrite(Duration duration) {
+			this.expireAfterWriteNanos = toNanos(duration);
+			return this;
+		}
+
+		/**
+		 * Let entries expire once the given duration has passed
+		 * since their creation, last replacement or last read.
+		 */
+		public Builder expireAfterAccess(Duration duration) {
+			this.expireAfterAccessNanos = toNanos(duration);
+			return this;
+		}
+
+		/**
+		 * Hold values through {@link SoftReference soft references}, allowing the
+		 * garbage collector to reclaim them under memory pressure in addition
+		 * to the bound on size or weight.
+		 */
+		public Builder softValues() {
+			this.softValues = true;
+			return this;
+		}
+
+		/**
+		 * Use the given nanosecond time source instead of {@link System#nanoTime()}.
+		 */
+		Builder ticker(LongSupplier ticker) {
+			this.ticker = ticker;
+			return this;
+		}
+
+		/**
+		 * Build the {@link BoundedCacheStore}.
+		 */
+		public BoundedCacheStore build() {
+			return new BoundedCacheStore(this);
+		}
+
+		private static long toNanos(Duration duration) {
+			Assert.isTrue(!duration.isNegative() && !duration.isZero(), "Duration must be positive");
+			return duration.toNanos();
+		}
+	}
+
+
+	/**
+	 * A single entry, linked into the access order deque of its segment.
+	 */
+	private static final class Node {
+
+		final Object key;
+
+		final int hash;
+
+		final int weight;
+
+		final Object value;
+
+		final long writeTime;
+
+		volatile long accessTime;
+
+		@Nullable
+		Node prev;
+
+		@Nullable
+		Node next;
+
+		int queue = WINDOW;
+
+		Node(Object key, int hash, Object value, int weight, long now,
+				@Nullable ReferenceQueue<Object> referenceQueue) {
+
+			this.key = key;
+			this.hash = hash;
+			this.value = (referenceQueue != null ? new SoftValueReference(value, referenceQueue, this) : value);
+			this.weight = weight;
+			this.writeTime = now;
+			this.accessTime = now;
+		}
+
+		@Nullable
+		Object getValue() {
+			return (this.value instanceof SoftValueReference ? ((SoftValueReference) this.value).get() : this.value);
+		}
+	}
+
+
+	/**
+	 * Soft reference to a value, pointing back to its entry for purging.
+	 */
+	private static final class SoftValueReference extends SoftReference<Object> {
+
+		final Node node;
+
+		SoftValueReference(Object value, ReferenceQueue<Object> queue, Node node) {
+			super(value, queue);
+			this.node = node;
+		}
+	}
+
+
+	/**
+	 * Intrusive doubly-linked list of entries, most recently used first.
+	 */
+	private static final class AccessOrderDeque {
+
+		@Nullable
+		Node head;
+
+		@Nullable
+		Node tail;
+
+		void addFirst(Node node) {
+			node.prev = null;
+			node.next = this.head;
+			if (this.head != null) {
+				this.head.prev = node;
+			}
+			else {
+				this.tail = node;
+			}
+			this.head = node;
+		}
+
+		void remove(Node node) {
+			if (node.prev != null) {
+				node.prev.next = node.next;
+			}
+			else {
+				this.head = node.next;
+			}
+			if (node.next != null) {
+				node.next.prev = node.prev;
+			}
+			else {
+				this.tail = node.prev;
+			}
+			node.prev = null;
+			node.next = null;
+		}
+
+		void moveToFirst(Node node) {
+			if (this.head != node) {
+				remove(node);
+				addFirst(node);
+			}
+		}
+	}
+
+
+	/**
+	 * A share of the maximum weight with its own W-TinyLFU policy state,
+	 * guarded by the segment's lock.
+	 */
+	@SuppressWarnings("serial")
+	private final class Segment extends ReentrantLock {
+
+		final long maximumWeight;
+
+		final long windowMaximum;
+
+		final long protectedMaximum;
+
+		final FrequencySketch sketch;
+
+		@Nullable
+		final ReferenceQueue<Object> referenceQueue;
+
+		final AccessOrderDeque window = new AccessOrderDeque();
+
+		final AccessOrderDeque probation = new AccessOrderDeque();
+
+		final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+
+		long weight;
+
+		long windowWeight;
+
+		long protectedWeight;
+
+		Segment(long maximumWeight) {
+			this.maximumWeight = maximumWeight;
+			this.windowMaximum = Math.max(maximumWeight / 100, 1);
+			this.protectedMaximum = (maximumWeight - this.windowMaximum) * 8 / 10;
+			this.sketch = new FrequencySketch(maximumWeight);
+			this.referenceQueue = (softValues ? new ReferenceQueue<>() : null);
+		}
+
+		void recordAccess(Node node) {
+			if (tryLock()) {
+				try {
+					if (node.queue != REMOVED) {
+						onAccess(node);
+					}
+				}
+				finally {
+					unlock();
+				}
+			}
+		}
+
+		void removeStale(Node node) {
+			lock();
+			try {
+				removeNode(node, node.getValue() == null ? collectionCount : expirationCount);
+			}
+			finally {
+				unlock();
+			}
+		}
+
+		void onAccess(Node node) {
+			this.sketch.increment(node.hash);
+			if (node.queue == WINDOW) {
+				this.window.moveToFirst(node);
+			}
+			else if (node.queue == PROBATION) {
+				this.probation.remove(node);
+				node.queue = PROTECTED;
+				this.protectedDeque.addFirst(node);
+				this.protectedWeight += node.weight;
+				while (this.protectedWeight > this.protectedMaximum && this.protectedDeque.tail != null) {
+					Node demoted = this.protectedDeque.tail;
+					this.protectedDeque.remove(demoted);
+					this.protectedWeight -= demoted.weight;
+					demoted.queue = PROBATION;
+					this.probation.addFirst(demoted);
+				}
+			}
+			else {
+				this.protectedDeque.moveToFirst(node);
+			}
+		}
+
+		void add(Node node) {
+			this.sketch.increment(node.hash);
+			node.queue = WINDOW;
+			this.window.addFirst(node);
+			this.windowWeight += node.weight;
+			this.weight += node.weight;
+		}
+
+		void replace(Node existing, Node node) {
+			this.sketch.increment(node.hash);
+			int queue = existing.queue;
+			AccessOrderDeque deque = dequeFor(queue);
+			deque.remove(existing);
+			existing.queue = REMOVED;
+			node.queue = queue;
+			deque.addFirst(node);
+			int delta = node.weight - existing.weight;
+			this.weight += delta;
+			if (queue == WINDOW) {
+				this.windowWeight += delta;
+			}
+			else if (queue == PROTECTED) {
+				this.protectedWeight += delta;
+			}
+		}
+
+		void removeNode(Node node, @Nullable LongAdder counter) {
+			if (node.queue == REMOVED) {
+				return;
+			}
+			data.remove(node.key, node);
+			dequeFor(node.queue).remove(node);
+			this.weight -= node.weight;
+			if (node.queue == WINDOW) {
+				this.windowWeight -= node.weight;
+			}
+			else if (node.queue == PROTECTED) {
+				this.protectedWeight -= node.weight;
+			}
+			node.queue = REMOVED;
+			if (counter != null) {
+				counter.increment();
+			}
+		}
+
+		void maintain(long now) {
+			purgeCollected();
+			if (expiring) {
+				expire(now, EXPIRATION_SCAN_LIMIT);
+			}
+			evict();
+		}
+
+		void purgeCollected() {
+			if (this.referenceQueue != null) {
+				Reference<?> reference;
+				while ((reference = this.referenceQueue.poll()) != null) {
+					Node node = ((SoftValueReference) reference).node;
+					removeNode(node, collectionCount);
+				}
+			}
+		}
+
+		void expire(long now, int scanLimit) {
+			expire(this.window, now, scanLimit);
+			expire(this.probation, now, scanLimit);
+			expire(this.protectedDeque, now, scanLimit);
+		}
+
+		private void expire(AccessOrderDeque deque, long now, int scanLimit) {
+			Node node = deque.tail;
+			for (int i = 0; i < scanLimit && node != null; i++) {
+				Node prev = node.prev;
+				if (isExpired(node, now)) {
+					removeNode(node, expirationCount);
+				}
+				node = prev;
+			}
+		}
+
+		void evict() {
+			// Entries leaving the admission window become candidates on probation
+			while (this.windowWeight > this.windowMaximum && this.window.tail != null) {
+				Node node = this.window.tail;
+				this.window.remove(node);
+				this.windowWeight -= node.weight;
+				node.queue = PROBATION;
+				this.probation.addFirst(node);
+			}
+			while (this.weight > this.maximumWeight) {
+				Node victim = this.probation.tail;
+				if (victim == null) {
+					victim = (this.protectedDeque.tail != null ? this.protectedDeque.tail : this.window.tail);
+					if (victim == null) {
+						return;
+					}
+				}
+				else {
+					// TinyLFU admission: the newest candidate only replaces a more frequent victim
+					Node candidate = this.probation.head;
+					if (candidate != null && candidate != victim &&
+							this.sketch.frequency(candidate.hash) <= this.sketch.frequency(victim.hash)) {
+						victim = candidate;
+					}
+				}
+				evictionWeight.add(victim.weight);
+				removeNode(victim, evictionCount);
+			}
+		}
+
+		void clear() {
+			clear(this.window);
+			clear(this.probation);
+			clear(this.protectedDeque);
+			this.weight = 0;
+			this.windowWeight = 0;
+			this.protectedWeight = 0;
+			if (this.referenceQueue != null) {
+				while (this.referenceQueue.poll() != null) {
+					// drain stale references
+				}
+			}
+		}
+
+		private void clear(AccessOrderDeque deque) {
+			Node node = deque.head;
+			while (node != null) {
+				Node next = node.next;
+				data.remove(node.key, node);
+				node.queue = REMOVED;
+				node.prev = null;
+				node.next = null;
+				node = next;
+			}
+			deque.head = null;
+			deque.tail = null;
+		}
+
+		private AccessOrderDeque dequeFor(int queue) {
+			return (queue == WINDOW ? this.window : queue == PROBATION ? this.probation : this.protectedDeque);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+/**
+ * Probabilistic estimate of the access frequency of keys: a count-min sketch
+ * with four 4-bit counters per key, all of which are halved periodically so
+ * that the estimates reflect recent history (TinyLFU aging).
+ *
+ * <p>Not thread-safe: guarded by the lock of the owning segment.
+ *
+ * @since 5.1.21
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private static final int MAXIMUM_TABLE_SIZE = 1 << 16;
+
+	private final long[] table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private int additions;
+
+
+	/**
+	 * Create a sketch for the given expected number of entries.
+	 */
+	FrequencySketch(long expectedEntries) {
+		int size = 16;
+		while (size < expectedEntries && size < MAXIMUM_TABLE_SIZE) {
+			size <<= 1;
+		}
+		this.table = new long[size];
+		this.tableMask = size - 1;
+		this.sampleSize = 10 * size;
+	}
+
+
+	/**
+	 * Return the estimated number of recent occurrences of the given hash, up to 15.
+	 */
+	public int frequency(int hash) {
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long slot = slot(hash, i);
+			int counter = (int) ((this.table[(int) slot & this.tableMask] >>> ((slot >>> 32) & 0x3c)) & 0xf);
+			frequency = Math.min(frequency, counter);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an occurrence of the given hash, aging all counters once the
+	 * sample size has been reached.
+	 */
+	public void increment(int hash) {
+		boolean added = false;
+		for (int i = 0; i < SEEDS.length; i++) {
+			long slot = slot(hash, i);
+			int index = (int) slot & this.tableMask;
+			int offset = (int) ((slot >>> 32) & 0x3c);
+			if (((this.table[index] >>> offset) & 0xf) != 0xf) {
+				this.table[index] += (1L << offset);
+				added = true;
+			}
+		}
+		if (added && ++this.additions == this.sampleSize) {
+			reset();
+		}
+	}
+
+	private void reset() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.additions /= 2;
+	}
+
+	private static long slot(int hash, int i) {
+		long slot = (hash + SEEDS[i]) * SEEDS[i];
+		return slot ^ (slot >>> 29);
+	}
+
+}
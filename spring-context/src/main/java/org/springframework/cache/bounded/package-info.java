@@ -0,0 +1,13 @@
+/**
+ * Implementation package for bounded, expiring local caches.
+ * Provides a {@link org.springframework.cache.CacheManager CacheManager}
+ * and {@link org.springframework.cache.Cache Cache} implementation with
+ * size or weight based eviction, time based expiration and statistics,
+ * without any third-party dependencies.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.cache.bounded;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -25,11 +25,18 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.aop.framework.AopProxyUtils;
 import org.springframework.aop.support.AopUtils;
@@ -44,6 +51,8 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -70,6 +79,14 @@ import org.springframework.util.function.SupplierUtils;
  * used for determining caching operations, a {@link KeyGenerator} will build the
  * cache keys, and a {@link CacheResolver} will resolve the actual cache(s) to use.
  *
+ * <p>Methods returning a {@link CompletableFuture} or a reactive type known to
+ * the {@link ReactiveAdapterRegistry} (e.g. Reactor's {@code Mono} and {@code Flux})
+ * are cached by value: the emitted value, or the list of emitted values for
+ * multi-value types, is stored in the cache, and cache hits are returned as
+ * ready-made instances of the declared return type. Caches are accessed through
+ * {@link Cache#retrieve(Object)} and {@link Cache#retrieve(Object, Supplier)},
+ * and concurrent misses for the same key share a single invocation.
+ *
  * <p>Note: A cache aspect is serializable but does not perform any actual caching
  * after deserialization.
  *
@@ -84,12 +101,18 @@ import org.springframework.util.function.SupplierUtils;
 public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		implements BeanFactoryAware, InitializingBean, SmartInitializingSingleton {
 
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Flux", CacheAspectSupport.class.getClassLoader());
+
+
 	protected final Log logger = LogFactory.getLog(getClass());
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
 	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
 
+	private final Map<InFlightKey, CompletableFuture<Object>> inFlightInvocations = new ConcurrentHashMap<>(64);
+
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
 
@@ -372,12 +395,18 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		AsyncResultAdapter asyncResultAdapter = contexts.getAsyncResultAdapter();
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
 				Cache cache = context.getCaches().iterator().next();
+				if (asyncResultAdapter != null) {
+					return asyncResultAdapter.fromFuture(() -> coalesce(cache, key,
+							() -> cache.retrieve(key, () -> invokeAsync(invoker, asyncResultAdapter))));
+				}
 				try {
 					return wrapCacheValue(method, cache.get(key, () -> unwrapReturnValue(invokeOperation(invoker))));
 				}
@@ -394,6 +423,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 
+		// Asynchronous return types are cached by their eventual value
+		if (asyncResultAdapter != null) {
+			return asyncResultAdapter.fromFuture(() -> executeAsync(invoker, contexts, asyncResultAdapter));
+		}
+
 		// Process any early evictions
 		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
 				CacheOperationExpressionEvaluator.NO_RESULT);
@@ -436,6 +470,147 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	/**
+	 * Asynchronous counterpart of the regular execution path: process early
+	 * evictions, look up the cached value through {@link Cache#retrieve(Object)}
+	 * and, on a miss, invoke the method and apply the put requests and late
+	 * evictions once its result is available. Concurrent misses for the same key
+	 * share a single invocation unless a {@code @CachePut} operation requires
+	 * the method to run anyway.
+	 * <p>For reactive return types, this runs for every subscription.
+	 */
+	private CompletableFuture<Object> executeAsync(
+			CacheOperationInvoker invoker, CacheOperationContexts contexts, AsyncResultAdapter adapter) {
+
+		// Process any early evictions
+		processCacheEvicts(contexts.get(CacheEvictOperation.class), true,
+				CacheOperationExpressionEvaluator.NO_RESULT);
+
+		List<CacheLookup> lookups = collectLookups(contexts.get(CacheableOperation.class));
+		boolean hasCachePut = hasCachePut(contexts);
+
+		return findCachedItemAsync(lookups, 0).thenCompose(cacheHit -> {
+			if (cacheHit != null && !hasCachePut) {
+				// If there are no put requests, just use the cache hit
+				return CompletableFuture.completedFuture(cacheHit.get());
+			}
+			boolean cacheMiss = (cacheHit == null);
+			if (cacheMiss && !hasCachePut && !lookups.isEmpty()) {
+				CacheLookup lookup = lookups.get(0);
+				return coalesce(lookup.cache, lookup.key, () -> invokeAndPut(invoker, contexts, adapter, true));
+			}
+			return invokeAndPut(invoker, contexts, adapter, cacheMiss);
+		}).thenApply(cacheValue -> {
+			// Process any late evictions
+			processCacheEvicts(contexts.get(CacheEvictOperation.class), false, cacheValue);
+			return cacheValue;
+		});
+	}
+
+	private List<CacheLookup> collectLookups(Collection<CacheOperationContext> contexts) {
+		Object result = CacheOperationExpressionEvaluator.NO_RESULT;
+		List<CacheLookup> lookups = new ArrayList<>();
+		for (CacheOperationContext context : contexts) {
+			if (isConditionPassing(context, result)) {
+				Object key = generateKey(context, result);
+				for (Cache cache : context.getCaches()) {
+					lookups.add(new CacheLookup(context, cache, key));
+				}
+			}
+		}
+		return lookups;
+	}
+
+	private CompletableFuture<Cache.ValueWrapper> findCachedItemAsync(List<CacheLookup> lookups, int index) {
+		if (index == lookups.size()) {
+			return CompletableFuture.completedFuture(null);
+		}
+		CacheLookup lookup = lookups.get(index);
+		return doRetrieve(lookup.cache, lookup.key).thenCompose(wrapper -> {
+			if (wrapper != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Cache entry for key '" + lookup.key + "' found in cache '" +
+							lookup.cache.getName() + "'");
+				}
+				return CompletableFuture.completedFuture(wrapper);
+			}
+			if (logger.isTraceEnabled()) {
+				logger.trace("No cache entry for key '" + lookup.key + "' in cache '" + lookup.cache.getName() +
+						"' for operation " + lookup.context.metadata.operation);
+			}
+			return findCachedItemAsync(lookups, index + 1);
+		});
+	}
+
+	private CompletableFuture<Object> invokeAndPut(CacheOperationInvoker invoker,
+			CacheOperationContexts contexts, AsyncResultAdapter adapter, boolean cacheMiss) {
+
+		return invokeAsync(invoker, adapter).thenApply(cacheValue -> {
+			// Collect puts from any @Cacheable miss and any explicit @CachePuts
+			List<CachePutRequest> cachePutRequests = new LinkedList<>();
+			if (cacheMiss) {
+				collectPutRequests(contexts.get(CacheableOperation.class),
+						CacheOperationExpressionEvaluator.NO_RESULT, cachePutRequests);
+			}
+			collectPutRequests(contexts.get(CachePutOperation.class), cacheValue, cachePutRequests);
+			for (CachePutRequest cachePutRequest : cachePutRequests) {
+				cachePutRequest.apply(cacheValue);
+			}
+			return cacheValue;
+		});
+	}
+
+	/**
+	 * Invoke the underlying operation and adapt its asynchronous result to a
+	 * {@link CompletableFuture}, turning an invocation failure into an
+	 * exceptionally completed future.
+	 */
+	private CompletableFuture<Object> invokeAsync(CacheOperationInvoker invoker, AsyncResultAdapter adapter) {
+		try {
+			return adapter.toFuture(invokeOperation(invoker));
+		}
+		catch (CacheOperationInvoker.ThrowableWrapper ex) {
+			CompletableFuture<Object> failed = new CompletableFuture<>();
+			failed.completeExceptionally(ex.getOriginal());
+			return failed;
+		}
+	}
+
+	/**
+	 * Coalesce concurrent asynchronous loads of the same key in the same cache:
+	 * the first caller triggers the given invocation, while callers arriving
+	 * before its completion share its result.
+	 */
+	private CompletableFuture<Object> coalesce(
+			Cache cache, Object key, Supplier<CompletableFuture<Object>> invocation) {
+
+		InFlightKey inFlightKey = new InFlightKey(cache, key);
+		CompletableFuture<Object> shared = new CompletableFuture<>();
+		CompletableFuture<Object> existing = this.inFlightInvocations.putIfAbsent(inFlightKey, shared);
+		if (existing != null) {
+			return existing.thenApply(Function.identity());
+		}
+		CompletableFuture<Object> result;
+		try {
+			result = invocation.get();
+		}
+		catch (Throwable ex) {
+			result = new CompletableFuture<>();
+			result.completeExceptionally(ex);
+		}
+		result.whenComplete((value, ex) -> {
+			this.inFlightInvocations.remove(inFlightKey, shared);
+			if (ex != null) {
+				shared.completeExceptionally(ex);
+			}
+			else {
+				shared.complete(value);
+			}
+		});
+		// Hand out a dependent future so that callers cannot complete the shared one
+		return shared.thenApply(Function.identity());
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -591,12 +766,17 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final boolean sync;
 
+		@Nullable
+		private AsyncResultAdapter asyncResultAdapter;
+
 		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
 				Object[] args, Object target, Class<?> targetClass) {
 
 			this.contexts = new LinkedMultiValueMap<>(operations.size());
 			for (CacheOperation op : operations) {
-				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
+				CacheOperationContext context = getOperationContext(op, method, args, target, targetClass);
+				this.contexts.add(op.getClass(), context);
+				this.asyncResultAdapter = context.metadata.asyncResultAdapter;
 			}
 			this.sync = determineSyncFlag(method);
 		}
@@ -610,6 +790,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.sync;
 		}
 
+		@Nullable
+		public AsyncResultAdapter getAsyncResultAdapter() {
+			return this.asyncResultAdapter;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -668,6 +853,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		@Nullable
+		private final AsyncResultAdapter asyncResultAdapter;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
@@ -679,6 +867,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.methodKey = new AnnotatedElementKey(this.targetMethod, targetClass);
 			this.keyGenerator = keyGenerator;
 			this.cacheResolver = cacheResolver;
+			this.asyncResultAdapter = AsyncResultAdapter.forReturnType(this.method.getReturnType());
 		}
 	}
 
@@ -825,6 +1014,155 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	private static final class CacheLookup {
+
+		private final CacheOperationContext context;
+
+		private final Cache cache;
+
+		private final Object key;
+
+		public CacheLookup(CacheOperationContext context, Cache cache, Object key) {
+			this.context = context;
+			this.cache = cache;
+			this.key = key;
+		}
+	}
+
+
+	/**
+	 * Key of an in-flight asynchronous invocation: a cache key within
+	 * a specific {@link Cache} instance.
+	 */
+	private static final class InFlightKey {
+
+		private final Cache cache;
+
+		private final Object key;
+
+		public InFlightKey(Cache cache, Object key) {
+			this.cache = cache;
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof InFlightKey)) {
+				return false;
+			}
+			InFlightKey otherKey = (InFlightKey) other;
+			return (this.cache == otherKey.cache && this.key.equals(otherKey.key));
+		}
+
+		@Override
+		public int hashCode() {
+			return (System.identityHashCode(this.cache) * 31 + this.key.hashCode());
+		}
+	}
+
+
+	/**
+	 * Adapts asynchronous method results to a {@link CompletableFuture} of the
+	 * value to cache, and cached values back to the declared return type.
+	 */
+	private abstract static class AsyncResultAdapter {
+
+		/**
+		 * Adapt the given return value to a future of the value to cache.
+		 */
+		public abstract CompletableFuture<Object> toFuture(@Nullable Object returnValue);
+
+		/**
+		 * Adapt the future of a cached value to the declared return type,
+		 * obtaining the future from the given supplier on demand.
+		 */
+		public abstract Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier);
+
+		/**
+		 * Determine the adapter for the given method return type, if asynchronous.
+		 */
+		@Nullable
+		public static AsyncResultAdapter forReturnType(Class<?> returnType) {
+			if (returnType == CompletableFuture.class || returnType == CompletionStage.class) {
+				return CompletableFutureResultAdapter.INSTANCE;
+			}
+			if (reactorPresent) {
+				ReactiveAdapter adapter = ReactiveAdapterRegistry.getSharedInstance().getAdapter(returnType);
+				if (adapter != null && !adapter.isNoValue()) {
+					return new ReactiveResultAdapter(adapter);
+				}
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * {@link AsyncResultAdapter} for {@link CompletableFuture} and
+	 * {@link CompletionStage} return types, adapting eagerly.
+	 */
+	private static class CompletableFutureResultAdapter extends AsyncResultAdapter {
+
+		static final CompletableFutureResultAdapter INSTANCE = new CompletableFutureResultAdapter();
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public CompletableFuture<Object> toFuture(@Nullable Object returnValue) {
+			return (returnValue != null ? ((CompletionStage<Object>) returnValue).toCompletableFuture() :
+					CompletableFuture.completedFuture(null));
+		}
+
+		@Override
+		public Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier) {
+			return futureSupplier.get();
+		}
+	}
+
+
+	/**
+	 * {@link AsyncResultAdapter} for reactive return types, caching the single
+	 * value or the list of values emitted. Lookups and invocations are deferred
+	 * until subscription and repeated for every subscriber.
+	 */
+	private static class ReactiveResultAdapter extends AsyncResultAdapter {
+
+		private final ReactiveAdapter adapter;
+
+		public ReactiveResultAdapter(ReactiveAdapter adapter) {
+			this.adapter = adapter;
+		}
+
+		@Override
+		public CompletableFuture<Object> toFuture(@Nullable Object returnValue) {
+			if (returnValue == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			Publisher<?> publisher = this.adapter.toPublisher(returnValue);
+			if (this.adapter.isMultiValue()) {
+				return Mono.<Object>from(Flux.from(publisher).collectList()).toFuture();
+			}
+			return Mono.<Object>from(publisher).toFuture();
+		}
+
+		@Override
+		public Object fromFuture(Supplier<CompletableFuture<Object>> futureSupplier) {
+			Mono<Object> value = Mono.defer(() -> Mono.fromFuture(futureSupplier.get()))
+					.onErrorMap(CompletionException.class, ex -> (ex.getCause() != null ? ex.getCause() : ex));
+			if (this.adapter.isMultiValue()) {
+				return this.adapter.fromPublisher(value.flatMapIterable(ReactiveResultAdapter::asIterable));
+			}
+			return this.adapter.fromPublisher(value);
+		}
+
+		private static Iterable<?> asIterable(Object value) {
+			return (value instanceof Iterable ? (Iterable<?>) value : Collections.singletonList(value));
+		}
+	}
+
+
 	private static final class CacheOperationCacheKey implements Comparable<CacheOperationCacheKey> {
 
 		private final CacheOperation cacheOperation;
@@ -18,11 +18,16 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +40,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -46,6 +52,7 @@ import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.ClassFileHeader;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
@@ -59,6 +66,8 @@ import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * A component provider that provides candidate components from a base package. Can
@@ -112,6 +121,12 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	private boolean parallelScanning =
+			SpringProperties.getFlag(PathMatchingResourcePatternResolver.PARALLEL_SCANNING_PROPERTY_NAME);
+
+	@Nullable
+	private Executor parallelScanningExecutor;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -265,7 +280,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Override
 	public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
-		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+		this.metadataReaderFactory = ConfigurationClassUtils.createMetadataReaderFactory(resourceLoader);
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
@@ -304,6 +319,44 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Specify whether class files found during classpath scanning should be
+	 * read in parallel, using the {@link #setParallelScanningExecutor parallel
+	 * scanning executor}.
+	 * <p>Default is "false", unless the
+	 * {@link PathMatchingResourcePatternResolver#PARALLEL_SCANNING_PROPERTY_NAME}
+	 * property is set. Filters and conditions are still evaluated on the calling
+	 * thread, in resource order; however, the {@link MetadataReaderFactory} is
+	 * invoked concurrently then and needs to be thread-safe.
+	 * @since 5.1.21
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether class files are read in parallel.
+	 * @since 5.1.21
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
+	/**
+	 * Specify the executor to read class files with when
+	 * {@linkplain #setParallelScanning parallel scanning} is enabled.
+	 * <p>Default is the parallel scanning executor of the resource pattern
+	 * resolver if it is a {@link PathMatchingResourcePatternResolver}, and the
+	 * {@linkplain PathMatchingResourcePatternResolver#getDefaultParallelScanningExecutor()
+	 * shared classpath scanning executor} otherwise.
+	 * @param parallelScanningExecutor the executor to use, or {@code null}
+	 * for the default
+	 * @since 5.1.21
+	 */
+	public void setParallelScanningExecutor(@Nullable Executor parallelScanningExecutor) {
+		this.parallelScanningExecutor = parallelScanningExecutor;
+	}
+
 
 	/**
 	 * Scan the class path for candidate components.
@@ -425,17 +478,27 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
 			boolean traceEnabled = logger.isTraceEnabled();
 			boolean debugEnabled = logger.isDebugEnabled();
+			List<AnnotationTypeFilter> preFilters = getAnnotationPreFilters();
+			MetadataReader[] metadataReaders = null;
+			boolean[] readable = null;
+			if (this.parallelScanning && resources.length > 1) {
+				metadataReaders = new MetadataReader[resources.length];
+				readable = new boolean[resources.length];
+				readCandidateMetadataInParallel(resources, preFilters, metadataReaders, readable);
+			}
 			// 遍历所有匹配的类资源
-			for (Resource resource : resources) {
+			for (int i = 0; i < resources.length; i++) {
+				Resource resource = resources[i];
 				if (traceEnabled) {
 					logger.trace("Scanning " + resource);
 				}
-				if (resource.isReadable()) {
+				if (readable != null ? readable[i] : resource.isReadable()) {
 					try {
 						// 使用metadataReader读取资源，MetadataReader是专门用来访问元数据的类（包括: 类元数据ClassMetadata、注解元数据AnnotationMetadata等）
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+						MetadataReader metadataReader = (metadataReaders != null ? metadataReaders[i] :
+								readCandidateMetadata(resource, preFilters));
 						// 使用过滤器检查给定的类是否为候选类（候选类: 与excludeFilters的所有Filter不匹配，并且与includeFilters的至少一个Filter匹配）
-						if (isCandidateComponent(metadataReader)) {
+						if (metadataReader != null && isCandidateComponent(metadataReader)) {
 							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
 							sbd.setSource(resource);
 							// 判断sbd是否为候选类(独立的 && (具体的实现类 || (抽象类 && 类中有方法使用@Lookup注解)))
@@ -476,6 +539,144 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	/**
+	 * Read the metadata of all given class file resources in parallel.
+	 * @param resources the class file resources
+	 * @param preFilters the annotation filters to pre-filter class files with,
+	 * or {@code null} if every class file needs to be read
+	 * @param metadataReaders the array to store the metadata readers in, with
+	 * {@code null} entries for resources that are not readable or have been
+	 * rejected by the pre-filter
+	 * @param readable the array to store whether each resource is readable in
+	 */
+	private void readCandidateMetadataInParallel(Resource[] resources, @Nullable List<AnnotationTypeFilter> preFilters,
+			MetadataReader[] metadataReaders, boolean[] readable) {
+
+		Executor executor = getParallelScanningExecutor();
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[resources.length];
+		for (int i = 0; i < resources.length; i++) {
+			int index = i;
+			futures[i] = CompletableFuture.runAsync(() -> {
+				Resource resource = resources[index];
+				if (resource.isReadable()) {
+					readable[index] = true;
+					try {
+						metadataReaders[index] = readCandidateMetadata(resource, preFilters);
+					}
+					catch (Throwable ex) {
+						throw new BeanDefinitionStoreException(
+								"Failed to read candidate component class: " + resource, ex);
+					}
+				}
+			}, executor);
+		}
+		try {
+			CompletableFuture.allOf(futures).join();
+		}
+		catch (CompletionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw ex;
+		}
+	}
+
+	private Executor getParallelScanningExecutor() {
+		if (this.parallelScanningExecutor != null) {
+			return this.parallelScanningExecutor;
+		}
+		ResourcePatternResolver resourcePatternResolver = getResourcePatternResolver();
+		return (resourcePatternResolver instanceof PathMatchingResourcePatternResolver ?
+				((PathMatchingResourcePatternResolver) resourcePatternResolver).getParallelScanningExecutor() :
+				PathMatchingResourcePatternResolver.getDefaultParallelScanningExecutor());
+	}
+
+	/**
+	 * Read the metadata of the given class file resource, unless the class
+	 * file header already shows that the class cannot match any include filter.
+	 * The class file is read only once: its content is passed on to the
+	 * {@link MetadataReaderFactory} after pre-filtering.
+	 * @param resource the class file resource
+	 * @param preFilters the annotation filters to pre-filter the class file with,
+	 * or {@code null} to always read the metadata
+	 * @return the metadata reader, or {@code null} if rejected by the pre-filter
+	 */
+	@Nullable
+	private MetadataReader readCandidateMetadata(Resource resource, @Nullable List<AnnotationTypeFilter> preFilters)
+			throws IOException {
+
+		if (preFilters == null) {
+			return getMetadataReaderFactory().getMetadataReader(resource);
+		}
+		byte[] classFile = FileCopyUtils.copyToByteArray(resource.getInputStream());
+		if (!mayMatchAnyFilter(ClassFileHeader.read(classFile), preFilters)) {
+			return null;
+		}
+		return getMetadataReaderFactory().getMetadataReader(resource, classFile);
+	}
+
+	/**
+	 * Determine the include filters that a class file header can be checked
+	 * against before reading the full class metadata: only applicable if all
+	 * include filters are plain {@link AnnotationTypeFilter AnnotationTypeFilters}
+	 * that do not consider interfaces, and if the candidate selection has not
+	 * been customized by a subclass.
+	 * @return the annotation filters, or {@code null} if not applicable
+	 */
+	@Nullable
+	private List<AnnotationTypeFilter> getAnnotationPreFilters() {
+		Method method = ReflectionUtils.findMethod(getClass(), "isCandidateComponent", MetadataReader.class);
+		if (method == null || method.getDeclaringClass() != ClassPathScanningCandidateComponentProvider.class) {
+			return null;
+		}
+		List<AnnotationTypeFilter> preFilters = new ArrayList<>(this.includeFilters.size());
+		for (TypeFilter filter : this.includeFilters) {
+			if (filter.getClass() != AnnotationTypeFilter.class) {
+				return null;
+			}
+			AnnotationTypeFilter annotationTypeFilter = (AnnotationTypeFilter) filter;
+			if (annotationTypeFilter.isConsiderInterfaces()) {
+				return null;
+			}
+			preFilters.add(annotationTypeFilter);
+		}
+		return preFilters;
+	}
+
+	/**
+	 * Determine whether the class with the given header may match any of the
+	 * given annotation filters. Lenient in case of doubt: a class may match
+	 * if it is directly annotated with the filter's annotation type, if it
+	 * declares any other annotation that might carry the annotation type as
+	 * a meta-annotation, or if the annotation type is inherited and the class
+	 * has a super class other than {@code java.lang.Object}.
+	 * @param header the class file header
+	 * @param preFilters the annotation filters
+	 * @return {@code false} if the class cannot match any filter
+	 */
+	private static boolean mayMatchAnyFilter(ClassFileHeader header, List<AnnotationTypeFilter> preFilters) {
+		String[] annotationTypes = header.getAnnotationTypes();
+		String superClassName = header.getSuperClassName();
+		for (AnnotationTypeFilter filter : preFilters) {
+			String annotationName = filter.getAnnotationType().getName();
+			for (String annotationType : annotationTypes) {
+				if (annotationType.equals(annotationName) || (filter.isConsiderMetaAnnotations() &&
+						!annotationType.startsWith("java.lang.") && !annotationType.startsWith("kotlin."))) {
+					return true;
+				}
+			}
+			if (filter.isConsiderInherited() && superClassName != null &&
+					!Object.class.getName().equals(superClassName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 
 	/**
 	 * Resolve the specified base package into a pattern specification for
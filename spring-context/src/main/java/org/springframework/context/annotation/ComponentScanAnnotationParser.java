@@ -32,12 +32,15 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.env.Environment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.core.type.filter.AbstractTypeHierarchyTraversingFilter;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AspectJTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.StringUtils;
@@ -62,20 +65,41 @@ class ComponentScanAnnotationParser {
 
 	private final BeanDefinitionRegistry registry;
 
+	@Nullable
+	private final MetadataReaderFactory metadataReaderFactory;
+
 
 	public ComponentScanAnnotationParser(Environment environment, ResourceLoader resourceLoader,
 			BeanNameGenerator beanNameGenerator, BeanDefinitionRegistry registry) {
 
+		this(environment, resourceLoader, beanNameGenerator, registry, null);
+	}
+
+	/**
+	 * Create a new parser whose scanners share the given MetadataReaderFactory
+	 * if it persists class metadata, so that scanned classes end up in the same
+	 * cache file as the configuration classes.
+	 * @since 5.1.21
+	 * @see PersistentMetadataReaderFactory
+	 */
+	public ComponentScanAnnotationParser(Environment environment, ResourceLoader resourceLoader,
+			BeanNameGenerator beanNameGenerator, BeanDefinitionRegistry registry,
+			@Nullable MetadataReaderFactory metadataReaderFactory) {
+
 		this.environment = environment;
 		this.resourceLoader = resourceLoader;
 		this.beanNameGenerator = beanNameGenerator;
 		this.registry = registry;
+		this.metadataReaderFactory = metadataReaderFactory;
 	}
 
 
 	public Set<BeanDefinitionHolder> parse(AnnotationAttributes componentScan, final String declaringClass) {
 		ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(this.registry,
 				componentScan.getBoolean("useDefaultFilters"), this.environment, this.resourceLoader);
+		if (this.metadataReaderFactory instanceof PersistentMetadataReaderFactory) {
+			scanner.setMetadataReaderFactory(this.metadataReaderFactory);
+		}
 
 		Class<? extends BeanNameGenerator> generatorClass = componentScan.getClass("nameGenerator");
 		boolean useInheritedGenerator = (BeanNameGenerator.class == generatorClass);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,8 @@ import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotatedTypeMetadata;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.lang.Nullable;
@@ -90,27 +92,41 @@ class ConditionEvaluator {
 			return shouldSkip(metadata, ConfigurationPhase.REGISTER_BEAN);
 		}
 
-		List<Condition> conditions = new ArrayList<>();
-		for (String[] conditionClasses : getConditionClasses(metadata)) {
-			for (String conditionClass : conditionClasses) {
-				Condition condition = getCondition(conditionClass, this.context.getClassLoader());
-				conditions.add(condition);
-			}
+		ConfigurableListableBeanFactory beanFactory = this.context.getBeanFactory();
+		ApplicationStartup applicationStartup =
+				(beanFactory != null ? beanFactory.getApplicationStartup() : ApplicationStartup.DEFAULT);
+		StartupStep evaluateConditions = applicationStartup.start("spring.context.condition.evaluate")
+				.tag("phase", phase.name());
+		if (metadata instanceof AnnotationMetadata) {
+			evaluateConditions.tag("className", ((AnnotationMetadata) metadata).getClassName());
 		}
+		try {
+			List<Condition> conditions = new ArrayList<>();
+			for (String[] conditionClasses : getConditionClasses(metadata)) {
+				for (String conditionClass : conditionClasses) {
+					Condition condition = getCondition(conditionClass, this.context.getClassLoader());
+					conditions.add(condition);
+				}
+			}
 
-		AnnotationAwareOrderComparator.sort(conditions);
+			AnnotationAwareOrderComparator.sort(conditions);
 
-		for (Condition condition : conditions) {
-			ConfigurationPhase requiredPhase = null;
-			if (condition instanceof ConfigurationCondition) {
-				requiredPhase = ((ConfigurationCondition) condition).getConfigurationPhase();
-			}
-			if ((requiredPhase == null || requiredPhase == phase) && !condition.matches(this.context, metadata)) {
-				return true;
+			for (Condition condition : conditions) {
+				ConfigurationPhase requiredPhase = null;
+				if (condition instanceof ConfigurationCondition) {
+					requiredPhase = ((ConfigurationCondition) condition).getConfigurationPhase();
+				}
+				if ((requiredPhase == null || requiredPhase == phase) && !condition.matches(this.context, metadata)) {
+					evaluateConditions.tag("skipped", "true");
+					return true;
+				}
 			}
-		}
 
-		return false;
+			return false;
+		}
+		finally {
+			evaluateConditions.end();
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
@@ -29,12 +30,16 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.core.Conventions;
 import org.springframework.core.Ordered;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
@@ -232,4 +237,30 @@ abstract class ConfigurationClassUtils {
 		return (order != null ? order : Ordered.LOWEST_PRECEDENCE);
 	}
 
+	/**
+	 * Create the default {@link MetadataReaderFactory} for configuration class
+	 * processing and component scanning: a {@link PersistentMetadataReaderFactory}
+	 * if the {@link PersistentMetadataReaderFactory#CACHE_FILE_PROPERTY_NAME} property
+	 * is set, or a plain {@link CachingMetadataReaderFactory} otherwise.
+	 * @param resourceLoader the ResourceLoader to use
+	 * @since 5.1.21
+	 */
+	static CachingMetadataReaderFactory createMetadataReaderFactory(@Nullable ResourceLoader resourceLoader) {
+		String cacheFile = SpringProperties.getProperty(PersistentMetadataReaderFactory.CACHE_FILE_PROPERTY_NAME);
+		return (cacheFile != null ? new PersistentMetadataReaderFactory(resourceLoader, new File(cacheFile)) :
+				new CachingMetadataReaderFactory(resourceLoader));
+	}
+
+	/**
+	 * Create the default {@link MetadataReaderFactory} for the given ClassLoader.
+	 * @param classLoader the ClassLoader to use
+	 * @since 5.1.21
+	 * @see #createMetadataReaderFactory(ResourceLoader)
+	 */
+	static CachingMetadataReaderFactory createMetadataReaderFactory(@Nullable ClassLoader classLoader) {
+		String cacheFile = SpringProperties.getProperty(PersistentMetadataReaderFactory.CACHE_FILE_PROPERTY_NAME);
+		return (cacheFile != null ? new PersistentMetadataReaderFactory(classLoader, new File(cacheFile)) :
+				new CachingMetadataReaderFactory(classLoader));
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.context.event;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,11 @@ import org.springframework.util.ObjectUtils;
  * all events to all registered listeners, invoking them in the calling thread.
  * Alternative implementations could be more sophisticated in those respects.
  *
+ * <p>Listeners are resolved once per event type and source type: the resulting
+ * pre-sorted listener list gets cached as an immutable snapshot and is served
+ * without locking until the set of registered listeners changes, at which point
+ * all snapshots are discarded and lazily rebuilt on the next matching event.
+ *
  * @author Juergen Hoeller
  * @author Stephane Nicoll
  * @since 1.2.3
@@ -166,7 +172,8 @@ public abstract class AbstractApplicationEventMulticaster
 	 * @param event the event to be propagated. Allows for excluding
 	 * non-matching listeners early, based on cached matching information.
 	 * @param eventType the event type
-	 * @return a Collection of ApplicationListeners
+	 * @return a Collection of ApplicationListeners (as of 5.1.21, possibly an
+	 * unmodifiable snapshot shared between invocations)
 	 * @see org.springframework.context.ApplicationListener
 	 */
 	protected Collection<ApplicationListener<?>> getApplicationListeners(
@@ -260,6 +267,10 @@ public abstract class AbstractApplicationEventMulticaster
 		if (retriever != null && retriever.applicationListenerBeans.isEmpty()) {
 			retriever.applicationListeners.clear();
 			retriever.applicationListeners.addAll(allListeners);
+			// Only singleton listeners: the sorted list can be served as-is from now on
+			List<ApplicationListener<?>> snapshot = Collections.unmodifiableList(allListeners);
+			retriever.listenerSnapshot = snapshot;
+			return snapshot;
 		}
 		return allListeners;
 	}
@@ -371,11 +382,22 @@ public abstract class AbstractApplicationEventMulticaster
 
 		private final boolean preFiltered;
 
+		/**
+		 * Immutable, pre-sorted listener list for a pre-filtered retriever
+		 * without non-singleton listener beans; never modified once set.
+		 */
+		@Nullable
+		volatile List<ApplicationListener<?>> listenerSnapshot;
+
 		public ListenerRetriever(boolean preFiltered) {
 			this.preFiltered = preFiltered;
 		}
 
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
+			List<ApplicationListener<?>> snapshot = this.listenerSnapshot;
+			if (snapshot != null) {
+				return snapshot;
+			}
 			List<ApplicationListener<?>> allListeners = new ArrayList<>(
 					this.applicationListeners.size() + this.applicationListenerBeans.size());
 			allListeners.addAll(this.applicationListeners);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -51,7 +52,9 @@ import org.springframework.util.StringUtils;
  * a chance to deviate from the default. Unwraps the content of a
  * {@link PayloadApplicationEvent} if necessary to allow method declaration
  * to define any arbitrary event type. If a condition is defined, it is
- * evaluated prior to invoking the underlying method.
+ * evaluated prior to invoking the underlying method. If a partition key is
+ * defined, the method is invoked on the corresponding lane of a
+ * {@link PartitionedEventExecutor}.
  *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
@@ -75,6 +78,9 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	@Nullable
 	private final String condition;
 
+	@Nullable
+	private final String partitionKey;
+
 	private final int order;
 
 	@Nullable
@@ -83,6 +89,12 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	@Nullable
 	private EventExpressionEvaluator evaluator;
 
+	@Nullable
+	private Supplier<PartitionedEventExecutor> partitionedEventExecutorSupplier;
+
+	@Nullable
+	private volatile PartitionedEventExecutor partitionedEventExecutor;
+
 
 	public ApplicationListenerMethodAdapter(String beanName, Class<?> targetClass, Method method) {
 		this.beanName = beanName;
@@ -94,6 +106,7 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(this.targetMethod, EventListener.class);
 		this.declaredEventTypes = resolveDeclaredEventTypes(method, ann);
 		this.condition = (ann != null ? ann.condition() : null);
+		this.partitionKey = (ann != null ? ann.partitionKey() : null);
 		this.order = resolveOrder(this.targetMethod);
 	}
 
@@ -132,8 +145,20 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	 * Initialize this instance.
 	 */
 	void init(ApplicationContext applicationContext, EventExpressionEvaluator evaluator) {
+		init(applicationContext, evaluator, null);
+	}
+
+	/**
+	 * Initialize this instance, using the given supplier for the executor
+	 * of partitioned listeners.
+	 * @since 5.1.21
+	 */
+	void init(ApplicationContext applicationContext, EventExpressionEvaluator evaluator,
+			@Nullable Supplier<PartitionedEventExecutor> partitionedEventExecutorSupplier) {
+
 		this.applicationContext = applicationContext;
 		this.evaluator = evaluator;
+		this.partitionedEventExecutorSupplier = partitionedEventExecutorSupplier;
 	}
 
 
@@ -176,16 +201,29 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	public void processEvent(ApplicationEvent event) {
 		Object[] args = resolveArguments(event);
 		if (shouldHandle(event, args)) {
-			Object result = doInvoke(args);
-			if (result != null) {
-				handleResult(result);
+			String partitionKey = getPartitionKey();
+			if (StringUtils.hasText(partitionKey)) {
+				Assert.notNull(this.evaluator, "EventExpressionEvaluator must not be null");
+				Object key = this.evaluator.partitionKey(
+						partitionKey, event, this.targetMethod, this.methodKey, args, this.applicationContext);
+				getPartitionedEventExecutor().execute(key, () -> invokeAndHandleResult(args));
 			}
 			else {
-				logger.trace("No result object given - no result to handle");
+				invokeAndHandleResult(args);
 			}
 		}
 	}
 
+	private void invokeAndHandleResult(Object[] args) {
+		Object result = doInvoke(args);
+		if (result != null) {
+			handleResult(result);
+		}
+		else {
+			logger.trace("No result object given - no result to handle");
+		}
+	}
+
 	/**
 	 * Resolve the method arguments to use for the specified {@link ApplicationEvent}.
 	 * <p>These arguments will be used to invoke the method handled by this instance.
@@ -299,6 +337,39 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		return this.condition;
 	}
 
+	/**
+	 * Return the partition key expression to use.
+	 * <p>Matches the {@code partitionKey} attribute of the {@link EventListener}
+	 * annotation or any matching attribute on a composed annotation that
+	 * is meta-annotated with {@code @EventListener}.
+	 * @since 5.1.21
+	 */
+	@Nullable
+	protected String getPartitionKey() {
+		return this.partitionKey;
+	}
+
+	/**
+	 * Return the executor to invoke partitioned listener methods with.
+	 * <p>Defaults to the executor provided on initialization, falling back
+	 * to the {@link PartitionedEventExecutor} bean in the application context.
+	 * @since 5.1.21
+	 */
+	protected PartitionedEventExecutor getPartitionedEventExecutor() {
+		PartitionedEventExecutor executor = this.partitionedEventExecutor;
+		if (executor == null) {
+			if (this.partitionedEventExecutorSupplier != null) {
+				executor = this.partitionedEventExecutorSupplier.get();
+			}
+			else {
+				Assert.notNull(this.applicationContext, "ApplicationContext must not be null");
+				executor = this.applicationContext.getBean(PartitionedEventExecutor.class);
+			}
+			this.partitionedEventExecutor = executor;
+		}
+		return executor;
+	}
+
 	/**
 	 * Add additional details such as the bean type and method signature to
 	 * the given error message.
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the queued asynchronous event delivery of a
+ * {@link SimpleApplicationEventMulticaster}.
+ *
+ * <p>All counters are cumulative since the creation of the multicaster
+ * and are updated without locking; values read concurrently with ongoing
+ * deliveries are therefore approximate.
+ *
+ * @since 5.1.21
+ * @see SimpleApplicationEventMulticaster#setDeliveryQueueCapacity
+ * @see SimpleApplicationEventMulticaster#getDeliveryMetrics()
+ */
+public final class EventDeliveryMetrics {
+
+	private final LongAdder enqueuedCount = new LongAdder();
+
+	private final LongAdder deliveredCount = new LongAdder();
+
+	private final LongAdder batchCount = new LongAdder();
+
+	private final LongAdder droppedCount = new LongAdder();
+
+	private final LongAdder callerRunsCount = new LongAdder();
+
+	private final LongAdder blockedCount = new LongAdder();
+
+
+	/**
+	 * Return the number of events accepted into a delivery queue.
+	 */
+	public long getEnqueuedCount() {
+		return this.enqueuedCount.sum();
+	}
+
+	/**
+	 * Return the number of queued events handed to their listener,
+	 * including invocations that ended with an exception.
+	 */
+	public long getDeliveredCount() {
+		return this.deliveredCount.sum();
+	}
+
+	/**
+	 * Return the number of events currently waiting in delivery queues.
+	 */
+	public long getPendingCount() {
+		return Math.max(getEnqueuedCount() - getDeliveredCount(), 0);
+	}
+
+	/**
+	 * Return the number of batches drained from delivery queues.
+	 */
+	public long getBatchCount() {
+		return this.batchCount.sum();
+	}
+
+	/**
+	 * Return the number of events discarded because of a full delivery queue.
+	 * @see SimpleApplicationEventMulticaster.BackpressurePolicy#DROP
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.sum();
+	}
+
+	/**
+	 * Return the number of events delivered in the publishing thread
+	 * because of a full delivery queue.
+	 * @see SimpleApplicationEventMulticaster.BackpressurePolicy#CALLER_RUNS
+	 */
+	public long getCallerRunsCount() {
+		return this.callerRunsCount.sum();
+	}
+
+	/**
+	 * Return the number of times a publishing thread had to wait
+	 * for space in a full delivery queue.
+	 * @see SimpleApplicationEventMulticaster.BackpressurePolicy#BLOCK
+	 */
+	public long getBlockedCount() {
+		return this.blockedCount.sum();
+	}
+
+
+	void enqueued() {
+		this.enqueuedCount.increment();
+	}
+
+	void delivered(int count) {
+		this.deliveredCount.add(count);
+		this.batchCount.increment();
+	}
+
+	void dropped() {
+		this.droppedCount.increment();
+	}
+
+	void callerRuns() {
+		this.callerRunsCount.increment();
+	}
+
+	void blocked() {
+		this.blockedCount.increment();
+	}
+
+
+	@Override
+	public String toString() {
+		return "EventDeliveryMetrics [enqueued = " + getEnqueuedCount() + ", delivered = " + getDeliveredCount() +
+				", batches = " + getBatchCount() + ", dropped = " + getDroppedCount() +
+				", callerRuns = " + getCallerRunsCount() + ", blocked = " + getBlockedCount() + "]";
+	}
+
+}
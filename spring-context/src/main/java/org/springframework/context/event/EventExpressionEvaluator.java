@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -41,6 +41,8 @@ class EventExpressionEvaluator extends CachedExpressionEvaluator {
 
 	private final Map<ExpressionKey, Expression> conditionCache = new ConcurrentHashMap<>(64);
 
+	private final Map<ExpressionKey, Expression> partitionKeyCache = new ConcurrentHashMap<>(64);
+
 
 	/**
 	 * Specify if the condition defined by the specified expression matches.
@@ -48,15 +50,35 @@ class EventExpressionEvaluator extends CachedExpressionEvaluator {
 	public boolean condition(String conditionExpression, ApplicationEvent event, Method targetMethod,
 			AnnotatedElementKey methodKey, Object[] args, @Nullable BeanFactory beanFactory) {
 
+		MethodBasedEvaluationContext evaluationContext =
+				createEvaluationContext(event, targetMethod, args, beanFactory);
+		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
+				evaluationContext, Boolean.class)));
+	}
+
+	/**
+	 * Evaluate the partition key defined by the specified expression.
+	 * @since 5.1.21
+	 */
+	@Nullable
+	public Object partitionKey(String partitionKeyExpression, ApplicationEvent event, Method targetMethod,
+			AnnotatedElementKey methodKey, Object[] args, @Nullable BeanFactory beanFactory) {
+
+		MethodBasedEvaluationContext evaluationContext =
+				createEvaluationContext(event, targetMethod, args, beanFactory);
+		return getExpression(this.partitionKeyCache, methodKey, partitionKeyExpression).getValue(evaluationContext);
+	}
+
+	private MethodBasedEvaluationContext createEvaluationContext(ApplicationEvent event, Method targetMethod,
+			Object[] args, @Nullable BeanFactory beanFactory) {
+
 		EventExpressionRootObject root = new EventExpressionRootObject(event, args);
 		MethodBasedEvaluationContext evaluationContext = new MethodBasedEvaluationContext(
 				root, targetMethod, args, getParameterNameDiscoverer());
 		if (beanFactory != null) {
 			evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
 		}
-
-		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
-				evaluationContext, Boolean.class)));
+		return evaluationContext;
 	}
 
 }
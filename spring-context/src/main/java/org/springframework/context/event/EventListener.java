@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,6 +59,9 @@ import org.springframework.core.annotation.AliasFor;
  * {@link java.lang.reflect.UndeclaredThrowableException}
  * since the event publisher can only handle runtime exceptions.
  *
+ * <p>Events for a listener can be handled asynchronously while retaining
+ * their order per aggregate through the {@link #partitionKey} attribute.
+ *
  * @author Stephane Nicoll
  * @since 4.2
  * @see EventListenerMethodProcessor
@@ -102,4 +105,20 @@ public @interface EventListener {
 	 */
 	String condition() default "";
 
+	/**
+	 * Spring Expression Language (SpEL) attribute providing the partition key
+	 * for asynchronous, per-key ordered handling of events.
+	 * <p>Default is {@code ""}, meaning that the event is handled by the
+	 * multicaster as usual. Otherwise the expression is evaluated in the
+	 * publishing thread, against the same meta-data as the {@link #condition},
+	 * and the method is invoked on the lane of the {@link PartitionedEventExecutor}
+	 * for the resulting key: events with equal keys are handled one at a time and
+	 * in publication order, events with different keys are handled in parallel.
+	 * <p>The result of a partitioned listener, if any, is published from the
+	 * lane thread.
+	 * @since 5.1.21
+	 * @see PartitionedEventExecutor
+	 */
+	String partitionKey() default "";
+
 }
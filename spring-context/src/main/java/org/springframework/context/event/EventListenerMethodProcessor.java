@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import org.springframework.aop.scope.ScopedObject;
 import org.springframework.aop.scope.ScopedProxyUtils;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -60,7 +61,7 @@ import org.springframework.util.CollectionUtils;
  * @see DefaultEventListenerFactory
  */
 public class EventListenerMethodProcessor
-		implements SmartInitializingSingleton, ApplicationContextAware, BeanFactoryPostProcessor {
+		implements SmartInitializingSingleton, ApplicationContextAware, BeanFactoryPostProcessor, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -77,6 +78,11 @@ public class EventListenerMethodProcessor
 
 	private final Set<Class<?>> nonAnnotatedClasses = Collections.newSetFromMap(new ConcurrentHashMap<>(64));
 
+	@Nullable
+	private PartitionedEventExecutor partitionedEventExecutor;
+
+	private boolean defaultPartitionedEventExecutor;
+
 
 	@Override
 	public void setApplicationContext(ApplicationContext applicationContext) {
@@ -179,7 +185,8 @@ public class EventListenerMethodProcessor
 							ApplicationListener<?> applicationListener =
 									factory.createApplicationListener(beanName, targetType, methodToUse);
 							if (applicationListener instanceof ApplicationListenerMethodAdapter) {
-								((ApplicationListenerMethodAdapter) applicationListener).init(context, this.evaluator);
+								((ApplicationListenerMethodAdapter) applicationListener).init(
+										context, this.evaluator, this::getPartitionedEventExecutor);
 							}
 							// 加到 Spring 容器中
 							context.addApplicationListener(applicationListener);
@@ -195,6 +202,37 @@ public class EventListenerMethodProcessor
 		}
 	}
 
+	/**
+	 * Return the executor for partitioned event listeners: the unique
+	 * {@link PartitionedEventExecutor} bean, if any, or a default instance
+	 * created on first use and shut down along with this processor.
+	 * @since 5.1.21
+	 * @see EventListener#partitionKey()
+	 */
+	protected synchronized PartitionedEventExecutor getPartitionedEventExecutor() {
+		PartitionedEventExecutor executor = this.partitionedEventExecutor;
+		if (executor == null) {
+			ConfigurableListableBeanFactory beanFactory = this.beanFactory;
+			Assert.state(beanFactory != null, "No ConfigurableListableBeanFactory set");
+			executor = beanFactory.getBeanProvider(PartitionedEventExecutor.class).getIfUnique();
+			if (executor == null) {
+				executor = new PartitionedEventExecutor();
+				executor.setThreadNamePrefix("event-partition-");
+				executor.initialize();
+				this.defaultPartitionedEventExecutor = true;
+			}
+			this.partitionedEventExecutor = executor;
+		}
+		return executor;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (this.defaultPartitionedEventExecutor && this.partitionedEventExecutor != null) {
+			this.partitionedEventExecutor.shutdown();
+		}
+	}
+
 	/**
 	 * Determine whether the given class is an {@code org.springframework}
 	 * bean class that is not annotated as a user or test {@link Component}...
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.SimpleApplicationEventMulticaster.BackpressurePolicy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Queued asynchronous event delivery: one bounded queue per delivery key
+ * (typically the listener instance itself), drained in batches by at most one
+ * task at a time on the given executor, so that each key sees its events in
+ * publication order and never concurrently.
+ *
+ * <p>A queue is discarded once it runs empty, so that transient listener
+ * instances (e.g. prototype listener beans) do not accumulate.
+ *
+ * <p>If the executor rejects a drain task, the events remain queued and wait
+ * for the next successful schedule, i.e. until the next event for the same key
+ * gets accepted by the executor. The rejection is propagated to the publisher,
+ * or to the executor thread in case of a drain task rescheduling itself.
+ *
+ * @since 5.1.21
+ * @see SimpleApplicationEventMulticaster#setDeliveryQueueCapacity
+ */
+final class ListenerDeliveryQueues {
+
+	private final Executor executor;
+
+	private final int capacity;
+
+	private final int batchSize;
+
+	private final BackpressurePolicy backpressurePolicy;
+
+	private final long backpressureTimeout;
+
+	private final BiConsumer<ApplicationListener<?>, ApplicationEvent> invoker;
+
+	private final EventDeliveryMetrics metrics;
+
+	private final ConcurrentMap<Object, DeliveryQueue> queues = new ConcurrentHashMap<>();
+
+
+	ListenerDeliveryQueues(Executor executor, int capacity, int batchSize,
+			BackpressurePolicy backpressurePolicy, long backpressureTimeout,
+			BiConsumer<ApplicationListener<?>, ApplicationEvent> invoker, EventDeliveryMetrics metrics) {
+
+		this.executor = executor;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.backpressurePolicy = backpressurePolicy;
+		this.backpressureTimeout = backpressureTimeout;
+		this.invoker = invoker;
+		this.metrics = metrics;
+	}
+
+
+	/**
+	 * Deliver the given event to the given listener through the queue for the
+	 * given key, applying the backpressure policy if that queue is full.
+	 * @param key the delivery key: events with the same key are delivered in order
+	 * @param listener the listener to invoke
+	 * @param event the event to deliver
+	 */
+	public void deliver(Object key, ApplicationListener<?> listener, ApplicationEvent event) {
+		while (true) {
+			DeliveryQueue queue = this.queues.computeIfAbsent(key, k -> new DeliveryQueue(k, listener));
+			if (queue.offer(event)) {
+				return;
+			}
+			// Queue got discarded in the meantime -> retry with a fresh one
+		}
+	}
+
+	/**
+	 * Return the number of delivery queues currently in use.
+	 */
+	public int getQueueCount() {
+		return this.queues.size();
+	}
+
+
+	/**
+	 * Bounded queue for a single delivery key, doubling as its drain task.
+	 */
+	private class DeliveryQueue implements Runnable {
+
+		private final Object key;
+
+		private final ApplicationListener<?> listener;
+
+		private final ArrayDeque<ApplicationEvent> events = new ArrayDeque<>();
+
+		private final Object monitor = new Object();
+
+		private boolean scheduled;
+
+		private boolean discarded;
+
+		private int waiters;
+
+		@Nullable
+		private volatile Thread drainingThread;
+
+		DeliveryQueue(Object key, ApplicationListener<?> listener) {
+			this.key = key;
+			this.listener = listener;
+		}
+
+		/**
+		 * Offer the given event, applying the backpressure policy if necessary.
+		 * @return {@code false} if this queue has been discarded already
+		 */
+		public boolean offer(ApplicationEvent event) {
+			boolean callerRuns = false;
+			boolean schedule = false;
+			synchronized (this.monitor) {
+				if (this.discarded) {
+					return false;
+				}
+				if (this.events.size() >= capacity) {
+					if (backpressurePolicy == BackpressurePolicy.DROP) {
+						metrics.dropped();
+						return true;
+					}
+					else if (backpressurePolicy == BackpressurePolicy.CALLER_RUNS ||
+							Thread.currentThread() == this.drainingThread) {
+						// Waiting within our own drain task would never return
+						callerRuns = true;
+					}
+					else if (!awaitCapacity()) {
+						metrics.dropped();
+						return true;
+					}
+				}
+				if (!callerRuns) {
+					this.events.add(event);
+					metrics.enqueued();
+					schedule = !this.scheduled;
+					this.scheduled = true;
+				}
+			}
+			if (callerRuns) {
+				metrics.callerRuns();
+				invoker.accept(this.listener, event);
+			}
+			else if (schedule) {
+				schedule();
+			}
+			return true;
+		}
+
+		/**
+		 * Wait for space in this queue, for at most the backpressure timeout.
+		 * @return {@code true} if space is available, {@code false} if the event
+		 * is to be dropped
+		 */
+		private boolean awaitCapacity() {
+			metrics.blocked();
+			this.waiters++;
+			try {
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backpressureTimeout);
+				while (this.events.size() >= capacity) {
+					// Without a drain task (rejected by the executor), space never frees up
+					long remaining = deadline - System.nanoTime();
+					if (!this.scheduled || remaining <= 0) {
+						return false;
+					}
+					TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+				}
+				return true;
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+			finally {
+				this.waiters--;
+			}
+		}
+
+		/**
+		 * Submit this queue as drain task to the executor.
+		 * @throws RejectedExecutionException if the executor rejects the task,
+		 * leaving the queued events for the next successful schedule
+		 */
+		private void schedule() {
+			try {
+				executor.execute(this);
+			}
+			catch (RejectedExecutionException ex) {
+				// Leave the events queued for the next successful schedule,
+				// releasing any publishers waiting for this drain task
+				synchronized (this.monitor) {
+					this.scheduled = false;
+					if (this.waiters > 0) {
+						this.monitor.notifyAll();
+					}
+				}
+				throw ex;
+			}
+		}
+
+		@Override
+		public void run() {
+			List<ApplicationEvent> batch = new ArrayList<>(Math.min(batchSize, capacity));
+			synchronized (this.monitor) {
+				while (batch.size() < batchSize && !this.events.isEmpty()) {
+					batch.add(this.events.poll());
+				}
+				if (this.waiters > 0) {
+					this.monitor.notifyAll();
+				}
+			}
+
+			Throwable failure = null;
+			this.drainingThread = Thread.currentThread();
+			try {
+				for (ApplicationEvent event : batch) {
+					try {
+						invoker.accept(this.listener, event);
+					}
+					catch (Throwable ex) {
+						if (failure == null) {
+							failure = ex;
+						}
+						else if (failure != ex) {
+							failure.addSuppressed(ex);
+						}
+					}
+				}
+			}
+			finally {
+				this.drainingThread = null;
+				metrics.delivered(batch.size());
+			}
+
+			boolean reschedule;
+			synchronized (this.monitor) {
+				reschedule = !this.events.isEmpty();
+				if (!reschedule) {
+					this.scheduled = false;
+					if (this.waiters == 0) {
+						this.discarded = true;
+						queues.remove(this.key, this);
+					}
+				}
+			}
+			if (reschedule) {
+				// Resubmit rather than loop, giving other queues a turn on the executor
+				try {
+					schedule();
+				}
+				catch (RejectedExecutionException ex) {
+					if (failure == null) {
+						throw ex;
+					}
+					failure.addSuppressed(ex);
+				}
+			}
+			if (failure != null) {
+				ReflectionUtils.rethrowRuntimeException(failure);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.event.SimpleApplicationEventMulticaster.BackpressurePolicy;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.TaskUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ErrorHandler;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Executor for {@linkplain EventListener#partitionKey partitioned} event listeners:
+ * runs tasks on a fixed number of serial lanes, each backed by a single thread,
+ * with the lane chosen by the hash code of the task's partition key. Tasks for
+ * equal keys therefore run one after the other in submission order, while tasks
+ * for different keys are spread across all lanes.
+ *
+ * <p>Declare a bean of this type to customize the lane count, the bounds of the
+ * per-lane queues or the {@link BackpressurePolicy} applied to a full lane;
+ * otherwise the {@link EventListenerMethodProcessor} sets up a default instance.
+ * Current lane statistics are available through {@link #getLaneMetrics()}.
+ *
+ * @since 5.1.21
+ * @see EventListener#partitionKey()
+ */
+@SuppressWarnings("serial")
+public class PartitionedEventExecutor extends CustomizableThreadFactory
+		implements BeanNameAware, InitializingBean, DisposableBean {
+
+	private int laneCount = Runtime.getRuntime().availableProcessors();
+
+	private int laneQueueCapacity = Integer.MAX_VALUE;
+
+	private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+
+	private long backpressureTimeout = 10000;
+
+	private ErrorHandler errorHandler = TaskUtils.LOG_AND_SUPPRESS_ERROR_HANDLER;
+
+	private int awaitTerminationSeconds = 0;
+
+	private boolean threadNamePrefixSet = false;
+
+	@Nullable
+	private volatile List<Lane> lanes;
+
+
+	/**
+	 * Set the number of lanes, i.e. of threads to run tasks on.
+	 * <p>Default is the number of available processors.
+	 */
+	public void setLaneCount(int laneCount) {
+		Assert.isTrue(laneCount > 0, "Lane count must be greater than 0");
+		this.laneCount = laneCount;
+	}
+
+	/**
+	 * Return the number of lanes.
+	 */
+	public int getLaneCount() {
+		return this.laneCount;
+	}
+
+	/**
+	 * Set the maximum number of tasks waiting on each lane.
+	 * <p>Default is unbounded.
+	 * @see #setBackpressurePolicy
+	 */
+	public void setLaneQueueCapacity(int laneQueueCapacity) {
+		Assert.isTrue(laneQueueCapacity > 0, "Lane queue capacity must be greater than 0");
+		this.laneQueueCapacity = laneQueueCapacity;
+	}
+
+	/**
+	 * Set the policy to apply when submitting a task to a full lane.
+	 * <p>Default is {@link BackpressurePolicy#BLOCK}. Note that
+	 * {@link BackpressurePolicy#CALLER_RUNS} gives up the per-key ordering
+	 * for the affected task.
+	 * @see #setBackpressureTimeout
+	 */
+	public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+		Assert.notNull(backpressurePolicy, "BackpressurePolicy must not be null");
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds that a submitting thread waits for
+	 * space in a full lane with {@link BackpressurePolicy#BLOCK}, after which
+	 * the task is dropped. Default is 10000, i.e. 10 seconds, as with
+	 * {@link SimpleApplicationEventMulticaster#setBackpressureTimeout}.
+	 * @see LaneMetrics#getDroppedCount()
+	 */
+	public void setBackpressureTimeout(long backpressureTimeout) {
+		Assert.isTrue(backpressureTimeout > 0, "Backpressure timeout must be greater than 0");
+		this.backpressureTimeout = backpressureTimeout;
+	}
+
+	/**
+	 * Set the {@link ErrorHandler} to invoke in case a task throws an exception.
+	 * <p>Default is to log the exception and to proceed with the next task.
+	 */
+	public void setErrorHandler(ErrorHandler errorHandler) {
+		Assert.notNull(errorHandler, "ErrorHandler must not be null");
+		this.errorHandler = errorHandler;
+	}
+
+	/**
+	 * Set the maximum number of seconds to wait for queued tasks to complete
+	 * on shutdown. Default is 0, not waiting at all.
+	 */
+	public void setAwaitTerminationSeconds(int awaitTerminationSeconds) {
+		this.awaitTerminationSeconds = awaitTerminationSeconds;
+	}
+
+	@Override
+	public void setThreadNamePrefix(@Nullable String threadNamePrefix) {
+		super.setThreadNamePrefix(threadNamePrefix);
+		this.threadNamePrefixSet = true;
+	}
+
+	@Override
+	public void setBeanName(String name) {
+		if (!this.threadNamePrefixSet) {
+			super.setThreadNamePrefix(name + "-");
+		}
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		initialize();
+	}
+
+	/**
+	 * Set up the lanes of this executor.
+	 */
+	public synchronized void initialize() {
+		if (this.lanes != null) {
+			return;
+		}
+		List<Lane> lanes = new ArrayList<>(this.laneCount);
+		for (int i = 0; i < this.laneCount; i++) {
+			lanes.add(new Lane(i));
+		}
+		this.lanes = Collections.unmodifiableList(lanes);
+	}
+
+	/**
+	 * Run the given task on the lane for the given partition key.
+	 * @param partitionKey the partition key ({@code null} being mapped to the first lane)
+	 * @param task the task to run
+	 * @throws RejectedExecutionException if this executor has been shut down
+	 */
+	public void execute(@Nullable Object partitionKey, Runnable task) {
+		List<Lane> lanes = this.lanes;
+		Assert.state(lanes != null, "PartitionedEventExecutor not initialized");
+		lanes.get(getLaneIndex(partitionKey, lanes.size())).execute(task);
+	}
+
+	/**
+	 * Determine the lane for the given partition key.
+	 * @param partitionKey the partition key
+	 * @param laneCount the number of lanes
+	 * @return the index of the lane, between 0 and {@code laneCount - 1}
+	 */
+	protected int getLaneIndex(@Nullable Object partitionKey, int laneCount) {
+		int hash = ObjectUtils.nullSafeHashCode(partitionKey);
+		return Math.floorMod(hash ^ (hash >>> 16), laneCount);
+	}
+
+	/**
+	 * Return a snapshot of the statistics of each lane,
+	 * or an empty list if this executor has not been initialized.
+	 */
+	public List<LaneMetrics> getLaneMetrics() {
+		List<Lane> lanes = this.lanes;
+		if (lanes == null) {
+			return Collections.emptyList();
+		}
+		List<LaneMetrics> metrics = new ArrayList<>(lanes.size());
+		for (Lane lane : lanes) {
+			metrics.add(lane.getMetrics());
+		}
+		return metrics;
+	}
+
+	@Override
+	public void destroy() {
+		shutdown();
+	}
+
+	/**
+	 * Shut down all lanes, letting queued tasks complete within the
+	 * {@linkplain #setAwaitTerminationSeconds termination timeout}.
+	 */
+	public void shutdown() {
+		List<Lane> lanes = this.lanes;
+		if (lanes == null) {
+			return;
+		}
+		for (Lane lane : lanes) {
+			lane.executor.shutdown();
+		}
+		if (this.awaitTerminationSeconds > 0) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(this.awaitTerminationSeconds);
+			try {
+				for (Lane lane : lanes) {
+					lane.executor.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	/**
+	 * A single serial lane.
+	 */
+	private class Lane implements RejectedExecutionHandler {
+
+		private final int index;
+
+		private final ThreadPoolExecutor executor;
+
+		private final LongAdder droppedCount = new LongAdder();
+
+		private final LongAdder callerRunsCount = new LongAdder();
+
+		private final LongAdder blockedCount = new LongAdder();
+
+		@Nullable
+		private volatile Thread thread;
+
+		Lane(int index) {
+			this.index = index;
+			BlockingQueue<Runnable> queue = (laneQueueCapacity == Integer.MAX_VALUE ?
+					new LinkedBlockingQueue<>() : new ArrayBlockingQueue<>(laneQueueCapacity));
+			this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue,
+					PartitionedEventExecutor.this, this);
+		}
+
+		public void execute(Runnable task) {
+			this.executor.execute(() -> {
+				this.thread = Thread.currentThread();
+				try {
+					task.run();
+				}
+				catch (Throwable ex) {
+					errorHandler.handleError(ex);
+				}
+			});
+		}
+
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Lane " + this.index + " of " +
+						PartitionedEventExecutor.this + " has been shut down");
+			}
+			BackpressurePolicy policy = backpressurePolicy;
+			if (policy == BackpressurePolicy.BLOCK && Thread.currentThread() == this.thread) {
+				// Waiting on our own lane would never return
+				policy = BackpressurePolicy.CALLER_RUNS;
+			}
+			switch (policy) {
+				case DROP:
+					this.droppedCount.increment();
+					break;
+				case CALLER_RUNS:
+					this.callerRunsCount.increment();
+					task.run();
+					break;
+				default:
+					this.blockedCount.increment();
+					boolean enqueued;
+					try {
+						enqueued = executor.getQueue().offer(task, backpressureTimeout, TimeUnit.MILLISECONDS);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException("Interrupted while waiting for lane " + this.index, ex);
+					}
+					if (!enqueued) {
+						this.droppedCount.increment();
+					}
+					else if (executor.isShutdown() && executor.remove(task)) {
+						// Shut down while waiting: the lane thread may be gone already
+						throw new RejectedExecutionException("Lane " + this.index + " of " +
+								PartitionedEventExecutor.this + " has been shut down");
+					}
+			}
+		}
+
+		public LaneMetrics getMetrics() {
+			return new LaneMetrics(this.index, this.executor.getQueue().size(),
+					this.executor.getCompletedTaskCount(), this.droppedCount.sum(),
+					this.callerRunsCount.sum(), this.blockedCount.sum());
+		}
+	}
+
+
+	/**
+	 * Statistics of a single lane at the time of retrieval.
+	 * @see #getLaneMetrics()
+	 */
+	public static final class LaneMetrics {
+
+		private final int lane;
+
+		private final int queuedCount;
+
+		private final long completedCount;
+
+		private final long droppedCount;
+
+		private final long callerRunsCount;
+
+		private final long blockedCount;
+
+		LaneMetrics(int lane, int queuedCount, long completedCount,
+				long droppedCount, long callerRunsCount, long blockedCount) {
+
+			this.lane = lane;
+			this.queuedCount = queuedCount;
+			this.completedCount = completedCount;
+			this.droppedCount = droppedCount;
+			this.callerRunsCount = callerRunsCount;
+			this.blockedCount = blockedCount;
+		}
+
+		/**
+		 * Return the index of the lane.
+		 */
+		public int getLane() {
+			return this.lane;
+		}
+
+		/**
+		 * Return the number of tasks waiting on the lane.
+		 */
+		public int getQueuedCount() {
+			return this.queuedCount;
+		}
+
+		/**
+		 * Return the number of tasks completed on the lane (approximate).
+		 */
+		public long getCompletedCount() {
+			return this.completedCount;
+		}
+
+		/**
+		 * Return the number of tasks discarded because of a full lane,
+		 * including tasks dropped after the backpressure timeout.
+		 */
+		public long getDroppedCount() {
+			return this.droppedCount;
+		}
+
+		/**
+		 * Return the number of tasks run in the submitting thread because of a full lane.
+		 */
+		public long getCallerRunsCount() {
+			return this.callerRunsCount;
+		}
+
+		/**
+		 * Return the number of times a submitting thread had to wait for a full lane.
+		 */
+		public long getBlockedCount() {
+			return this.blockedCount;
+		}
+
+		@Override
+		public String toString() {
+			return "LaneMetrics [lane = " + this.lane + ", queued = " + this.queuedCount +
+					", completed = " + this.completedCount + ", dropped = " + this.droppedCount +
+					", callerRuns = " + this.callerRunsCount + ", blocked = " + this.blockedCount + "]";
+		}
+	}
+
+}
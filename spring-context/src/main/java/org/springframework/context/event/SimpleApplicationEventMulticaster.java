@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,9 @@
 
 package org.springframework.context.event;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.function.Predicate;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -25,7 +27,10 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -41,6 +46,14 @@ import org.springframework.util.ErrorHandler;
  * but adds minimal overhead. Specify an alternative task executor to have
  * listeners executed in different threads, for example from a thread pool.
  *
+ * <p>With a task executor in place, a positive {@link #setDeliveryQueueCapacity
+ * delivery queue capacity} switches from one task per listener invocation to
+ * queued delivery: each asynchronous listener gets a bounded queue which is
+ * drained in batches, with a configurable {@link BackpressurePolicy} for full
+ * queues and {@link #getDeliveryMetrics() delivery metrics}. Listeners excluded
+ * through an {@link #setAsyncListenerFilter async listener filter} keep being
+ * invoked in the calling thread, in their {@code @Order} sequence.
+ *
  * @author Rod Johnson
  * @author Juergen Hoeller
  * @author Stephane Nicoll
@@ -54,6 +67,24 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private ErrorHandler errorHandler;
 
+	@Nullable
+	private Predicate<ApplicationListener<?>> asyncListenerFilter;
+
+	private int deliveryQueueCapacity = 0;
+
+	private int deliveryBatchSize = 64;
+
+	private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+
+	private long backpressureTimeout = 10000;
+
+	private final EventDeliveryMetrics deliveryMetrics = new EventDeliveryMetrics();
+
+	@Nullable
+	private volatile ListenerDeliveryQueues deliveryQueues;
+
+	private final Map<Class<?>, ResolvableType> eventTypeCache = new ConcurrentReferenceHashMap<>();
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -83,6 +114,7 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	 */
 	public void setTaskExecutor(@Nullable Executor taskExecutor) {
 		this.taskExecutor = taskExecutor;
+		this.deliveryQueues = null;
 	}
 
 	/**
@@ -121,6 +153,86 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return this.errorHandler;
 	}
 
+	/**
+	 * Set a filter selecting the listeners to invoke through the
+	 * {@linkplain #setTaskExecutor task executor}.
+	 * <p>Default is none, invoking all listeners asynchronously if a task executor
+	 * has been specified. Listeners not matching the filter are invoked in the
+	 * calling thread, in their regular {@code @Order} sequence.
+	 * @since 5.1.21
+	 */
+	public void setAsyncListenerFilter(@Nullable Predicate<ApplicationListener<?>> asyncListenerFilter) {
+		this.asyncListenerFilter = asyncListenerFilter;
+	}
+
+	/**
+	 * Set the capacity of the delivery queue kept for each asynchronous listener.
+	 * <p>Default is 0, submitting a separate task to the
+	 * {@linkplain #setTaskExecutor task executor} for every listener invocation.
+	 * A positive capacity queues the events for each listener instead, draining
+	 * them in batches of up to the {@linkplain #setDeliveryBatchSize batch size}
+	 * within a single task: each listener then receives its events in publication
+	 * order and one at a time, and full queues are handled according to the
+	 * {@linkplain #setBackpressurePolicy backpressure policy}.
+	 * <p>Only applies if a task executor has been specified.
+	 * @since 5.1.21
+	 * @see #getDeliveryMetrics()
+	 */
+	public void setDeliveryQueueCapacity(int deliveryQueueCapacity) {
+		Assert.isTrue(deliveryQueueCapacity >= 0, "Delivery queue capacity must not be negative");
+		this.deliveryQueueCapacity = deliveryQueueCapacity;
+		this.deliveryQueues = null;
+	}
+
+	/**
+	 * Set the maximum number of queued events to deliver to a listener within
+	 * a single executor task. Default is 64.
+	 * @since 5.1.21
+	 * @see #setDeliveryQueueCapacity
+	 */
+	public void setDeliveryBatchSize(int deliveryBatchSize) {
+		Assert.isTrue(deliveryBatchSize > 0, "Delivery batch size must be greater than 0");
+		this.deliveryBatchSize = deliveryBatchSize;
+		this.deliveryQueues = null;
+	}
+
+	/**
+	 * Set the policy to apply when the delivery queue of a listener is full.
+	 * Default is {@link BackpressurePolicy#BLOCK}.
+	 * @since 5.1.21
+	 * @see #setDeliveryQueueCapacity
+	 */
+	public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+		Assert.notNull(backpressurePolicy, "BackpressurePolicy must not be null");
+		this.backpressurePolicy = backpressurePolicy;
+		this.deliveryQueues = null;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds that a publisher waits for space
+	 * in a full delivery queue with {@link BackpressurePolicy#BLOCK}, after
+	 * which the event is dropped for the listener in question. Default is
+	 * 10000, i.e. 10 seconds.
+	 * <p>Bounding the wait prevents a deadlock when the publisher runs on the
+	 * same bounded executor that needs to drain the queue.
+	 * @since 5.1.21
+	 * @see EventDeliveryMetrics#getDroppedCount()
+	 */
+	public void setBackpressureTimeout(long backpressureTimeout) {
+		Assert.isTrue(backpressureTimeout > 0, "Backpressure timeout must be greater than 0");
+		this.backpressureTimeout = backpressureTimeout;
+		this.deliveryQueues = null;
+	}
+
+	/**
+	 * Return the metrics for queued event delivery.
+	 * @since 5.1.21
+	 * @see #setDeliveryQueueCapacity
+	 */
+	public EventDeliveryMetrics getDeliveryMetrics() {
+		return this.deliveryMetrics;
+	}
+
 
 	@Override
 	public void multicastEvent(ApplicationEvent event) {
@@ -136,19 +248,25 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		ResolvableType type = (eventType != null ? eventType : resolveDefaultEventType(event));
 		// 返回此广播器的当前任务执行程序
 		Executor executor = getTaskExecutor();
+		ListenerDeliveryQueues queues = (executor != null ? getDeliveryQueues(executor) : null);
 		// getApplicationListeners：返回与给定事件类型匹配的应用监听器集合
 		for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
-			if (executor != null) {
-				executor.execute(() -> invokeListener(listener, event));
-				// 等价于
-//				executor.execute(new Runnable() {
-//                @Override
-//                public void run() {
-//                    // executor不为null，则使用executor调用监听器
-//                    invokeListener(listener, event);
-//                }
-//            	});
-
+			if (executor != null && isAsyncListener(listener)) {
+				if (queues != null) {
+					// 按监听器排队，批量异步投递
+					queues.deliver(listener, listener, event);
+				}
+				else {
+					executor.execute(() -> invokeListener(listener, event));
+					// 等价于
+//					executor.execute(new Runnable() {
+//					@Override
+//					public void run() {
+//						// executor不为null，则使用executor调用监听器
+//						invokeListener(listener, event);
+//					}
+//					});
+				}
 			}
 			else {
 				// 否则，直接调用监听器
@@ -158,7 +276,40 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+		if (event instanceof ResolvableTypeProvider) {
+			return ResolvableType.forInstance(event);
+		}
+		return this.eventTypeCache.computeIfAbsent(event.getClass(), ResolvableType::forClass);
+	}
+
+	/**
+	 * Determine whether the given listener is to be invoked through the task executor.
+	 * @param listener the ApplicationListener to check
+	 * @since 5.1.21
+	 * @see #setAsyncListenerFilter
+	 */
+	protected boolean isAsyncListener(ApplicationListener<?> listener) {
+		Predicate<ApplicationListener<?>> filter = this.asyncListenerFilter;
+		return (filter == null || filter.test(listener));
+	}
+
+	@Nullable
+	private ListenerDeliveryQueues getDeliveryQueues(Executor executor) {
+		if (this.deliveryQueueCapacity == 0) {
+			return null;
+		}
+		ListenerDeliveryQueues queues = this.deliveryQueues;
+		if (queues == null) {
+			synchronized (this.deliveryMetrics) {
+				queues = this.deliveryQueues;
+				if (queues == null) {
+					queues = new ListenerDeliveryQueues(executor, this.deliveryQueueCapacity, this.deliveryBatchSize,
+							this.backpressurePolicy, this.backpressureTimeout, this::invokeListener, this.deliveryMetrics);
+					this.deliveryQueues = queues;
+				}
+			}
+		}
+		return queues;
 	}
 
 	/**
@@ -225,4 +376,35 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 		return false;
 	}
 
+
+	/**
+	 * Policy for publishing an event to a listener whose delivery queue is full.
+	 * @since 5.1.21
+	 * @see #setBackpressurePolicy
+	 */
+	public enum BackpressurePolicy {
+
+		/**
+		 * Make the publishing thread wait for space in the queue, dropping
+		 * the event if none becomes available within the
+		 * {@linkplain SimpleApplicationEventMulticaster#setBackpressureTimeout
+		 * backpressure timeout} or if the queue cannot be drained since its
+		 * drain task got rejected by the executor.
+		 * <p>A listener publishing to its own full queue gets the event
+		 * delivered in its thread instead, as with {@link #CALLER_RUNS}.
+		 */
+		BLOCK,
+
+		/**
+		 * Discard the event for the listener in question.
+		 */
+		DROP,
+
+		/**
+		 * Deliver the event in the publishing thread, bypassing the queue
+		 * and therefore the ordering of previously queued events.
+		 */
+		CALLER_RUNS
+	}
+
 }
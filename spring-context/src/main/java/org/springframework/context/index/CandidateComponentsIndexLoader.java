@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.context.index;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -29,13 +30,20 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.SpringProperties;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.MergedPropertiesIndex;
 import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
 
 /**
  * Candidate components index loading mechanism for internal use within the framework.
  *
+ * <p>If a current {@link MergedPropertiesIndex} for {@value #COMPONENTS_RESOURCE_LOCATION}
+ * is available, the candidates are taken from that index instead of enumerating all
+ * {@code spring.components} files on the classpath.
+ *
  * @author Stephane Nicoll
  * @since 5.0
  */
@@ -95,6 +103,20 @@ public final class CandidateComponentsIndexLoader {
 			return null;
 		}
 
+		MergedPropertiesIndex mergedIndex = MergedPropertiesIndex.load(classLoader);
+		if (mergedIndex != null) {
+			MultiValueMap<String, String> entries = mergedIndex.getEntries(COMPONENTS_RESOURCE_LOCATION);
+			if (entries != null) {
+				if (entries.isEmpty()) {
+					return null;
+				}
+				Properties properties = new Properties();
+				entries.forEach((type, stereotypes) ->
+						properties.put(type, StringUtils.collectionToCommaDelimitedString(stereotypes)));
+				return new CandidateComponentsIndex(Collections.singletonList(properties));
+			}
+		}
+
 		try {
 			Enumeration<URL> urls = classLoader.getResources(COMPONENTS_RESOURCE_LOCATION);
 			if (!urls.hasMoreElements()) {
@@ -46,6 +46,7 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.ApplicationListener;
+import org.springframework.context.ApplicationStartupAware;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.context.EnvironmentAware;
@@ -77,6 +78,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -221,6 +224,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	@Nullable
 	private Set<ApplicationEvent> earlyApplicationEvents;
 
+	/** Application startup metrics. */
+	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+
 
 	/**
 	 * Create a new AbstractApplicationContext with no parent.
@@ -519,9 +525,22 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.applicationListeners;
 	}
 
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		Assert.notNull(applicationStartup, "applicationStartup should not be null");
+		this.applicationStartup = applicationStartup;
+	}
+
+	@Override
+	public ApplicationStartup getApplicationStartup() {
+		return this.applicationStartup;
+	}
+
 	@Override
 	public void refresh() throws BeansException, IllegalStateException {
 		synchronized (this.startupShutdownMonitor) {
+			StartupStep contextRefresh = this.applicationStartup.start("spring.context.refresh");
+
 			// 参考链接：https://blog.csdn.net/v123411739/article/details/87907784#t0
 			// Prepare this context for refreshing.
 			// 准备刷新上下文环境，初始化前的准备工作，例如对系统属性或者环境变量进行准备及验证
@@ -548,21 +567,28 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				// 子类覆盖方法做额外的处理
 				postProcessBeanFactory(beanFactory);
 
-				// Invoke factory processors registered as beans in the context.
-				// 激活各种 beanFactory 处理器
-				// BeanFactoryPostProcessor 接口是 Spring 初始化 BeanFactory 时对外暴露的扩展
-				// 点，Spring IoC 容器允许 BeanFactoryPostProcessor 在容器实例化任何 bean 之前
-				// 读取 bean 的定义，并可以修改它
-				invokeBeanFactoryPostProcessors(beanFactory);
-
-				// Register bean processors that intercept bean creation.
-				// 注册拦截 Bean 创建的 Bean 的处理器，这里只是注册，真正的调用是在 getBean 的时候
+				StartupStep beanPostProcess = this.applicationStartup.start("spring.context.beans.post-process");
 
-				// invokeBeanFactoryPostProcessors 方法主要用于处理 BeanFactoryPostProcessor 接口，
-				// 而 registerBeanPostProcessors 方法主要用于处理BeanPostProcessor接口。BeanFactoryPostProcessor 是
-				// 针对 BeanFactory 的扩展，主要用在 bean 实例化之前，读取 bean 的定义，并可以修改它。BeanPostProcessor
-				// 是针对 bean 的扩展，主要用在 bean 实例化之后，执行初始化方法前后，允许开发者对 bean 实例进行修改。
-				registerBeanPostProcessors(beanFactory);
+				try {
+					// Invoke factory processors registered as beans in the context.
+					// 激活各种 beanFactory 处理器
+					// BeanFactoryPostProcessor 接口是 Spring 初始化 BeanFactory 时对外暴露的扩展
+					// 点，Spring IoC 容器允许 BeanFactoryPostProcessor 在容器实例化任何 bean 之前
+					// 读取 bean 的定义，并可以修改它
+					invokeBeanFactoryPostProcessors(beanFactory);
+
+					// Register bean processors that intercept bean creation.
+					// 注册拦截 Bean 创建的 Bean 的处理器，这里只是注册，真正的调用是在 getBean 的时候
+
+					// invokeBeanFactoryPostProcessors 方法主要用于处理 BeanFactoryPostProcessor 接口，
+					// 而 registerBeanPostProcessors 方法主要用于处理BeanPostProcessor接口。BeanFactoryPostProcessor 是
+					// 针对 BeanFactory 的扩展，主要用在 bean 实例化之前，读取 bean 的定义，并可以修改它。BeanPostProcessor
+					// 是针对 bean 的扩展，主要用在 bean 实例化之后，执行初始化方法前后，允许开发者对 bean 实例进行修改。
+					registerBeanPostProcessors(beanFactory);
+				}
+				finally {
+					beanPostProcess.end();
+				}
 
 				// Initialize message source for this context.
 				// 为上下文初始化 Message 源，即对不同语言的消息体进行国际化处理 il8n
@@ -617,6 +643,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 				// Reset common introspection caches in Spring's core, since we
 				// might not ever need metadata for singleton beans anymore...
 				resetCommonCaches();
+				contextRefresh.end();
 			}
 		}
 	}
@@ -743,6 +770,7 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		beanFactory.ignoreDependencyInterface(ApplicationEventPublisherAware.class);
 		beanFactory.ignoreDependencyInterface(MessageSourceAware.class);
 		beanFactory.ignoreDependencyInterface(ApplicationContextAware.class);
+		beanFactory.ignoreDependencyInterface(ApplicationStartupAware.class);
 
 		// BeanFactory interface not registered as resolvable type in a plain factory.
 		// MessageSource registered (and found for autowiring) as a bean.
@@ -779,6 +807,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 			// 表示系统环境变量集合
 			beanFactory.registerSingleton(SYSTEM_ENVIRONMENT_BEAN_NAME, getEnvironment().getSystemEnvironment());
 		}
+		if (!beanFactory.containsLocalBean(APPLICATION_STARTUP_BEAN_NAME)) {
+			beanFactory.registerSingleton(APPLICATION_STARTUP_BEAN_NAME, getApplicationStartup());
+		}
 	}
 
 	/**
@@ -1076,18 +1107,21 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/**
 	 * Reset Spring's common reflection metadata caches, in particular the
 	 * {@link ReflectionUtils}, {@link AnnotationUtils}, {@link ResolvableType}
-	 * and {@link CachedIntrospectionResults} caches.
+	 * and {@link CachedIntrospectionResults} caches, as well as the shared
+	 * jar index state of {@link PathMatchingResourcePatternResolver}.
 	 * @since 4.2
 	 * @see ReflectionUtils#clearCache()
 	 * @see AnnotationUtils#clearCache()
 	 * @see ResolvableType#clearCache()
 	 * @see CachedIntrospectionResults#clearClassLoader(ClassLoader)
+	 * @see PathMatchingResourcePatternResolver#clearCache()
 	 */
 	protected void resetCommonCaches() {
 		ReflectionUtils.clearCache();
 		AnnotationUtils.clearCache();
 		ResolvableType.clearCache();
 		CachedIntrospectionResults.clearClassLoader(getClassLoader());
+		PathMatchingResourcePatternResolver.clearCache();
 	}
 
 
@@ -136,6 +136,7 @@ public abstract class AbstractRefreshableApplicationContext extends AbstractAppl
 			DefaultListableBeanFactory beanFactory = createBeanFactory();
 			// 为序列化指定 id ，如果需要的话，让这个 beanFactory 从 id 反序列化到 beanFactory 对象
 			beanFactory.setSerializationId(getId());
+			beanFactory.setApplicationStartup(getApplicationStartup());
 			// 定制 beanFactory 设置相关属性，包括是否允许覆盖同名称的不同定义的对象以及循环依赖
 			// （已移除）设置＠Autowired、@Qualifier 注解解析器 QualifierAnnotationAutowireCandidateResolver
 			customizeBeanFactory(beanFactory);
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedCacheManager}.
+ *
+ * @since 5.1.21
+ */
+public class BoundedCacheManagerTests {
+
+	@Test
+	public void dynamicMode() {
+		CacheManager cm = new BoundedCacheManager();
+		Cache cache1 = cm.getCache("c1");
+		assertTrue(cache1 instanceof BoundedCache);
+		assertSame(cache1, cm.getCache("c1"));
+		Cache cache2 = cm.getCache("c2");
+		assertNotSame(cache1, cache2);
+
+		cache1.put("key1", "value1");
+		assertEquals("value1", cache1.get("key1").get());
+		cache1.put("key3", null);
+		assertNull(cache1.get("key3").get());
+		cache1.evict("key3");
+		assertNull(cache1.get("key3"));
+		assertEquals("value1", cache1.putIfAbsent("key1", "value1x").get());
+	}
+
+	@Test
+	public void staticMode() {
+		BoundedCacheManager cm = new BoundedCacheManager("c1", "c2");
+		assertTrue(cm.getCache("c1") instanceof BoundedCache);
+		assertNull(cm.getCache("c3"));
+
+		Cache cache1 = cm.getCache("c1");
+		cm.setAllowNullValues(false);
+		Cache cache1x = cm.getCache("c1");
+		assertNotSame(cache1, cache1x);
+		try {
+			cache1x.put("key", null);
+			fail("Should have thrown IllegalArgumentException");
+		}
+		catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void settingsAppliedToCaches() {
+		BoundedCacheManager cm = new BoundedCacheManager("c1");
+		cm.setMaximumSize(20);
+		cm.setExpireAfterWrite(Duration.ofMinutes(5));
+		BoundedCache cache = (BoundedCache) cm.getCache("c1");
+		assertEquals(20, cache.getNativeCache().getMaximumWeight());
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, i);
+		}
+		assertEquals(20, cache.getNativeCache().estimatedSize());
+
+		cm.setMaximumWeight(1000, (key, value) -> 10);
+		cache = (BoundedCache) cm.getCache("c1");
+		assertEquals(1000, cache.getNativeCache().getMaximumWeight());
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedCacheStore}.
+ *
+ * @since 5.1.21
+ */
+public class BoundedCacheStoreTests {
+
+	private final AtomicLong ticker = new AtomicLong();
+
+
+	@Test
+	public void maximumSizeIsHonored() {
+		BoundedCacheStore store = BoundedCacheStore.builder().maximumSize(100).build();
+		for (int i = 0; i < 1000; i++) {
+			store.put(i, "value" + i);
+		}
+		assertEquals(100, store.estimatedSize());
+		assertEquals(100, store.weightedSize());
+		assertEquals(900, store.getStatistics().getEvictionCount());
+		assertEquals("value999", store.get(999));
+	}
+
+	@Test
+	public void frequentlyUsedEntriesSurviveScan() {
+		BoundedCacheStore store = BoundedCacheStore.builder().maximumSize(100).build();
+		for (int i = 0; i < 50; i++) {
+			store.put("hot" + i, i);
+		}
+		for (int round = 0; round < 5; round++) {
+			for (int i = 0; i < 50; i++) {
+				assertNotNull(store.get("hot" + i));
+			}
+		}
+		for (int i = 0; i < 10_000; i++) {
+			store.put("cold" + i, i);
+			if (i % 100 == 0) {
+				for (int j = 0; j < 50; j++) {
+					store.get("hot" + j);
+				}
+			}
+		}
+		for (int i = 0; i < 50; i++) {
+			assertEquals(i, store.get("hot" + i));
+		}
+	}
+
+	@Test
+	public void maximumWeightIsHonored() {
+		BoundedCacheStore store = BoundedCacheStore.builder()
+				.maximumWeight(100, (key, value) -> ((String) value).length()).build();
+		for (int i = 0; i < 100; i++) {
+			store.put(i, "0123456789");
+		}
+		assertTrue(store.weightedSize() <= 100);
+		assertTrue(store.estimatedSize() <= 10);
+		assertEquals(10 * store.getStatistics().getEvictionCount(), store.getStatistics().getEvictionWeight());
+	}
+
+	@Test
+	public void replacementAdjustsWeight() {
+		BoundedCacheStore store = BoundedCacheStore.builder()
+				.maximumWeight(100, (key, value) -> ((String) value).length()).build();
+		store.put("key", "abc");
+		store.put("key", "abcdef");
+		assertEquals(6, store.weightedSize());
+		assertTrue(store.remove("key"));
+		assertEquals(0, store.weightedSize());
+		assertFalse(store.remove("key"));
+	}
+
+	@Test
+	public void expireAfterWrite() {
+		BoundedCacheStore store = BoundedCacheStore.builder()
+				.expireAfterWrite(Duration.ofSeconds(10)).ticker(this.ticker::get).build();
+		store.put("key", "value");
+		advance(Duration.ofSeconds(9));
+		assertEquals("value", store.get("key"));
+		advance(Duration.ofSeconds(1));
+		assertNull(store.get("key"));
+		assertEquals(0, store.estimatedSize());
+		assertEquals(1, store.getStatistics().getExpirationCount());
+	}
+
+	@Test
+	public void expireAfterAccess() {
+		BoundedCacheStore store = BoundedCacheStore.builder()
+				.expireAfterAccess(Duration.ofSeconds(10)).ticker(this.ticker::get).build();
+		store.put("key", "value");
+		store.put("other", "value");
+		for (int i = 0; i < 3; i++) {
+			advance(Duration.ofSeconds(6));
+			assertEquals("value", store.get("key"));
+		}
+		assertEquals(2, store.estimatedSize());
+		store.cleanUp();
+		assertEquals(1, store.estimatedSize());
+		assertNull(store.get("other"));
+	}
+
+	@Test
+	public void putIfAbsentReplacesExpiredEntry() {
+		BoundedCacheStore store = BoundedCacheStore.builder()
+				.expireAfterWrite(Duration.ofSeconds(10)).ticker(this.ticker::get).build();
+		assertNull(store.putIfAbsent("key", "value1"));
+		assertEquals("value1", store.putIfAbsent("key", "value2"));
+		advance(Duration.ofSeconds(10));
+		assertNull(store.putIfAbsent("key", "value3"));
+		assertEquals("value3", store.get("key"));
+	}
+
+	@Test
+	public void softValues() {
+		BoundedCacheStore store = BoundedCacheStore.builder().maximumSize(10).softValues().build();
+		store.put("key", "value");
+		assertEquals("value", store.get("key"));
+		store.clear();
+		assertNull(store.get("key"));
+		assertEquals(0, store.weightedSize());
+	}
+
+	@Test
+	public void frequencySketchEstimatesAndAges() {
+		FrequencySketch sketch = new FrequencySketch(16);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment(42);
+		}
+		assertEquals(15, sketch.frequency(42));
+		assertTrue(sketch.frequency(43) < 15);
+		for (int i = 0; i < 1000; i++) {
+			sketch.increment(i * 31);
+		}
+		assertTrue(sketch.frequency(42) < 15);
+	}
+
+
+	private void advance(Duration duration) {
+		this.ticker.addAndGet(duration.toNanos());
+	}
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.bounded;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.AbstractValueAdaptingCacheTests;
+import org.springframework.cache.Cache.ValueRetrievalException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BoundedCache}.
+ *
+ * @since 5.1.21
+ */
+public class BoundedCacheTests extends AbstractValueAdaptingCacheTests<BoundedCache> {
+
+	private BoundedCacheStore nativeCache;
+
+	private BoundedCache cache;
+
+	private BoundedCache cacheNoNull;
+
+
+	@Before
+	public void setup() {
+		this.nativeCache = BoundedCacheStore.builder().maximumSize(1000).build();
+		this.cache = new BoundedCache(CACHE_NAME, this.nativeCache, true);
+		this.cacheNoNull = new BoundedCache(CACHE_NAME_NO_NULL,
+				BoundedCacheStore.builder().maximumSize(1000).build(), false);
+	}
+
+	@Override
+	protected BoundedCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected BoundedCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected BoundedCacheStore getNativeCache() {
+		return this.nativeCache;
+	}
+
+
+	@Test
+	public void concurrentLoadsAreCoalesced() throws Exception {
+		AtomicInteger invocations = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			Future<Object> first = executor.submit(() -> this.cache.get("key", () -> {
+				invocations.incrementAndGet();
+				loading.countDown();
+				release.await(10, TimeUnit.SECONDS);
+				return "value";
+			}));
+			assertTrue(loading.await(10, TimeUnit.SECONDS));
+			Future<Object> second = executor.submit(() -> this.cache.get("key", () -> {
+				invocations.incrementAndGet();
+				return "other";
+			}));
+			Thread.sleep(50);
+			release.countDown();
+			assertEquals("value", first.get(10, TimeUnit.SECONDS));
+			assertEquals("value", second.get(10, TimeUnit.SECONDS));
+			assertEquals(1, invocations.get());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void statisticsReflectLookups() {
+		this.cache.put("key", "value");
+		this.cache.get("key");
+		this.cache.get("missing");
+		BoundedCacheStatistics statistics = this.cache.getStatistics();
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(1, statistics.getPutCount());
+		assertEquals(0.5, statistics.getHitRate(), 0.0);
+	}
+
+	@Test
+	public void loadingMissIsCountedOnce() {
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		assertEquals("value", this.cache.get("key", () -> "other"));
+		BoundedCacheStatistics statistics = this.cache.getStatistics();
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+	}
+
+	@Test
+	public void recursiveLoadOfSameKeyIsRejected() {
+		try {
+			this.cache.get("key", () -> this.cache.get("key", () -> "value"));
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(this.cache.get("key"));
+		assertEquals("value", this.cache.get("key", () -> "value"));
+	}
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for caching methods with {@link CompletableFuture} and reactive
+ * return types.
+ *
+ * @since 5.1.21
+ */
+public class ReactiveCachingTests {
+
+	private ConfigurableApplicationContext context;
+
+	private ReactiveService service;
+
+	private Cache cache;
+
+	private RetrievingCache retrievingCache;
+
+
+	@Before
+	public void setUp() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.service = this.context.getBean(ReactiveService.class);
+		CacheManager cacheManager = this.context.getBean(CacheManager.class);
+		this.cache = cacheManager.getCache("testCache");
+		this.retrievingCache = (RetrievingCache) cacheManager.getCache("retrievingCache");
+	}
+
+	@After
+	public void closeContext() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+
+	@Test
+	public void cacheableMonoCachesValue() {
+		Mono<Integer> first = this.service.cacheableMono("key");
+		assertEquals(0, this.service.getInvocationCount());
+		assertEquals(Integer.valueOf(0), first.block());
+		assertEquals(Integer.valueOf(0), this.service.cacheableMono("key").block());
+		assertEquals(Integer.valueOf(0), first.block());
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(0, this.cache.get("key").get());
+	}
+
+	@Test
+	public void cacheableMonoFailureIsNotCached() {
+		try {
+			this.service.failingMono("key").block();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("failure 0", ex.getMessage());
+		}
+		assertNull(this.cache.get("key"));
+		assertEquals("value 1", this.service.failingMono("key").block());
+		assertEquals("value 1", this.service.failingMono("key").block());
+		assertEquals(2, this.service.getInvocationCount());
+	}
+
+	@Test
+	public void cacheableFluxCachesListOfValues() {
+		assertEquals(Arrays.asList(0, 1, 2), this.service.cacheableFlux("key").collectList().block());
+		assertEquals(Arrays.asList(0, 1, 2), this.service.cacheableFlux("key").collectList().block());
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(Arrays.asList(0, 1, 2), this.cache.get("key").get());
+	}
+
+	@Test
+	public void cacheableFutureCachesValue() throws Exception {
+		assertEquals(Integer.valueOf(0), this.service.cacheableFuture("key").get());
+		assertEquals(Integer.valueOf(0), this.service.cacheableFuture("key").get());
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(0, this.cache.get("key").get());
+	}
+
+	@Test
+	public void concurrentMissesShareInvocation() throws Exception {
+		CompletableFuture<Integer> first = this.service.pendingFuture("key");
+		CompletableFuture<Integer> second = this.service.pendingFuture("key");
+		CompletableFuture<Integer> other = this.service.pendingFuture("other");
+		assertFalse(first.isDone());
+		assertFalse(second.isDone());
+		assertEquals(2, this.service.getInvocationCount());
+		assertEquals(2, this.service.getPending().size());
+
+		this.service.getPending().get(0).complete(42);
+		assertEquals(Integer.valueOf(42), first.get());
+		assertEquals(Integer.valueOf(42), second.get());
+		assertFalse(other.isDone());
+		assertEquals(42, this.cache.get("key").get());
+		assertEquals(Integer.valueOf(42), this.service.pendingFuture("key").get());
+		assertEquals(2, this.service.getInvocationCount());
+	}
+
+	@Test
+	public void cacheableSyncMonoUsesRetrieveWithLoader() {
+		assertEquals(Integer.valueOf(0), this.service.syncMono("key").block());
+		assertEquals(Integer.valueOf(0), this.service.syncMono("key").block());
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(1, this.retrievingCache.loads.get());
+	}
+
+	@Test
+	public void cacheableMonoUsesNonBlockingRetrieve() {
+		assertEquals(Integer.valueOf(0), this.service.retrievingMono("key").block());
+		assertEquals(Integer.valueOf(0), this.service.retrievingMono("key").block());
+		assertEquals(1, this.service.getInvocationCount());
+		assertEquals(2, this.retrievingCache.retrievals.get());
+	}
+
+	@Test
+	public void cachePutAndEvictWithMono() {
+		assertEquals(Integer.valueOf(0), this.service.putMono("key").block());
+		assertEquals(0, this.cache.get("key").get());
+		assertEquals(Integer.valueOf(0), this.service.cacheableMono("key").block());
+		assertEquals(Integer.valueOf(1), this.service.putMono("key").block());
+		assertEquals(Integer.valueOf(1), this.service.cacheableMono("key").block());
+		assertEquals(2, this.service.getInvocationCount());
+
+		assertEquals(Integer.valueOf(2), this.service.evictMono("key").block());
+		assertNull(this.cache.get("key"));
+	}
+
+	@Test
+	public void earlyEvictionDeferredUntilSubscription() {
+		this.cache.put("key", 42);
+		Mono<Integer> evicting = this.service.earlyEvictMono("key");
+		assertEquals(42, this.cache.get("key").get());
+
+		assertEquals(Integer.valueOf(0), evicting.block());
+		assertNull(this.cache.get("key"));
+		this.cache.put("key", 42);
+		assertEquals(Integer.valueOf(1), evicting.block());
+		assertNull(this.cache.get("key"));
+	}
+
+
+	static class ReactiveService {
+
+		private final AtomicInteger counter = new AtomicInteger();
+
+		private final List<CompletableFuture<Integer>> pending = new CopyOnWriteArrayList<>();
+
+		public int getInvocationCount() {
+			return this.counter.get();
+		}
+
+		public List<CompletableFuture<Integer>> getPending() {
+			return this.pending;
+		}
+
+		@Cacheable("testCache")
+		public Mono<Integer> cacheableMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+
+		@Cacheable("testCache")
+		public Mono<String> failingMono(String key) {
+			int count = this.counter.getAndIncrement();
+			return (count == 0 ? Mono.error(new IllegalStateException("failure " + count)) :
+					Mono.just("value " + count));
+		}
+
+		@Cacheable("testCache")
+		public Flux<Integer> cacheableFlux(String key) {
+			this.counter.getAndIncrement();
+			return Flux.range(0, 3);
+		}
+
+		@Cacheable("testCache")
+		public CompletableFuture<Integer> cacheableFuture(String key) {
+			return CompletableFuture.supplyAsync(this.counter::getAndIncrement);
+		}
+
+		@Cacheable("testCache")
+		public CompletableFuture<Integer> pendingFuture(String key) {
+			this.counter.getAndIncrement();
+			CompletableFuture<Integer> future = new CompletableFuture<>();
+			this.pending.add(future);
+			return future;
+		}
+
+		@Cacheable(cacheNames = "retrievingCache", sync = true)
+		public Mono<Integer> syncMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+
+		@Cacheable("retrievingCache")
+		public Mono<Integer> retrievingMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+
+		@CachePut("testCache")
+		public Mono<Integer> putMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+
+		@CacheEvict("testCache")
+		public Mono<Integer> evictMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+
+		@CacheEvict(cacheNames = "testCache", beforeInvocation = true)
+		public Mono<Integer> earlyEvictMono(String key) {
+			return Mono.fromCallable(this.counter::getAndIncrement);
+		}
+	}
+
+
+	/**
+	 * Cache that only supports non-blocking retrieval.
+	 */
+	static class RetrievingCache extends ConcurrentMapCache {
+
+		final AtomicInteger retrievals = new AtomicInteger();
+
+		final AtomicInteger loads = new AtomicInteger();
+
+		public RetrievingCache(String name) {
+			super(name);
+		}
+
+		@Override
+		public ValueWrapper get(Object key) {
+			throw new UnsupportedOperationException("Blocking access");
+		}
+
+		@Override
+		public CompletableFuture<ValueWrapper> retrieve(Object key) {
+			this.retrievals.incrementAndGet();
+			return CompletableFuture.supplyAsync(() -> super.get(key));
+		}
+
+		@Override
+		public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+			return retrieve(key).thenCompose(wrapper -> {
+				if (wrapper != null) {
+					@SuppressWarnings("unchecked")
+					T value = (T) wrapper.get();
+					return CompletableFuture.completedFuture(value);
+				}
+				this.loads.incrementAndGet();
+				return valueLoader.get().thenApply(value -> {
+					put(key, value);
+					return value;
+				});
+			});
+		}
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config extends CachingConfigurerSupport {
+
+		@Override
+		@Bean
+		public CacheManager cacheManager() {
+			SimpleCacheManager cacheManager = new SimpleCacheManager();
+			cacheManager.setCaches(Arrays.asList(
+					new ConcurrentMapCache("testCache"), new RetrievingCache("retrievingCache")));
+			return cacheManager;
+		}
+
+		@Bean
+		public ReactiveService reactiveService() {
+			return new ReactiveService();
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationStartupAware;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ApplicationStartup} support in annotation-based contexts.
+ *
+ * @since 5.1.21
+ */
+public class ApplicationStartupTests {
+
+	@Test
+	public void refreshRecordsStartupSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(StartupConfig.class);
+		context.refresh();
+
+		assertSame(startup, context.getApplicationStartup());
+		assertSame(startup, context.getBeanFactory().getApplicationStartup());
+		assertSame(startup, context.getBean(ConfigurableApplicationContext.APPLICATION_STARTUP_BEAN_NAME));
+		assertSame(startup, context.getBean(StartupAwareBean.class).applicationStartup);
+
+		List<StartupStep> steps = startup.getBufferedSteps();
+		List<String> names = new ArrayList<>();
+		for (StartupStep step : steps) {
+			names.add(step.getName());
+		}
+		assertThat(names, hasItems("spring.context.refresh", "spring.context.beans.post-process",
+				"spring.context.beandef-registry.post-process", "spring.context.config-classes.parse",
+				"spring.context.config-classes.enhance", "spring.beans.instantiate"));
+
+		StartupStep refresh = steps.get(steps.size() - 1);
+		assertEquals("spring.context.refresh", refresh.getName());
+		assertNull(refresh.getParentId());
+
+		StartupStep instantiate = null;
+		for (StartupStep step : steps) {
+			if (step.getName().equals("spring.beans.instantiate") && "testBean".equals(beanName(step))) {
+				instantiate = step;
+			}
+		}
+		assertNotNull("No instantiate step for 'testBean'", instantiate);
+		assertNotNull(instantiate.getParentId());
+		context.close();
+	}
+
+	@Test
+	public void defaultApplicationStartupIsShared() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(StartupConfig.class);
+		assertSame(ApplicationStartup.DEFAULT, context.getApplicationStartup());
+		assertSame(ApplicationStartup.DEFAULT, context.getBeanFactory().getApplicationStartup());
+		context.close();
+	}
+
+	@Test
+	public void failingPostProcessorEndsStep() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.addBeanFactoryPostProcessor(beanFactory -> {
+			throw new IllegalStateException("Failing post-processor");
+		});
+		try {
+			context.refresh();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("Failing post-processor", ex.getMessage());
+		}
+		List<String> names = new ArrayList<>();
+		for (StartupStep step : startup.getBufferedSteps()) {
+			names.add(step.getName());
+		}
+		assertThat(names, hasItem("spring.context.beans.post-process"));
+	}
+
+	private static String beanName(StartupStep step) {
+		for (StartupStep.Tag tag : step.getTags()) {
+			if (tag.getKey().equals("beanName")) {
+				return tag.getValue();
+			}
+		}
+		return null;
+	}
+
+
+	@Configuration
+	static class StartupConfig {
+
+		@Bean
+		public TestBean testBean() {
+			return new TestBean("test");
+		}
+
+		@Bean
+		public StartupAwareBean startupAwareBean() {
+			return new StartupAwareBean();
+		}
+	}
+
+
+	static class StartupAwareBean implements ApplicationStartupAware {
+
+		ApplicationStartup applicationStartup;
+
+		@Autowired
+		TestBean testBean;
+
+		@Override
+		public void setApplicationStartup(ApplicationStartup applicationStartup) {
+			this.applicationStartup = applicationStartup;
+		}
+	}
+
+}
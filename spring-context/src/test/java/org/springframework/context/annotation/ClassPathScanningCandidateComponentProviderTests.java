@@ -16,9 +16,12 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import example.profilescan.DevComponent;
@@ -47,6 +50,9 @@ import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
@@ -90,6 +96,75 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testDefault(provider);
 	}
 
+	@Test
+	public void defaultsWithParallelScan() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.setParallelScanning(true);
+		testDefault(provider);
+	}
+
+	@Test
+	public void defaultsWithParallelScanOnCustomExecutor() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.setParallelScanning(true);
+		AtomicInteger executedTasks = new AtomicInteger();
+		provider.setParallelScanningExecutor(task -> {
+			executedTasks.incrementAndGet();
+			new Thread(task).start();
+		});
+		testDefault(provider);
+		assertTrue(executedTasks.get() > 0);
+	}
+
+	@Test
+	public void preFilteredClassFilesAreReadOnce() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		DefaultResourceLoader resourceLoader = new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader()));
+		provider.setResourceLoader(resourceLoader);
+		Set<Resource> readResources = ConcurrentHashMap.newKeySet();
+		Set<Resource> preReadResources = ConcurrentHashMap.newKeySet();
+		provider.setMetadataReaderFactory(new CachingMetadataReaderFactory(resourceLoader) {
+			@Override
+			public MetadataReader getMetadataReader(Resource resource) throws IOException {
+				readResources.add(resource);
+				return super.getMetadataReader(resource);
+			}
+			@Override
+			public MetadataReader getMetadataReader(Resource resource, byte[] classFile) throws IOException {
+				preReadResources.add(resource);
+				return super.getMetadataReader(resource, classFile);
+			}
+		});
+		testDefault(provider);
+		assertFalse(preReadResources.isEmpty());
+		for (Resource resource : preReadResources) {
+			assertFalse(resource.toString(), readResources.contains(resource));
+		}
+	}
+
+	@Test
+	public void customCandidateSelectionWithScan() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false) {
+			@Override
+			protected boolean isCandidateComponent(MetadataReader metadataReader) throws IOException {
+				return (metadataReader.getClassMetadata().getClassName().endsWith("Dao") ||
+						super.isCandidateComponent(metadataReader));
+			}
+		};
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.addIncludeFilter(new AnnotationTypeFilter(Controller.class, false));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+		assertTrue(containsBeanClass(candidates, NamedStubDao.class));
+		assertEquals(2, candidates.size());
+	}
+
 	private void testDefault(ClassPathScanningCandidateComponentProvider provider) {
 		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
 		assertTrue(containsBeanClass(candidates, DefaultNamedComponent.class));
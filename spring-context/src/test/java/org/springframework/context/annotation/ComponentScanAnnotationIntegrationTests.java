@@ -16,11 +16,14 @@
 
 package org.springframework.context.annotation;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashSet;
 
 import example.scannable.CustomComponent;
@@ -45,6 +48,7 @@ import org.springframework.beans.factory.annotation.CustomAutowireConfigurer;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.annotation.ComponentScan.Filter;
@@ -58,6 +62,7 @@ import org.springframework.core.env.Profiles;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.PersistentMetadataReaderFactory;
 import org.springframework.core.type.filter.TypeFilter;
 import org.springframework.tests.context.SimpleMapScope;
 import org.springframework.util.SerializationTestUtils;
@@ -99,6 +104,29 @@ public class ComponentScanAnnotationIntegrationTests {
 				ctx.containsBean("fooServiceImpl"), is(true));
 	}
 
+	@Test
+	public void viaContextRegistration_WithPersistentMetadataReaderFactory() throws IOException {
+		File cacheFile = File.createTempFile("metadata", ".cache");
+		assertTrue(cacheFile.delete());
+		try {
+			GenericApplicationContext ctx = new GenericApplicationContext();
+			ctx.registerBeanDefinition(AnnotationConfigUtils.CONFIGURATION_ANNOTATION_PROCESSOR_BEAN_NAME,
+					rootBeanDefinition(ConfigurationClassPostProcessor.class).addPropertyValue(
+							"metadataReaderFactory", new PersistentMetadataReaderFactory(cacheFile)).getBeanDefinition());
+			ctx.registerBeanDefinition("config", new RootBeanDefinition(ComponentScanAnnotatedConfig.class));
+			ctx.refresh();
+			assertThat(ctx.containsBean("fooServiceImpl"), is(true));
+
+			// Scanned non-component classes are recorded by the post-processor's factory as well
+			String content = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.ISO_8859_1);
+			assertThat(content, containsString("example/scannable/AutowiredQualifierFooService.class"));
+			ctx.close();
+		}
+		finally {
+			cacheFile.delete();
+		}
+	}
+
 	@Test
 	public void viaContextRegistration_WithValueAttribute() {
 		AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,19 @@
 
 package org.springframework.context.event;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.junit.Test;
@@ -37,6 +45,7 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.context.BeanThatBroadcasts;
 import org.springframework.context.BeanThatListens;
 import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster.BackpressurePolicy;
 import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.context.support.StaticApplicationContext;
@@ -178,6 +187,266 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		smc.multicastEvent(evt);
 	}
 
+	@Test
+	public void listenerSnapshotRebuiltOnRegistrationChange() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener1 listener2 = new MyOrderedListener1();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+
+		MyEvent event = new MyEvent(this);
+		ResolvableType eventType = ResolvableType.forInstance(event);
+		smc.multicastEvent(event);
+		assertSame(smc.getApplicationListeners(event, eventType), smc.getApplicationListeners(event, eventType));
+
+		smc.addApplicationListener(listener2);
+		smc.multicastEvent(event);
+		assertEquals(2, listener1.seenEvents.size());
+		assertEquals(1, listener2.seenEvents.size());
+
+		smc.removeApplicationListener(listener1);
+		smc.multicastEvent(event);
+		assertEquals(2, listener1.seenEvents.size());
+		assertEquals(2, listener2.seenEvents.size());
+	}
+
+	@Test
+	public void queuedDeliveryInBatches() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		List<Runnable> tasks = new ArrayList<>();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setDeliveryQueueCapacity(10);
+		smc.setDeliveryBatchSize(2);
+		smc.addApplicationListener(listener);
+
+		List<ApplicationEvent> events = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			MyEvent event = new MyEvent(this);
+			events.add(event);
+			smc.multicastEvent(event);
+		}
+		assertEquals(1, tasks.size());
+		assertTrue(listener.seenEvents.isEmpty());
+		assertEquals(5, smc.getDeliveryMetrics().getPendingCount());
+
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+		assertEquals(events, listener.seenEvents);
+		EventDeliveryMetrics metrics = smc.getDeliveryMetrics();
+		assertEquals(5, metrics.getEnqueuedCount());
+		assertEquals(5, metrics.getDeliveredCount());
+		assertEquals(3, metrics.getBatchCount());
+		assertEquals(0, metrics.getPendingCount());
+	}
+
+	@Test
+	public void queuedDeliveryWithDropPolicy() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		List<Runnable> tasks = new ArrayList<>();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setDeliveryQueueCapacity(2);
+		smc.setBackpressurePolicy(BackpressurePolicy.DROP);
+		smc.addApplicationListener(listener);
+
+		for (int i = 0; i < 4; i++) {
+			smc.multicastEvent(new MyEvent(this));
+		}
+		tasks.remove(0).run();
+		assertTrue(tasks.isEmpty());
+		assertEquals(2, listener.seenEvents.size());
+		assertEquals(2, smc.getDeliveryMetrics().getDroppedCount());
+	}
+
+	@Test
+	public void queuedDeliveryWithCallerRunsPolicy() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		List<Runnable> tasks = new ArrayList<>();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setDeliveryQueueCapacity(1);
+		smc.setBackpressurePolicy(BackpressurePolicy.CALLER_RUNS);
+		smc.addApplicationListener(listener);
+
+		MyEvent queued = new MyEvent(this);
+		MyEvent direct = new MyEvent(this);
+		smc.multicastEvent(queued);
+		smc.multicastEvent(direct);
+		assertEquals(Collections.singletonList(direct), listener.seenEvents);
+		assertEquals(1, smc.getDeliveryMetrics().getCallerRunsCount());
+
+		tasks.remove(0).run();
+		assertEquals(2, listener.seenEvents.size());
+		assertSame(queued, listener.seenEvents.get(1));
+	}
+
+	@Test
+	public void queuedDeliveryWithBlockPolicy() throws Exception {
+		List<ApplicationEvent> seenEvents = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch latch = new CountDownLatch(1);
+		ApplicationListener<ApplicationEvent> listener = event -> {
+			started.countDown();
+			try {
+				latch.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			seenEvents.add(event);
+		};
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+			smc.setTaskExecutor(executor);
+			smc.setDeliveryQueueCapacity(1);
+			smc.addApplicationListener(listener);
+
+			List<ApplicationEvent> events = new ArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				events.add(new MyEvent(this));
+			}
+			smc.multicastEvent(events.get(0));
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			smc.multicastEvent(events.get(1));
+			Thread publisher = new Thread(() -> smc.multicastEvent(events.get(2)));
+			publisher.start();
+			for (int i = 0; i < 500 && smc.getDeliveryMetrics().getBlockedCount() == 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, smc.getDeliveryMetrics().getBlockedCount());
+			assertTrue(publisher.isAlive());
+
+			latch.countDown();
+			publisher.join(10000);
+			for (int i = 0; i < 500 && seenEvents.size() < events.size(); i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(events, seenEvents);
+			assertEquals(0, smc.getDeliveryMetrics().getDroppedCount());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void queuedDeliveryWithBlockPolicyTimesOut() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		List<Runnable> tasks = new ArrayList<>();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setDeliveryQueueCapacity(1);
+		smc.setBackpressureTimeout(50);
+		smc.addApplicationListener(listener);
+
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, smc.getDeliveryMetrics().getBlockedCount());
+		assertEquals(1, smc.getDeliveryMetrics().getDroppedCount());
+
+		tasks.remove(0).run();
+		assertEquals(1, listener.seenEvents.size());
+	}
+
+	@Test
+	public void queuedDeliveryWithBlockPolicyAndRejectedDrainTask() {
+		MyOrderedListener1 listener = new MyOrderedListener1();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(task -> {
+			throw new RejectedExecutionException("Executor shut down");
+		});
+		smc.setDeliveryQueueCapacity(1);
+		smc.addApplicationListener(listener);
+
+		try {
+			smc.multicastEvent(new MyEvent(this));
+			fail("Should have thrown RejectedExecutionException");
+		}
+		catch (RejectedExecutionException ex) {
+			// expected
+		}
+		// Must not wait for a drain task that does not exist
+		smc.multicastEvent(new MyEvent(this));
+		assertEquals(1, smc.getDeliveryMetrics().getDroppedCount());
+		assertTrue(listener.seenEvents.isEmpty());
+	}
+
+	@Test
+	public void queuedDeliveryWithListenerFailureAndRejectedReschedule() {
+		List<ApplicationEvent> seenEvents = new ArrayList<>();
+		ApplicationListener<ApplicationEvent> listener = event -> {
+			seenEvents.add(event);
+			if (seenEvents.size() == 1) {
+				throw new IllegalStateException("Listener failure");
+			}
+		};
+		List<Runnable> tasks = new ArrayList<>();
+		AtomicBoolean rejecting = new AtomicBoolean();
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(task -> {
+			if (rejecting.get()) {
+				throw new RejectedExecutionException("Executor shut down");
+			}
+			tasks.add(task);
+		});
+		smc.setDeliveryQueueCapacity(10);
+		smc.setDeliveryBatchSize(1);
+		smc.addApplicationListener(listener);
+
+		List<ApplicationEvent> events = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			events.add(new MyEvent(this));
+		}
+		smc.multicastEvent(events.get(0));
+		smc.multicastEvent(events.get(1));
+		rejecting.set(true);
+		try {
+			tasks.remove(0).run();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertEquals("Listener failure", ex.getMessage());
+			assertEquals(1, ex.getSuppressed().length);
+			assertTrue(ex.getSuppressed()[0] instanceof RejectedExecutionException);
+		}
+		assertTrue(tasks.isEmpty());
+
+		// Remaining event waits for the next successful schedule
+		rejecting.set(false);
+		smc.multicastEvent(events.get(2));
+		while (!tasks.isEmpty()) {
+			tasks.remove(0).run();
+		}
+		assertEquals(events, seenEvents);
+	}
+
+	@Test
+	public void asyncListenerFilterKeepsSynchronousListenersOrdered() {
+		MyOrderedListener1 listener1 = new MyOrderedListener1();
+		MyOrderedListener2 listener2 = new MyOrderedListener2(listener1);
+		MyOrderedListener3 asyncListener = new MyOrderedListener3();
+		List<Runnable> tasks = new ArrayList<>();
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.setTaskExecutor(tasks::add);
+		smc.setDeliveryQueueCapacity(10);
+		smc.setAsyncListenerFilter(listener -> !(listener instanceof Ordered));
+		smc.addApplicationListener(asyncListener);
+		smc.addApplicationListener(listener2);
+		smc.addApplicationListener(listener1);
+
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertEquals(2, listener1.seenEvents.size());
+		assertTrue(asyncListener.seenEvents.isEmpty());
+
+		tasks.remove(0).run();
+		assertEquals(2, asyncListener.seenEvents.size());
+	}
+
 	@Test
 	public void orderedListeners() {
 		MyOrderedListener1 listener1 = new MyOrderedListener1();
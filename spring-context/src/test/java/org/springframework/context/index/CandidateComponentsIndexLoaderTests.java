@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,23 @@
 
 package org.springframework.context.index;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
 import java.util.Set;
 
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.MergedPropertiesIndex;
+import org.springframework.util.FileCopyUtils;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -38,6 +47,9 @@ public class CandidateComponentsIndexLoaderTests {
 	@Rule
 	public final ExpectedException thrown = ExpectedException.none();
 
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
 
 	@Test
 	public void validateIndexIsDisabledByDefault() {
@@ -99,6 +111,37 @@ public class CandidateComponentsIndexLoaderTests {
 		assertThat(index, is(nullValue()));
 	}
 
+	@Test
+	public void loadIndexFromMergedIndex() throws IOException {
+		File componentsDir = this.temporaryFolder.newFolder();
+		File componentsFile = new File(componentsDir, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION);
+		assertTrue(componentsFile.getParentFile().mkdirs());
+		FileCopyUtils.copy(new ClassPathResource("spring.components", getClass()).getInputStream(),
+				new FileOutputStream(componentsFile));
+		File indexFile = new File(this.temporaryFolder.newFolder(), MergedPropertiesIndex.INDEX_RESOURCE_LOCATION);
+		assertTrue(indexFile.getParentFile().mkdirs());
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {componentsDir.toURI().toURL()}, null);
+				OutputStream out = new FileOutputStream(indexFile)) {
+			MergedPropertiesIndex.build(classLoader, CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION)
+					.writeTo(out);
+		}
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] {
+				indexFile.getParentFile().getParentFile().toURI().toURL(), componentsDir.toURI().toURL()}, null) {
+			@Override
+			public Enumeration<URL> getResources(String name) throws IOException {
+				assertNotEquals("Unexpected enumeration", CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION, name);
+				return super.getResources(name);
+			}
+		}) {
+			CandidateComponentsIndex index = CandidateComponentsIndexLoader.loadIndex(classLoader);
+			Set<String> components = index.getCandidateTypes("org.springframework", "foo");
+			assertThat(components, containsInAnyOrder(
+					"org.springframework.context.index.Sample1",
+					"org.springframework.context.index.Sample2"));
+		}
+	}
+
 	@Test
 	public void loadIndexWithException() {
 		final IOException cause = new IOException("test exception");
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for {@link ResolvableType} factory methods.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClass(Blackhole bh) {
+		bh.consume(ResolvableType.forClass(StringListHolder.class));
+	}
+
+	@Benchmark
+	public void forClassResolveGeneric(Blackhole bh) {
+		bh.consume(ResolvableType.forClass(StringListHolder.class).as(GenericHolder.class).resolveGeneric(0));
+	}
+
+	@Benchmark
+	public void forMethodParameter(MethodState state, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(state.method, 0));
+	}
+
+	@Benchmark
+	public void forMethodParameterResolveGeneric(MethodState state, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(state.method, 0).getGeneric(1).resolve());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodState {
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.method = ReflectionUtils.findMethod(StringListHolder.class, "handle", Map.class);
+		}
+	}
+
+
+	public static class GenericHolder<T> {
+	}
+
+
+	public static class StringListHolder extends GenericHolder<List<String>> {
+
+		public void handle(Map<String, List<Integer>> map) {
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for merged annotation lookups through {@link AnnotatedElementUtils},
+ * served by the {@link MergedAnnotationIndex} or by an exhaustive search.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotatedElementUtilsBenchmark {
+
+	@Benchmark
+	public void findMergedAnnotationOnClass(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(AnnotatedService.class, ComposedMapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationOnInheritedClass(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(ExtendedService.class, Mapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationOnInheritedClassWithoutIndex(Blackhole bh) {
+		AnnotationAttributes attributes = AnnotatedElementUtils.doFindMergedAnnotationAttributes(
+				ExtendedService.class, Mapping.class, false, false);
+		bh.consume(AnnotationUtils.synthesizeAnnotation(attributes, Mapping.class, ExtendedService.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationOnMethod(MethodState state, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(state.method, Mapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationNotPresent(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(AnnotatedService.class, Deprecated.class));
+	}
+
+	@Benchmark
+	public void hasAnnotation(Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.hasAnnotation(ExtendedService.class, Mapping.class));
+	}
+
+	@Benchmark
+	public void findAnnotationNotPresent(Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(ExtendedService.class, Order.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodState {
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.method = ReflectionUtils.findMethod(ExtendedService.class, "handle");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String name() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Mapping
+	public @interface ComposedMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] path() default {};
+
+		@AliasFor(annotation = Mapping.class, attribute = "name")
+		String mappingName() default "";
+	}
+
+
+	@ComposedMapping(path = "/service", mappingName = "service")
+	public static class AnnotatedService {
+
+		@ComposedMapping(path = "/handle")
+		public void handle() {
+		}
+	}
+
+
+	public static class ExtendedService extends AnnotatedService {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
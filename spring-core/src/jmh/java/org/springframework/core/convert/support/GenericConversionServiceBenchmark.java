@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmarks for collection and map conversions in {@link GenericConversionService}.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GenericConversionServiceBenchmark {
+
+	@Benchmark
+	public void convertListOfStringToSetOfLong(ConversionState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(state.stringList, state.stringListType, state.longSetType));
+	}
+
+	@Benchmark
+	public void convertMapOfStringToMapOfLong(ConversionState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(state.stringMap, state.stringMapType, state.longMapType));
+	}
+
+	@Benchmark
+	public void convertStringToLongViaPlan(ConversionState state, Blackhole bh) {
+		bh.consume(state.stringToLongPlan.convert("12345"));
+	}
+
+	@Benchmark
+	public void convertStringToLong(ConversionState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert("12345", state.stringType, state.longType));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ConversionState {
+
+		@Param({"10", "10000"})
+		public int size;
+
+		public GenericConversionService conversionService;
+
+		public List<String> stringList;
+
+		public Map<String, String> stringMap;
+
+		public TypeDescriptor stringListType;
+
+		public TypeDescriptor longSetType;
+
+		public TypeDescriptor stringMapType;
+
+		public TypeDescriptor longMapType;
+
+		public TypeDescriptor stringType = TypeDescriptor.valueOf(String.class);
+
+		public TypeDescriptor longType = TypeDescriptor.valueOf(Long.class);
+
+		public ConversionPlan stringToLongPlan;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.conversionService = new DefaultConversionService();
+			this.stringList = new ArrayList<>(this.size);
+			this.stringMap = new HashMap<>(this.size);
+			for (int i = 0; i < this.size; i++) {
+				this.stringList.add(String.valueOf(i));
+				this.stringMap.put(String.valueOf(i), String.valueOf(i * 31));
+			}
+			this.stringListType = TypeDescriptor.collection(List.class, this.stringType);
+			this.longSetType = new TypeDescriptor(ReflectionUtils.findField(Holder.class, "longSet"));
+			this.stringMapType = TypeDescriptor.map(Map.class, this.stringType, this.stringType);
+			this.longMapType = new TypeDescriptor(ReflectionUtils.findField(Holder.class, "longMap"));
+			this.stringToLongPlan = this.conversionService.getConversionPlan(this.stringType, this.longType);
+		}
+	}
+
+
+	public static class Holder {
+
+		public Set<Long> longSet;
+
+		public Map<Long, Long> longMap;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchAll(PatternsState state, Blackhole bh) {
+		for (String path : state.paths) {
+			for (String pattern : state.patterns) {
+				bh.consume(state.matcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndSort(PatternsState state, Blackhole bh) {
+		for (String path : state.paths) {
+			List<String> matches = new ArrayList<>();
+			for (String pattern : state.patterns) {
+				if (state.matcher.match(pattern, path)) {
+					matches.add(pattern);
+				}
+			}
+			matches.sort(state.matcher.getPatternComparator(path));
+			bh.consume(matches);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsState {
+
+		public final AntPathMatcher matcher = new AntPathMatcher();
+
+		public final List<String> patterns = new ArrayList<>();
+
+		public final List<String> paths = new ArrayList<>();
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.patterns.add("/");
+			this.patterns.add("/static/**");
+			this.patterns.add("/resources/*.css");
+			this.patterns.add("/api/users");
+			this.patterns.add("/api/users/{id}");
+			this.patterns.add("/api/users/{id}/orders/{orderId}");
+			this.patterns.add("/api/products/*");
+			this.patterns.add("/api/products/{id:[0-9]+}");
+			this.patterns.add("/api/**/reviews");
+			this.patterns.add("/admin/**");
+			this.patterns.add("/**/*.html");
+			this.patterns.add("/**");
+
+			this.paths.add("/");
+			this.paths.add("/static/js/app.js");
+			this.paths.add("/resources/site.css");
+			this.paths.add("/api/users/42");
+			this.paths.add("/api/users/42/orders/1337");
+			this.paths.add("/api/products/123");
+			this.paths.add("/api/products/123/reviews");
+			this.paths.add("/docs/index.html");
+		}
+	}
+
+}
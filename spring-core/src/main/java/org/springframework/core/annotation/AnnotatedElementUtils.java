@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -599,6 +599,10 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
+		MergedAnnotationIndex index = MergedAnnotationIndex.getIndex(element);
+		if (index != null) {
+			return index.isPresent(annotationType);
+		}
 		return Boolean.TRUE.equals(searchWithFindSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
 	}
 
@@ -633,10 +637,16 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		MergedAnnotationIndex index = MergedAnnotationIndex.getIndex(element);
+		if (index != null) {
+			if (!index.isPresent(annotationType)) {
+				return null;
+			}
+			if (!classValuesAsString && !nestedAnnotationsAsMap) {
+				return index.getMergedAnnotationAttributes(annotationType);
+			}
+		}
+		return doFindMergedAnnotationAttributes(element, annotationType, classValuesAsString, nestedAnnotationsAsMap);
 	}
 
 	/**
@@ -670,6 +680,10 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
+		MergedAnnotationIndex index = MergedAnnotationIndex.getIndex(element);
+		if (index != null && !index.isPresent(annotationName)) {
+			return null;
+		}
 		AnnotationAttributes attributes = searchWithFindSemantics(element, null, annotationName,
 				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
 		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
@@ -707,6 +721,12 @@ public abstract class AnnotatedElementUtils {
 			return null;
 		}
 
+		// Merged annotation from the per-element index, synthesized once...
+		MergedAnnotationIndex index = MergedAnnotationIndex.getIndex(element);
+		if (index != null) {
+			return index.getMergedAnnotation(annotationType);
+		}
+
 		// Exhaustive retrieval of merged annotation attributes...
 		AnnotationAttributes attributes = findMergedAnnotationAttributes(element, annotationType, false, false);
 		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
@@ -832,6 +852,46 @@ public abstract class AnnotatedElementUtils {
 		return postProcessAndSynthesizeAggregatedResults(element, processor.getAggregatedResults());
 	}
 
+	/**
+	 * Perform an exhaustive search for the merged attributes of the first
+	 * annotation of the specified {@code annotationType}, following
+	 * <em>find semantics</em> and bypassing the {@link MergedAnnotationIndex}.
+	 * @param element the annotated element
+	 * @param annotationType the annotation type to find
+	 * @param classValuesAsString whether to convert Class references into Strings
+	 * @param nestedAnnotationsAsMap whether to convert nested Annotation instances
+	 * into {@code AnnotationAttributes} maps
+	 * @return the merged {@code AnnotationAttributes}, or {@code null} if not found
+	 * @since 5.1.21
+	 * @see #findMergedAnnotationAttributes(AnnotatedElement, Class, boolean, boolean)
+	 */
+	@Nullable
+	static AnnotationAttributes doFindMergedAnnotationAttributes(AnnotatedElement element,
+			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
+				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
+		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
+		return attributes;
+	}
+
+	/**
+	 * Collect the types of all annotations that are <em>present</em> on the
+	 * supplied {@code element} or within its annotation, type or method
+	 * hierarchy, following <em>find semantics</em>.
+	 * <p>Annotations in the {@code java.lang.annotation} package are not included.
+	 * @param element the annotated element
+	 * @return the set of annotation types, in the order in which they were
+	 * encountered by the search algorithm (never {@code null})
+	 * @since 5.1.21
+	 * @see MergedAnnotationIndex
+	 */
+	static Set<Class<? extends Annotation>> findAllAnnotationTypes(AnnotatedElement element) {
+		AnnotationTypesCollectingProcessor processor = new AnnotationTypesCollectingProcessor();
+		searchWithFindSemantics(element, Collections.emptySet(), null, null, processor);
+		return processor.getAnnotationTypes();
+	}
+
 	/**
 	 * Search for annotations of the specified {@code annotationName} or
 	 * {@code annotationType} on the specified {@code element}, following
@@ -1513,6 +1573,33 @@ public abstract class AnnotatedElementUtils {
 	}
 
 
+	/**
+	 * {@link SimpleAnnotationProcessor} that {@linkplain #alwaysProcesses always
+	 * processes} annotations and records the type of every annotation it
+	 * encounters, without ever stopping the search.
+	 * @since 5.1.21
+	 */
+	private static class AnnotationTypesCollectingProcessor extends SimpleAnnotationProcessor<Boolean> {
+
+		private final Set<Class<? extends Annotation>> annotationTypes = new LinkedHashSet<>();
+
+		AnnotationTypesCollectingProcessor() {
+			super(true);
+		}
+
+		@Override
+		@Nullable
+		public Boolean process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
+			this.annotationTypes.add(annotation.annotationType());
+			return CONTINUE;
+		}
+
+		Set<Class<? extends Annotation>> getAnnotationTypes() {
+			return this.annotationTypes;
+		}
+	}
+
+
 	/**
 	 * {@link Processor} that gets the {@code AnnotationAttributes} for the
 	 * target annotation during the {@link #process} phase and then merges
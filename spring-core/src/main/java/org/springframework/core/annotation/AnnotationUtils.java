@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -120,32 +120,32 @@ public abstract class AnnotationUtils {
 	public static final String VALUE = "value";
 
 	private static final Map<AnnotationCacheKey, Annotation> findAnnotationCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<AnnotationCacheKey, Boolean> metaPresentCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<AnnotatedElement, Annotation[]> declaredAnnotationsCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<Class<?>, Set<Method>> annotatedBaseTypeCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	@SuppressWarnings("unused")
 	@Deprecated  // just here for older tool versions trying to reflectively clear the cache
 	private static final Map<Class<?>, ?> annotatedInterfaceCache = annotatedBaseTypeCache;
 
 	private static final Map<Class<? extends Annotation>, Boolean> synthesizableCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<Class<? extends Annotation>, Map<String, List<String>>> attributeAliasesCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<Class<? extends Annotation>, List<Method>> attributeMethodsCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	private static final Map<Method, AliasDescriptor> aliasDescriptorCache =
-			new ConcurrentReferenceHashMap<>(256);
+			ConcurrentReferenceHashMap.forInternalCache(256);
 
 	@Nullable
 	private static transient Log logger;
@@ -456,6 +456,11 @@ public abstract class AnnotationUtils {
 			return null;
 		}
 
+		// Shortcut: known to be absent from the element's merged annotation index?
+		if (MergedAnnotationIndex.isKnownAbsent(annotatedElement, annotationType)) {
+			return null;
+		}
+
 		// Do NOT store result in the findAnnotationCache since doing so could break
 		// findAnnotation(Class, Class) and findAnnotation(Method, Class).
 		A ann = findAnnotation(annotatedElement, annotationType, new HashSet<>());
@@ -522,7 +527,7 @@ public abstract class AnnotationUtils {
 		AnnotationCacheKey cacheKey = new AnnotationCacheKey(method, annotationType);
 		A result = (A) findAnnotationCache.get(cacheKey);
 
-		if (result == null) {
+		if (result == null && !MergedAnnotationIndex.isKnownAbsent(method, annotationType)) {
 			Method resolvedMethod = BridgeMethodResolver.findBridgedMethod(method);
 			result = findAnnotation((AnnotatedElement) resolvedMethod, annotationType);
 			if (result == null) {
@@ -729,7 +734,7 @@ public abstract class AnnotationUtils {
 
 		AnnotationCacheKey cacheKey = new AnnotationCacheKey(clazz, annotationType);
 		A result = (A) findAnnotationCache.get(cacheKey);
-		if (result == null) {
+		if (result == null && !MergedAnnotationIndex.isKnownAbsent(clazz, annotationType)) {
 			result = findAnnotation(clazz, annotationType, new HashSet<>());
 			if (result != null && synthesize) {
 				result = synthesizeAnnotation(result, clazz);
@@ -1988,6 +1993,7 @@ public abstract class AnnotationUtils {
 		attributeAliasesCache.clear();
 		attributeMethodsCache.clear();
 		aliasDescriptorCache.clear();
+		MergedAnnotationIndex.clearCache();
 	}
 
 
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Immutable index of the annotations that are <em>present</em> on an
+ * {@link AnnotatedElement} or within its annotation, type or method hierarchy,
+ * following the <em>find semantics</em> of {@link AnnotatedElementUtils}.
+ *
+ * <p>An index is built with a single scan per element, covering meta-annotations
+ * as well as annotations on superclasses, interfaces and overridden methods.
+ * Presence checks are answered from that scan without any further reflection.
+ * Merged annotation attributes (honoring {@link AliasFor @AliasFor} and
+ * attribute overrides in composed annotations) are resolved once per annotation
+ * type on first access, and synthesized annotations are only created when an
+ * annotation instance is actually requested.
+ *
+ * <p>Indexes are cached per {@link Class} and {@link Member}; they are released
+ * along with the other annotation caches on {@link AnnotationUtils#clearCache()}.
+ *
+ * @since 5.1.21
+ * @see AnnotatedElementUtils#findMergedAnnotation(AnnotatedElement, Class)
+ * @see AnnotatedElementUtils#hasAnnotation(AnnotatedElement, Class)
+ * @see AnnotationUtils#findAnnotation(Class, Class)
+ */
+public final class MergedAnnotationIndex {
+
+	private static final Object NOT_FOUND = new Object();
+
+	private static final Map<AnnotatedElement, MergedAnnotationIndex> indexCache =
+			ConcurrentReferenceHashMap.forInternalCache(256);
+
+
+	private final AnnotatedElement element;
+
+	private final Set<Class<? extends Annotation>> annotationTypes;
+
+	private final Set<String> annotationNames;
+
+	private final Map<Class<? extends Annotation>, Object> mergedAttributes = new ConcurrentHashMap<>(4);
+
+	private final Map<Class<? extends Annotation>, Object> synthesizedAnnotations = new ConcurrentHashMap<>(4);
+
+
+	private MergedAnnotationIndex(AnnotatedElement element) {
+		this.element = element;
+		Set<Class<? extends Annotation>> types = AnnotatedElementUtils.findAllAnnotationTypes(element);
+		Set<String> names = new HashSet<>(types.size());
+		for (Class<? extends Annotation> type : types) {
+			names.add(type.getName());
+		}
+		this.annotationTypes = Collections.unmodifiableSet(types);
+		this.annotationNames = names;
+	}
+
+
+	/**
+	 * Return the element that this index has been built for.
+	 */
+	public AnnotatedElement getElement() {
+		return this.element;
+	}
+
+	/**
+	 * Return the types of all annotations present on the element or within its
+	 * hierarchy, in the order in which the search algorithm encountered them.
+	 * <p>Annotations in the {@code java.lang.annotation} package are not included.
+	 */
+	public Set<Class<? extends Annotation>> getAnnotationTypes() {
+		return this.annotationTypes;
+	}
+
+	/**
+	 * Determine whether an annotation of the given type is present on the
+	 * element or within its hierarchy.
+	 * @param annotationType the annotation type to check
+	 * @see AnnotatedElementUtils#hasAnnotation(AnnotatedElement, Class)
+	 */
+	public boolean isPresent(Class<? extends Annotation> annotationType) {
+		return this.annotationTypes.contains(annotationType);
+	}
+
+	/**
+	 * Determine whether an annotation with the given fully qualified class
+	 * name is present on the element or within its hierarchy.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean isPresent(String annotationName) {
+		return this.annotationNames.contains(annotationName);
+	}
+
+	/**
+	 * Return the merged attributes of the first annotation of the given type,
+	 * as resolved by
+	 * {@link AnnotatedElementUtils#findMergedAnnotationAttributes(AnnotatedElement, Class, boolean, boolean)}
+	 * with Class references and nested annotations preserved.
+	 * <p>The attributes are resolved once and cached; each invocation returns
+	 * a fresh copy that the caller is free to modify.
+	 * @param annotationType the annotation type to find
+	 * @return the merged {@code AnnotationAttributes}, or {@code null} if not found
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAnnotationAttributes(Class<? extends Annotation> annotationType) {
+		AnnotationAttributes attributes = resolveMergedAnnotationAttributes(annotationType);
+		return (attributes != null ? new AnnotationAttributes(attributes) : null);
+	}
+
+	/**
+	 * Return the first annotation of the given type, merged with attribute
+	 * overrides from lower levels of the annotation hierarchy and synthesized
+	 * on first access.
+	 * @param annotationType the annotation type to find
+	 * @return the merged, synthesized {@code Annotation}, or {@code null} if not found
+	 * @see AnnotatedElementUtils#findMergedAnnotation(AnnotatedElement, Class)
+	 */
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <A extends Annotation> A getMergedAnnotation(Class<A> annotationType) {
+		Object synthesized = this.synthesizedAnnotations.get(annotationType);
+		if (synthesized == null) {
+			AnnotationAttributes attributes = resolveMergedAnnotationAttributes(annotationType);
+			synthesized = (attributes != null ? AnnotationUtils.synthesizeAnnotation(
+					new AnnotationAttributes(attributes), annotationType, this.element) : NOT_FOUND);
+			this.synthesizedAnnotations.put(annotationType, synthesized);
+		}
+		return (synthesized != NOT_FOUND ? (A) synthesized : null);
+	}
+
+	@Nullable
+	private AnnotationAttributes resolveMergedAnnotationAttributes(Class<? extends Annotation> annotationType) {
+		if (!isPresent(annotationType)) {
+			return null;
+		}
+		Object attributes = this.mergedAttributes.get(annotationType);
+		if (attributes == null) {
+			attributes = AnnotatedElementUtils.doFindMergedAnnotationAttributes(this.element, annotationType, false, false);
+			if (attributes == null) {
+				attributes = NOT_FOUND;
+			}
+			this.mergedAttributes.put(annotationType, attributes);
+		}
+		return (attributes != NOT_FOUND ? (AnnotationAttributes) attributes : null);
+	}
+
+	@Override
+	public String toString() {
+		return "MergedAnnotationIndex for " + this.element + ": " + this.annotationTypes;
+	}
+
+
+	/**
+	 * Obtain the (potentially cached) index for the given element.
+	 * <p>Indexes for {@link Class} and {@link Member} elements are cached;
+	 * indexes for other kinds of elements (e.g. adapters created through
+	 * {@link AnnotatedElementUtils#forAnnotations}) are built on every call.
+	 * @param element the annotated element
+	 * @return the corresponding index (never {@code null})
+	 */
+	public static MergedAnnotationIndex forElement(AnnotatedElement element) {
+		Assert.notNull(element, "AnnotatedElement must not be null");
+		MergedAnnotationIndex index = getIndex(element);
+		return (index != null ? index : new MergedAnnotationIndex(element));
+	}
+
+	/**
+	 * Obtain the cached index for the given element, building it if necessary.
+	 * @param element the annotated element
+	 * @return the cached index, or {@code null} if the given element is not
+	 * eligible for caching (i.e. neither a {@link Class} nor a {@link Member})
+	 */
+	@Nullable
+	static MergedAnnotationIndex getIndex(AnnotatedElement element) {
+		if (!(element instanceof Class || element instanceof Member)) {
+			return null;
+		}
+		MergedAnnotationIndex index = indexCache.get(element);
+		if (index == null) {
+			index = new MergedAnnotationIndex(element);
+			MergedAnnotationIndex existing = indexCache.putIfAbsent(element, index);
+			if (existing != null) {
+				index = existing;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Determine whether the cached index for the given element can be used to
+	 * rule out the presence of the given annotation type for searches performed
+	 * by {@link AnnotationUtils}.
+	 * <p>The index follows the search rules of {@link AnnotatedElementUtils},
+	 * which do not descend into the meta-annotations of JDK annotation types;
+	 * annotation types from the {@code java} and {@code javax} namespaces are
+	 * therefore never ruled out.
+	 * @param element the annotated element
+	 * @param annotationType the annotation type to look for
+	 * @return {@code true} if an annotation of the given type is known to be absent
+	 */
+	static boolean isKnownAbsent(AnnotatedElement element, Class<? extends Annotation> annotationType) {
+		String name = annotationType.getName();
+		if (name.startsWith("java.") || name.startsWith("javax.")) {
+			return false;
+		}
+		MergedAnnotationIndex index = getIndex(element);
+		return (index != null && !index.isPresent(annotationType));
+	}
+
+	/**
+	 * Clear the internal index cache.
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		indexCache.clear();
+	}
+
+}
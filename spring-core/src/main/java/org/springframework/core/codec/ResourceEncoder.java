@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.codec;
 
+import java.io.IOException;
 import java.util.Map;
 
 import reactor.core.publisher.Flux;
@@ -44,8 +45,21 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	 */
 	public static final int DEFAULT_BUFFER_SIZE = StreamUtils.BUFFER_SIZE;
 
+	/**
+	 * The default minimum number of bytes of a file-based resource for it to be
+	 * read through memory mapping.
+	 * @since 5.1.21
+	 * @see #setMemoryMappingThreshold
+	 */
+	public static final long DEFAULT_MEMORY_MAPPING_THRESHOLD = 1024 * 1024;
+
+	private static final int MAPPED_CHUNK_SIZE = 1024 * 1024;
+
+
 	private final int bufferSize;
 
+	private long memoryMappingThreshold = DEFAULT_MEMORY_MAPPING_THRESHOLD;
+
 
 	public ResourceEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -58,6 +72,29 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	}
 
 
+	/**
+	 * Set the minimum number of bytes of a file-based resource for it to be read
+	 * by mapping the file into memory, wrapping the mapped memory in data buffers
+	 * instead of copying the file contents into them.
+	 * <p>By default this is set to {@link #DEFAULT_MEMORY_MAPPING_THRESHOLD}.
+	 * Set to -1 to disable memory mapping, e.g. on platforms where mapped files
+	 * cannot be deleted until the mapping has been garbage collected.
+	 * @since 5.1.21
+	 * @see DataBufferUtils#readMapped
+	 */
+	public void setMemoryMappingThreshold(long memoryMappingThreshold) {
+		this.memoryMappingThreshold = memoryMappingThreshold;
+	}
+
+	/**
+	 * Return the configured {@linkplain #setMemoryMappingThreshold memory mapping threshold}.
+	 * @since 5.1.21
+	 */
+	public long getMemoryMappingThreshold() {
+		return this.memoryMappingThreshold;
+	}
+
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		Class<?> clazz = elementType.toClass();
@@ -72,6 +109,18 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 			String logPrefix = Hints.getLogPrefix(hints);
 			logger.debug(logPrefix + "Writing [" + resource + "]");
 		}
+		if (this.memoryMappingThreshold >= 0 && resource.isFile()) {
+			try {
+				long length = resource.contentLength();
+				if (length >= this.memoryMappingThreshold) {
+					return DataBufferUtils.readMapped(resource.getFile().toPath(), 0, length,
+							bufferFactory, MAPPED_CHUNK_SIZE);
+				}
+			}
+			catch (IOException ex) {
+				// fall back to DataBufferUtils.read, below
+			}
+		}
 		return DataBufferUtils.read(resource, bufferFactory, this.bufferSize);
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,8 +56,21 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 	 */
 	public static final String BOUNDARY_STRING_HINT = ResourceRegionEncoder.class.getName() + ".boundaryString";
 
+	/**
+	 * The default minimum number of bytes of a file-based resource region for it to be
+	 * read through memory mapping.
+	 * @since 5.1.21
+	 * @see #setMemoryMappingThreshold
+	 */
+	public static final long DEFAULT_MEMORY_MAPPING_THRESHOLD = 1024 * 1024;
+
+	private static final int MAPPED_CHUNK_SIZE = 1024 * 1024;
+
+
 	private final int bufferSize;
 
+	private long memoryMappingThreshold = DEFAULT_MEMORY_MAPPING_THRESHOLD;
+
 
 	public ResourceRegionEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -69,6 +82,29 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 		this.bufferSize = bufferSize;
 	}
 
+
+	/**
+	 * Set the minimum number of bytes of a file-based resource region for it to be read
+	 * by mapping the file into memory, wrapping the mapped memory in data buffers
+	 * instead of copying the file contents into them.
+	 * <p>By default this is set to {@link #DEFAULT_MEMORY_MAPPING_THRESHOLD}.
+	 * Set to -1 to disable memory mapping, e.g. on platforms where mapped files
+	 * cannot be deleted until the mapping has been garbage collected.
+	 * @since 5.1.21
+	 * @see DataBufferUtils#readMapped
+	 */
+	public void setMemoryMappingThreshold(long memoryMappingThreshold) {
+		this.memoryMappingThreshold = memoryMappingThreshold;
+	}
+
+	/**
+	 * Return the configured {@linkplain #setMemoryMappingThreshold memory mapping threshold}.
+	 * @since 5.1.21
+	 */
+	public long getMemoryMappingThreshold() {
+		return this.memoryMappingThreshold;
+	}
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		return super.canEncode(elementType, mimeType)
@@ -129,6 +165,15 @@ public class ResourceRegionEncoder extends AbstractEncoder<ResourceRegion> {
 					"Writing region " + position + "-" + (position + count) + " of [" + resource + "]");
 		}
 
+		if (this.memoryMappingThreshold >= 0 && count >= this.memoryMappingThreshold && resource.isFile()) {
+			try {
+				return DataBufferUtils.readMapped(resource.getFile().toPath(), position, count,
+						bufferFactory, MAPPED_CHUNK_SIZE);
+			}
+			catch (IOException ex) {
+				// fall back to DataBufferUtils.read, below
+			}
+		}
 		Flux<DataBuffer> in = DataBufferUtils.read(resource, position, bufferFactory, this.bufferSize);
 		return DataBufferUtils.takeUntilByteCount(in, count);
 	}
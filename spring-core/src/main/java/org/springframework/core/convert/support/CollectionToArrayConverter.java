@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -70,10 +70,11 @@ final class CollectionToArrayConverter implements ConditionalGenericConverter {
 		TypeDescriptor targetElementType = targetType.getElementTypeDescriptor();
 		Assert.state(targetElementType != null, "No target element type");
 		Object array = Array.newInstance(targetElementType.getType(), sourceCollection.size());
+		ElementConverter elementConverter =
+				new ElementConverter(this.conversionService, sourceType::elementTypeDescriptor, targetElementType);
 		int i = 0;
 		for (Object sourceElement : sourceCollection) {
-			Object targetElement = this.conversionService.convert(sourceElement,
-					sourceType.elementTypeDescriptor(sourceElement), targetElementType);
+			Object targetElement = elementConverter.convert(sourceElement);
 			Array.set(array, i++, targetElement);
 		}
 		return array;
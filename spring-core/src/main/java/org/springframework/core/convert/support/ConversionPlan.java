@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * A conversion between a fixed source type and a fixed target type, resolved
+ * once and reusable for any number of source objects of that source type.
+ *
+ * <p>Plans obtained from a {@link GenericConversionService} look up the
+ * converter only once, and invoke the concrete {@link
+ * org.springframework.core.convert.converter.Converter} behind a registered
+ * {@code Converter} or {@code ConverterFactory} directly. A plan reflects the
+ * converters registered at the time it was resolved.
+ *
+ * @since 5.1.21
+ * @see GenericConversionService#getConversionPlan(TypeDescriptor, TypeDescriptor)
+ */
+public interface ConversionPlan {
+
+	/**
+	 * Return the source type of this plan.
+	 */
+	TypeDescriptor getSourceType();
+
+	/**
+	 * Return the target type of this plan.
+	 */
+	TypeDescriptor getTargetType();
+
+	/**
+	 * Return whether a converter for the source and target type has been found,
+	 * as determined by {@link ConversionService#canConvert(TypeDescriptor, TypeDescriptor)}.
+	 */
+	boolean isConvertible();
+
+	/**
+	 * Convert the given source object, which needs to be an instance of the
+	 * source type of this plan, to the target type.
+	 * @param source the source object to convert (may be {@code null})
+	 * @return the converted object, an instance of the target type
+	 * @throws org.springframework.core.convert.ConversionException if a conversion exception occurred
+	 */
+	@Nullable
+	Object convert(@Nullable Object source);
+
+
+	/**
+	 * Resolve a plan for the given source and target type, using
+	 * {@link GenericConversionService#getConversionPlan} if possible, or a plan
+	 * that delegates every conversion to the given {@code ConversionService}.
+	 * The latter applies to {@code GenericConversionService} subclasses that
+	 * override {@code canConvert} or {@code convert} as well.
+	 * @param conversionService the ConversionService to use
+	 * @param sourceType the source type to convert from
+	 * @param targetType the target type to convert to
+	 * @return the conversion plan
+	 */
+	static ConversionPlan forTypes(
+			ConversionService conversionService, TypeDescriptor sourceType, TypeDescriptor targetType) {
+
+		if (conversionService instanceof GenericConversionService &&
+				((GenericConversionService) conversionService).isConversionPlanEquivalent()) {
+			return ((GenericConversionService) conversionService).getConversionPlan(sourceType, targetType);
+		}
+		return new DelegatingConversionPlan(conversionService, sourceType, targetType);
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link ConversionPlan} for an arbitrary {@link ConversionService},
+ * delegating every conversion to that service.
+ *
+ * @since 5.1.21
+ */
+final class DelegatingConversionPlan implements ConversionPlan {
+
+	private final ConversionService conversionService;
+
+	private final TypeDescriptor sourceType;
+
+	private final TypeDescriptor targetType;
+
+
+	DelegatingConversionPlan(ConversionService conversionService, TypeDescriptor sourceType, TypeDescriptor targetType) {
+		this.conversionService = conversionService;
+		this.sourceType = sourceType;
+		this.targetType = targetType;
+	}
+
+
+	@Override
+	public TypeDescriptor getSourceType() {
+		return this.sourceType;
+	}
+
+	@Override
+	public TypeDescriptor getTargetType() {
+		return this.targetType;
+	}
+
+	@Override
+	public boolean isConvertible() {
+		return this.conversionService.canConvert(this.sourceType, this.targetType);
+	}
+
+	@Override
+	@Nullable
+	public Object convert(@Nullable Object source) {
+		return this.conversionService.convert(source, this.sourceType, this.targetType);
+	}
+
+	@Override
+	public String toString() {
+		return "ConversionPlan [" + this.sourceType + " -> " + this.targetType + "] delegating to " +
+				this.conversionService.getClass().getName();
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+
+/**
+ * Converts the elements, keys or values of a single collection, array or map
+ * to a given target type, resolving a {@link ConversionPlan} once per distinct
+ * element class rather than looking up a converter for every element.
+ *
+ * <p>Not thread-safe: intended for use within a single conversion call.
+ *
+ * @since 5.1.21
+ */
+final class ElementConverter {
+
+	private final ConversionService conversionService;
+
+	private final Function<Object, TypeDescriptor> sourceElementType;
+
+	private final TypeDescriptor targetElementType;
+
+	@Nullable
+	private Class<?> lastElementClass;
+
+	@Nullable
+	private ConversionPlan lastPlan;
+
+	@Nullable
+	private Map<Class<?>, ConversionPlan> plans;
+
+
+	/**
+	 * Create a new {@code ElementConverter}.
+	 * @param conversionService the ConversionService to resolve plans with
+	 * @param sourceElementType the function deriving the source type of a given
+	 * element, e.g. {@code sourceType::elementTypeDescriptor}
+	 * @param targetElementType the target type of all elements
+	 */
+	ElementConverter(ConversionService conversionService,
+			Function<Object, TypeDescriptor> sourceElementType, TypeDescriptor targetElementType) {
+
+		this.conversionService = conversionService;
+		this.sourceElementType = sourceElementType;
+		this.targetElementType = targetElementType;
+	}
+
+
+	/**
+	 * Convert the given source element to the target element type.
+	 * @param sourceElement the element to convert (may be {@code null})
+	 * @return the converted element
+	 */
+	@Nullable
+	public Object convert(@Nullable Object sourceElement) {
+		if (sourceElement == null) {
+			return this.conversionService.convert(null, this.sourceElementType.apply(null), this.targetElementType);
+		}
+		return getPlan(sourceElement).convert(sourceElement);
+	}
+
+	private ConversionPlan getPlan(Object sourceElement) {
+		Class<?> elementClass = sourceElement.getClass();
+		ConversionPlan plan = this.lastPlan;
+		if (plan != null && elementClass == this.lastElementClass) {
+			return plan;
+		}
+		if (plan != null) {
+			// Mixed element classes: keep the plans of all element classes seen
+			if (this.plans == null) {
+				this.plans = new HashMap<>(4);
+				this.plans.put(this.lastElementClass, plan);
+			}
+			plan = this.plans.get(elementClass);
+		}
+		if (plan == null) {
+			// Source element types only depend on the element class
+			plan = ConversionPlan.forTypes(this.conversionService,
+					this.sourceElementType.apply(sourceElement), this.targetElementType);
+			if (this.plans != null) {
+				this.plans.put(elementClass, plan);
+			}
+		}
+		this.lastElementClass = elementClass;
+		this.lastPlan = plan;
+		return plan;
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -46,6 +47,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -78,6 +80,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	private final Map<ConverterCacheKey, ConversionPlan> planCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final boolean customConversion = overridesConversion(getClass());
+
 
 	// ConverterRegistry implementation
 
@@ -212,12 +218,63 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	/**
+	 * Resolve a reusable {@link ConversionPlan} for the given source and target type.
+	 * <p>The converter is looked up once through {@link #getConverter}, and the
+	 * resulting plan is cached until converters are added or removed. Converting
+	 * through the plan is equivalent to {@link #convert(Object, TypeDescriptor, TypeDescriptor)}
+	 * for source objects of the given source type, without a converter lookup per call.
+	 * <p>Note that a plan invokes the resolved converter directly: overrides of
+	 * {@link #canConvert(TypeDescriptor, TypeDescriptor)} or
+	 * {@link #convert(Object, TypeDescriptor, TypeDescriptor)} in a subclass are
+	 * not applied. Internal callers such as bean property conversion therefore
+	 * only use plans for services that do not override either method.
+	 * @param sourceType the source type to convert from
+	 * @param targetType the target type to convert to
+	 * @return the conversion plan (never {@code null}; see {@link ConversionPlan#isConvertible()})
+	 * @since 5.1.21
+	 */
+	public ConversionPlan getConversionPlan(TypeDescriptor sourceType, TypeDescriptor targetType) {
+		Assert.notNull(sourceType, "Source type to convert from cannot be null");
+		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
+		ConversionPlan plan = this.planCache.get(key);
+		if (plan == null) {
+			plan = new ResolvedConversionPlan(sourceType, targetType, getConverter(sourceType, targetType));
+			this.planCache.put(key, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * Return whether conversion plans are equivalent to the regular conversion
+	 * methods of this service, i.e. whether neither {@code canConvert} nor
+	 * {@code convert} are overridden.
+	 * @see #getConversionPlan
+	 */
+	boolean isConversionPlanEquivalent() {
+		return !this.customConversion;
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
 	}
 
 
+	private static boolean overridesConversion(Class<?> serviceType) {
+		if (serviceType == GenericConversionService.class || serviceType == DefaultConversionService.class) {
+			return false;
+		}
+		Method canConvert = ReflectionUtils.findMethod(serviceType, "canConvert",
+				TypeDescriptor.class, TypeDescriptor.class);
+		Method convert = ReflectionUtils.findMethod(serviceType, "convert",
+				Object.class, TypeDescriptor.class, TypeDescriptor.class);
+		return ((canConvert != null && canConvert.getDeclaringClass() != GenericConversionService.class) ||
+				(convert != null && convert.getDeclaringClass() != GenericConversionService.class));
+	}
+
+
 	// Protected template methods
 
 	/**
@@ -304,6 +361,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.planCache.clear();
 	}
 
 	@Nullable
@@ -385,6 +443,10 @@ public class GenericConversionService implements ConfigurableConversionService {
 			return this.converter.convert(source);
 		}
 
+		public Converter<Object, Object> getConverter() {
+			return this.converter;
+		}
+
 		@Override
 		public String toString() {
 			return (this.typeInfo + " : " + this.converter);
@@ -433,7 +495,11 @@ public class GenericConversionService implements ConfigurableConversionService {
 			if (source == null) {
 				return convertNullSource(sourceType, targetType);
 			}
-			return this.converterFactory.getConverter(targetType.getObjectType()).convert(source);
+			return getConverter(targetType).convert(source);
+		}
+
+		public Converter<Object, ?> getConverter(TypeDescriptor targetType) {
+			return this.converterFactory.getConverter(targetType.getObjectType());
 		}
 
 		@Override
@@ -443,6 +509,93 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * {@link ConversionPlan} based on a converter resolved once for the
+	 * source and target type, invoking the concrete {@link Converter} behind
+	 * a {@link ConverterAdapter} or {@link ConverterFactoryAdapter} directly.
+	 */
+	private final class ResolvedConversionPlan implements ConversionPlan {
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		@Nullable
+		private final GenericConverter converter;
+
+		@Nullable
+		private final Converter<Object, ?> directConverter;
+
+		public ResolvedConversionPlan(TypeDescriptor sourceType, TypeDescriptor targetType,
+				@Nullable GenericConverter converter) {
+
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			this.converter = converter;
+			if (converter instanceof ConverterAdapter) {
+				this.directConverter = ((ConverterAdapter) converter).getConverter();
+			}
+			else if (converter instanceof ConverterFactoryAdapter) {
+				this.directConverter = ((ConverterFactoryAdapter) converter).getConverter(targetType);
+			}
+			else {
+				this.directConverter = null;
+			}
+		}
+
+		@Override
+		public TypeDescriptor getSourceType() {
+			return this.sourceType;
+		}
+
+		@Override
+		public TypeDescriptor getTargetType() {
+			return this.targetType;
+		}
+
+		@Override
+		public boolean isConvertible() {
+			return (this.converter != null);
+		}
+
+		@Override
+		@Nullable
+		public Object convert(@Nullable Object source) {
+			if (source == null) {
+				return GenericConversionService.this.convert(null, this.sourceType, this.targetType);
+			}
+			if (this.converter == NO_OP_CONVERTER) {
+				return source;
+			}
+			Object result;
+			if (this.directConverter != null) {
+				try {
+					result = this.directConverter.convert(source);
+				}
+				catch (ConversionFailedException ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new ConversionFailedException(this.sourceType, this.targetType, source, ex);
+				}
+			}
+			else if (this.converter != null) {
+				result = ConversionUtils.invokeConverter(this.converter, source, this.sourceType, this.targetType);
+			}
+			else {
+				return handleConverterNotFound(source, this.sourceType, this.targetType);
+			}
+			return handleResult(this.sourceType, this.targetType, result);
+		}
+
+		@Override
+		public String toString() {
+			return "ConversionPlan [" + this.sourceType + " -> " + this.targetType + "] : " +
+					(this.directConverter != null ? this.directConverter : this.converter);
+		}
+	}
+
+
 	/**
 	 * Key for use with the converter cache.
 	 */
@@ -44,6 +44,9 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class EnumerablePropertySource<T> extends PropertySource<T> {
 
+	private volatile int modificationCount;
+
+
 	/**
 	 * Create a new {@code EnumerablePropertySource} with the given name and source object.
 	 * @param name the associated name
@@ -80,4 +83,25 @@ public abstract class EnumerablePropertySource<T> extends PropertySource<T> {
 	 */
 	public abstract String[] getPropertyNames();
 
+	/**
+	 * Signal that the properties of this {@code PropertySource} have changed,
+	 * e.g. after modifying the underlying source object.
+	 * <p>Invalidates any property values cached for this property source, in
+	 * particular by a {@link PropertySourcesPropertyResolver} with caching enabled.
+	 * @since 5.1.21
+	 * @see PropertySourcesPropertyResolver#setCacheEnabled
+	 */
+	public void propertiesChanged() {
+		this.modificationCount++;
+	}
+
+	/**
+	 * Return the number of changes signalled through {@link #propertiesChanged()}
+	 * so far, allowing callers to detect changes.
+	 * @since 5.1.21
+	 */
+	public int getModificationCount() {
+		return this.modificationCount;
+	}
+
 }
@@ -43,6 +43,8 @@ public class MutablePropertySources implements PropertySources {
 
 	private final List<PropertySource<?>> propertySourceList = new CopyOnWriteArrayList<>();
 
+	private volatile int modificationCount;
+
 
 	/**
 	 * Create a new {@link MutablePropertySources} object.
@@ -106,6 +108,7 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			removeIfPresent(propertySource);
 			this.propertySourceList.add(0, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -116,6 +119,7 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			removeIfPresent(propertySource);
 			this.propertySourceList.add(propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -129,6 +133,7 @@ public class MutablePropertySources implements PropertySources {
 			removeIfPresent(propertySource);
 			int index = assertPresentAndGetIndex(relativePropertySourceName);
 			addAtIndex(index, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -142,6 +147,7 @@ public class MutablePropertySources implements PropertySources {
 			removeIfPresent(propertySource);
 			int index = assertPresentAndGetIndex(relativePropertySourceName);
 			addAtIndex(index + 1, propertySource);
+			this.modificationCount++;
 		}
 	}
 
@@ -160,7 +166,11 @@ public class MutablePropertySources implements PropertySources {
 	public PropertySource<?> remove(String name) {
 		synchronized (this.propertySourceList) {
 			int index = this.propertySourceList.indexOf(PropertySource.named(name));
-			return (index != -1 ? this.propertySourceList.remove(index) : null);
+			if (index == -1) {
+				return null;
+			}
+			this.modificationCount++;
+			return this.propertySourceList.remove(index);
 		}
 	}
 
@@ -175,9 +185,23 @@ public class MutablePropertySources implements PropertySources {
 		synchronized (this.propertySourceList) {
 			int index = assertPresentAndGetIndex(name);
 			this.propertySourceList.set(index, propertySource);
+			this.modificationCount++;
 		}
 	}
 
+	/**
+	 * Return the number of modifications of this {@code MutablePropertySources}
+	 * object so far, i.e. of property sources added, removed or replaced.
+	 * <p>Allows callers to detect modifications, e.g. in order to invalidate
+	 * cached property values; changes to the properties of a contained
+	 * property source are not reflected.
+	 * @since 5.1.21
+	 * @see EnumerablePropertySource#getModificationCount()
+	 */
+	public int getModificationCount() {
+		return this.modificationCount;
+	}
+
 	/**
 	 * Return the number of {@link PropertySource} objects contained.
 	 */
@@ -16,12 +16,19 @@
 
 package org.springframework.core.env;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.core.SpringProperties;
 import org.springframework.lang.Nullable;
 
 /**
  * {@link PropertyResolver} implementation that resolves property values against
  * an underlying set of {@link PropertySources}.
  *
+ * <p>As of 5.1.21, property lookups can optionally be cached, see
+ * {@link #setCacheEnabled}.
+ *
  * @author Chris Beams
  * @author Juergen Hoeller
  * @since 3.1
@@ -31,9 +38,24 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	/**
+	 * System property that instructs Spring to cache property lookups by default:
+	 * {@code "spring.propertysources.cache"}. The default is "false".
+	 * <p>Can also be set via the {@link SpringProperties} mechanism.
+	 * @since 5.1.21
+	 * @see #setCacheEnabled
+	 */
+	public static final String CACHE_PROPERTY_NAME = "spring.propertysources.cache";
+
+
 	@Nullable
 	private final PropertySources propertySources;
 
+	private volatile boolean cacheEnabled = SpringProperties.getFlag(CACHE_PROPERTY_NAME);
+
+	@Nullable
+	private volatile PropertyCache propertyCache;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,6 +66,47 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Specify whether to cache the result of property lookups, i.e. the raw
+	 * value of each key along with the {@link PropertySource} it has been found in.
+	 * <p>Default is "false", unless the {@link #CACHE_PROPERTY_NAME} flag is set.
+	 * Switch this to "true" for many repeated lookups against a fixed set of
+	 * property sources. The cache only applies to {@link MutablePropertySources}
+	 * and is invalidated whenever property sources are added, removed or replaced,
+	 * and when an {@link EnumerablePropertySource} signals a change through
+	 * {@link EnumerablePropertySource#propertiesChanged()}. Changes to the
+	 * underlying source objects that are not signalled are not detected, so
+	 * this is only appropriate for property sources that are effectively
+	 * immutable or that signal their changes.
+	 * <p>Nested placeholders are resolved and values are converted for each
+	 * lookup, respecting the current conversion service.
+	 * @since 5.1.21
+	 * @see #clearCache()
+	 */
+	public void setCacheEnabled(boolean cacheEnabled) {
+		this.cacheEnabled = cacheEnabled;
+		this.propertyCache = null;
+	}
+
+	/**
+	 * Return whether property lookups are cached.
+	 * @since 5.1.21
+	 */
+	public boolean isCacheEnabled() {
+		return this.cacheEnabled;
+	}
+
+	/**
+	 * Explicitly clear the property lookup cache, e.g. after modifying
+	 * property sources without signalling the change.
+	 * @since 5.1.21
+	 * @see #setCacheEnabled
+	 */
+	public void clearCache() {
+		this.propertyCache = null;
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
 		if (this.propertySources != null) {
@@ -76,7 +139,18 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
-		if (this.propertySources != null) {
+		if (this.cacheEnabled && this.propertySources instanceof MutablePropertySources) {
+			FoundProperty found = getPropertyCache((MutablePropertySources) this.propertySources).get(key);
+			if (found != null) {
+				Object value = found.value;
+				if (resolveNestedPlaceholders && value instanceof String) {
+					value = resolveNestedPlaceholders((String) value);
+				}
+				logKeyFound(key, found.propertySource, value);
+				return convertValueIfNecessary(value, targetValueType);
+			}
+		}
+		else if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (logger.isTraceEnabled()) {
 					logger.trace("Searching for key '" + key + "' in PropertySource '" +
@@ -98,6 +172,15 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	private PropertyCache getPropertyCache(MutablePropertySources propertySources) {
+		PropertyCache propertyCache = this.propertyCache;
+		if (propertyCache == null || !propertyCache.isCurrent(propertySources)) {
+			propertyCache = new PropertyCache(propertySources);
+			this.propertyCache = propertyCache;
+		}
+		return propertyCache;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +200,121 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+	/**
+	 * Snapshot of a {@link MutablePropertySources} object along with the lookups
+	 * performed against it. Property names of {@link MapPropertySource} instances
+	 * are merged into a single index, pointing to the first such source that
+	 * contains each name; all other property sources are probed for each key.
+	 * <p>Lookups are recorded for missing keys as well, up to a fixed number of
+	 * distinct keys per snapshot: further keys are resolved against the property
+	 * sources each time, without being cached.
+	 */
+	private static final class PropertyCache {
+
+		private static final Object NOT_FOUND = new Object();
+
+		private static final int MAX_LOOKUPS = 4096;
+
+		private final int modificationCount;
+
+		private final PropertySource<?>[] propertySources;
+
+		private final int[] sourceModificationCounts;
+
+		private final boolean[] indexed;
+
+		private final Map<String, Integer> index;
+
+		private final Map<String, Object> lookups = new ConcurrentHashMap<>(256);
+
+		PropertyCache(MutablePropertySources propertySources) {
+			// Read modification counts before the state they guard
+			this.modificationCount = propertySources.getModificationCount();
+			this.propertySources = propertySources.stream().toArray(PropertySource<?>[]::new);
+			this.sourceModificationCounts = new int[this.propertySources.length];
+			this.indexed = new boolean[this.propertySources.length];
+			this.index = new ConcurrentHashMap<>(256);
+			for (int i = 0; i < this.propertySources.length; i++) {
+				PropertySource<?> propertySource = this.propertySources[i];
+				if (propertySource instanceof EnumerablePropertySource) {
+					this.sourceModificationCounts[i] =
+							((EnumerablePropertySource<?>) propertySource).getModificationCount();
+				}
+			}
+			for (int i = 0; i < this.propertySources.length; i++) {
+				PropertySource<?> propertySource = this.propertySources[i];
+				if (propertySource instanceof MapPropertySource &&
+						!(propertySource instanceof SystemEnvironmentPropertySource)) {
+					this.indexed[i] = true;
+					for (String name : ((MapPropertySource) propertySource).getPropertyNames()) {
+						this.index.putIfAbsent(name, i);
+					}
+				}
+			}
+		}
+
+		boolean isCurrent(MutablePropertySources propertySources) {
+			if (propertySources.getModificationCount() != this.modificationCount) {
+				return false;
+			}
+			for (int i = 0; i < this.propertySources.length; i++) {
+				PropertySource<?> propertySource = this.propertySources[i];
+				if (propertySource instanceof EnumerablePropertySource &&
+						((EnumerablePropertySource<?>) propertySource).getModificationCount() !=
+								this.sourceModificationCounts[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Nullable
+		FoundProperty get(String key) {
+			Object found = this.lookups.get(key);
+			if (found == null) {
+				found = lookup(key);
+				if (this.lookups.size() < MAX_LOOKUPS) {
+					this.lookups.put(key, found);
+				}
+			}
+			return (found != NOT_FOUND ? (FoundProperty) found : null);
+		}
+
+		private Object lookup(String key) {
+			Integer indexedPosition = this.index.get(key);
+			boolean probeAll = false;
+			for (int i = 0; i < this.propertySources.length; i++) {
+				boolean atIndexedPosition = (indexedPosition != null && i == indexedPosition);
+				if (this.indexed[i] && !atIndexedPosition && !probeAll) {
+					// Indexed property source without the key
+					continue;
+				}
+				PropertySource<?> propertySource = this.propertySources[i];
+				Object value = propertySource.getProperty(key);
+				if (value != null) {
+					return new FoundProperty(propertySource, value);
+				}
+				if (atIndexedPosition) {
+					// Contained with a null value: consider all remaining property sources
+					probeAll = true;
+				}
+			}
+			return NOT_FOUND;
+		}
+	}
+
+
+	private static final class FoundProperty {
+
+		final PropertySource<?> propertySource;
+
+		final Object value;
+
+		FoundProperty(PropertySource<?> propertySource, Object value) {
+			this.propertySource = propertySource;
+			this.value = value;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,8 +25,10 @@ import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -198,6 +200,41 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Map the given region of a file into memory, and expose it as a
+	 * {@code Flux} of {@code DataBuffer}s {@linkplain DataBufferFactory#wrap(ByteBuffer)
+	 * wrapping} the mapped memory, i.e. without copying the file contents.
+	 * Closes the channel when the flux is terminated.
+	 * <p>Each data buffer covers at most {@code chunkSize} bytes of the file
+	 * and is read-only. The mapped memory is reclaimed by the garbage collector
+	 * once the buffers are no longer referenced; on some platforms, e.g. Windows,
+	 * the file cannot be deleted until then.
+	 * @param path the path of the file to read from
+	 * @param position the position within the file to start reading from
+	 * @param count the maximum number of bytes to read, or {@link Long#MAX_VALUE}
+	 * to read up to the end of the file
+	 * @param bufferFactory the factory to wrap the mapped memory with
+	 * @param chunkSize the maximum number of bytes per data buffer
+	 * @return a Flux of data buffers wrapping the mapped file region
+	 * @since 5.1.21
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, long count, DataBufferFactory bufferFactory, int chunkSize) {
+
+		Assert.notNull(path, "'path' must not be null");
+		Assert.notNull(bufferFactory, "'dataBufferFactory' must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+		Assert.isTrue(chunkSize > 0, "'chunkSize' must be > 0");
+
+		return Flux.using(() -> FileChannel.open(path, StandardOpenOption.READ),
+				channel -> Flux.generate(new MappedFileChannelGenerator(
+						channel, position, count, bufferFactory, chunkSize)),
+				DataBufferUtils::closeChannel);
+
+		// No doOnDiscard as wrapped buffers do not need to be released
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -514,6 +551,53 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileChannelGenerator implements Consumer<SynchronousSink<DataBuffer>> {
+
+		private final FileChannel channel;
+
+		private final long count;
+
+		private final DataBufferFactory dataBufferFactory;
+
+		private final int chunkSize;
+
+		private long position;
+
+		private long end = -1;
+
+		public MappedFileChannelGenerator(FileChannel channel, long position, long count,
+				DataBufferFactory dataBufferFactory, int chunkSize) {
+
+			this.channel = channel;
+			this.position = position;
+			this.count = count;
+			this.dataBufferFactory = dataBufferFactory;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public void accept(SynchronousSink<DataBuffer> sink) {
+			try {
+				if (this.end == -1) {
+					long remaining = Math.max(this.channel.size() - this.position, 0);
+					this.end = this.position + Math.min(remaining, this.count);
+				}
+				if (this.position >= this.end) {
+					sink.complete();
+					return;
+				}
+				long size = Math.min(this.chunkSize, this.end - this.position);
+				ByteBuffer byteBuffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size);
+				this.position += size;
+				sink.next(this.dataBufferFactory.wrap(byteBuffer));
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+		}
+	}
+
+
 	private static class ReadCompletionHandler implements CompletionHandler<Integer, DataBuffer> {
 
 		private final AsynchronousFileChannel channel;
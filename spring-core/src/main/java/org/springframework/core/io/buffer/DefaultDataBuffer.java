@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,7 +59,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -184,16 +184,17 @@ public class DefaultDataBuffer implements DataBuffer {
 
 		if (newCapacity > oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			((Buffer) oldBuffer).position(0).limit(oldBuffer.capacity());
 			((Buffer) newBuffer).position(0).limit(oldBuffer.capacity());
 			newBuffer.put(oldBuffer);
 			newBuffer.clear();
 			setNativeBuffer(newBuffer);
+			nativeBufferReplaced();
 		}
 		else if (newCapacity < oldCapacity) {
 			ByteBuffer oldBuffer = this.byteBuffer;
-			ByteBuffer newBuffer = allocate(newCapacity, oldBuffer.isDirect());
+			ByteBuffer newBuffer = allocateNativeBuffer(newCapacity, oldBuffer.isDirect());
 			if (readPosition < newCapacity) {
 				if (writePosition > newCapacity) {
 					writePosition = newCapacity;
@@ -209,6 +210,7 @@ public class DefaultDataBuffer implements DataBuffer {
 				writePosition(newCapacity);
 			}
 			setNativeBuffer(newBuffer);
+			nativeBufferReplaced();
 		}
 		return this;
 	}
@@ -222,6 +224,24 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this;
 	}
 
+	/**
+	 * Allocate the native buffer to use when the capacity of this buffer changes.
+	 * The returned buffer must have a {@linkplain ByteBuffer#capacity() capacity}
+	 * of exactly the given size.
+	 * @since 5.1.21
+	 */
+	ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+		return allocate(capacity, direct);
+	}
+
+	/**
+	 * Callback after the native buffer has been replaced with the one obtained
+	 * from {@link #allocateNativeBuffer}, e.g. to recycle the previous buffer.
+	 * @since 5.1.21
+	 */
+	void nativeBufferReplaced() {
+	}
+
 	private static ByteBuffer allocate(int capacity, boolean direct) {
 		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
 	}
@@ -335,13 +355,21 @@ public class DefaultDataBuffer implements DataBuffer {
 			ByteBuffer slice = this.byteBuffer.slice();
 			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
 			((Buffer) slice).limit(length);
-			return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+			return createSlicedBuffer(slice, length);
 		}
 		finally {
 			buffer.position(oldPosition);
 		}
 	}
 
+	/**
+	 * Create a sliced buffer that shares the given native buffer with this buffer.
+	 * @since 5.1.21
+	 */
+	DefaultDataBuffer createSlicedBuffer(ByteBuffer slice, int length) {
+		return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+	}
+
 	@Override
 	public ByteBuffer asByteBuffer() {
 		return asByteBuffer(this.readPosition, readableByteCount());
@@ -362,12 +390,12 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	@Override
 	public InputStream asInputStream() {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(false);
 	}
 
 	@Override
 	public InputStream asInputStream(boolean releaseOnClose) {
-		return new DefaultDataBufferInputStream();
+		return new DefaultDataBufferInputStream(releaseOnClose);
 	}
 
 	@Override
@@ -449,6 +477,14 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	private class DefaultDataBufferInputStream extends InputStream {
 
+		private final boolean releaseOnClose;
+
+		private boolean closed;
+
+		DefaultDataBufferInputStream(boolean releaseOnClose) {
+			this.releaseOnClose = releaseOnClose;
+		}
+
 		@Override
 		public int available() {
 			return readableByteCount();
@@ -471,6 +507,14 @@ public class DefaultDataBuffer implements DataBuffer {
 				return -1;
 			}
 		}
+
+		@Override
+		public void close() {
+			if (this.releaseOnClose && !this.closed) {
+				this.closed = true;
+				DataBufferUtils.release(DefaultDataBuffer.this);
+			}
+		}
 	}
 
 
@@ -488,7 +532,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	}
 
 
-	private static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
+	static class SlicedDefaultDataBuffer extends DefaultDataBuffer {
 
 		SlicedDefaultDataBuffer(ByteBuffer byteBuffer, DefaultDataBufferFactory dataBufferFactory, int length) {
 			super(dataBufferFactory, byteBuffer);
@@ -0,0 +1,510 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataBufferFactory} that recycles the memory of released buffers,
+ * primarily intended for runtimes without a buffer pool of their own such as
+ * Servlet containers and Undertow, where every read chunk and encoded response
+ * would otherwise be backed by a freshly allocated {@link ByteBuffer}.
+ *
+ * <p>Buffers created by this factory implement {@link PooledDataBuffer} and
+ * start with a reference count of 1; once released through
+ * {@link DataBufferUtils#release(DataBuffer)} their memory is returned to the
+ * pool. Memory is managed in power-of-two size classes (from 256 bytes up to a
+ * configurable maximum); each size class has a small per-thread cache backed by
+ * a bounded pool shared between threads. Requests for buffers larger than the
+ * maximum pooled capacity are served with unpooled memory.
+ *
+ * <p>In debug mode, enabled through {@link #setLeakDetectionEnabled} or the
+ * {@value #LEAK_DETECTION_PROPERTY_NAME} Spring property, the factory records
+ * the allocation trace of each buffer and logs it if the buffer is garbage
+ * collected without having been released.
+ *
+ * @since 5.1.21
+ * @see DataBufferUtils#release(DataBuffer)
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	/**
+	 * Spring property that enables leak detection for pooled buffers by default.
+	 * @see #setLeakDetectionEnabled
+	 */
+	public static final String LEAK_DETECTION_PROPERTY_NAME = "spring.buffer.leakDetection";
+
+	private static final int MIN_POOLED_CAPACITY = 256;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = Integer.numberOfTrailingZeros(MIN_POOLED_CAPACITY);
+
+	private static final int THREAD_CACHE_BYTES_PER_SIZE_CLASS = 256 * 1024;
+
+	private static final int MAX_THREAD_CACHE_BUFFERS_PER_SIZE_CLASS = 64;
+
+	private static final int SHARED_POOL_BYTES_PER_SIZE_CLASS = 1024 * 1024;
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final SizeClass[] sizeClasses;
+
+	private final ThreadLocal<List<ArrayDeque<ByteBuffer>>> threadCaches;
+
+	private final LongAdder allocatedBuffers = new LongAdder();
+
+	private volatile boolean leakDetectionEnabled = SpringProperties.getFlag(LEAK_DETECTION_PROPERTY_NAME);
+
+	private final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
+
+	private final ReferenceQueue<PooledDataBuffer> leakQueue = new ReferenceQueue<>();
+
+	private final LongAdder detectedLeaks = new LongAdder();
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether
+	 * direct buffers should be created.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether
+	 * direct buffers should be created, and what the capacity is to be used
+	 * for {@link #allocateBuffer()}.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity) {
+		this(preferDirect, defaultInitialCapacity, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether
+	 * direct buffers should be created, what the capacity is to be used
+	 * for {@link #allocateBuffer()}, and up to which capacity buffers are pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the maximum capacity of pooled buffers, rounded
+	 * down to a power of two; larger buffers are allocated without pooling
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity >= 0, "'maxPooledCapacity' must not be negative");
+		this.preferDirect = preferDirect;
+		this.maxPooledCapacity = (maxPooledCapacity >= MIN_POOLED_CAPACITY ?
+				Integer.highestOneBit(maxPooledCapacity) : 0);
+		int sizeClassCount = (this.maxPooledCapacity > 0 ? sizeClassIndex(this.maxPooledCapacity) + 1 : 0);
+		SizeClass[] sizeClasses = new SizeClass[sizeClassCount];
+		for (int i = 0; i < sizeClasses.length; i++) {
+			sizeClasses[i] = new SizeClass(MIN_POOLED_CAPACITY << i);
+		}
+		this.sizeClasses = sizeClasses;
+		this.threadCaches = ThreadLocal.withInitial(() -> {
+			List<ArrayDeque<ByteBuffer>> caches = new ArrayList<>(sizeClassCount);
+			for (SizeClass sizeClass : sizeClasses) {
+				caches.add(new ArrayDeque<>(sizeClass.threadCacheLimit));
+			}
+			return caches;
+		});
+	}
+
+
+	/**
+	 * Return the maximum capacity of pooled buffers.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Enable or disable leak detection for buffers allocated from now on.
+	 * <p>When enabled, the allocation trace of every buffer is recorded and
+	 * logged at error level if the buffer is garbage collected without having
+	 * been released. This has a considerable cost and is meant for debugging.
+	 * <p>By default this is enabled if the {@value #LEAK_DETECTION_PROPERTY_NAME}
+	 * Spring property is set to "true".
+	 */
+	public void setLeakDetectionEnabled(boolean leakDetectionEnabled) {
+		this.leakDetectionEnabled = leakDetectionEnabled;
+	}
+
+	/**
+	 * Return whether leak detection is enabled.
+	 */
+	public boolean isLeakDetectionEnabled() {
+		return this.leakDetectionEnabled;
+	}
+
+	/**
+	 * Return the number of buffers that have been allocated and not released yet.
+	 */
+	public long getAllocatedBufferCount() {
+		return this.allocatedBuffers.sum();
+	}
+
+	/**
+	 * Return the number of leaked buffers detected so far, i.e. buffers that
+	 * have been garbage collected without having been released.
+	 * <p>Always {@code 0} unless {@linkplain #setLeakDetectionEnabled leak detection}
+	 * is enabled.
+	 */
+	public long getDetectedLeakCount() {
+		reportLeaks();
+		return this.detectedLeaks.sum();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must not be negative");
+		return new PooledBuffer(acquire(initialCapacity), initialCapacity);
+	}
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	/**
+	 * Obtain memory of at least the given capacity, either from the pool if
+	 * within the maximum pooled capacity, or newly allocated with the exact
+	 * given capacity otherwise.
+	 */
+	private ByteBuffer acquire(int capacity) {
+		int index = sizeClassIndex(capacity);
+		if (index >= this.sizeClasses.length) {
+			return allocate(capacity);
+		}
+		ByteBuffer buffer = this.threadCaches.get().get(index).pollLast();
+		if (buffer == null) {
+			SizeClass sizeClass = this.sizeClasses[index];
+			buffer = sizeClass.poll();
+			if (buffer == null) {
+				buffer = allocate(sizeClass.capacity);
+			}
+		}
+		return buffer;
+	}
+
+	/**
+	 * Return memory obtained from {@link #acquire} to the pool, if pooled.
+	 */
+	private void recycle(ByteBuffer buffer) {
+		int capacity = buffer.capacity();
+		int index = sizeClassIndex(capacity);
+		if (index >= this.sizeClasses.length || this.sizeClasses[index].capacity != capacity) {
+			return;
+		}
+		SizeClass sizeClass = this.sizeClasses[index];
+		ArrayDeque<ByteBuffer> threadCache = this.threadCaches.get().get(index);
+		if (threadCache.size() < sizeClass.threadCacheLimit) {
+			threadCache.addLast(buffer);
+		}
+		else {
+			sizeClass.offer(buffer);
+		}
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		if (capacity <= MIN_POOLED_CAPACITY) {
+			return 0;
+		}
+		return (Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1)) - MIN_SIZE_CLASS_SHIFT;
+	}
+
+	/**
+	 * Return a view of the given memory with exactly the given capacity.
+	 */
+	private static ByteBuffer view(ByteBuffer buffer, int capacity) {
+		ByteBuffer duplicate = buffer.duplicate();
+		// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+		((Buffer) duplicate).clear().limit(capacity);
+		return duplicate.slice();
+	}
+
+	@Nullable
+	private LeakTracker track(PooledDataBuffer buffer) {
+		if (!this.leakDetectionEnabled) {
+			return null;
+		}
+		reportLeaks();
+		LeakTracker tracker = new LeakTracker(buffer, this.leakQueue);
+		this.leakTrackers.add(tracker);
+		return tracker;
+	}
+
+	private void reportLeaks() {
+		Reference<? extends PooledDataBuffer> reference;
+		while ((reference = this.leakQueue.poll()) != null) {
+			LeakTracker tracker = (LeakTracker) reference;
+			if (this.leakTrackers.remove(tracker)) {
+				this.detectedLeaks.increment();
+				this.allocatedBuffers.decrement();
+				logger.error("DataBuffer leak detected: buffer was garbage collected without having been " +
+						"released. Allocation trace follows:", tracker.allocationTrace);
+			}
+		}
+	}
+
+
+	/**
+	 * Pool of buffers of a given size class, shared between threads.
+	 */
+	private static final class SizeClass {
+
+		final int capacity;
+
+		final int threadCacheLimit;
+
+		private final int sharedLimit;
+
+		private final Queue<ByteBuffer> shared = new ConcurrentLinkedQueue<>();
+
+		private final AtomicInteger sharedCount = new AtomicInteger();
+
+		SizeClass(int capacity) {
+			this.capacity = capacity;
+			this.threadCacheLimit = Math.max(1, Math.min(MAX_THREAD_CACHE_BUFFERS_PER_SIZE_CLASS,
+					THREAD_CACHE_BYTES_PER_SIZE_CLASS / capacity));
+			this.sharedLimit = Math.max(1, SHARED_POOL_BYTES_PER_SIZE_CLASS / capacity);
+		}
+
+		@Nullable
+		ByteBuffer poll() {
+			ByteBuffer buffer = this.shared.poll();
+			if (buffer != null) {
+				this.sharedCount.decrementAndGet();
+			}
+			return buffer;
+		}
+
+		void offer(ByteBuffer buffer) {
+			if (this.sharedCount.incrementAndGet() <= this.sharedLimit) {
+				this.shared.offer(buffer);
+			}
+			else {
+				this.sharedCount.decrementAndGet();
+			}
+		}
+	}
+
+
+	/**
+	 * Weak reference to an allocated buffer, holding its allocation trace.
+	 */
+	private static final class LeakTracker extends WeakReference<PooledDataBuffer> {
+
+		final Throwable allocationTrace = new Throwable("DataBuffer allocation");
+
+		LeakTracker(PooledDataBuffer buffer, ReferenceQueue<PooledDataBuffer> queue) {
+			super(buffer, queue);
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} backed by pooled memory, returned to the pool
+	 * once the reference count drops to zero.
+	 */
+	private final class PooledBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final AtomicInteger refCount = new AtomicInteger(1);
+
+		@Nullable
+		private ByteBuffer memory;
+
+		@Nullable
+		private ByteBuffer newMemory;
+
+		/**
+		 * Memory replaced when the capacity changed, still possibly in use by slices
+		 * or {@link #asByteBuffer()} views, and therefore only recycled on deallocation.
+		 */
+		@Nullable
+		private List<ByteBuffer> replacedMemory;
+
+		@Nullable
+		private final LeakTracker leakTracker;
+
+		PooledBuffer(ByteBuffer memory, int capacity) {
+			super(PooledDataBufferFactory.this, view(memory, capacity));
+			this.memory = memory;
+			this.leakTracker = track(this);
+			PooledDataBufferFactory.this.allocatedBuffers.increment();
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount.get() > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			while (true) {
+				int count = this.refCount.get();
+				Assert.state(count > 0, "DataBuffer has already been released");
+				if (this.refCount.compareAndSet(count, count + 1)) {
+					return this;
+				}
+			}
+		}
+
+		@Override
+		public boolean release() {
+			while (true) {
+				int count = this.refCount.get();
+				Assert.state(count > 0, "DataBuffer has already been released");
+				if (this.refCount.compareAndSet(count, count - 1)) {
+					if (count == 1) {
+						deallocate();
+						return true;
+					}
+					return false;
+				}
+			}
+		}
+
+		private void deallocate() {
+			if (this.leakTracker != null) {
+				PooledDataBufferFactory.this.leakTrackers.remove(this.leakTracker);
+				this.leakTracker.clear();
+			}
+			ByteBuffer memory = this.memory;
+			this.memory = null;
+			if (memory != null) {
+				recycle(memory);
+			}
+			List<ByteBuffer> replacedMemory = this.replacedMemory;
+			this.replacedMemory = null;
+			if (replacedMemory != null) {
+				replacedMemory.forEach(PooledDataBufferFactory.this::recycle);
+			}
+			PooledDataBufferFactory.this.allocatedBuffers.decrement();
+		}
+
+		@Override
+		ByteBuffer allocateNativeBuffer(int capacity, boolean direct) {
+			ByteBuffer memory = acquire(capacity);
+			this.newMemory = memory;
+			return view(memory, capacity);
+		}
+
+		@Override
+		void nativeBufferReplaced() {
+			ByteBuffer oldMemory = this.memory;
+			this.memory = this.newMemory;
+			this.newMemory = null;
+			if (oldMemory != null) {
+				if (this.replacedMemory == null) {
+					this.replacedMemory = new ArrayList<>(1);
+				}
+				this.replacedMemory.add(oldMemory);
+			}
+		}
+
+		@Override
+		DefaultDataBuffer createSlicedBuffer(ByteBuffer slice, int length) {
+			return new PooledSlicedBuffer(slice, length, this);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledBuffer}, sharing its memory and reference count.
+	 */
+	private static final class PooledSlicedBuffer extends DefaultDataBuffer.SlicedDefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledBuffer parent;
+
+		PooledSlicedBuffer(ByteBuffer slice, int length, PooledBuffer parent) {
+			super(slice, parent.factory(), length);
+			this.parent = parent;
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+
+		@Override
+		DefaultDataBuffer createSlicedBuffer(ByteBuffer slice, int length) {
+			return new PooledSlicedBuffer(slice, length, this.parent);
+		}
+	}
+
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Index of the entry names of jar files, allowing
+ * {@link PathMatchingResourcePatternResolver} to enumerate a jar once and
+ * to reuse the result for all subsequent patterns against the same jar.
+ *
+ * <p>Entry names are kept sorted, so that the entries underneath a given
+ * root entry path can be found without scanning the entire jar. They are
+ * softly referenced, so they may be reclaimed under memory pressure and
+ * enumerated again on next access.
+ *
+ * <p>Optionally backed by an index file on disk, for jar files in the
+ * local file system. Persisted entries are keyed by jar file path and only
+ * used while the size and last-modified timestamp of the jar file match,
+ * allowing subsequent runs of the same application to skip enumerating
+ * jar files entirely. Index files are shared among all resolvers that
+ * point to the same location, until {@link #clearCache()} is called.
+ *
+ * @since 5.1.21
+ */
+final class JarEntryIndex {
+
+	private static final Log logger = LogFactory.getLog(JarEntryIndex.class);
+
+	private static final Map<File, IndexFile> indexFiles = new ConcurrentHashMap<>(4);
+
+
+	private final Map<String, String[]> entriesByJarFileUrl = new ConcurrentReferenceHashMap<>(64);
+
+	@Nullable
+	private final IndexFile indexFile;
+
+
+	/**
+	 * Create a new in-memory {@code JarEntryIndex}, optionally backed by the
+	 * given index file.
+	 * @param indexFile the location of the index file, or {@code null} for
+	 * an in-memory index only
+	 */
+	JarEntryIndex(@Nullable File indexFile) {
+		this.indexFile = (indexFile != null ?
+				indexFiles.computeIfAbsent(indexFile.getAbsoluteFile(), IndexFile::new) : null);
+	}
+
+
+	/**
+	 * Return the sorted entry names of the given jar file, if indexed already.
+	 * @param jarFileUrl the URL of the jar file
+	 * @return the entry names, or {@code null} if the jar has not been indexed
+	 */
+	@Nullable
+	String[] getEntries(String jarFileUrl) {
+		String[] entries = this.entriesByJarFileUrl.get(jarFileUrl);
+		if (entries == null && this.indexFile != null) {
+			File jarFile = getLocalJarFile(jarFileUrl);
+			if (jarFile != null) {
+				entries = this.indexFile.getEntries(jarFile);
+				if (entries != null) {
+					this.entriesByJarFileUrl.put(jarFileUrl, entries);
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Register the entry names of the given jar file.
+	 * @param jarFileUrl the URL of the jar file
+	 * @param entries the entry names, in any order
+	 * @return the sorted entry names
+	 */
+	String[] putEntries(String jarFileUrl, String[] entries) {
+		Arrays.sort(entries);
+		this.entriesByJarFileUrl.put(jarFileUrl, entries);
+		if (this.indexFile != null) {
+			File jarFile = getLocalJarFile(jarFileUrl);
+			if (jarFile != null) {
+				this.indexFile.putEntries(jarFile, entries);
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Write newly indexed jar files to the index file, if any.
+	 */
+	void storeIfNecessary() {
+		if (this.indexFile != null) {
+			this.indexFile.storeIfNecessary();
+		}
+	}
+
+
+	/**
+	 * Clear the shared state of index files: pending entries are written,
+	 * and index files are read from disk again on next access.
+	 */
+	static void clearCache() {
+		for (IndexFile indexFile : indexFiles.values()) {
+			indexFile.release();
+		}
+		indexFiles.clear();
+	}
+
+	/**
+	 * Return the entry names that start with the given prefix.
+	 * @param entries the sorted entry names
+	 * @param prefix the prefix to look for
+	 * @return a view of the matching range of entry names
+	 */
+	static List<String> getEntriesStartingWith(String[] entries, String prefix) {
+		int from = (prefix.isEmpty() ? 0 : Arrays.binarySearch(entries, prefix));
+		if (from < 0) {
+			from = -from - 1;
+		}
+		int to = from;
+		while (to < entries.length && entries[to].startsWith(prefix)) {
+			to++;
+		}
+		return Arrays.asList(entries).subList(from, to);
+	}
+
+	@Nullable
+	private static File getLocalJarFile(String jarFileUrl) {
+		if (jarFileUrl.startsWith(ResourceUtils.FILE_URL_PREFIX)) {
+			try {
+				return new File(ResourceUtils.toURI(jarFileUrl).getSchemeSpecificPart());
+			}
+			catch (Exception ex) {
+				// Not a valid URI -> not suitable for the index file
+			}
+		}
+		return null;
+	}
+
+
+	/**
+	 * Jar file entries persisted in a file, with the size and last-modified
+	 * timestamp of each jar file to detect modifications.
+	 */
+	private static final class IndexFile {
+
+		private static final int FORMAT_VERSION = 1;
+
+		private final File file;
+
+		@Nullable
+		private volatile Map<String, IndexedJar> jars;
+
+		private volatile boolean modified;
+
+		IndexFile(File file) {
+			this.file = file;
+		}
+
+		@Nullable
+		String[] getEntries(File jarFile) {
+			IndexedJar indexedJar = getJars().get(jarFile.getPath());
+			if (indexedJar != null && indexedJar.isCurrent(jarFile)) {
+				return indexedJar.entries;
+			}
+			return null;
+		}
+
+		void putEntries(File jarFile, String[] entries) {
+			if (jarFile.isFile()) {
+				getJars().put(jarFile.getPath(), new IndexedJar(jarFile.length(), jarFile.lastModified(), entries));
+				this.modified = true;
+			}
+		}
+
+		private Map<String, IndexedJar> getJars() {
+			Map<String, IndexedJar> jars = this.jars;
+			if (jars == null) {
+				synchronized (this) {
+					jars = this.jars;
+					if (jars == null) {
+						jars = new ConcurrentHashMap<>(64);
+						if (this.file.isFile()) {
+							try {
+								load(jars);
+							}
+							catch (IOException ex) {
+								jars.clear();
+								if (logger.isDebugEnabled()) {
+									logger.debug("Ignoring unreadable jar index file [" + this.file + "]", ex);
+								}
+							}
+						}
+						this.jars = jars;
+					}
+				}
+			}
+			return jars;
+		}
+
+		private void load(Map<String, IndexedJar> jars) throws IOException {
+			try (DataInputStream in = new DataInputStream(
+					new BufferedInputStream(Files.newInputStream(this.file.toPath())))) {
+				if (in.readInt() != FORMAT_VERSION) {
+					return;
+				}
+				int jarCount = in.readInt();
+				for (int i = 0; i < jarCount; i++) {
+					String path = in.readUTF();
+					long size = in.readLong();
+					long lastModified = in.readLong();
+					String[] entries = new String[in.readInt()];
+					for (int j = 0; j < entries.length; j++) {
+						entries[j] = in.readUTF();
+					}
+					jars.put(path, new IndexedJar(size, lastModified, entries));
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded entries of " + jars.size() + " jar files from index file [" + this.file + "]");
+			}
+		}
+
+		synchronized void storeIfNecessary() {
+			if (!this.modified) {
+				return;
+			}
+			this.modified = false;
+			Map<String, IndexedJar> jars = getJars();
+			Path tempFile = null;
+			try {
+				Path target = this.file.getAbsoluteFile().toPath();
+				Path parent = target.getParent();
+				if (parent != null) {
+					Files.createDirectories(parent);
+				}
+				tempFile = Files.createTempFile(parent, this.file.getName(), ".tmp");
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					out.writeInt(FORMAT_VERSION);
+					out.writeInt(jars.size());
+					for (Map.Entry<String, IndexedJar> entry : jars.entrySet()) {
+						IndexedJar indexedJar = entry.getValue();
+						out.writeUTF(entry.getKey());
+						out.writeLong(indexedJar.size);
+						out.writeLong(indexedJar.lastModified);
+						out.writeInt(indexedJar.entries.length);
+						for (String name : indexedJar.entries) {
+							out.writeUTF(name);
+						}
+					}
+				}
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (IOException ex) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Failed to write jar index file [" + this.file + "]: " + ex);
+				}
+			}
+			finally {
+				if (tempFile != null) {
+					try {
+						Files.deleteIfExists(tempFile);
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		/**
+		 * Write pending entries, then drop the in-memory state.
+		 */
+		synchronized void release() {
+			storeIfNecessary();
+			this.jars = null;
+		}
+	}
+
+
+	private static final class IndexedJar {
+
+		final long size;
+
+		final long lastModified;
+
+		final String[] entries;
+
+		IndexedJar(long size, long lastModified, String[] entries) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.entries = entries;
+		}
+
+		boolean isCurrent(File jarFile) {
+			return (jarFile.length() == this.size && jarFile.lastModified() == this.lastModified);
+		}
+	}
+
+}
@@ -0,0 +1,458 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.UrlResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Build-time merged index of {@link Properties}-based resources that may be
+ * present in multiple JAR files, such as {@code META-INF/spring.factories}
+ * and {@code META-INF/spring.components}. Allows the corresponding loaders
+ * to read a single resource instead of enumerating every classpath entry
+ * through {@link ClassLoader#getResources(String)}.
+ *
+ * <p>The index is written to {@value #INDEX_RESOURCE_LOCATION} by running
+ * this class against the runtime classpath of the application, for example
+ * as a Gradle {@code JavaExec} task (or via the {@code java} goal of the
+ * {@code exec-maven-plugin}):
+ *
+ * <pre class="code">
+ * task mergeSpringIndex(type: JavaExec) {
+ *     classpath = sourceSets.main.runtimeClasspath
+ *     main = "org.springframework.core.io.support.MergedPropertiesIndex"
+ *     args = [sourceSets.main.output.resourcesDir]
+ * }</pre>
+ *
+ * <p>For each indexed location, the keys and comma-separated values of all
+ * resources are merged in classpath order. Indexed locations that were not
+ * present at build time are recorded as empty, so that their absence does
+ * not need to be checked at runtime either.
+ *
+ * <p>The index records a fingerprint of the resources it was built from, and
+ * is only used at runtime if the classpath of the given class loader has the
+ * same fingerprint. The fingerprint covers the checksum and size of the content
+ * of each indexed resource, in classpath order, but not the location or the
+ * packaging of the classpath entries: an index built against classes
+ * directories and JAR files still applies once these have been packaged into
+ * an application archive, possibly as nested JAR files, whereas any change to
+ * the indexed resources invalidates it. Otherwise, or if the
+ * {@value #IGNORE_INDEX} flag is set, the loaders fall back to regular
+ * classpath enumeration.
+ *
+ * @since 5.1.21
+ * @see SpringFactoriesLoader
+ */
+public final class MergedPropertiesIndex {
+
+	/**
+	 * The location of the merged index.
+	 * <p>Only the first occurrence on the classpath is considered.
+	 */
+	public static final String INDEX_RESOURCE_LOCATION = "META-INF/spring.merged.idx";
+
+	/**
+	 * System property that instructs Spring to ignore the merged index, i.e.
+	 * to always return {@code null} from {@link #load(ClassLoader)}.
+	 * <p>The default is "false", allowing for regular use of the index.
+	 */
+	public static final String IGNORE_INDEX = "spring.index.merged.ignore";
+
+	private static final String COMPONENTS_RESOURCE_LOCATION = "META-INF/spring.components";
+
+	private static final int MAGIC = 0x53504d49;
+
+	private static final int FORMAT_VERSION = 3;
+
+
+	private static final boolean shouldIgnoreIndex = SpringProperties.getFlag(IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(MergedPropertiesIndex.class);
+
+	private static final MergedPropertiesIndex NONE = new MergedPropertiesIndex(null, Collections.emptyMap());
+
+	private static final Map<ClassLoader, MergedPropertiesIndex> cache = new ConcurrentReferenceHashMap<>();
+
+
+	@Nullable
+	private final byte[] fingerprint;
+
+	private final Map<String, MultiValueMap<String, String>> entriesByLocation;
+
+
+	private MergedPropertiesIndex(@Nullable byte[] fingerprint,
+			Map<String, MultiValueMap<String, String>> entriesByLocation) {
+
+		this.fingerprint = fingerprint;
+		this.entriesByLocation = entriesByLocation;
+	}
+
+
+	/**
+	 * Return the merged entries for the given resource location.
+	 * @param location the resource location, e.g. {@code META-INF/spring.factories}
+	 * @return the merged keys and values of all resources at the given location
+	 * (possibly empty), or {@code null} if the location has not been indexed
+	 */
+	@Nullable
+	public MultiValueMap<String, String> getEntries(String location) {
+		return this.entriesByLocation.get(location);
+	}
+
+	/**
+	 * Return the indexed resource locations.
+	 */
+	public Set<String> getLocations() {
+		return Collections.unmodifiableSet(this.entriesByLocation.keySet());
+	}
+
+	/**
+	 * Write this index in its binary format to the given stream.
+	 * @param outputStream the stream to write to (not closed)
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeTo(OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		if (this.fingerprint != null) {
+			out.writeInt(this.fingerprint.length);
+			out.write(this.fingerprint);
+		}
+		else {
+			out.writeInt(-1);
+		}
+		out.writeInt(this.entriesByLocation.size());
+		for (Map.Entry<String, MultiValueMap<String, String>> location : this.entriesByLocation.entrySet()) {
+			out.writeUTF(location.getKey());
+			out.writeInt(location.getValue().size());
+			for (Map.Entry<String, List<String>> entry : location.getValue().entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().size());
+				for (String value : entry.getValue()) {
+					out.writeUTF(value);
+				}
+			}
+		}
+		out.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "MergedPropertiesIndex " + this.entriesByLocation.keySet();
+	}
+
+
+	/**
+	 * Load the merged index from {@value #INDEX_RESOURCE_LOCATION}, using the
+	 * given class loader. Only returns an index that has been built from the
+	 * same indexed resources as found on the classpath of the given class loader.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null}
+	 * to use the system class loader)
+	 * @return the merged index, or {@code null} if no (current) index was found
+	 * @throws IllegalStateException if the index cannot be read
+	 */
+	@Nullable
+	public static MergedPropertiesIndex load(@Nullable ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+		MergedPropertiesIndex index = cache.get(classLoader);
+		if (index == null) {
+			index = doLoad(classLoader);
+			cache.put(classLoader, index);
+		}
+		return (index != NONE ? index : null);
+	}
+
+	private static MergedPropertiesIndex doLoad(@Nullable ClassLoader classLoader) {
+		URL url = (classLoader != null ? classLoader.getResource(INDEX_RESOURCE_LOCATION) :
+				ClassLoader.getSystemResource(INDEX_RESOURCE_LOCATION));
+		if (url == null) {
+			return NONE;
+		}
+
+		MergedPropertiesIndex index;
+		try (InputStream in = url.openStream()) {
+			index = read(in);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load merged index from [" + url + "]", ex);
+		}
+		if (index == null) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring merged index [" + url + "] with unsupported format");
+			}
+			return NONE;
+		}
+
+		if (index.fingerprint != null) {
+			byte[] fingerprint;
+			try {
+				fingerprint = fingerprint(classLoader != null ? classLoader : ClassLoader.getSystemClassLoader(),
+						index.entriesByLocation.keySet());
+			}
+			catch (IOException ex) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Ignoring merged index [" + url + "] since the indexed resources cannot be read", ex);
+				}
+				return NONE;
+			}
+			if (fingerprint != null && !Arrays.equals(fingerprint, index.fingerprint)) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Ignoring merged index [" + url + "] since it has been built for a different classpath");
+				}
+				return NONE;
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Loaded merged index [" + url + "] for " + index.entriesByLocation.keySet());
+		}
+		return index;
+	}
+
+	@Nullable
+	private static MergedPropertiesIndex read(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+		if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+			return null;
+		}
+		byte[] fingerprint = null;
+		int fingerprintLength = in.readInt();
+		if (fingerprintLength >= 0) {
+			fingerprint = new byte[fingerprintLength];
+			in.readFully(fingerprint);
+		}
+		int locationCount = in.readInt();
+		Map<String, MultiValueMap<String, String>> entriesByLocation = new LinkedHashMap<>(locationCount);
+		for (int i = 0; i < locationCount; i++) {
+			String location = in.readUTF();
+			int keyCount = in.readInt();
+			MultiValueMap<String, String> entries = new LinkedMultiValueMap<>(keyCount);
+			for (int j = 0; j < keyCount; j++) {
+				String key = in.readUTF();
+				int valueCount = in.readInt();
+				for (int k = 0; k < valueCount; k++) {
+					entries.add(key, in.readUTF());
+				}
+			}
+			entriesByLocation.put(location, entries);
+		}
+		return new MergedPropertiesIndex(fingerprint, entriesByLocation);
+	}
+
+	/**
+	 * Build a merged index of the given resource locations by enumerating
+	 * the classpath of the given class loader.
+	 * @param classLoader the ClassLoader to build the index for
+	 * @param locations the resource locations to index
+	 * @return the merged index
+	 * @throws IOException if a resource cannot be read
+	 */
+	public static MergedPropertiesIndex build(ClassLoader classLoader, String... locations) throws IOException {
+		Map<String, MultiValueMap<String, String>> entriesByLocation = new LinkedHashMap<>(locations.length);
+		for (String location : locations) {
+			MultiValueMap<String, String> entries = new LinkedMultiValueMap<>();
+			Enumeration<URL> urls = classLoader.getResources(location);
+			while (urls.hasMoreElements()) {
+				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(urls.nextElement()));
+				for (Map.Entry<?, ?> entry : properties.entrySet()) {
+					String key = ((String) entry.getKey()).trim();
+					for (String value : StringUtils.commaDelimitedListToStringArray((String) entry.getValue())) {
+						entries.add(key, value.trim());
+					}
+				}
+			}
+			entriesByLocation.put(location, entries);
+		}
+		return new MergedPropertiesIndex(fingerprint(classLoader, entriesByLocation.keySet()), entriesByLocation);
+	}
+
+	/**
+	 * Compute the fingerprint of the given resource locations on the classpath
+	 * of the given class loader, or of the closest {@link URLClassLoader} in its
+	 * hierarchy: the CRC-32 checksum and size of the content of each resource
+	 * found at each location, in classpath order. This does not depend on where
+	 * the classpath entries reside or on how they are packaged, e.g. classes
+	 * directories versus JAR files, or JAR files nested in an application archive.
+	 * @param classLoader the ClassLoader to compute the fingerprint for
+	 * @param locations the indexed resource locations
+	 * @return the fingerprint, or {@code null} if the classpath cannot be determined
+	 * @throws IOException if a resource cannot be read
+	 */
+	@Nullable
+	static byte[] fingerprint(ClassLoader classLoader, Collection<String> locations) throws IOException {
+		ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+		ClassLoader current = classLoader;
+		while (current != null && !(current instanceof URLClassLoader) && current != systemClassLoader) {
+			current = current.getParent();
+		}
+
+		List<URL> classpath = new ArrayList<>();
+		if (current instanceof URLClassLoader) {
+			classpath.addAll(Arrays.asList(((URLClassLoader) current).getURLs()));
+		}
+		else if (current != null) {
+			// System class loader on JDK 9+ -> fall back to the java.class.path property
+			String classPath = System.getProperty("java.class.path", "");
+			for (String entry : StringUtils.tokenizeToStringArray(classPath, File.pathSeparator)) {
+				classpath.add(new File(entry).toURI().toURL());
+			}
+		}
+		else {
+			return null;
+		}
+
+		List<String> entries = new ArrayList<>();
+		for (String location : locations) {
+			for (URL root : classpath) {
+				String checksum = checksum(root, location);
+				if (checksum != null) {
+					entries.add(location + ':' + checksum);
+				}
+			}
+		}
+		return DigestUtils.md5Digest(
+				StringUtils.collectionToDelimitedString(entries, "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Determine the checksum and size of the given resource location within
+	 * the given classpath entry.
+	 * @return the checksum and size, or {@code null} if not present
+	 */
+	@Nullable
+	private static String checksum(URL root, String location) throws IOException {
+		try {
+			if (ResourceUtils.isFileURL(root)) {
+				File file = ResourceUtils.getFile(root);
+				if (file.isDirectory()) {
+					File resource = new File(file, location);
+					return (resource.isFile() ? checksum(Files.newInputStream(resource.toPath())) : null);
+				}
+				if (!file.isFile()) {
+					return null;
+				}
+				try (JarFile jarFile = new JarFile(file)) {
+					JarEntry entry = jarFile.getJarEntry(location);
+					return (entry != null ? checksum(jarFile, entry) : null);
+				}
+			}
+			URLConnection con = new URL(root, location).openConnection();
+			if (con instanceof JarURLConnection) {
+				// Nested or remote JAR file: prefer the checksum from its central directory
+				JarEntry entry = ((JarURLConnection) con).getJarEntry();
+				if (entry.getCrc() != -1 && entry.getSize() != -1) {
+					return entry.getCrc() + ":" + entry.getSize();
+				}
+			}
+			return checksum(con.getInputStream());
+		}
+		catch (FileNotFoundException ex) {
+			return null;
+		}
+	}
+
+	private static String checksum(JarFile jarFile, JarEntry entry) throws IOException {
+		if (entry.getCrc() != -1 && entry.getSize() != -1) {
+			return entry.getCrc() + ":" + entry.getSize();
+		}
+		return checksum(jarFile.getInputStream(entry));
+	}
+
+	private static String checksum(InputStream inputStream) throws IOException {
+		CRC32 crc = new CRC32();
+		long size = 0;
+		try (InputStream in = inputStream) {
+			byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				crc.update(buffer, 0, read);
+				size += read;
+			}
+		}
+		return crc.getValue() + ":" + size;
+	}
+
+	/**
+	 * Write the merged index for the classpath of the current JVM.
+	 * <p>Expects the output directory as first argument, typically the
+	 * resources output directory of the application, followed by the
+	 * resource locations to index. Indexes {@code META-INF/spring.factories}
+	 * and {@code META-INF/spring.components} if no locations are specified.
+	 * @param args the output directory, optionally followed by resource locations
+	 * @throws IOException if the index cannot be built or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			throw new IllegalArgumentException(
+					"Usage: MergedPropertiesIndex <output directory> [resource location...]");
+		}
+		String[] locations = (args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) :
+				new String[] {SpringFactoriesLoader.FACTORIES_RESOURCE_LOCATION, COMPONENTS_RESOURCE_LOCATION});
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		MergedPropertiesIndex index = build(
+				(classLoader != null ? classLoader : ClassLoader.getSystemClassLoader()), locations);
+		File file = new File(args[0], INDEX_RESOURCE_LOCATION);
+		Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+		try (OutputStream out = Files.newOutputStream(file.toPath())) {
+			index.writeTo(out);
+		}
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.core.io.support;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.net.JarURLConnection;
@@ -27,12 +28,20 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipException;
@@ -40,6 +49,7 @@ import java.util.zip.ZipException;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.SpringProperties;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -50,6 +60,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.CustomizableThreadCreator;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.ResourceUtils;
@@ -182,6 +193,24 @@ import org.springframework.util.StringUtils;
  */
 public class PathMatchingResourcePatternResolver implements ResourcePatternResolver {
 
+	/**
+	 * System property that instructs Spring to search the root directories
+	 * of a pattern in parallel: {@code "spring.classpath.parallelScanning"}.
+	 * <p>Can also be set via the {@link SpringProperties} mechanism.
+	 * @since 5.1.21
+	 * @see #setParallelScanning
+	 */
+	public static final String PARALLEL_SCANNING_PROPERTY_NAME = "spring.classpath.parallelScanning";
+
+	/**
+	 * System property that specifies the location of a file to persist the
+	 * jar entry index in: {@code "spring.classpath.jarIndexFile"}.
+	 * <p>Can also be set via the {@link SpringProperties} mechanism.
+	 * @since 5.1.21
+	 * @see #setJarIndexFile
+	 */
+	public static final String JAR_INDEX_FILE_PROPERTY_NAME = "spring.classpath.jarIndexFile";
+
 	private static final Log logger = LogFactory.getLog(PathMatchingResourcePatternResolver.class);
 
 	@Nullable
@@ -205,6 +234,13 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	private boolean parallelScanning = SpringProperties.getFlag(PARALLEL_SCANNING_PROPERTY_NAME);
+
+	@Nullable
+	private Executor parallelScanningExecutor;
+
+	private JarEntryIndex jarEntryIndex = new JarEntryIndex(getDefaultJarIndexFile());
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +304,73 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Specify whether the root directories of a location pattern should be
+	 * searched in parallel, using the {@link #setParallelScanningExecutor
+	 * parallel scanning executor}.
+	 * <p>Default is "false", unless the {@link #PARALLEL_SCANNING_PROPERTY_NAME}
+	 * property is set. Worth enabling when a pattern such as
+	 * {@code "classpath*:com/mycompany/**&#47;*.class"} resolves against many jar
+	 * files. Note that {@link #doFindPathMatchingJarResources} and
+	 * {@link #doFindPathMatchingFileResources} are invoked concurrently then.
+	 * @since 5.1.21
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether root directories are searched in parallel.
+	 * @since 5.1.21
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
+	/**
+	 * Specify the executor to search root directories with when
+	 * {@linkplain #setParallelScanning parallel scanning} is enabled.
+	 * <p>Default is a pool of daemon threads dedicated to classpath scanning,
+	 * shared by all resolvers and sized to the number of available processors,
+	 * with idle threads expiring after a minute. Scanning tasks block on file
+	 * and jar access, so they are deliberately kept off the common
+	 * {@link java.util.concurrent.ForkJoinPool}.
+	 * @param parallelScanningExecutor the executor to use, or {@code null}
+	 * for the default
+	 * @since 5.1.21
+	 */
+	public void setParallelScanningExecutor(@Nullable Executor parallelScanningExecutor) {
+		this.parallelScanningExecutor = parallelScanningExecutor;
+	}
+
+	/**
+	 * Return the executor to search root directories with when
+	 * {@linkplain #setParallelScanning parallel scanning} is enabled.
+	 * @return the configured executor, or the {@linkplain #getDefaultParallelScanningExecutor()
+	 * default executor} if none has been specified
+	 * @since 5.1.21
+	 */
+	public Executor getParallelScanningExecutor() {
+		return (this.parallelScanningExecutor != null ?
+				this.parallelScanningExecutor : getDefaultParallelScanningExecutor());
+	}
+
+	/**
+	 * Specify a file to persist the entries of scanned jar files in, allowing
+	 * subsequent runs to skip the enumeration of unchanged jar files.
+	 * <p>Jar entries are indexed in memory in any case, with each jar file
+	 * enumerated once per resolver. The index file additionally keeps the
+	 * entries of local jar files across restarts, keyed by path and only
+	 * used while the size and last-modified timestamp of the jar file match.
+	 * <p>Default is none, unless the {@link #JAR_INDEX_FILE_PROPERTY_NAME}
+	 * property is set.
+	 * @param jarIndexFile the index file location, or {@code null} for none
+	 * @since 5.1.21
+	 */
+	public void setJarIndexFile(@Nullable File jarIndexFile) {
+		this.jarEntryIndex = new JarEntryIndex(jarIndexFile);
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -500,32 +603,75 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		String subPattern = locationPattern.substring(rootDirPath.length());
 		Resource[] rootDirResources = getResources(rootDirPath);
 		Set<Resource> result = new LinkedHashSet<>(16);
-		for (Resource rootDirResource : rootDirResources) {
-			rootDirResource = resolveRootDirResource(rootDirResource);
-			URL rootDirUrl = rootDirResource.getURL();
-			if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
-				URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
-				if (resolvedUrl != null) {
-					rootDirUrl = resolvedUrl;
-				}
-				rootDirResource = new UrlResource(rootDirUrl);
+		if (this.parallelScanning && rootDirResources.length > 1) {
+			Executor executor = getParallelScanningExecutor();
+			List<CompletableFuture<Set<Resource>>> futures = new ArrayList<>(rootDirResources.length);
+			for (Resource rootDirResource : rootDirResources) {
+				futures.add(CompletableFuture.supplyAsync(() -> {
+					try {
+						return findPathMatchingResources(rootDirResource, subPattern);
+					}
+					catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				}, executor));
 			}
-			if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
-				result.addAll(VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher()));
+			try {
+				for (CompletableFuture<Set<Resource>> future : futures) {
+					result.addAll(future.join());
+				}
 			}
-			else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
-				result.addAll(doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern));
+			catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof UncheckedIOException) {
+					throw ((UncheckedIOException) cause).getCause();
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw ex;
 			}
-			else {
-				result.addAll(doFindPathMatchingFileResources(rootDirResource, subPattern));
+		}
+		else {
+			for (Resource rootDirResource : rootDirResources) {
+				result.addAll(findPathMatchingResources(rootDirResource, subPattern));
 			}
 		}
+		this.jarEntryIndex.storeIfNecessary();
 		if (logger.isTraceEnabled()) {
 			logger.trace("Resolved location pattern [" + locationPattern + "] to resources " + result);
 		}
 		return result.toArray(new Resource[0]);
 	}
 
+	/**
+	 * Find all resources underneath the given root directory that match the
+	 * given sub pattern.
+	 */
+	private Set<Resource> findPathMatchingResources(Resource rootDirResource, String subPattern) throws IOException {
+		rootDirResource = resolveRootDirResource(rootDirResource);
+		URL rootDirUrl = rootDirResource.getURL();
+		if (equinoxResolveMethod != null && rootDirUrl.getProtocol().startsWith("bundle")) {
+			URL resolvedUrl = (URL) ReflectionUtils.invokeMethod(equinoxResolveMethod, null, rootDirUrl);
+			if (resolvedUrl != null) {
+				rootDirUrl = resolvedUrl;
+			}
+			rootDirResource = new UrlResource(rootDirUrl);
+		}
+		if (rootDirUrl.getProtocol().startsWith(ResourceUtils.URL_PROTOCOL_VFS)) {
+			return VfsResourceMatchingDelegate.findMatchingResources(rootDirUrl, subPattern, getPathMatcher());
+		}
+		else if (ResourceUtils.isJarURL(rootDirUrl) || isJarResource(rootDirResource)) {
+			return doFindPathMatchingJarResources(rootDirResource, rootDirUrl, subPattern);
+		}
+		else {
+			return doFindPathMatchingFileResources(rootDirResource, subPattern);
+		}
+	}
+
 	/**
 	 * Determine the root directory for the given location.
 	 * <p>Used for determining the starting point for file matching,
@@ -583,6 +729,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	/**
 	 * Find all resources in jar files that match the given location pattern
 	 * via the Ant-style PathMatcher.
+	 * <p>The entries of each jar file are enumerated once and indexed for
+	 * subsequent patterns against the same jar file.
 	 * @param rootDirResource the root directory as Resource
 	 * @param rootDirURL the pre-resolved root directory URL
 	 * @param subPattern the sub pattern to match (below the root directory)
@@ -596,20 +744,29 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			throws IOException {
 
 		URLConnection con = rootDirURL.openConnection();
-		JarFile jarFile;
+		JarFile jarFile = null;
+		String[] entries;
 		String jarFileUrl;
 		String rootEntryPath;
-		boolean closeJarFile;
+		boolean closeJarFile = false;
 
 		if (con instanceof JarURLConnection) {
 			// Should usually be the case for traditional JAR files.
 			JarURLConnection jarCon = (JarURLConnection) con;
-			ResourceUtils.useCachesIfNecessary(jarCon);
-			jarFile = jarCon.getJarFile();
 			jarFileUrl = jarCon.getJarFileURL().toExternalForm();
-			JarEntry jarEntry = jarCon.getJarEntry();
-			rootEntryPath = (jarEntry != null ? jarEntry.getName() : "");
-			closeJarFile = !jarCon.getUseCaches();
+			entries = this.jarEntryIndex.getEntries(jarFileUrl);
+			if (entries != null) {
+				// Indexed already -> no need to open the jar file.
+				String entryName = jarCon.getEntryName();
+				rootEntryPath = (entryName != null ? entryName : "");
+			}
+			else {
+				ResourceUtils.useCachesIfNecessary(jarCon);
+				jarFile = jarCon.getJarFile();
+				JarEntry jarEntry = jarCon.getJarEntry();
+				rootEntryPath = (jarEntry != null ? jarEntry.getName() : "");
+				closeJarFile = !jarCon.getUseCaches();
+			}
 		}
 		else {
 			// No JarURLConnection -> need to resort to URL file parsing.
@@ -625,14 +782,20 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				if (separatorIndex != -1) {
 					jarFileUrl = urlFile.substring(0, separatorIndex);
 					rootEntryPath = urlFile.substring(separatorIndex + 2);  // both separators are 2 chars
-					jarFile = getJarFile(jarFileUrl);
+					entries = this.jarEntryIndex.getEntries(jarFileUrl);
+					if (entries == null) {
+						jarFile = getJarFile(jarFileUrl);
+					}
 				}
 				else {
-					jarFile = new JarFile(urlFile);
 					jarFileUrl = urlFile;
 					rootEntryPath = "";
+					entries = this.jarEntryIndex.getEntries(jarFileUrl);
+					if (entries == null) {
+						jarFile = new JarFile(urlFile);
+					}
 				}
-				closeJarFile = true;
+				closeJarFile = (jarFile != null);
 			}
 			catch (ZipException ex) {
 				if (logger.isDebugEnabled()) {
@@ -651,26 +814,34 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				// The Sun JRE does not return a slash here, but BEA JRockit does.
 				rootEntryPath = rootEntryPath + "/";
 			}
+			if (entries == null) {
+				Assert.state(jarFile != null, "No JarFile to index");
+				entries = this.jarEntryIndex.putEntries(jarFileUrl, getEntryNames(jarFile));
+			}
 			Set<Resource> result = new LinkedHashSet<>(8);
-			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
-				JarEntry entry = entries.nextElement();
-				String entryPath = entry.getName();
-				if (entryPath.startsWith(rootEntryPath)) {
-					String relativePath = entryPath.substring(rootEntryPath.length());
-					if (getPathMatcher().match(subPattern, relativePath)) {
-						result.add(rootDirResource.createRelative(relativePath));
-					}
+			for (String entryPath : JarEntryIndex.getEntriesStartingWith(entries, rootEntryPath)) {
+				String relativePath = entryPath.substring(rootEntryPath.length());
+				if (getPathMatcher().match(subPattern, relativePath)) {
+					result.add(rootDirResource.createRelative(relativePath));
 				}
 			}
 			return result;
 		}
 		finally {
-			if (closeJarFile) {
+			if (closeJarFile && jarFile != null) {
 				jarFile.close();
 			}
 		}
 	}
 
+	private static String[] getEntryNames(JarFile jarFile) {
+		List<String> entryNames = new ArrayList<>(jarFile.size());
+		for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+			entryNames.add(entries.nextElement().getName());
+		}
+		return entryNames.toArray(new String[0]);
+	}
+
 	/**
 	 * Resolve the given jar file URL into a JarFile object.
 	 */
@@ -838,6 +1009,54 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	}
 
 
+	@Nullable
+	private static File getDefaultJarIndexFile() {
+		String jarIndexFile = SpringProperties.getProperty(JAR_INDEX_FILE_PROPERTY_NAME);
+		return (StringUtils.hasText(jarIndexFile) ? new File(jarIndexFile.trim()) : null);
+	}
+
+
+	/**
+	 * Clear the shared state of {@linkplain #setJarIndexFile jar index files}:
+	 * pending entries are written, and index files are read from disk again
+	 * on next access.
+	 * @since 5.1.21
+	 */
+	public static void clearCache() {
+		JarEntryIndex.clearCache();
+	}
+
+	/**
+	 * Return the default executor for blocking classpath scanning tasks: a pool
+	 * of daemon threads shared by all resolvers and sized to the number of
+	 * available processors, with idle threads expiring after a minute.
+	 * @since 5.1.21
+	 * @see #setParallelScanningExecutor
+	 */
+	public static Executor getDefaultParallelScanningExecutor() {
+		return ScanningExecutorHolder.executor;
+	}
+
+
+	/**
+	 * Holder for the default parallel scanning executor, created on first use.
+	 */
+	private static class ScanningExecutorHolder {
+
+		static final Executor executor;
+
+		static {
+			int poolSize = Runtime.getRuntime().availableProcessors();
+			CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("classpath-scanning-");
+			threadCreator.setDaemon(true);
+			ThreadPoolExecutor threadPool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(), threadCreator::createThread);
+			threadPool.allowCoreThreadTimeOut(true);
+			executor = threadPool;
+		}
+	}
+
+
 	/**
 	 * Inner delegate class, avoiding a hard JBoss VFS API dependency at runtime.
 	 */
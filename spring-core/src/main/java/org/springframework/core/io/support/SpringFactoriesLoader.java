@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -54,6 +54,10 @@ import org.springframework.util.StringUtils;
  * where {@code example.MyService} is the name of the interface, and {@code MyServiceImpl1}
  * and {@code MyServiceImpl2} are two implementations.
  *
+ * <p>If a current {@link MergedPropertiesIndex} for {@value #FACTORIES_RESOURCE_LOCATION}
+ * is available, the factory names are taken from that index instead of enumerating
+ * all {@code spring.factories} files on the classpath.
+ *
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -128,6 +132,15 @@ public final class SpringFactoriesLoader {
 			return result;
 		}
 
+		MergedPropertiesIndex index = MergedPropertiesIndex.load(classLoader);
+		if (index != null) {
+			result = index.getEntries(FACTORIES_RESOURCE_LOCATION);
+			if (result != null) {
+				cache.put(classLoader, result);
+				return result;
+			}
+		}
+
 		try {
 			Enumeration<URL> urls = (classLoader != null ?
 					classLoader.getResources(FACTORIES_RESOURCE_LOCATION) :
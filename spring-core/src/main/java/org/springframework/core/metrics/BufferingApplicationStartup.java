@@ -0,0 +1,387 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that keeps the most recently ended
+ * {@link StartupStep steps} in a ring buffer of fixed capacity, for inspection
+ * once the application has started, e.g. to find slow bean instantiations
+ * without attaching a profiler.
+ *
+ * <p>Each step records its start time, its duration and its tags, as well as
+ * the step that was running on the same thread when it started (its parent).
+ * The buffered steps can be exposed as a tree in JSON format through
+ * {@link #toJson()}. Once the buffer is full, the oldest steps are dropped;
+ * children of dropped steps show up as roots of the tree.
+ *
+ * <p>This implementation is thread-safe: steps may be started and ended
+ * concurrently, e.g. during parallel pre-instantiation of singletons.
+ *
+ * @since 5.1.21
+ * @see #getBufferedSteps()
+ * @see #toJson()
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final BufferedStartupStep[] buffer;
+
+	/** Index of the next slot to write into, guarded by the buffer. */
+	private int nextIndex;
+
+	/** Total number of ended steps, guarded by the buffer. */
+	private long endedSteps;
+
+	private final AtomicLong idGenerator = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new NamedThreadLocal<>("Current startup step");
+
+
+	/**
+	 * Create a new buffering {@code ApplicationStartup}.
+	 * @param capacity the maximum number of ended steps to keep
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.buffer = new BufferedStartupStep[capacity];
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(this.idGenerator.incrementAndGet(), name, parent);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	private void record(BufferedStartupStep step, @Nullable BufferedStartupStep parent) {
+		// Steps that were never ended (e.g. on an exception path) must not
+		// remain the current step once one of their ancestors has ended.
+		BufferedStartupStep current = this.currentStep.get();
+		while (current != null && current != step) {
+			current = current.parent;
+		}
+		if (current != null) {
+			if (parent != null) {
+				this.currentStep.set(parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		synchronized (this.buffer) {
+			this.buffer[this.nextIndex] = step;
+			this.nextIndex = (this.nextIndex + 1) % this.buffer.length;
+			this.endedSteps++;
+		}
+	}
+
+	/**
+	 * Return the capacity of the buffer.
+	 */
+	public int getCapacity() {
+		return this.buffer.length;
+	}
+
+	/**
+	 * Return the number of ended steps which have been dropped from the buffer
+	 * in order to make room for more recent ones.
+	 */
+	public long getDroppedStepCount() {
+		synchronized (this.buffer) {
+			return Math.max(0, this.endedSteps - this.buffer.length);
+		}
+	}
+
+	/**
+	 * Return a snapshot of the buffered steps, in the order in which they ended.
+	 */
+	public List<StartupStep> getBufferedSteps() {
+		List<StartupStep> steps = new ArrayList<>(this.buffer.length);
+		synchronized (this.buffer) {
+			int start = (this.endedSteps > this.buffer.length ? this.nextIndex : 0);
+			int count = (int) Math.min(this.endedSteps, this.buffer.length);
+			for (int i = 0; i < count; i++) {
+				steps.add(this.buffer[(start + i) % this.buffer.length]);
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * Remove all buffered steps.
+	 */
+	public void clear() {
+		synchronized (this.buffer) {
+			Arrays.fill(this.buffer, null);
+			this.nextIndex = 0;
+			this.endedSteps = 0;
+		}
+	}
+
+	/**
+	 * Return the buffered steps as a JSON document, with child steps nested
+	 * within their parent steps and each level ordered by start.
+	 * <p>Each step is rendered with its "id", "name", "startTime" (ISO-8601),
+	 * "duration" (in milliseconds) and "tags", plus its "parentId" (if any)
+	 * and its "children" (if any). The top-level object also indicates the
+	 * number of "droppedSteps".
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder(256);
+		try {
+			writeJson(json);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return json.toString();
+	}
+
+	/**
+	 * Write the buffered steps as a JSON document to the given output.
+	 * @param out the output to write to
+	 * @throws IOException in case of I/O errors
+	 * @see #toJson()
+	 */
+	public void writeJson(Appendable out) throws IOException {
+		List<StartupStep> steps = getBufferedSteps();
+		long droppedSteps = getDroppedStepCount();
+		steps.sort(Comparator.comparingLong(StartupStep::getId));
+
+		Map<Long, List<BufferedStartupStep>> children = new HashMap<>(steps.size());
+		Map<Long, BufferedStartupStep> stepsById = new HashMap<>(steps.size());
+		for (StartupStep step : steps) {
+			stepsById.put(step.getId(), (BufferedStartupStep) step);
+		}
+		List<BufferedStartupStep> roots = new ArrayList<>();
+		for (StartupStep step : steps) {
+			Long parentId = step.getParentId();
+			if (parentId != null && stepsById.containsKey(parentId)) {
+				children.computeIfAbsent(parentId, id -> new ArrayList<>()).add((BufferedStartupStep) step);
+			}
+			else {
+				roots.add((BufferedStartupStep) step);
+			}
+		}
+
+		out.append("{\"droppedSteps\":").append(Long.toString(droppedSteps)).append(",\"steps\":");
+		writeJson(roots, children, out);
+		out.append('}');
+	}
+
+	private void writeJson(List<BufferedStartupStep> steps, Map<Long, List<BufferedStartupStep>> children,
+			Appendable out) throws IOException {
+
+		out.append('[');
+		for (int i = 0; i < steps.size(); i++) {
+			BufferedStartupStep step = steps.get(i);
+			if (i > 0) {
+				out.append(',');
+			}
+			out.append("{\"id\":").append(Long.toString(step.getId()));
+			if (step.getParentId() != null) {
+				out.append(",\"parentId\":").append(step.getParentId().toString());
+			}
+			out.append(",\"name\":");
+			appendString(step.getName(), out);
+			out.append(",\"startTime\":\"").append(Instant.ofEpochMilli(step.startTime).toString());
+			out.append("\",\"duration\":").append(String.format(Locale.ROOT, "%.3f", step.getDurationMillis()));
+			out.append(",\"tags\":{");
+			boolean first = true;
+			for (StartupStep.Tag tag : step.getTags()) {
+				if (!first) {
+					out.append(',');
+				}
+				appendString(tag.getKey(), out);
+				out.append(':');
+				appendString(tag.getValue(), out);
+				first = false;
+			}
+			out.append('}');
+			List<BufferedStartupStep> stepChildren = children.get(step.getId());
+			if (stepChildren != null) {
+				out.append(",\"children\":");
+				writeJson(stepChildren, children, out);
+			}
+			out.append('}');
+		}
+		out.append(']');
+	}
+
+	private static void appendString(String value, Appendable out) throws IOException {
+		out.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			}
+			else if (c < 0x20) {
+				out.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				out.append(c);
+			}
+		}
+		out.append('"');
+	}
+
+
+	/**
+	 * {@link StartupStep} recorded in the buffer once it has ended.
+	 */
+	private class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final Long parentId;
+
+		@Nullable
+		private BufferedStartupStep parent;
+
+		private final long startTime = System.currentTimeMillis();
+
+		private final long startNanos = System.nanoTime();
+
+		private volatile long durationNanos = -1;
+
+		private final List<Tag> tags = new ArrayList<>(2);
+
+		BufferedStartupStep(long id, String name, @Nullable BufferedStartupStep parent) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.parentId = (parent != null ? parent.getId() : null);
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(this.durationNanos < 0, "StartupStep has already ended");
+			synchronized (this.tags) {
+				this.tags.add(new BufferedTag(key, value));
+			}
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> tags;
+			synchronized (this.tags) {
+				tags = Collections.unmodifiableList(new ArrayList<>(this.tags));
+			}
+			return tags::iterator;
+		}
+
+		/**
+		 * Return the duration of the step in milliseconds,
+		 * or the time elapsed so far if it has not ended yet.
+		 */
+		double getDurationMillis() {
+			long durationNanos = this.durationNanos;
+			if (durationNanos < 0) {
+				durationNanos = System.nanoTime() - this.startNanos;
+			}
+			return durationNanos / 1_000_000d;
+		}
+
+		@Override
+		public void end() {
+			Assert.state(this.durationNanos < 0, "StartupStep has already ended");
+			this.durationNanos = System.nanoTime() - this.startNanos;
+			BufferedStartupStep parent = this.parent;
+			this.parent = null;
+			record(this, parent);
+		}
+
+		@Override
+		public String toString() {
+			return "StartupStep '" + this.name + "' [id=" + this.id + ", duration=" +
+					String.format(Locale.ROOT, "%.3f", getDurationMillis()) + "ms]";
+		}
+	}
+
+
+	private static class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
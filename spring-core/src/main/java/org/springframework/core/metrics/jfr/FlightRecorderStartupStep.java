@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics.jfr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link StartupStep} implementation for the Java Flight Recorder.
+ *
+ * <p>This variant delegates to a {@link FlightRecorderStartupEvent JFR event extension}
+ * to collect and record data in Java Flight Recorder.
+ *
+ * @since 5.1.21
+ */
+class FlightRecorderStartupStep implements StartupStep {
+
+	private final FlightRecorderStartupEvent event;
+
+	private final FlightRecorderTags tags = new FlightRecorderTags();
+
+	@Nullable
+	private FlightRecorderStartupStep parent;
+
+	private final Consumer<FlightRecorderStartupStep> recordingCallback;
+
+
+	public FlightRecorderStartupStep(long id, String name, @Nullable FlightRecorderStartupStep parent,
+			Consumer<FlightRecorderStartupStep> recordingCallback) {
+
+		this.event = new FlightRecorderStartupEvent(id, name, (parent != null ? parent.getId() : 0L));
+		this.event.begin();
+		this.parent = parent;
+		this.recordingCallback = recordingCallback;
+	}
+
+
+	@Override
+	public String getName() {
+		return this.event.name;
+	}
+
+	@Override
+	public long getId() {
+		return this.event.eventId;
+	}
+
+	@Override
+	@Nullable
+	public Long getParentId() {
+		return (this.event.parentId != 0L ? this.event.parentId : null);
+	}
+
+	@Nullable
+	FlightRecorderStartupStep getParent() {
+		return this.parent;
+	}
+
+	@Override
+	public StartupStep tag(String key, String value) {
+		this.tags.add(key, value);
+		return this;
+	}
+
+	@Override
+	public StartupStep tag(String key, Supplier<String> value) {
+		this.tags.add(key, value.get());
+		return this;
+	}
+
+	@Override
+	public Tags getTags() {
+		return this.tags;
+	}
+
+	@Override
+	public void end() {
+		this.event.end();
+		if (this.event.shouldCommit()) {
+			StringBuilder builder = new StringBuilder();
+			this.tags.forEach(tag ->
+					builder.append(tag.getKey()).append('=').append(tag.getValue()).append(',')
+			);
+			this.event.setTags(builder.toString());
+		}
+		this.event.commit();
+		this.recordingCallback.accept(this);
+		this.parent = null;
+	}
+
+
+	private static class FlightRecorderTags implements Tags {
+
+		private final List<Tag> tags = new ArrayList<>(2);
+
+		public void add(String key, String value) {
+			this.tags.add(new FlightRecorderTag(key, value));
+		}
+
+		@Override
+		public Iterator<Tag> iterator() {
+			return Collections.unmodifiableList(this.tags).iterator();
+		}
+	}
+
+
+	private static class FlightRecorderTag implements Tag {
+
+		private final String key;
+
+		private final String value;
+
+		public FlightRecorderTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+}
@@ -0,0 +1,9 @@
+/**
+ * Support package for recording startup metrics using Java Flight Recorder.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.core.metrics.jfr;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -116,30 +116,81 @@ public class CachingMetadataReaderFactory extends SimpleMetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		return getCachedMetadataReader(resource, null);
+	}
+
+	@Override
+	public MetadataReader getMetadataReader(Resource resource, byte[] classFile) throws IOException {
+		return getCachedMetadataReader(resource, classFile);
+	}
+
+	private MetadataReader getCachedMetadataReader(Resource resource, @Nullable byte[] classFile)
+			throws IOException {
+
 		if (this.metadataReaderCache instanceof ConcurrentMap) {
 			// No synchronization necessary...
 			MetadataReader metadataReader = this.metadataReaderCache.get(resource);
 			if (metadataReader == null) {
-				metadataReader = super.getMetadataReader(resource);
+				metadataReader = createMetadataReader(resource, classFile);
 				this.metadataReaderCache.put(resource, metadataReader);
 			}
 			return metadataReader;
 		}
 		else if (this.metadataReaderCache != null) {
-			synchronized (this.metadataReaderCache) {
-				MetadataReader metadataReader = this.metadataReaderCache.get(resource);
-				if (metadataReader == null) {
-					metadataReader = super.getMetadataReader(resource);
-					this.metadataReaderCache.put(resource, metadataReader);
+			Map<Resource, MetadataReader> cache = this.metadataReaderCache;
+			MetadataReader metadataReader;
+			synchronized (cache) {
+				metadataReader = cache.get(resource);
+			}
+			if (metadataReader == null) {
+				// Parse outside of the lock, allowing for concurrent scanning threads
+				metadataReader = createMetadataReader(resource, classFile);
+				synchronized (cache) {
+					MetadataReader existing = cache.putIfAbsent(resource, metadataReader);
+					if (existing != null) {
+						metadataReader = existing;
+					}
 				}
-				return metadataReader;
 			}
+			return metadataReader;
 		}
 		else {
-			return super.getMetadataReader(resource);
+			return createMetadataReader(resource, classFile);
 		}
 	}
 
+	/**
+	 * Create a new MetadataReader for the given resource, to be cached by this factory.
+	 * <p>The default implementation parses the class file through
+	 * {@link SimpleMetadataReaderFactory#getMetadataReader(Resource)}.
+	 * @param resource the class file resource
+	 * @return the MetadataReader for the resource
+	 * @throws IOException in case of I/O failure
+	 * @since 5.1.21
+	 */
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		return super.getMetadataReader(resource);
+	}
+
+	/**
+	 * Create a new MetadataReader for the given resource, to be cached by this factory.
+	 * <p>The default implementation parses the class file through
+	 * {@link SimpleMetadataReaderFactory#getMetadataReader(Resource)}, or through
+	 * {@link SimpleMetadataReaderFactory#getMetadataReader(Resource, byte[])}
+	 * if its content has been read already. Subclasses overriding
+	 * {@link #createMetadataReader(Resource)} should override this variant as well.
+	 * @param resource the class file resource
+	 * @param classFile the content of the resource, or {@code null} if not read yet
+	 * @return the MetadataReader for the resource
+	 * @throws IOException in case of I/O failure
+	 * @since 5.1.21
+	 */
+	protected MetadataReader createMetadataReader(Resource resource, @Nullable byte[] classFile)
+			throws IOException {
+
+		return (classFile != null ? super.getMetadataReader(resource, classFile) : createMetadataReader(resource));
+	}
+
 	/**
 	 * Clear the local MetadataReader cache, if any, removing all cached class metadata.
 	 */
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.NestedIOException;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Lightweight view of a class file: the class header (access flags, class
+ * name, super class and interfaces) plus the types of the annotations declared
+ * on the class itself.
+ *
+ * <p>In contrast to a full {@link MetadataReader}, the field and method tables
+ * are skipped without being visited, and annotation attribute values are not
+ * resolved. This makes a {@code ClassFileHeader} suitable as a cheap pre-filter,
+ * rejecting classes that cannot possibly match before building their complete
+ * metadata.
+ *
+ * <p>Annotation types are read from both the {@code RuntimeVisibleAnnotations}
+ * and the {@code RuntimeInvisibleAnnotations} attribute, consistent with
+ * the annotations exposed by an ASM-based {@link MetadataReader}.
+ *
+ * @since 5.1.21
+ * @see MetadataReaderFactory
+ */
+public final class ClassFileHeader {
+
+	private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+	private static final String RUNTIME_INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+
+	private final int access;
+
+	private final String className;
+
+	@Nullable
+	private final String superClassName;
+
+	private final String[] interfaceNames;
+
+	private final String[] annotationTypes;
+
+
+	private ClassFileHeader(ClassReader classReader) {
+		char[] charBuffer = new char[classReader.getMaxStringLength()];
+		this.access = classReader.getAccess();
+		this.className = ClassUtils.convertResourcePathToClassName(classReader.getClassName());
+		String superName = classReader.getSuperName();
+		this.superClassName = (superName != null ? ClassUtils.convertResourcePathToClassName(superName) : null);
+		String[] interfaces = classReader.getInterfaces();
+		this.interfaceNames = new String[interfaces.length];
+		for (int i = 0; i < interfaces.length; i++) {
+			this.interfaceNames[i] = ClassUtils.convertResourcePathToClassName(interfaces[i]);
+		}
+
+		// Skip access flags, this class, super class and interfaces
+		int offset = classReader.header + 6;
+		offset += 2 + 2 * classReader.readUnsignedShort(offset);
+		// Skip fields and methods
+		offset = skipMembers(classReader, offset);
+		offset = skipMembers(classReader, offset);
+
+		List<String> annotationTypes = new ArrayList<>(4);
+		int attributeCount = classReader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < attributeCount; i++) {
+			String attributeName = classReader.readUTF8(offset, charBuffer);
+			int attributeLength = classReader.readInt(offset + 2);
+			offset += 6;
+			if (RUNTIME_VISIBLE_ANNOTATIONS.equals(attributeName) ||
+					RUNTIME_INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+				readAnnotationTypes(classReader, offset, charBuffer, annotationTypes);
+			}
+			offset += attributeLength;
+		}
+		this.annotationTypes = annotationTypes.toArray(new String[0]);
+	}
+
+
+	/**
+	 * Return the name of the class.
+	 */
+	public String getClassName() {
+		return this.className;
+	}
+
+	/**
+	 * Return whether the class is an interface (including annotation types).
+	 */
+	public boolean isInterface() {
+		return ((this.access & Opcodes.ACC_INTERFACE) != 0);
+	}
+
+	/**
+	 * Return whether the class is an annotation type.
+	 */
+	public boolean isAnnotation() {
+		return ((this.access & Opcodes.ACC_ANNOTATION) != 0);
+	}
+
+	/**
+	 * Return whether the class is marked as abstract.
+	 */
+	public boolean isAbstract() {
+		return ((this.access & Opcodes.ACC_ABSTRACT) != 0);
+	}
+
+	/**
+	 * Return whether the class is concrete, i.e. neither an interface
+	 * nor an abstract class.
+	 */
+	public boolean isConcrete() {
+		return !(isInterface() || isAbstract());
+	}
+
+	/**
+	 * Return the name of the super class, or {@code null} if none
+	 * (for {@code java.lang.Object} and for interfaces).
+	 */
+	@Nullable
+	public String getSuperClassName() {
+		return (isInterface() ? null : this.superClassName);
+	}
+
+	/**
+	 * Return the names of all interfaces that the class implements,
+	 * or an empty array if none.
+	 */
+	public String[] getInterfaceNames() {
+		return this.interfaceNames.clone();
+	}
+
+	/**
+	 * Return the fully-qualified names of the annotation types declared
+	 * directly on the class, in declaration order.
+	 * <p>Meta-annotations are not resolved.
+	 */
+	public String[] getAnnotationTypes() {
+		return this.annotationTypes.clone();
+	}
+
+	/**
+	 * Determine whether the class is directly annotated with the given type.
+	 * @param annotationName the fully-qualified name of the annotation type
+	 */
+	public boolean hasAnnotation(String annotationName) {
+		return ObjectUtils.containsElement(this.annotationTypes, annotationName);
+	}
+
+
+	/**
+	 * Read the header of the given class file resource.
+	 * @param resource the class file resource
+	 * @return the class file header
+	 * @throws IOException in case of I/O failure, or if the class file
+	 * cannot be parsed
+	 */
+	public static ClassFileHeader read(Resource resource) throws IOException {
+		try (InputStream is = new BufferedInputStream(resource.getInputStream())) {
+			return new ClassFileHeader(new ClassReader(is));
+		}
+		catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
+					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+		}
+	}
+
+	/**
+	 * Read the header of the given class file content.
+	 * @param classFile the class file content
+	 * @return the class file header
+	 * @throws IllegalArgumentException if the class file cannot be parsed
+	 */
+	public static ClassFileHeader read(byte[] classFile) {
+		return new ClassFileHeader(new ClassReader(classFile));
+	}
+
+
+	private static int skipMembers(ClassReader classReader, int offset) {
+		int memberCount = classReader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < memberCount; i++) {
+			// Skip access flags, name and descriptor
+			int attributeCount = classReader.readUnsignedShort(offset + 6);
+			offset += 8;
+			for (int j = 0; j < attributeCount; j++) {
+				offset += 6 + classReader.readInt(offset + 2);
+			}
+		}
+		return offset;
+	}
+
+	private static void readAnnotationTypes(
+			ClassReader classReader, int offset, char[] charBuffer, List<String> annotationTypes) {
+
+		int annotationCount = classReader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < annotationCount; i++) {
+			String descriptor = classReader.readUTF8(offset, charBuffer);
+			annotationTypes.add(Type.getType(descriptor).getClassName());
+			offset = skipAnnotationValues(classReader, offset + 2);
+		}
+	}
+
+	private static int skipAnnotationValues(ClassReader classReader, int offset) {
+		int pairCount = classReader.readUnsignedShort(offset);
+		offset += 2;
+		for (int i = 0; i < pairCount; i++) {
+			// Skip element name
+			offset = skipElementValue(classReader, offset + 2);
+		}
+		return offset;
+	}
+
+	private static int skipElementValue(ClassReader classReader, int offset) {
+		int tag = classReader.readByte(offset);
+		offset++;
+		switch (tag) {
+			case 'e':
+				// Enum type and constant name
+				return offset + 4;
+			case '@':
+				// Nested annotation: type, then element value pairs
+				return skipAnnotationValues(classReader, offset + 2);
+			case '[':
+				int valueCount = classReader.readUnsignedShort(offset);
+				offset += 2;
+				for (int i = 0; i < valueCount; i++) {
+					offset = skipElementValue(classReader, offset);
+				}
+				return offset;
+			default:
+				// Constant value or class literal
+				return offset + 2;
+		}
+	}
+
+}
@@ -0,0 +1,612 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+
+/**
+ * ASM {@link ClassVisitor} that records the events relevant to class and
+ * annotation metadata in a compact binary form while passing them on to a
+ * delegate visitor, allowing for the same events to be replayed later on
+ * without reading the class file again.
+ *
+ * <p>Recorded are the class header, outer and inner class declarations, as
+ * well as all class-level and method-level annotations including their
+ * attribute values. Fields, method code and debug information are not
+ * recorded.
+ *
+ * <p>Package-visible in order to allow for repackaging the ASM library
+ * without effect on users of the {@code core.type} package.
+ *
+ * @since 5.1.21
+ * @see PersistentMetadataReaderFactory
+ */
+final class ClassVisitRecorder extends ClassVisitor {
+
+	private static final byte END = 0;
+
+	private static final byte OUTER_CLASS = 1;
+
+	private static final byte INNER_CLASS = 2;
+
+	private static final byte ANNOTATION = 3;
+
+	private static final byte METHOD = 4;
+
+	private static final byte VALUE = 5;
+
+	private static final byte ENUM = 6;
+
+	private static final byte NESTED_ANNOTATION = 7;
+
+	private static final byte ARRAY = 8;
+
+	private static final byte TYPE = 'T';
+
+	private static final byte STRING = 's';
+
+	private static final byte PRIMITIVE_ARRAY = '[';
+
+
+	private final ByteArrayOutputStream content = new ByteArrayOutputStream(512);
+
+	private final DataOutputStream out = new DataOutputStream(this.content);
+
+	@Nullable
+	private Exception failure;
+
+
+	/**
+	 * Create a new {@code ClassVisitRecorder} for the given delegate.
+	 * @param classVisitor the visitor to pass all events on to
+	 */
+	ClassVisitRecorder(ClassVisitor classVisitor) {
+		super(SpringAsmInfo.ASM_VERSION, classVisitor);
+	}
+
+
+	@Override
+	public void visit(int version, int access, String name, @Nullable String signature,
+			@Nullable String superName, @Nullable String[] interfaces) {
+
+		record(() -> {
+			this.out.writeInt(version);
+			this.out.writeInt(access);
+			writeString(this.out, name);
+			writeNullableString(this.out, superName);
+			int interfaceCount = (interfaces != null ? interfaces.length : 0);
+			this.out.writeShort(interfaceCount);
+			for (int i = 0; i < interfaceCount; i++) {
+				writeString(this.out, interfaces[i]);
+			}
+		});
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	@Override
+	public void visitOuterClass(String owner, @Nullable String name, @Nullable String descriptor) {
+		record(() -> {
+			this.out.writeByte(OUTER_CLASS);
+			writeString(this.out, owner);
+			writeNullableString(this.out, name);
+			writeNullableString(this.out, descriptor);
+		});
+		super.visitOuterClass(owner, name, descriptor);
+	}
+
+	@Override
+	public void visitInnerClass(String name, @Nullable String outerName, @Nullable String innerName, int access) {
+		record(() -> {
+			this.out.writeByte(INNER_CLASS);
+			writeString(this.out, name);
+			writeNullableString(this.out, outerName);
+			writeNullableString(this.out, innerName);
+			this.out.writeInt(access);
+		});
+		super.visitInnerClass(name, outerName, innerName, access);
+	}
+
+	@Override
+	public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+		record(() -> {
+			this.out.writeByte(ANNOTATION);
+			writeString(this.out, descriptor);
+			this.out.writeBoolean(visible);
+		});
+		return new AnnotationRecorder(super.visitAnnotation(descriptor, visible));
+	}
+
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String descriptor,
+			@Nullable String signature, @Nullable String[] exceptions) {
+
+		MethodVisitor methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+		return new MethodRecorder(access, name, descriptor, methodVisitor);
+	}
+
+	@Override
+	public void visitEnd() {
+		record(() -> this.out.writeByte(END));
+		super.visitEnd();
+	}
+
+	/**
+	 * Return the recorded events.
+	 * @throws IOException if the events could not be recorded completely
+	 * (for example, in case of an annotation value of an unsupported type)
+	 */
+	byte[] toByteArray() throws IOException {
+		if (this.failure != null) {
+			throw new IOException("Incomplete class visit record: " + this.failure.getMessage(), this.failure);
+		}
+		return this.content.toByteArray();
+	}
+
+	private void record(RecordingStep step) {
+		if (this.failure == null) {
+			try {
+				step.write();
+			}
+			catch (IOException | IllegalArgumentException ex) {
+				// Keep visiting for the delegate, but refuse to hand out a partial record
+				this.failure = ex;
+			}
+		}
+	}
+
+
+	/**
+	 * Replay recorded events against the given visitor, in the order
+	 * originally visited.
+	 * @param content the recorded events, positioned at their start
+	 * @param classVisitor the visitor to pass all events on to
+	 * @throws IllegalArgumentException if the recorded content is corrupt
+	 */
+	static void replay(ByteBuffer content, ClassVisitor classVisitor) {
+		try {
+			int version = content.getInt();
+			int access = content.getInt();
+			String name = readString(content);
+			String superName = readNullableString(content);
+			String[] interfaces = new String[content.getShort() & 0xFFFF];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = readString(content);
+			}
+			classVisitor.visit(version, access, name, null, superName, interfaces);
+
+			byte tag;
+			while ((tag = content.get()) != END) {
+				switch (tag) {
+					case OUTER_CLASS:
+						classVisitor.visitOuterClass(
+								readString(content), readNullableString(content), readNullableString(content));
+						break;
+					case INNER_CLASS:
+						classVisitor.visitInnerClass(readString(content),
+								readNullableString(content), readNullableString(content), content.getInt());
+						break;
+					case ANNOTATION:
+						replayAnnotation(content, classVisitor.visitAnnotation(readString(content), content.get() != 0));
+						break;
+					case METHOD:
+						replayMethod(content, classVisitor.visitMethod(
+								content.getInt(), readString(content), readString(content), null, null));
+						break;
+					default:
+						throw new IllegalArgumentException("Unexpected tag " + tag);
+				}
+			}
+			classVisitor.visitEnd();
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException ex) {
+			throw new IllegalArgumentException("Corrupt class visit record", ex);
+		}
+	}
+
+	private static void replayMethod(ByteBuffer content, @Nullable MethodVisitor methodVisitor) {
+		byte tag;
+		while ((tag = content.get()) != END) {
+			if (tag != ANNOTATION) {
+				throw new IllegalArgumentException("Unexpected method tag " + tag);
+			}
+			String descriptor = readString(content);
+			boolean visible = (content.get() != 0);
+			replayAnnotation(content,
+					(methodVisitor != null ? methodVisitor.visitAnnotation(descriptor, visible) : null));
+		}
+		if (methodVisitor != null) {
+			methodVisitor.visitEnd();
+		}
+	}
+
+	private static void replayAnnotation(ByteBuffer content, @Nullable AnnotationVisitor annotationVisitor) {
+		byte tag;
+		while ((tag = content.get()) != END) {
+			String name = readNullableString(content);
+			switch (tag) {
+				case VALUE:
+					Object value = readValue(content);
+					if (annotationVisitor != null) {
+						annotationVisitor.visit(name, value);
+					}
+					break;
+				case ENUM:
+					String descriptor = readString(content);
+					String enumValue = readString(content);
+					if (annotationVisitor != null) {
+						annotationVisitor.visitEnum(name, descriptor, enumValue);
+					}
+					break;
+				case NESTED_ANNOTATION:
+					String nestedDescriptor = readString(content);
+					replayAnnotation(content,
+							(annotationVisitor != null ? annotationVisitor.visitAnnotation(name, nestedDescriptor) : null));
+					break;
+				case ARRAY:
+					replayAnnotation(content, (annotationVisitor != null ? annotationVisitor.visitArray(name) : null));
+					break;
+				default:
+					throw new IllegalArgumentException("Unexpected annotation tag " + tag);
+			}
+		}
+		if (annotationVisitor != null) {
+			annotationVisitor.visitEnd();
+		}
+	}
+
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		}
+		else if (value instanceof Type) {
+			out.writeByte(TYPE);
+			writeString(out, ((Type) value).getDescriptor());
+		}
+		else if (value instanceof Byte) {
+			out.writeByte('B');
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte('Z');
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte('C');
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte('S');
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte('I');
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte('J');
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte('F');
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte('D');
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof byte[]) {
+			byte[] array = (byte[]) value;
+			writeArrayHeader(out, 'B', array.length);
+			out.write(array);
+		}
+		else if (value instanceof boolean[]) {
+			boolean[] array = (boolean[]) value;
+			writeArrayHeader(out, 'Z', array.length);
+			for (boolean element : array) {
+				out.writeBoolean(element);
+			}
+		}
+		else if (value instanceof char[]) {
+			char[] array = (char[]) value;
+			writeArrayHeader(out, 'C', array.length);
+			for (char element : array) {
+				out.writeChar(element);
+			}
+		}
+		else if (value instanceof short[]) {
+			short[] array = (short[]) value;
+			writeArrayHeader(out, 'S', array.length);
+			for (short element : array) {
+				out.writeShort(element);
+			}
+		}
+		else if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			writeArrayHeader(out, 'I', array.length);
+			for (int element : array) {
+				out.writeInt(element);
+			}
+		}
+		else if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			writeArrayHeader(out, 'J', array.length);
+			for (long element : array) {
+				out.writeLong(element);
+			}
+		}
+		else if (value instanceof float[]) {
+			float[] array = (float[]) value;
+			writeArrayHeader(out, 'F', array.length);
+			for (float element : array) {
+				out.writeFloat(element);
+			}
+		}
+		else if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			writeArrayHeader(out, 'D', array.length);
+			for (double element : array) {
+				out.writeDouble(element);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported annotation value type: " + value.getClass());
+		}
+	}
+
+	private static void writeArrayHeader(DataOutputStream out, char componentType, int length) throws IOException {
+		out.writeByte(PRIMITIVE_ARRAY);
+		out.writeByte(componentType);
+		out.writeInt(length);
+	}
+
+	private static Object readValue(ByteBuffer content) {
+		byte type = content.get();
+		switch (type) {
+			case STRING:
+				return readString(content);
+			case TYPE:
+				return Type.getType(readString(content));
+			case 'B':
+				return content.get();
+			case 'Z':
+				return (content.get() != 0);
+			case 'C':
+				return content.getChar();
+			case 'S':
+				return content.getShort();
+			case 'I':
+				return content.getInt();
+			case 'J':
+				return content.getLong();
+			case 'F':
+				return content.getFloat();
+			case 'D':
+				return content.getDouble();
+			case PRIMITIVE_ARRAY:
+				return readPrimitiveArray(content);
+			default:
+				throw new IllegalArgumentException("Unexpected value type " + type);
+		}
+	}
+
+	private static Object readPrimitiveArray(ByteBuffer content) {
+		byte componentType = content.get();
+		int length = content.getInt();
+		switch (componentType) {
+			case 'B':
+				byte[] bytes = new byte[length];
+				content.get(bytes);
+				return bytes;
+			case 'Z':
+				boolean[] booleans = new boolean[length];
+				for (int i = 0; i < length; i++) {
+					booleans[i] = (content.get() != 0);
+				}
+				return booleans;
+			case 'C':
+				char[] chars = new char[length];
+				content.asCharBuffer().get(chars);
+				skip(content, length * 2);
+				return chars;
+			case 'S':
+				short[] shorts = new short[length];
+				content.asShortBuffer().get(shorts);
+				skip(content, length * 2);
+				return shorts;
+			case 'I':
+				int[] ints = new int[length];
+				content.asIntBuffer().get(ints);
+				skip(content, length * 4);
+				return ints;
+			case 'J':
+				long[] longs = new long[length];
+				content.asLongBuffer().get(longs);
+				skip(content, length * 8);
+				return longs;
+			case 'F':
+				float[] floats = new float[length];
+				content.asFloatBuffer().get(floats);
+				skip(content, length * 4);
+				return floats;
+			case 'D':
+				double[] doubles = new double[length];
+				content.asDoubleBuffer().get(doubles);
+				skip(content, length * 8);
+				return doubles;
+			default:
+				throw new IllegalArgumentException("Unexpected array component type " + componentType);
+		}
+	}
+
+	private static void skip(ByteBuffer content, int length) {
+		// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+		((Buffer) content).position(content.position() + length);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			writeString(out, value);
+		}
+	}
+
+	static String readString(ByteBuffer content) {
+		byte[] bytes = new byte[content.getInt()];
+		content.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	@Nullable
+	private static String readNullableString(ByteBuffer content) {
+		return (content.get() != 0 ? readString(content) : null);
+	}
+
+
+	@FunctionalInterface
+	private interface RecordingStep {
+
+		void write() throws IOException;
+	}
+
+
+	/**
+	 * Records the annotations of a method, writing the method header
+	 * only once the first annotation is encountered.
+	 */
+	private final class MethodRecorder extends MethodVisitor {
+
+		private final int access;
+
+		private final String name;
+
+		private final String descriptor;
+
+		private boolean recorded;
+
+		MethodRecorder(int access, String name, String descriptor, @Nullable MethodVisitor methodVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, methodVisitor);
+			this.access = access;
+			this.name = name;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+			record(() -> {
+				if (!this.recorded) {
+					out.writeByte(METHOD);
+					out.writeInt(this.access);
+					writeString(out, this.name);
+					writeString(out, this.descriptor);
+					this.recorded = true;
+				}
+				out.writeByte(ANNOTATION);
+				writeString(out, descriptor);
+				out.writeBoolean(visible);
+			});
+			return new AnnotationRecorder(super.visitAnnotation(descriptor, visible));
+		}
+
+		@Override
+		public void visitEnd() {
+			if (this.recorded) {
+				record(() -> out.writeByte(END));
+			}
+			super.visitEnd();
+		}
+	}
+
+
+	/**
+	 * Records the attribute values of an annotation, including nested
+	 * annotations and arrays.
+	 */
+	private final class AnnotationRecorder extends AnnotationVisitor {
+
+		AnnotationRecorder(@Nullable AnnotationVisitor annotationVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, annotationVisitor);
+		}
+
+		@Override
+		public void visit(@Nullable String name, Object value) {
+			record(() -> {
+				out.writeByte(VALUE);
+				writeNullableString(out, name);
+				writeValue(out, value);
+			});
+			super.visit(name, value);
+		}
+
+		@Override
+		public void visitEnum(@Nullable String name, String descriptor, String value) {
+			record(() -> {
+				out.writeByte(ENUM);
+				writeNullableString(out, name);
+				writeString(out, descriptor);
+				writeString(out, value);
+			});
+			super.visitEnum(name, descriptor, value);
+		}
+
+		@Override
+		public AnnotationVisitor visitAnnotation(@Nullable String name, String descriptor) {
+			record(() -> {
+				out.writeByte(NESTED_ANNOTATION);
+				writeNullableString(out, name);
+				writeString(out, descriptor);
+			});
+			return new AnnotationRecorder(super.visitAnnotation(name, descriptor));
+		}
+
+		@Override
+		public AnnotationVisitor visitArray(@Nullable String name) {
+			record(() -> {
+				out.writeByte(ARRAY);
+				writeNullableString(out, name);
+			});
+			return new AnnotationRecorder(super.visitArray(name));
+		}
+
+		@Override
+		public void visitEnd() {
+			record(() -> out.writeByte(END));
+			super.visitEnd();
+		}
+	}
+
+}
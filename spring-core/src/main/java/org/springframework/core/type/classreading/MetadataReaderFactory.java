@@ -47,4 +47,19 @@ public interface MetadataReaderFactory {
 	 */
 	MetadataReader getMetadataReader(Resource resource) throws IOException;
 
+	/**
+	 * Obtain a MetadataReader for the given resource, the content of which has
+	 * been read already, e.g. in order to pre-filter class files.
+	 * <p>The default implementation ignores the given content and delegates to
+	 * {@link #getMetadataReader(Resource)}.
+	 * @param resource the resource (pointing to a ".class" file)
+	 * @param classFile the content of the resource
+	 * @return a holder for the ClassReader instance (never {@code null})
+	 * @throws IOException in case of I/O failure
+	 * @since 5.1.21
+	 */
+	default MetadataReader getMetadataReader(Resource resource, byte[] classFile) throws IOException {
+		return getMetadataReader(resource);
+	}
+
 }
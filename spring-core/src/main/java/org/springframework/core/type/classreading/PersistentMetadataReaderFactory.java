@@ -0,0 +1,430 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CachingMetadataReaderFactory} that additionally persists class
+ * metadata in a binary cache file, allowing subsequent runs of the same
+ * application to obtain {@link MetadataReader} instances without reading
+ * and parsing the class files again.
+ *
+ * <p>For each class file, the ASM visitor events that make up its class and
+ * annotation metadata are recorded and replayed at the next startup; the
+ * field and method tables as well as method code are not revisited then.
+ * Entries are keyed by the URL of the class file resource and only used while
+ * its size and last-modified timestamp match: any change to a class file, or
+ * to the jar file containing it, invalidates the corresponding entries.
+ * Resources that do not expose a timestamp are parsed as usual.
+ *
+ * <p>The cache file is memory-mapped when first accessed. Newly recorded
+ * entries are written to it on {@link #clearCache()}, which
+ * {@code ConfigurationClassPostProcessor} calls once all configuration classes
+ * have been processed, or explicitly via {@link #store()}. Entries not
+ * accessed through this factory are dropped when the file is rewritten,
+ * so classes removed from the classpath do not accumulate. Each factory
+ * keeps its own state for the cache file, so a single factory instance
+ * should be used for all class files that the cache file is meant to cover:
+ * configuration class processing passes its factory on to component scans
+ * for that reason. A class whose metadata cannot be recorded completely is
+ * left out of the cache file and parsed at every startup.
+ *
+ * @since 5.1.21
+ * @see #CACHE_FILE_PROPERTY_NAME
+ */
+public class PersistentMetadataReaderFactory extends CachingMetadataReaderFactory {
+
+	/**
+	 * System property that specifies the location of a file to persist class
+	 * metadata in: {@code "spring.metadata.cacheFile"}. If set, this factory is
+	 * used by default for configuration class processing and component scanning.
+	 * <p>Can also be set via the {@link org.springframework.core.SpringProperties}
+	 * mechanism.
+	 */
+	public static final String CACHE_FILE_PROPERTY_NAME = "spring.metadata.cacheFile";
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderFactory.class);
+
+
+	private final CacheFile cacheFile;
+
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the default class loader.
+	 * @param cacheFile the location of the cache file
+	 */
+	public PersistentMetadataReaderFactory(File cacheFile) {
+		super();
+		this.cacheFile = getCacheFile(cacheFile);
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ClassLoader}.
+	 * @param classLoader the ClassLoader to use
+	 * @param cacheFile the location of the cache file
+	 */
+	public PersistentMetadataReaderFactory(@Nullable ClassLoader classLoader, File cacheFile) {
+		super(classLoader);
+		this.cacheFile = getCacheFile(cacheFile);
+	}
+
+	/**
+	 * Create a new PersistentMetadataReaderFactory for the given {@link ResourceLoader},
+	 * using a shared in-memory resource cache if supported.
+	 * @param resourceLoader the Spring ResourceLoader to use
+	 * (also determines the ClassLoader to use)
+	 * @param cacheFile the location of the cache file
+	 */
+	public PersistentMetadataReaderFactory(@Nullable ResourceLoader resourceLoader, File cacheFile) {
+		super(resourceLoader);
+		this.cacheFile = getCacheFile(cacheFile);
+	}
+
+	private static CacheFile getCacheFile(File cacheFile) {
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		return new CacheFile(cacheFile.getAbsoluteFile());
+	}
+
+
+	/**
+	 * Obtain the metadata from the cache file if present and current,
+	 * recording it for the cache file otherwise.
+	 */
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource) throws IOException {
+		return createPersistentMetadataReader(resource, null);
+	}
+
+	@Override
+	protected MetadataReader createMetadataReader(Resource resource, @Nullable byte[] classFile)
+			throws IOException {
+
+		return createPersistentMetadataReader(resource, classFile);
+	}
+
+	private MetadataReader createPersistentMetadataReader(Resource resource, @Nullable byte[] classFile)
+			throws IOException {
+
+		String key;
+		long lastModified;
+		long contentLength;
+		try {
+			key = resource.getURL().toString();
+			lastModified = resource.lastModified();
+			contentLength = resource.contentLength();
+		}
+		catch (IOException ex) {
+			// Not resolvable to a URL or without timestamp -> not suitable for the cache file
+			return createUncachedMetadataReader(resource, classFile);
+		}
+		if (lastModified == 0) {
+			return createUncachedMetadataReader(resource, classFile);
+		}
+
+		ClassLoader classLoader = getResourceLoader().getClassLoader();
+		ByteBuffer content = this.cacheFile.getContent(key, lastModified, contentLength);
+		if (content != null) {
+			try {
+				AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+				ClassVisitRecorder.replay(content, visitor);
+				return new SimpleMetadataReader(resource, visitor);
+			}
+			catch (IllegalArgumentException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Ignoring corrupt cache entry for " + resource + ": " + ex);
+				}
+			}
+		}
+
+		ClassReader classReader = (classFile != null ? SimpleMetadataReader.getClassReader(resource, classFile) :
+				SimpleMetadataReader.getClassReader(resource));
+		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
+		ClassVisitRecorder recorder = new ClassVisitRecorder(visitor);
+		classReader.accept(recorder, ClassReader.SKIP_DEBUG);
+		try {
+			this.cacheFile.putContent(key, lastModified, contentLength, recorder.toByteArray());
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Not caching metadata for " + resource + ": " + ex.getMessage());
+			}
+		}
+		return new SimpleMetadataReader(resource, visitor);
+	}
+
+	private MetadataReader createUncachedMetadataReader(Resource resource, @Nullable byte[] classFile)
+			throws IOException {
+
+		return (classFile != null ? super.createMetadataReader(resource, classFile) :
+				super.createMetadataReader(resource));
+	}
+
+	/**
+	 * Write newly recorded entries to the cache file, if any.
+	 * <p>Failures to write the file are logged but not propagated.
+	 */
+	public void store() {
+		this.cacheFile.storeIfNecessary();
+	}
+
+	/**
+	 * Write newly recorded entries to the cache file, then clear the
+	 * in-memory MetadataReader cache.
+	 * @see #store()
+	 */
+	@Override
+	public void clearCache() {
+		store();
+		super.clearCache();
+	}
+
+
+	/**
+	 * Recorded class metadata persisted in a file, with the size and
+	 * last-modified timestamp of each class file to detect modifications.
+	 * <p>File format: a header consisting of magic number and format version,
+	 * followed by one entry per class file: URL, last-modified timestamp,
+	 * size, length of the recorded content, and the recorded content itself.
+	 */
+	private static final class CacheFile {
+
+		private static final int MAGIC = 0x53504d43;
+
+		private static final int FORMAT_VERSION = 1;
+
+		private final File file;
+
+		@Nullable
+		private volatile Map<String, Entry> entries;
+
+		private final Map<String, Boolean> accessed = new ConcurrentHashMap<>(256);
+
+		private volatile boolean modified;
+
+		CacheFile(File file) {
+			this.file = file;
+		}
+
+		@Nullable
+		ByteBuffer getContent(String key, long lastModified, long contentLength) {
+			Entry entry = getEntries().get(key);
+			if (entry != null && entry.lastModified == lastModified && entry.contentLength == contentLength) {
+				this.accessed.put(key, Boolean.TRUE);
+				return entry.getContent();
+			}
+			return null;
+		}
+
+		void putContent(String key, long lastModified, long contentLength, byte[] content) {
+			getEntries().put(key, new Entry(lastModified, contentLength, ByteBuffer.wrap(content)));
+			this.accessed.put(key, Boolean.TRUE);
+			this.modified = true;
+		}
+
+		private Map<String, Entry> getEntries() {
+			Map<String, Entry> entries = this.entries;
+			if (entries == null) {
+				synchronized (this) {
+					entries = this.entries;
+					if (entries == null) {
+						entries = new ConcurrentHashMap<>(256);
+						if (this.file.isFile()) {
+							try {
+								load(entries);
+							}
+							catch (IOException | RuntimeException ex) {
+								entries.clear();
+								if (logger.isDebugEnabled()) {
+									logger.debug("Ignoring unreadable metadata cache file [" + this.file + "]", ex);
+								}
+							}
+						}
+						this.entries = entries;
+					}
+				}
+			}
+			return entries;
+		}
+
+		private void load(Map<String, Entry> entries) throws IOException {
+			MappedByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(this.file.toPath(), StandardOpenOption.READ)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+				return;
+			}
+			while (buffer.hasRemaining()) {
+				String key = ClassVisitRecorder.readString(buffer);
+				long lastModified = buffer.getLong();
+				long contentLength = buffer.getLong();
+				int length = buffer.getInt();
+				ByteBuffer content = buffer.slice();
+				// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
+				((Buffer) content).limit(length);
+				((Buffer) buffer).position(buffer.position() + length);
+				entries.put(key, new Entry(lastModified, contentLength, content));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded metadata of " + entries.size() + " classes from cache file [" + this.file + "]");
+			}
+		}
+
+		synchronized void storeIfNecessary() {
+			if (!this.modified) {
+				return;
+			}
+			this.modified = false;
+			Map<String, Entry> entries = getEntries();
+			Path tempFile = null;
+			try {
+				Path target = this.file.toPath();
+				Path parent = target.getParent();
+				if (parent != null) {
+					Files.createDirectories(parent);
+				}
+				tempFile = Files.createTempFile(parent, this.file.getName(), ".tmp");
+				// Retained entries are copied to the heap: no references to the
+				// mapped file remain once it has been replaced
+				Map<String, Entry> storedEntries = new ConcurrentHashMap<>(Math.max(this.accessed.size(), 16));
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(FORMAT_VERSION);
+					for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+						if (!this.accessed.containsKey(mapEntry.getKey())) {
+							continue;
+						}
+						Entry entry = mapEntry.getValue();
+						byte[] key = mapEntry.getKey().getBytes(StandardCharsets.UTF_8);
+						out.writeInt(key.length);
+						out.write(key);
+						out.writeLong(entry.lastModified);
+						out.writeLong(entry.contentLength);
+						ByteBuffer content = entry.getContent();
+						byte[] bytes = new byte[content.remaining()];
+						content.get(bytes);
+						out.writeInt(bytes.length);
+						out.write(bytes);
+						storedEntries.put(mapEntry.getKey(),
+								new Entry(entry.lastModified, entry.contentLength, ByteBuffer.wrap(bytes)));
+					}
+				}
+				// Keep entries recorded concurrently, which are never backed by the mapped file
+				entries.forEach((key, entry) -> {
+					if (!entry.isMapped()) {
+						storedEntries.putIfAbsent(key, entry);
+					}
+				});
+				this.entries = storedEntries;
+				moveIntoPlace(tempFile, target);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Stored metadata of " + storedEntries.size() +
+							" classes in cache file [" + this.file + "]");
+				}
+			}
+			catch (AccessDeniedException ex) {
+				// Typically the previous file still being mapped or opened on Windows
+				this.modified = true;
+				if (logger.isInfoEnabled()) {
+					logger.info("Metadata cache file [" + this.file + "] is in use - " +
+							"not replacing it this time: " + ex);
+				}
+			}
+			catch (IOException ex) {
+				if (logger.isInfoEnabled()) {
+					logger.info("Failed to write metadata cache file [" + this.file + "]: " + ex);
+				}
+			}
+			finally {
+				if (tempFile != null) {
+					try {
+						Files.deleteIfExists(tempFile);
+					}
+					catch (IOException ex) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		private void moveIntoPlace(Path tempFile, Path target) throws IOException {
+			try {
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Atomic move not supported for metadata cache file [" + this.file +
+							"] - replacing it non-atomically");
+				}
+				Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+
+	private static final class Entry {
+
+		final long lastModified;
+
+		final long contentLength;
+
+		private final ByteBuffer content;
+
+		Entry(long lastModified, long contentLength, ByteBuffer content) {
+			this.lastModified = lastModified;
+			this.contentLength = contentLength;
+			this.content = content;
+		}
+
+		ByteBuffer getContent() {
+			// Independent position for concurrent readers
+			return this.content.duplicate();
+		}
+
+		boolean isMapped() {
+			return this.content.isDirect();
+		}
+	}
+
+}
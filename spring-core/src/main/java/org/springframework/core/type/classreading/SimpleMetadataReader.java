@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,10 +48,36 @@ final class SimpleMetadataReader implements MetadataReader {
 
 
 	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		this(resource, readMetadata(getClassReader(resource), classLoader));
+	}
+
+	/**
+	 * Create a new SimpleMetadataReader for the given class file content.
+	 * @since 5.1.21
+	 */
+	SimpleMetadataReader(Resource resource, byte[] classFile, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		this(resource, readMetadata(getClassReader(resource, classFile), classLoader));
+	}
+
+	/**
+	 * Create a new SimpleMetadataReader for class metadata that has been
+	 * collected already, e.g. by replaying a recorded class file visit.
+	 * @since 5.1.21
+	 */
+	SimpleMetadataReader(Resource resource, AnnotationMetadataReadingVisitor visitor) {
+		this.annotationMetadata = visitor;
+		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
+		this.classMetadata = visitor;
+		this.resource = resource;
+	}
+
+
+	static ClassReader getClassReader(Resource resource) throws IOException {
 		InputStream is = new BufferedInputStream(resource.getInputStream());
-		ClassReader classReader;
 		try {
-			classReader = new ClassReader(is);
+			return new ClassReader(is);
 		}
 		catch (IllegalArgumentException ex) {
 			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
@@ -60,14 +86,24 @@ final class SimpleMetadataReader implements MetadataReader {
 		finally {
 			is.close();
 		}
+	}
+
+	static ClassReader getClassReader(Resource resource, byte[] classFile) throws IOException {
+		try {
+			return new ClassReader(classFile);
+		}
+		catch (IllegalArgumentException ex) {
+			throw new NestedIOException("ASM ClassReader failed to parse class file - " +
+					"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+		}
+	}
+
+	private static AnnotationMetadataReadingVisitor readMetadata(
+			ClassReader classReader, @Nullable ClassLoader classLoader) {
 
 		AnnotationMetadataReadingVisitor visitor = new AnnotationMetadataReadingVisitor(classLoader);
 		classReader.accept(visitor, ClassReader.SKIP_DEBUG);
-
-		this.annotationMetadata = visitor;
-		// (since AnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor)
-		this.classMetadata = visitor;
-		this.resource = resource;
+		return visitor;
 	}
 
 
@@ -103,4 +103,9 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
 	}
 
+	@Override
+	public MetadataReader getMetadataReader(Resource resource, byte[] classFile) throws IOException {
+		return new SimpleMetadataReader(resource, classFile, this.resourceLoader.getClassLoader());
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -88,6 +88,14 @@ public class AnnotationTypeFilter extends AbstractTypeHierarchyTraversingFilter
 		return this.annotationType;
 	}
 
+	/**
+	 * Return whether this filter also matches on meta-annotations.
+	 * @since 5.1.21
+	 */
+	public final boolean isConsiderMetaAnnotations() {
+		return this.considerMetaAnnotations;
+	}
+
 	@Override
 	protected boolean matchSelf(MetadataReader metadataReader) {
 		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
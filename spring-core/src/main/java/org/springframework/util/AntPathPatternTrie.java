@@ -0,0 +1,436 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A set of Ant-style path patterns compiled into a trie of path segments,
+ * for finding all patterns that match a given path in a single pass rather
+ * than testing each pattern in turn against an {@link AntPathMatcher}.
+ *
+ * <p>Literal pattern segments are indexed by value, while segments containing
+ * wildcards or URI variables, as well as {@code "**"}, become wildcard edges.
+ * The cost of a lookup therefore grows with the length of the path rather
+ * than with the number of registered patterns. Every candidate reached through
+ * the trie is confirmed via {@link AntPathMatcher#match}, so results are the
+ * same as when matching each pattern individually.
+ *
+ * <p>The trie relies on the tokenization and segment matching of the given
+ * {@code AntPathMatcher}, which must not be reconfigured once patterns have
+ * been added; see {@link #supports(PathMatcher)} for the matchers it applies to.
+ * Instances are not thread-safe for modifications but may be queried
+ * concurrently once populated.
+ *
+ * @since 5.1.21
+ * @see AntPathMatcher
+ */
+public class AntPathPatternTrie {
+
+	private static final String DOUBLE_WILDCARD = "**";
+
+
+	private final AntPathMatcher pathMatcher;
+
+	private final Node root = new Node();
+
+	/** Registered patterns, mapped to their registration index. */
+	private final Map<String, Integer> patterns = new LinkedHashMap<>();
+
+	private int nextIndex = 0;
+
+
+	/**
+	 * Create a new {@code AntPathPatternTrie} with a default {@link AntPathMatcher}.
+	 */
+	public AntPathPatternTrie() {
+		this(new AntPathMatcher());
+	}
+
+	/**
+	 * Create a new {@code AntPathPatternTrie} for the given {@link AntPathMatcher}.
+	 * @param pathMatcher the matcher to tokenize and confirm patterns with
+	 */
+	public AntPathPatternTrie(AntPathMatcher pathMatcher) {
+		Assert.notNull(pathMatcher, "AntPathMatcher must not be null");
+		this.pathMatcher = pathMatcher;
+	}
+
+	/**
+	 * Create a new {@code AntPathPatternTrie} for the given {@link AntPathMatcher},
+	 * populated with the given patterns.
+	 * @param pathMatcher the matcher to tokenize and confirm patterns with
+	 * @param patterns the patterns to add, in registration order
+	 */
+	public AntPathPatternTrie(AntPathMatcher pathMatcher, Collection<String> patterns) {
+		this(pathMatcher);
+		for (String pattern : patterns) {
+			add(pattern);
+		}
+	}
+
+
+	/**
+	 * Return the {@link AntPathMatcher} used by this trie.
+	 */
+	public AntPathMatcher getPathMatcher() {
+		return this.pathMatcher;
+	}
+
+	/**
+	 * Add the given pattern, unless already present.
+	 * @param pattern the Ant-style pattern to add
+	 * @return {@code true} if the pattern was added, {@code false} if it was
+	 * present already (retaining its original registration order)
+	 */
+	public boolean add(String pattern) {
+		Assert.notNull(pattern, "Pattern must not be null");
+		if (this.patterns.containsKey(pattern)) {
+			return false;
+		}
+		Node node = this.root;
+		for (String segment : this.pathMatcher.tokenizePattern(pattern)) {
+			node = node.getOrCreateChild(segment);
+		}
+		node.addPattern(pattern);
+		this.patterns.put(pattern, this.nextIndex++);
+		return true;
+	}
+
+	/**
+	 * Remove the given pattern, pruning trie nodes that are no longer needed.
+	 * @param pattern the pattern to remove
+	 * @return {@code true} if the pattern was present, {@code false} otherwise
+	 */
+	public boolean remove(String pattern) {
+		if (this.patterns.remove(pattern) == null) {
+			return false;
+		}
+		removePattern(this.root, this.pathMatcher.tokenizePattern(pattern), 0, pattern);
+		return true;
+	}
+
+	/**
+	 * Whether the given pattern has been added to this trie.
+	 */
+	public boolean contains(String pattern) {
+		return this.patterns.containsKey(pattern);
+	}
+
+	/**
+	 * Return the registered patterns, in registration order.
+	 */
+	public Set<String> getPatterns() {
+		return Collections.unmodifiableSet(this.patterns.keySet());
+	}
+
+	/**
+	 * Return the number of registered patterns.
+	 */
+	public int size() {
+		return this.patterns.size();
+	}
+
+	/**
+	 * Whether this trie contains no patterns.
+	 */
+	public boolean isEmpty() {
+		return this.patterns.isEmpty();
+	}
+
+	/**
+	 * Remove all patterns from this trie.
+	 */
+	public void clear() {
+		this.root.clear();
+		this.patterns.clear();
+		this.nextIndex = 0;
+	}
+
+
+	/**
+	 * Return all registered patterns that match the given path, sorted with
+	 * the most specific pattern first according to the
+	 * {@link AntPathMatcher#getPatternComparator pattern comparator} of the
+	 * underlying matcher.
+	 * @param path the path to match
+	 * @return the matching patterns (never {@code null}, possibly empty)
+	 */
+	public List<String> getMatchingPatterns(String path) {
+		List<String> candidates = getCandidates(path);
+		if (candidates.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> result = new ArrayList<>(candidates.size());
+		for (String candidate : candidates) {
+			if (this.pathMatcher.match(candidate, path)) {
+				result.add(candidate);
+			}
+		}
+		if (result.size() > 1) {
+			result.sort(this.pathMatcher.getPatternComparator(path));
+		}
+		return result;
+	}
+
+	/**
+	 * Return the earliest registered pattern that matches the given path,
+	 * which is what a linear scan over the patterns in registration order
+	 * would return.
+	 * @param path the path to match
+	 * @return the first matching pattern, or {@code null} if none matches
+	 */
+	@Nullable
+	public String getFirstMatchingPattern(String path) {
+		for (String candidate : getCandidates(path)) {
+			if (this.pathMatcher.match(candidate, path)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Whether any registered pattern matches the given path.
+	 * @param path the path to match
+	 */
+	public boolean matches(String path) {
+		for (String candidate : getCandidates(path)) {
+			if (this.pathMatcher.match(candidate, path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether the trie can be used in place of matching patterns
+	 * one by one with the given {@link PathMatcher}. This is the case for a
+	 * plain {@link AntPathMatcher} only, since subclasses may change the way
+	 * paths are tokenized or matched.
+	 * @param pathMatcher the matcher configured by the caller
+	 */
+	public static boolean supports(@Nullable PathMatcher pathMatcher) {
+		return (pathMatcher != null && pathMatcher.getClass() == AntPathMatcher.class);
+	}
+
+
+	/**
+	 * Collect the candidate patterns for the given path, in registration order
+	 * so that equally specific matches come out as with a linear scan.
+	 */
+	private List<String> getCandidates(String path) {
+		if (this.patterns.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Set<String> candidates = new HashSet<>();
+		collectCandidates(this.root, this.pathMatcher.tokenizePath(path), 0, candidates);
+		List<String> result = new ArrayList<>(candidates);
+		if (result.size() > 1) {
+			result.sort(Comparator.comparingInt(this.patterns::get));
+		}
+		return result;
+	}
+
+	private void collectCandidates(Node node, String[] pathDirs, int pathIdx, Set<String> candidates) {
+		if (pathIdx == pathDirs.length) {
+			node.addPatternsTo(candidates);
+			if (node.wildcardChildren != null) {
+				// "/foo/*" also matches "/foo/"
+				Node child = node.wildcardChildren.get("*");
+				if (child != null) {
+					child.addPatternsTo(candidates);
+				}
+			}
+		}
+		else {
+			String pathDir = pathDirs[pathIdx];
+			if (node.literalChildren != null) {
+				Node child = node.literalChildren.get(literalKey(pathDir));
+				if (child != null) {
+					collectCandidates(child, pathDirs, pathIdx + 1, candidates);
+				}
+			}
+			if (node.wildcardChildren != null) {
+				for (Map.Entry<String, Node> entry : node.wildcardChildren.entrySet()) {
+					if (this.pathMatcher.getStringMatcher(entry.getKey()).matchStrings(pathDir, null)) {
+						collectCandidates(entry.getValue(), pathDirs, pathIdx + 1, candidates);
+					}
+				}
+			}
+		}
+		if (node.doubleWildcardChild != null) {
+			// "**" matches zero or more path segments
+			for (int i = pathIdx; i <= pathDirs.length; i++) {
+				collectCandidates(node.doubleWildcardChild, pathDirs, i, candidates);
+			}
+		}
+	}
+
+	private boolean removePattern(Node node, String[] pattDirs, int pattIdx, String pattern) {
+		if (pattIdx == pattDirs.length) {
+			node.removePattern(pattern);
+		}
+		else {
+			String segment = pattDirs[pattIdx];
+			Node child = node.getChild(segment);
+			if (child != null && removePattern(child, pattDirs, pattIdx + 1, pattern)) {
+				node.removeChild(segment);
+			}
+		}
+		return node.isEmpty();
+	}
+
+	private static boolean isWildcardSegment(String segment) {
+		for (int i = 0; i < segment.length(); i++) {
+			char c = segment.charAt(i);
+			if (c == '*' || c == '?' || c == '{') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Literal segments are indexed in lower case, which yields a superset of
+	 * the candidates for both case-sensitive and case-insensitive matchers.
+	 */
+	private static String literalKey(String segment) {
+		return segment.toLowerCase(Locale.ROOT);
+	}
+
+
+	/**
+	 * A node in the trie, with outgoing edges per segment type and the
+	 * patterns that end at this node.
+	 */
+	private static final class Node {
+
+		@Nullable
+		Map<String, Node> literalChildren;
+
+		@Nullable
+		Map<String, Node> wildcardChildren;
+
+		@Nullable
+		Node doubleWildcardChild;
+
+		@Nullable
+		List<String> patterns;
+
+		Node getOrCreateChild(String segment) {
+			if (DOUBLE_WILDCARD.equals(segment)) {
+				if (this.doubleWildcardChild == null) {
+					this.doubleWildcardChild = new Node();
+				}
+				return this.doubleWildcardChild;
+			}
+			else if (isWildcardSegment(segment)) {
+				if (this.wildcardChildren == null) {
+					this.wildcardChildren = new LinkedHashMap<>(4);
+				}
+				return this.wildcardChildren.computeIfAbsent(segment, key -> new Node());
+			}
+			else {
+				if (this.literalChildren == null) {
+					this.literalChildren = new HashMap<>(4);
+				}
+				return this.literalChildren.computeIfAbsent(literalKey(segment), key -> new Node());
+			}
+		}
+
+		@Nullable
+		Node getChild(String segment) {
+			if (DOUBLE_WILDCARD.equals(segment)) {
+				return this.doubleWildcardChild;
+			}
+			else if (isWildcardSegment(segment)) {
+				return (this.wildcardChildren != null ? this.wildcardChildren.get(segment) : null);
+			}
+			else {
+				return (this.literalChildren != null ? this.literalChildren.get(literalKey(segment)) : null);
+			}
+		}
+
+		void removeChild(String segment) {
+			if (DOUBLE_WILDCARD.equals(segment)) {
+				this.doubleWildcardChild = null;
+			}
+			else if (isWildcardSegment(segment)) {
+				if (this.wildcardChildren != null) {
+					this.wildcardChildren.remove(segment);
+					if (this.wildcardChildren.isEmpty()) {
+						this.wildcardChildren = null;
+					}
+				}
+			}
+			else if (this.literalChildren != null) {
+				this.literalChildren.remove(literalKey(segment));
+				if (this.literalChildren.isEmpty()) {
+					this.literalChildren = null;
+				}
+			}
+		}
+
+		void addPattern(String pattern) {
+			if (this.patterns == null) {
+				this.patterns = new ArrayList<>(1);
+			}
+			this.patterns.add(pattern);
+		}
+
+		void removePattern(String pattern) {
+			if (this.patterns != null) {
+				this.patterns.remove(pattern);
+				if (this.patterns.isEmpty()) {
+					this.patterns = null;
+				}
+			}
+		}
+
+		void addPatternsTo(Set<String> candidates) {
+			if (this.patterns != null) {
+				candidates.addAll(this.patterns);
+			}
+		}
+
+		boolean isEmpty() {
+			return (this.patterns == null && this.literalChildren == null &&
+					this.wildcardChildren == null && this.doubleWildcardChild == null);
+		}
+
+		void clear() {
+			this.literalChildren = null;
+			this.wildcardChildren = null;
+			this.doubleWildcardChild = null;
+			this.patterns = null;
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Simple LRU (Least Recently Used) cache, bounded by a specified cache limit.
+ *
+ * <p>This implementation is backed by a {@linkplain ConcurrentReferenceHashMap#bounded(int)
+ * bounded} {@code ConcurrentReferenceHashMap}: cache hits do not acquire any lock and
+ * only mark the entry as recently used, while the least recently used entries are
+ * evicted (per segment, approximating LRU order) when new entries are added.
+ * Values are created on demand by the given generator function, which should
+ * produce immutable values since they are shared between callers.
+ *
+ * <p>This is primarily meant for use within the framework, e.g. for caching
+ * parsed representations of frequently used strings such as
+ * {@link MimeTypeUtils#parseMimeType(String) mime types}.
+ *
+ * @since 5.1.21
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ * @see #get
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final Function<K, V> generator;
+
+	@Nullable
+	private final ConcurrentReferenceHashMap<K, V> cache;
+
+
+	/**
+	 * Create a new cache instance with the given limit and generator function.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	public ConcurrentLruCache(int sizeLimit, Function<K, V> generator) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.sizeLimit = sizeLimit;
+		this.generator = generator;
+		this.cache = (sizeLimit > 0 ? ConcurrentReferenceHashMap.bounded(sizeLimit) : null);
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation
+	 * of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		Assert.notNull(key, "Key must not be null");
+		if (this.cache == null) {
+			return this.generator.apply(key);
+		}
+		V cached = this.cache.get(key);
+		if (cached != null) {
+			return cached;
+		}
+		V value = this.generator.apply(key);
+		V existing = this.cache.putIfAbsent(key, value);
+		return (existing != null ? existing : value);
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return (this.cache != null && this.cache.containsKey(key));
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		return (this.cache != null && this.cache.remove(key) != null);
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		if (this.cache != null) {
+			this.cache.clear();
+		}
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return (this.cache != null ? this.cache.size() : 0);
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	/**
+	 * Return the number of lookups that were served from the cache.
+	 */
+	public long hitCount() {
+		return (this.cache != null ? this.cache.getHitCount() : 0);
+	}
+
+	/**
+	 * Return the number of lookups that required generating a new value.
+	 */
+	public long missCount() {
+		return (this.cache != null ? this.cache.getMissCount() : 0);
+	}
+
+}
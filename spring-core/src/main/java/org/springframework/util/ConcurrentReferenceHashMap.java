@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,16 +22,23 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
 
 import org.springframework.lang.Nullable;
 
@@ -53,6 +60,15 @@ import org.springframework.lang.Nullable;
  * <p>If not explicitly specified, this implementation will use
  * {@linkplain SoftReference soft entry references}.
  *
+ * <p>As an alternative to reference-based memory release, a map can be created in
+ * <em>bounded</em> mode through {@link #bounded(int)} or
+ * {@link #bounded(long, ToIntBiFunction)}: entries are then held through
+ * {@linkplain ReferenceType#STRONG strong references} and each segment evicts its
+ * least recently used entries (following a CLOCK approximation of LRU) once its
+ * share of the maximum size or weight is exceeded. Bounded maps keep track of
+ * {@linkplain #getHitCount() hit}, {@linkplain #getMissCount() miss} and
+ * {@linkplain #getEvictionCount() eviction} counts.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @since 3.2
@@ -73,6 +89,17 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 
 	private static final int MAXIMUM_SEGMENT_SIZE = 1 << 30;
 
+	private static final long UNBOUNDED = -1;
+
+	/**
+	 * System property that instructs Spring's internal caches to use a
+	 * {@linkplain #bounded(int) bounded} map with the given maximum number of
+	 * entries per cache instead of soft references.
+	 * @since 5.1.21
+	 * @see #forInternalCache(int)
+	 */
+	public static final String INTERNAL_CACHE_MAXIMUM_SIZE_PROPERTY_NAME = "spring.internalCaches.maxSize";
+
 
 	/**
 	 * Array of segments indexed using the high order bits from the hash.
@@ -85,10 +112,33 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	private final float loadFactor;
 
 	/**
-	 * The reference type: SOFT or WEAK.
+	 * The reference type: SOFT, WEAK or STRONG.
 	 */
 	private final ReferenceType referenceType;
 
+	/**
+	 * The maximum total weight of all entries, or {@code -1} if unbounded.
+	 */
+	private final long maximumWeight;
+
+	/**
+	 * The weigher used to determine the weight of each entry in bounded mode.
+	 */
+	@Nullable
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+
+	/**
+	 * Hit, miss and eviction counters, only tracked in bounded mode.
+	 */
+	@Nullable
+	private final LongAdder hitCount;
+
+	@Nullable
+	private final LongAdder missCount;
+
+	@Nullable
+	private final LongAdder evictionCount;
+
 	/**
 	 * The shift value used to calculate the size of the segments array and an index from the hash.
 	 */
@@ -164,31 +214,128 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	 * table exceeds this value, resize will be attempted.
 	 * @param concurrencyLevel the expected number of threads that will concurrently
 	 * write to the map
-	 * @param referenceType the reference type used for entries (soft or weak)
+	 * @param referenceType the reference type used for entries (soft, weak or strong)
 	 */
-	@SuppressWarnings("unchecked")
 	public ConcurrentReferenceHashMap(
 			int initialCapacity, float loadFactor, int concurrencyLevel, ReferenceType referenceType) {
 
+		this(initialCapacity, loadFactor, concurrencyLevel, referenceType, UNBOUNDED, null);
+	}
+
+	/**
+	 * Create a new {@code ConcurrentReferenceHashMap} instance.
+	 * @param initialCapacity the initial capacity of the map
+	 * @param loadFactor the load factor. When the average number of references per
+	 * table exceeds this value, resize will be attempted.
+	 * @param concurrencyLevel the expected number of threads that will concurrently
+	 * write to the map
+	 * @param referenceType the reference type used for entries (soft, weak or strong)
+	 * @param maximumWeight the maximum total weight of the entries in the map, or
+	 * {@code -1} for an unbounded map; a bounded map requires
+	 * {@link ReferenceType#STRONG strong} references. The maximum is divided
+	 * evenly between segments, each of which evicts its least recently used
+	 * entries once its share is exceeded.
+	 * @param weigher the function used to determine the weight of an entry when
+	 * it is added or when its value is replaced through the {@code Map} API,
+	 * or {@code null} to give every entry a weight of {@code 1}
+	 * @since 5.1.21
+	 */
+	@SuppressWarnings("unchecked")
+	public ConcurrentReferenceHashMap(int initialCapacity, float loadFactor, int concurrencyLevel,
+			ReferenceType referenceType, long maximumWeight, @Nullable ToIntBiFunction<? super K, ? super V> weigher) {
+
 		Assert.isTrue(initialCapacity >= 0, "Initial capacity must not be negative");
 		Assert.isTrue(loadFactor > 0f, "Load factor must be positive");
 		Assert.isTrue(concurrencyLevel > 0, "Concurrency level must be positive");
 		Assert.notNull(referenceType, "Reference type must not be null");
+		Assert.isTrue(maximumWeight >= 0 || maximumWeight == UNBOUNDED, "Maximum weight must not be negative");
+		Assert.isTrue(maximumWeight == UNBOUNDED || referenceType == ReferenceType.STRONG,
+				"A bounded map requires strong references");
 		this.loadFactor = loadFactor;
 		this.shift = calculateShift(concurrencyLevel, MAXIMUM_CONCURRENCY_LEVEL);
 		int size = 1 << this.shift;
 		this.referenceType = referenceType;
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		boolean bounded = (maximumWeight != UNBOUNDED);
+		this.hitCount = (bounded ? new LongAdder() : null);
+		this.missCount = (bounded ? new LongAdder() : null);
+		this.evictionCount = (bounded ? new LongAdder() : null);
 		int roundedUpSegmentCapacity = (int) ((initialCapacity + size - 1L) / size);
 		int initialSize = 1 << calculateShift(roundedUpSegmentCapacity, MAXIMUM_SEGMENT_SIZE);
 		Segment[] segments = (Segment[]) Array.newInstance(Segment.class, size);
 		int resizeThreshold = (int) (initialSize * getLoadFactor());
+		long segmentMaximumWeight = (bounded ? Math.max(maximumWeight / size, 1) : UNBOUNDED);
 		for (int i = 0; i < segments.length; i++) {
-			segments[i] = new Segment(initialSize, resizeThreshold);
+			segments[i] = new Segment(initialSize, resizeThreshold, segmentMaximumWeight);
 		}
 		this.segments = segments;
 	}
 
 
+	/**
+	 * Create a bounded {@code ConcurrentReferenceHashMap} that holds its entries
+	 * through strong references and evicts least recently used entries once it
+	 * contains more than (approximately) the given number of entries.
+	 * @param maximumSize the maximum number of entries
+	 * @return a new bounded map
+	 * @since 5.1.21
+	 */
+	public static <K, V> ConcurrentReferenceHashMap<K, V> bounded(int maximumSize) {
+		return new ConcurrentReferenceHashMap<>(Math.min(maximumSize, DEFAULT_INITIAL_CAPACITY),
+				DEFAULT_LOAD_FACTOR, boundedConcurrencyLevel(maximumSize), ReferenceType.STRONG, maximumSize, null);
+	}
+
+	/**
+	 * Create a bounded {@code ConcurrentReferenceHashMap} that holds its entries
+	 * through strong references and evicts least recently used entries once the
+	 * total weight of its entries exceeds (approximately) the given maximum.
+	 * @param maximumWeight the maximum total weight of all entries
+	 * @param weigher the function used to determine the weight of an entry
+	 * @return a new bounded map
+	 * @since 5.1.21
+	 */
+	public static <K, V> ConcurrentReferenceHashMap<K, V> bounded(
+			long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher) {
+
+		Assert.notNull(weigher, "Weigher must not be null");
+		return new ConcurrentReferenceHashMap<>(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR,
+				DEFAULT_CONCURRENCY_LEVEL, ReferenceType.STRONG, maximumWeight, weigher);
+	}
+
+	/**
+	 * Create a {@code ConcurrentReferenceHashMap} for use as one of Spring's
+	 * internal caches: a {@linkplain #bounded(int) bounded} map if the
+	 * {@value #INTERNAL_CACHE_MAXIMUM_SIZE_PROPERTY_NAME} system property is set,
+	 * or a map with {@linkplain ReferenceType#SOFT soft references} otherwise.
+	 * @param initialCapacity the initial capacity of the map
+	 * @return a new map
+	 * @since 5.1.21
+	 */
+	public static <K, V> ConcurrentReferenceHashMap<K, V> forInternalCache(int initialCapacity) {
+		int maximumSize = getInternalCacheMaximumSize();
+		if (maximumSize >= 0) {
+			return bounded(maximumSize);
+		}
+		return new ConcurrentReferenceHashMap<>(initialCapacity);
+	}
+
+	private static int getInternalCacheMaximumSize() {
+		try {
+			String value = System.getProperty(INTERNAL_CACHE_MAXIMUM_SIZE_PROPERTY_NAME);
+			return (StringUtils.hasText(value) ? Integer.parseInt(value.trim()) : -1);
+		}
+		catch (SecurityException | NumberFormatException ex) {
+			return -1;
+		}
+	}
+
+	private static int boundedConcurrencyLevel(int maximumSize) {
+		// Keep a reasonable number of entries per segment for small maps
+		return Math.max(1, Math.min(DEFAULT_CONCURRENCY_LEVEL, maximumSize / DEFAULT_CONCURRENCY_LEVEL));
+	}
+
+
 	protected final float getLoadFactor() {
 		return this.loadFactor;
 	}
@@ -201,6 +348,43 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		return this.segments[index];
 	}
 
+	/**
+	 * Return whether this map is bounded, i.e. evicts entries once a maximum
+	 * size or weight has been reached.
+	 * @since 5.1.21
+	 * @see #bounded(int)
+	 */
+	public final boolean isBounded() {
+		return (this.maximumWeight != UNBOUNDED);
+	}
+
+	/**
+	 * Return the number of lookups that found an entry, or {@code 0} if this
+	 * map is not {@linkplain #isBounded() bounded}.
+	 * @since 5.1.21
+	 */
+	public long getHitCount() {
+		return (this.hitCount != null ? this.hitCount.sum() : 0);
+	}
+
+	/**
+	 * Return the number of lookups that did not find an entry, or {@code 0} if
+	 * this map is not {@linkplain #isBounded() bounded}.
+	 * @since 5.1.21
+	 */
+	public long getMissCount() {
+		return (this.missCount != null ? this.missCount.sum() : 0);
+	}
+
+	/**
+	 * Return the number of entries that have been evicted, or {@code 0} if this
+	 * map is not {@linkplain #isBounded() bounded}.
+	 * @since 5.1.21
+	 */
+	public long getEvictionCount() {
+		return (this.evictionCount != null ? this.evictionCount.sum() : 0);
+	}
+
 	/**
 	 * Factory method that returns the {@link ReferenceManager}.
 	 * This method will be called once for each {@link Segment}.
@@ -251,7 +435,17 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	@Nullable
 	private Entry<K, V> getEntryIfAvailable(@Nullable Object key) {
 		Reference<K, V> ref = getReference(key, Restructure.WHEN_NECESSARY);
-		return (ref != null ? ref.get() : null);
+		Entry<K, V> entry = (ref != null ? ref.get() : null);
+		if (this.hitCount != null && this.missCount != null) {
+			if (entry != null) {
+				entry.recordAccess();
+				this.hitCount.increment();
+			}
+			else {
+				this.missCount.increment();
+			}
+		}
+		return entry;
 	}
 
 	/**
@@ -285,14 +479,14 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 			@Override
 			@Nullable
 			protected V execute(@Nullable Reference<K, V> ref, @Nullable Entry<K, V> entry, @Nullable Entries entries) {
+				Assert.state(entries != null, "No entries segment");
 				if (entry != null) {
 					V oldValue = entry.getValue();
 					if (overwriteExisting) {
-						entry.setValue(value);
+						entries.update(entry, value);
 					}
 					return oldValue;
 				}
-				Assert.state(entries != null, "No entries segment");
 				entries.add(value);
 				return null;
 			}
@@ -338,9 +532,10 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	public boolean replace(K key, final V oldValue, final V newValue) {
 		Boolean result = doTask(key, new Task<Boolean>(TaskOption.RESTRUCTURE_BEFORE, TaskOption.SKIP_IF_EMPTY) {
 			@Override
-			protected Boolean execute(@Nullable Reference<K, V> ref, @Nullable Entry<K, V> entry) {
-				if (entry != null && ObjectUtils.nullSafeEquals(entry.getValue(), oldValue)) {
-					entry.setValue(newValue);
+			protected Boolean execute(@Nullable Reference<K, V> ref, @Nullable Entry<K, V> entry,
+					@Nullable Entries entries) {
+				if (entry != null && entries != null && ObjectUtils.nullSafeEquals(entry.getValue(), oldValue)) {
+					entries.update(entry, newValue);
 					return true;
 				}
 				return false;
@@ -355,10 +550,11 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		return doTask(key, new Task<V>(TaskOption.RESTRUCTURE_BEFORE, TaskOption.SKIP_IF_EMPTY) {
 			@Override
 			@Nullable
-			protected V execute(@Nullable Reference<K, V> ref, @Nullable Entry<K, V> entry) {
-				if (entry != null) {
+			protected V execute(@Nullable Reference<K, V> ref, @Nullable Entry<K, V> entry,
+					@Nullable Entries entries) {
+				if (entry != null && entries != null) {
 					V oldValue = entry.getValue();
-					entry.setValue(value);
+					entries.update(entry, value);
 					return oldValue;
 				}
 				return null;
@@ -452,7 +648,14 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		SOFT,
 
 		/** Use {@link WeakReference WeakReferences}. */
-		WEAK
+		WEAK,
+
+		/**
+		 * Use strong references: entries are only removed explicitly or
+		 * through eviction in a {@linkplain ConcurrentReferenceHashMap#bounded(int) bounded} map.
+		 * @since 5.1.21
+		 */
+		STRONG
 	}
 
 
@@ -484,11 +687,43 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		 */
 		private int resizeThreshold;
 
+		/**
+		 * The maximum total weight of the entries in this segment, or {@code -1} if unbounded.
+		 */
+		private final long maximumWeight;
+
+		/**
+		 * The total weight of the entries in this segment, including entries that have
+		 * been removed but not purged yet. Only maintained when bounded.
+		 */
+		private long weight;
+
+		/**
+		 * Entries in insertion order, swept by the CLOCK eviction algorithm.
+		 * Only maintained when bounded.
+		 */
+		@Nullable
+		private final Deque<Entry<K, V>> evictionQueue;
+
 		public Segment(int initialSize, int resizeThreshold) {
+			this(initialSize, resizeThreshold, UNBOUNDED);
+		}
+
+		/**
+		 * Create a new segment.
+		 * @param initialSize the initial size of the references array
+		 * @param resizeThreshold the count at which the references should be resized
+		 * @param maximumWeight the maximum total weight of the entries in this segment,
+		 * or {@code -1} if unbounded
+		 * @since 5.1.21
+		 */
+		public Segment(int initialSize, int resizeThreshold, long maximumWeight) {
 			this.referenceManager = createReferenceManager();
 			this.initialSize = initialSize;
 			this.references = createReferenceArray(initialSize);
 			this.resizeThreshold = resizeThreshold;
+			this.maximumWeight = maximumWeight;
+			this.evictionQueue = (maximumWeight != UNBOUNDED ? new ArrayDeque<>() : null);
 		}
 
 		@Nullable
@@ -537,6 +772,22 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 						Reference<K, V> newReference = Segment.this.referenceManager.createReference(newEntry, hash, head);
 						Segment.this.references[index] = newReference;
 						Segment.this.count++;
+						if (Segment.this.evictionQueue != null) {
+							Segment.this.evictionQueue.addLast(newEntry);
+							Segment.this.weight += newEntry.weigh(ConcurrentReferenceHashMap.this.weigher);
+							evictIfNecessary(newEntry);
+						}
+					}
+					@Override
+					public void update(Entry<K, V> entry, @Nullable V value) {
+						entry.setValue(value);
+						if (Segment.this.evictionQueue != null) {
+							// An update is a write rather than a read: do not mark the entry as
+							// accessed, evictIfNecessary protects the updated entry itself
+							Segment.this.weight -= entry.weight;
+							Segment.this.weight += entry.weigh(ConcurrentReferenceHashMap.this.weigher);
+							evictIfNecessary(entry);
+						}
 					}
 				};
 				return task.execute(ref, entry, entries);
@@ -561,6 +812,14 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 				this.references = createReferenceArray(this.initialSize);
 				this.resizeThreshold = (int) (this.references.length * getLoadFactor());
 				this.count = 0;
+				if (this.evictionQueue != null) {
+					this.evictionQueue.clear();
+					this.weight = 0;
+				}
+				while (this.referenceManager.pollForPurge() != null) {
+					// Discard pending purges: they refer to the old table and would
+					// otherwise be subtracted from the count of the new one
+				}
 			}
 			finally {
 				unlock();
@@ -605,6 +864,10 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 					Reference<K, V>[] restructured =
 							(resizing ? createReferenceArray(restructureSize) : this.references);
 
+					// Track surviving entries for the eviction queue, if bounded
+					Set<Entry<K, V>> survivors = (this.evictionQueue != null && !toPurge.isEmpty() ?
+							Collections.newSetFromMap(new IdentityHashMap<>()) : null);
+
 					// Restructure
 					for (int i = 0; i < this.references.length; i++) {
 						ref = this.references[i];
@@ -618,12 +881,25 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 									int index = getIndex(ref.getHash(), restructured);
 									restructured[index] = this.referenceManager.createReference(
 											entry, ref.getHash(), restructured[index]);
+									if (survivors != null) {
+										survivors.add(entry);
+									}
 								}
 							}
 							ref = ref.getNext();
 						}
 					}
 
+					// Drop purged entries from the eviction queue and recalculate the weight
+					if (this.evictionQueue != null && survivors != null) {
+						this.evictionQueue.removeIf(entry -> !survivors.contains(entry));
+						long weightAfterRestructure = 0;
+						for (Entry<K, V> entry : this.evictionQueue) {
+							weightAfterRestructure += entry.weight;
+						}
+						this.weight = weightAfterRestructure;
+					}
+
 					// Replace volatile members
 					if (resizing) {
 						this.references = restructured;
@@ -637,6 +913,71 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 			}
 		}
 
+		/**
+		 * Evict entries until the weight of this segment no longer exceeds its
+		 * maximum, following the CLOCK algorithm: entries that have been accessed
+		 * since the last sweep get a second chance and are moved to the back of
+		 * the queue. Must be called while holding the segment lock.
+		 * @param current the entry that has just been added or updated, which is
+		 * only evicted if it exceeds the maximum weight on its own
+		 */
+		private void evictIfNecessary(Entry<K, V> current) {
+			Deque<Entry<K, V>> queue = this.evictionQueue;
+			if (queue == null) {
+				return;
+			}
+			while (this.weight > this.maximumWeight) {
+				Entry<K, V> candidate = queue.pollFirst();
+				if (candidate == null) {
+					this.weight = 0;
+					return;
+				}
+				if (candidate == current && !queue.isEmpty()) {
+					queue.addLast(candidate);
+					continue;
+				}
+				if (candidate.accessed) {
+					candidate.accessed = false;
+					queue.addLast(candidate);
+					continue;
+				}
+				this.weight -= candidate.weight;
+				int hash = getHash(candidate.getKey());
+				int index = getIndex(hash, this.references);
+				Reference<K, V> head = this.references[index];
+				Reference<K, V> ref = findInChain(head, candidate.getKey(), hash);
+				if (ref != null && ref.get() == candidate) {
+					this.references[index] = unlink(head, ref);
+					this.count--;
+					if (ConcurrentReferenceHashMap.this.evictionCount != null) {
+						ConcurrentReferenceHashMap.this.evictionCount.increment();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Return the given chain without the given reference, so that evicted entries
+		 * do not have to go through a full restructure. The references preceding the
+		 * unlinked one are recreated, references that have already been released are
+		 * dropped since they are still purged and counted through the reference manager.
+		 * Must be called while holding the segment lock.
+		 * @param head the head of the chain
+		 * @param ref the reference to unlink
+		 * @return the new head of the chain
+		 */
+		@Nullable
+		private Reference<K, V> unlink(Reference<K, V> head, Reference<K, V> ref) {
+			Reference<K, V> result = ref.getNext();
+			for (Reference<K, V> current = head; current != ref; current = current.getNext()) {
+				Entry<K, V> entry = current.get();
+				if (entry != null) {
+					result = this.referenceManager.createReference(entry, current.getHash(), result);
+				}
+			}
+			return result;
+		}
+
 		@Nullable
 		private Reference<K, V> findInChain(Reference<K, V> ref, @Nullable Object key, int hash) {
 			Reference<K, V> currRef = ref;
@@ -726,6 +1067,16 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		@Nullable
 		private volatile V value;
 
+		/**
+		 * Whether the entry has been accessed since the last eviction sweep.
+		 */
+		private volatile boolean accessed;
+
+		/**
+		 * The weight of the entry as determined when last added or updated.
+		 */
+		private int weight;
+
 		public Entry(@Nullable K key, @Nullable V value) {
 			this.key = key;
 			this.value = value;
@@ -756,6 +1107,19 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 			return (this.key + "=" + this.value);
 		}
 
+		void recordAccess() {
+			if (!this.accessed) {
+				this.accessed = true;
+			}
+		}
+
+		int weigh(@Nullable ToIntBiFunction<? super K, ? super V> weigher) {
+			int weight = (weigher != null ? weigher.applyAsInt(this.key, this.value) : 1);
+			Assert.state(weight >= 0, "Entry weight must not be negative");
+			this.weight = weight;
+			return weight;
+		}
+
 		@Override
 		@SuppressWarnings("rawtypes")
 		public final boolean equals(Object other) {
@@ -838,6 +1202,13 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		 * @param value the value to add
 		 */
 		public abstract void add(@Nullable V value);
+
+		/**
+		 * Replace the value of an existing entry.
+		 * @param entry the entry to update
+		 * @param value the new value
+		 */
+		public abstract void update(Entry<K, V> entry, @Nullable V value);
 	}
 
 
@@ -987,6 +1358,8 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 
 		private final ReferenceQueue<Entry<K, V>> queue = new ReferenceQueue<>();
 
+		private final ConcurrentLinkedQueue<Reference<K, V>> releasedStrongReferences = new ConcurrentLinkedQueue<>();
+
 		/**
 		 * Factory method used to create a new {@link Reference}.
 		 * @param entry the entry contained in the reference
@@ -998,6 +1371,9 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 			if (ConcurrentReferenceHashMap.this.referenceType == ReferenceType.WEAK) {
 				return new WeakEntryReference<>(entry, hash, next, this.queue);
 			}
+			if (ConcurrentReferenceHashMap.this.referenceType == ReferenceType.STRONG) {
+				return new StrongEntryReference<>(entry, hash, next, this.releasedStrongReferences);
+			}
 			return new SoftEntryReference<>(entry, hash, next, this.queue);
 		}
 
@@ -1011,6 +1387,9 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		@SuppressWarnings("unchecked")
 		@Nullable
 		public Reference<K, V> pollForPurge() {
+			if (ConcurrentReferenceHashMap.this.referenceType == ReferenceType.STRONG) {
+				return this.releasedStrongReferences.poll();
+			}
 			return (Reference<K, V>) this.queue.poll();
 		}
 	}
@@ -1089,4 +1468,55 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		}
 	}
 
+
+	/**
+	 * Internal {@link Reference} implementation holding a strong reference to its entry.
+	 */
+	private static final class StrongEntryReference<K, V> implements Reference<K, V> {
+
+		@Nullable
+		private volatile Entry<K, V> entry;
+
+		private final int hash;
+
+		@Nullable
+		private final Reference<K, V> nextReference;
+
+		private final Queue<Reference<K, V>> releasedReferences;
+
+		public StrongEntryReference(Entry<K, V> entry, int hash, @Nullable Reference<K, V> next,
+				Queue<Reference<K, V>> releasedReferences) {
+
+			this.entry = entry;
+			this.hash = hash;
+			this.nextReference = next;
+			this.releasedReferences = releasedReferences;
+		}
+
+		@Override
+		@Nullable
+		public Entry<K, V> get() {
+			return this.entry;
+		}
+
+		@Override
+		public int getHash() {
+			return this.hash;
+		}
+
+		@Override
+		@Nullable
+		public Reference<K, V> getNext() {
+			return this.nextReference;
+		}
+
+		@Override
+		public void release() {
+			if (this.entry != null) {
+				this.entry = null;
+				this.releasedReferences.add(this);
+			}
+		}
+	}
+
 }
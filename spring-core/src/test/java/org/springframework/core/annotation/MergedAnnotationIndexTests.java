@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.util.ReflectionUtils;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MergedAnnotationIndex}.
+ *
+ * @since 5.1.21
+ */
+public class MergedAnnotationIndexTests {
+
+	@Before
+	public void clearCache() {
+		AnnotationUtils.clearCache();
+	}
+
+
+	@Test
+	public void indexContainsDirectAndMetaAnnotations() {
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(ComposedService.class);
+		assertTrue(index.isPresent(Composed.class));
+		assertTrue(index.isPresent(Mapping.class));
+		assertTrue(index.isPresent(Mapping.class.getName()));
+		assertFalse(index.isPresent(Transactional.class));
+		assertFalse(index.isPresent(Retention.class));
+	}
+
+	@Test
+	public void indexContainsAnnotationsFromTypeHierarchy() {
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(SubService.class);
+		assertTrue(index.isPresent(Composed.class));
+		assertTrue(index.isPresent(Mapping.class));
+		assertTrue(index.isPresent(Transactional.class));
+	}
+
+	@Test
+	public void indexContainsAnnotationsFromOverriddenMethods() {
+		Method method = ReflectionUtils.findMethod(SubService.class, "handle");
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(method);
+		assertTrue(index.isPresent(Composed.class));
+		assertTrue(index.isPresent(Mapping.class));
+		assertTrue(index.isPresent(Transactional.class));
+	}
+
+	@Test
+	public void indexIsCachedPerElement() {
+		assertSame(MergedAnnotationIndex.forElement(SubService.class), MergedAnnotationIndex.forElement(SubService.class));
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(SubService.class);
+		AnnotationUtils.clearCache();
+		assertNotSame(index, MergedAnnotationIndex.forElement(SubService.class));
+	}
+
+	@Test
+	public void indexIsNotCachedForAdaptedElements() {
+		Composed composed = ComposedService.class.getAnnotation(Composed.class);
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(AnnotatedElementUtils.forAnnotations(composed));
+		assertTrue(index.isPresent(Mapping.class));
+		assertNotSame(index, MergedAnnotationIndex.forElement(AnnotatedElementUtils.forAnnotations(composed)));
+	}
+
+	@Test
+	public void mergedAnnotationAttributesHonorAttributeOverrides() {
+		AnnotationAttributes attributes =
+				MergedAnnotationIndex.forElement(SubService.class).getMergedAnnotationAttributes(Mapping.class);
+		assertNotNull(attributes);
+		assertArrayEquals(new String[] {"/service"}, attributes.getStringArray("value"));
+		assertArrayEquals(new String[] {"/service"}, attributes.getStringArray("path"));
+		assertEquals("service", attributes.getString("name"));
+	}
+
+	@Test
+	public void mergedAnnotationAttributesAreCopiedForEveryCall() {
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(ComposedService.class);
+		AnnotationAttributes attributes = index.getMergedAnnotationAttributes(Mapping.class);
+		assertNotNull(attributes);
+		attributes.put("name", "modified");
+		assertEquals("service", index.getMergedAnnotationAttributes(Mapping.class).getString("name"));
+	}
+
+	@Test
+	public void mergedAnnotationIsSynthesizedOnce() {
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(ComposedService.class);
+		Mapping mapping = index.getMergedAnnotation(Mapping.class);
+		assertNotNull(mapping);
+		assertThat(mapping, instanceOf(SynthesizedAnnotation.class));
+		assertArrayEquals(new String[] {"/service"}, mapping.path());
+		assertSame(mapping, index.getMergedAnnotation(Mapping.class));
+	}
+
+	@Test
+	public void mergedAnnotationNotPresent() {
+		MergedAnnotationIndex index = MergedAnnotationIndex.forElement(ComposedService.class);
+		assertNull(index.getMergedAnnotation(Transactional.class));
+		assertNull(index.getMergedAnnotationAttributes(Transactional.class));
+	}
+
+	@Test
+	public void annotatedElementUtilsDelegatesToIndex() {
+		Method method = ReflectionUtils.findMethod(SubService.class, "handle");
+		Mapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, Mapping.class);
+		assertNotNull(mapping);
+		assertArrayEquals(new String[] {"/handle"}, mapping.value());
+		assertSame(mapping, MergedAnnotationIndex.forElement(method).getMergedAnnotation(Mapping.class));
+		assertTrue(AnnotatedElementUtils.hasAnnotation(method, Transactional.class));
+		assertFalse(AnnotatedElementUtils.hasAnnotation(ComposedService.class, Transactional.class));
+		assertNull(AnnotatedElementUtils.findMergedAnnotationAttributes(
+				ComposedService.class, Transactional.class.getName(), false, false));
+	}
+
+	@Test
+	public void annotationUtilsFindsAnnotationsAfterIndexLookup() {
+		assertNotNull(AnnotationUtils.findAnnotation(SubService.class, Mapping.class));
+		assertNull(AnnotationUtils.findAnnotation(ComposedService.class, Transactional.class));
+		assertNotNull(AnnotationUtils.findAnnotation(ReflectionUtils.findMethod(SubService.class, "handle"), Mapping.class));
+		assertTrue(MergedAnnotationIndex.isKnownAbsent(ComposedService.class, Transactional.class));
+		assertFalse(MergedAnnotationIndex.isKnownAbsent(ComposedService.class, Deprecated.class));
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String name() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Mapping
+	@interface Composed {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] path() default {};
+
+		@AliasFor(annotation = Mapping.class, attribute = "name")
+		String mappingName() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Inherited
+	@interface Transactional {
+	}
+
+
+	@Composed(path = "/service", mappingName = "service")
+	static class ComposedService {
+
+		@Composed(path = "/handle")
+		public void handle() {
+		}
+	}
+
+
+	interface TransactionalService {
+
+		@Transactional
+		void handle();
+	}
+
+
+	@Transactional
+	static class SubService extends ComposedService implements TransactionalService {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -640,6 +640,97 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void conversionPlan() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		TypeDescriptor sourceType = TypeDescriptor.valueOf(String.class);
+		TypeDescriptor targetType = TypeDescriptor.valueOf(Long.class);
+		ConversionPlan plan = conversionService.getConversionPlan(sourceType, targetType);
+		assertTrue(plan.isConvertible());
+		assertSame(sourceType, plan.getSourceType());
+		assertSame(targetType, plan.getTargetType());
+		assertEquals(Long.valueOf(3), plan.convert("3"));
+		assertNull(plan.convert(null));
+		assertSame(plan, conversionService.getConversionPlan(TypeDescriptor.valueOf(String.class), targetType));
+	}
+
+	@Test
+	public void conversionPlanInvalidatedByNewConverter() {
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		assertFalse(plan.isConvertible());
+		try {
+			plan.convert("3");
+			fail("Should have thrown ConverterNotFoundException");
+		}
+		catch (ConverterNotFoundException ex) {
+			// expected
+		}
+
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		plan = conversionService.getConversionPlan(TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		assertTrue(plan.isConvertible());
+		assertEquals(Integer.valueOf(3), plan.convert("3"));
+	}
+
+	@Test
+	public void conversionPlanWrapsConverterException() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(int.class));
+		try {
+			plan.convert("three");
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			assertThat(ex.getCause(), instanceOf(NumberFormatException.class));
+		}
+		try {
+			plan.convert(null);
+			fail("Should have thrown ConversionFailedException");
+		}
+		catch (ConversionFailedException ex) {
+			// null cannot be assigned to a primitive type
+		}
+	}
+
+	@Test
+	public void conversionPlanForIdentity() {
+		ConversionPlan plan = conversionService.getConversionPlan(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(CharSequence.class));
+		assertTrue(plan.isConvertible());
+		String source = "test";
+		assertSame(source, plan.convert(source));
+	}
+
+	@Test
+	public void conversionPlanForTypesHonorsOverriddenConvert() {
+		GenericConversionService customService = new DefaultConversionService() {
+			@Override
+			public Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType) {
+				return (source instanceof String ? ((String) source).length() : super.convert(source, sourceType, targetType));
+			}
+		};
+		ConversionPlan plan = ConversionPlan.forTypes(customService,
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		assertEquals(4, plan.convert("1234"));
+		assertEquals(3, plan.convert("abc"));
+
+		plan = ConversionPlan.forTypes(new DefaultConversionService(),
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+		assertEquals(1234, plan.convert("1234"));
+	}
+
+	@Test
+	public void convertCollectionWithMixedElementTypes() throws Exception {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		List<Object> source = Arrays.asList("1", 2, "3", 4L, null, (short) 6);
+		@SuppressWarnings("unchecked")
+		List<Integer> result = (List<Integer>) conversionService.convert(source,
+				TypeDescriptor.forObject(source), new TypeDescriptor(getClass().getField("list")));
+		assertEquals(Arrays.asList(1, 2, 3, 4, null, 6), result);
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
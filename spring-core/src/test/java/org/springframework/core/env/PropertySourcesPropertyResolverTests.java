@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -148,6 +148,130 @@ public class PropertySourcesPropertyResolverTests {
 		assertThat(propertyResolver.getProperty("foo"), equalTo("42"));
 	}
 
+	@Test
+	public void getProperty_withCache() {
+		HashMap<String, Object> map = new HashMap<>();
+		map.put("foo", "bar");
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(new MapPropertySource("testProperties", map));
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+		assertThat(propertyResolver.getProperty("foo"), equalTo("bar"));
+		assertThat(propertyResolver.getProperty("bogus"), nullValue());
+
+		// Unsignalled changes are not visible until the cache is cleared
+		map.put("foo", "biz");
+		map.put("bogus", "42");
+		assertThat(propertyResolver.getProperty("foo"), equalTo("bar"));
+		assertThat(propertyResolver.getProperty("bogus"), nullValue());
+		propertyResolver.clearCache();
+		assertThat(propertyResolver.getProperty("foo"), equalTo("biz"));
+		assertThat(propertyResolver.getProperty("bogus", Integer.class), equalTo(42));
+	}
+
+	@Test
+	public void getProperty_withCache_boundedForMissingKeys() {
+		Map<String, Object> map = new HashMap<>();
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(new PropertySource<Map<String, Object>>("testProperties", map) {
+			@Override
+			public Object getProperty(String name) {
+				return this.source.get(name);
+			}
+		});
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+		for (int i = 0; i < 10000; i++) {
+			assertThat(propertyResolver.getProperty("missing" + i), nullValue());
+		}
+
+		// Keys beyond the limit are not cached, so unsignalled changes are visible
+		assertThat(propertyResolver.getProperty("late"), nullValue());
+		map.put("late", "value");
+		assertThat(propertyResolver.getProperty("late"), equalTo("value"));
+		map.put("missing0", "value");
+		assertThat(propertyResolver.getProperty("missing0"), nullValue());
+	}
+
+	@Test
+	public void getProperty_withCache_invalidatedByPropertySourcesModification() {
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(new MockPropertySource("ps1").withProperty("pName", "ps1Value"));
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps1Value"));
+
+		propertySources.addFirst(new MockPropertySource("ps2").withProperty("pName", "ps2Value"));
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps2Value"));
+		propertySources.addLast(new MockPropertySource("ps3").withProperty("pName", "ps3Value"));
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps2Value"));
+		propertySources.replace("ps2", new MockPropertySource("ps4").withProperty("pName", "ps4Value"));
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps4Value"));
+		propertySources.remove("ps4");
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps1Value"));
+		propertySources.remove("ps1");
+		assertThat(propertyResolver.getProperty("pName"), equalTo("ps3Value"));
+	}
+
+	@Test
+	public void getProperty_withCache_invalidatedByPropertiesChanged() {
+		MockPropertySource propertySource = new MockPropertySource("ps1").withProperty("pName", "v1");
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(propertySource);
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+		assertThat(propertyResolver.getProperty("pName"), equalTo("v1"));
+
+		propertySource.setProperty("pName", "v2");
+		propertySource.setProperty("other", "v3");
+		propertySource.propertiesChanged();
+		assertThat(propertyResolver.getProperty("pName"), equalTo("v2"));
+		assertThat(propertyResolver.getProperty("other"), equalTo("v3"));
+	}
+
+	@Test
+	public void getProperty_withCache_respectsSearchOrder() {
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addLast(new MockPropertySource("indexed1").withProperty("p1", "indexed1"));
+		propertySources.addLast(new PropertySource<Object>("nonEnumerable", new Object()) {
+			@Override
+			public Object getProperty(String name) {
+				return (name.startsWith("p") ? "nonEnumerable" : null);
+			}
+		});
+		propertySources.addLast(new MockPropertySource("indexed2")
+				.withProperty("p1", "indexed2").withProperty("p2", "indexed2").withProperty("q1", "indexed2"));
+		Map<String, Object> mapWithNullValue = new HashMap<>();
+		mapWithNullValue.put("q2", null);
+		propertySources.addLast(new MapPropertySource("indexed3", mapWithNullValue));
+		propertySources.addLast(new MockPropertySource("indexed4").withProperty("q2", "indexed4"));
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+
+		assertThat(propertyResolver.getProperty("p1"), equalTo("indexed1"));
+		assertThat(propertyResolver.getProperty("p2"), equalTo("nonEnumerable"));
+		assertThat(propertyResolver.getProperty("p3"), equalTo("nonEnumerable"));
+		assertThat(propertyResolver.getProperty("q1"), equalTo("indexed2"));
+		assertThat(propertyResolver.getProperty("q2"), equalTo("indexed4"));
+		assertThat(propertyResolver.getProperty("q3"), nullValue());
+	}
+
+	@Test
+	public void getProperty_withCache_resolvesNestedPlaceholders() {
+		MockPropertySource propertySource = new MockPropertySource()
+				.withProperty("p1", "v1").withProperty("p2", "${p1}:${p3:def}");
+		MutablePropertySources propertySources = new MutablePropertySources();
+		propertySources.addFirst(propertySource);
+		PropertySourcesPropertyResolver propertyResolver = new PropertySourcesPropertyResolver(propertySources);
+		propertyResolver.setCacheEnabled(true);
+		assertThat(propertyResolver.getProperty("p2"), equalTo("v1:def"));
+
+		propertySource.setProperty("p3", "v3");
+		propertySource.propertiesChanged();
+		assertThat(propertyResolver.getProperty("p2"), equalTo("v1:v3"));
+		assertThat(propertyResolver.resolvePlaceholders("${p2}"), equalTo("v1:v3"));
+	}
+
 	@Test
 	public void getPropertySources_replacePropertySource() {
 		propertySources = new MutablePropertySources();
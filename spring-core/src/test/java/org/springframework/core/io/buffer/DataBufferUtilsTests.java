@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -230,6 +230,36 @@ public class DataBufferUtilsTests extends AbstractDataBufferAllocatingTestCase {
 				.verify(Duration.ofSeconds(3));
 	}
 
+	@Test
+	public void readMapped() throws Exception {
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(path, 0, Long.MAX_VALUE, this.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@Test
+	public void readMappedPositionAndCount() throws Exception {
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(path, 3, 5, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("ba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@Test
+	public void readMappedPositionBeyondEnd() throws Exception {
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(path, 100, 5, this.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@Test
 	public void readResourcePositionAndTakeUntil() throws Exception {
 		Resource resource = new ClassPathResource("DataBufferUtilsTests.txt", getClass());
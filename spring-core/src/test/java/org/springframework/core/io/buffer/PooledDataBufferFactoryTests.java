@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.io.buffer.support.DataBufferTestUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link PooledDataBufferFactory}.
+ */
+public class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory factory = new PooledDataBufferFactory(false, 256, 8192);
+
+
+	@Test
+	public void allocateBufferWithExactCapacity() {
+		DataBuffer buffer = this.factory.allocateBuffer(300);
+		assertTrue(buffer instanceof PooledDataBuffer);
+		assertEquals(300, buffer.capacity());
+		assertEquals(300, buffer.writableByteCount());
+		assertSame(this.factory, buffer.factory());
+		assertEquals(1, this.factory.getAllocatedBufferCount());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void releasedMemoryIsReused() {
+		DefaultDataBuffer buffer = this.factory.allocateBuffer(1000);
+		byte[] memory = buffer.getNativeBuffer().array();
+		DataBufferUtils.release(buffer);
+
+		DefaultDataBuffer other = this.factory.allocateBuffer(1024);
+		assertSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+
+		DefaultDataBuffer smaller = this.factory.allocateBuffer(512);
+		assertNotSame(memory, smaller.getNativeBuffer().array());
+		DataBufferUtils.release(smaller);
+	}
+
+	@Test
+	public void retainedMemoryIsNotReused() {
+		DefaultDataBuffer buffer = this.factory.allocateBuffer(1000);
+		((PooledDataBuffer) buffer).retain();
+		assertFalse(DataBufferUtils.release(buffer));
+
+		DefaultDataBuffer other = this.factory.allocateBuffer(1000);
+		assertNotSame(buffer.getNativeBuffer().array(), other.getNativeBuffer().array());
+		assertTrue(DataBufferUtils.release(buffer));
+		assertTrue(DataBufferUtils.release(other));
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void memoryReleasedOnOtherThreadIsShared() throws Exception {
+		// The thread cache of the releasing thread holds 64 buffers of 2048 bytes
+		List<DataBuffer> buffers = new ArrayList<>();
+		for (int i = 0; i < 65; i++) {
+			buffers.add(this.factory.allocateBuffer(2048));
+		}
+		byte[] memory = ((DefaultDataBuffer) buffers.get(64)).getNativeBuffer().array();
+		Thread thread = new Thread(() -> buffers.forEach(DataBufferUtils::release));
+		thread.start();
+		thread.join();
+
+		DefaultDataBuffer other = this.factory.allocateBuffer(2048);
+		assertSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void largeBufferIsNotPooled() {
+		DefaultDataBuffer buffer = this.factory.allocateBuffer(10000);
+		assertEquals(10000, buffer.capacity());
+		assertEquals(10000, buffer.getNativeBuffer().array().length);
+		byte[] memory = buffer.getNativeBuffer().array();
+		assertTrue(DataBufferUtils.release(buffer));
+
+		DefaultDataBuffer other = this.factory.allocateBuffer(10000);
+		assertNotSame(memory, other.getNativeBuffer().array());
+		DataBufferUtils.release(other);
+	}
+
+	@Test
+	public void capacityIncrease() {
+		DataBuffer buffer = this.factory.allocateBuffer(1);
+		buffer.write("abcdef".getBytes(StandardCharsets.UTF_8));
+		assertTrue(buffer.capacity() >= 6);
+		assertEquals("abcdef", DataBufferTestUtils.dumpString(buffer, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.factory.allocateBuffer(8);
+		buffer.write("abcdefgh".getBytes(StandardCharsets.UTF_8));
+		DataBuffer slice = buffer.slice(2, 3);
+		assertTrue(slice instanceof PooledDataBuffer);
+		assertEquals("cde", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+
+		DataBufferUtils.retain(slice);
+		assertFalse(DataBufferUtils.release(buffer));
+		assertTrue(((PooledDataBuffer) buffer).isAllocated());
+		assertTrue(DataBufferUtils.release(slice));
+		assertFalse(((PooledDataBuffer) buffer).isAllocated());
+		assertFalse(((PooledDataBuffer) slice).isAllocated());
+	}
+
+	@Test
+	public void sliceKeepsMemoryWhenCapacityIncreases() {
+		DefaultDataBuffer buffer = this.factory.allocateBuffer(8);
+		buffer.write("abcdefgh".getBytes(StandardCharsets.UTF_8));
+		byte[] memory = buffer.getNativeBuffer().array();
+		DataBuffer slice = buffer.slice(2, 3);
+		byte[] bytes = new byte[300];
+		Arrays.fill(bytes, (byte) 'z');
+		buffer.write(bytes);
+		assertNotSame(memory, buffer.getNativeBuffer().array());
+
+		DefaultDataBuffer other = this.factory.allocateBuffer(256);
+		assertNotSame(memory, other.getNativeBuffer().array());
+		Arrays.fill(bytes, (byte) 'x');
+		other.write(bytes, 0, 256);
+		assertEquals("cde", DataBufferTestUtils.dumpString(slice, StandardCharsets.UTF_8));
+		DataBufferUtils.release(other);
+
+		assertTrue(DataBufferUtils.release(buffer));
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+		DefaultDataBuffer reused = this.factory.allocateBuffer(256);
+		assertSame(memory, reused.getNativeBuffer().array());
+		DataBufferUtils.release(reused);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void retainAfterRelease() {
+		PooledDataBuffer buffer = (PooledDataBuffer) this.factory.allocateBuffer(8);
+		buffer.release();
+		buffer.retain();
+	}
+
+	@Test
+	public void join() {
+		DataBuffer first = this.factory.wrap("foo".getBytes(StandardCharsets.UTF_8));
+		DataBuffer second = this.factory.allocateBuffer(3);
+		second.write("bar".getBytes(StandardCharsets.UTF_8));
+		DataBuffer result = this.factory.join(Arrays.asList(first, second));
+		assertEquals("foobar", DataBufferTestUtils.dumpString(result, StandardCharsets.UTF_8));
+		assertTrue(DataBufferUtils.release(result));
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void leakDetection() throws Exception {
+		this.factory.setLeakDetectionEnabled(true);
+		assertTrue(this.factory.isLeakDetectionEnabled());
+		DataBufferUtils.release(this.factory.allocateBuffer(16));
+		this.factory.allocateBuffer(16);
+
+		for (int i = 0; i < 50 && this.factory.getDetectedLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertEquals(1, this.factory.getDetectedLeakCount());
+		assertEquals(0, this.factory.getAllocatedBufferCount());
+	}
+
+	@Test
+	public void noPooling() {
+		PooledDataBufferFactory factory = new PooledDataBufferFactory(true, 256, 0);
+		assertEquals(0, factory.getMaxPooledCapacity());
+		DefaultDataBuffer buffer = factory.allocateBuffer(100);
+		assertTrue(buffer.getNativeBuffer().isDirect());
+		assertEquals(100, buffer.capacity());
+		assertTrue(DataBufferUtils.release(buffer));
+	}
+
+}
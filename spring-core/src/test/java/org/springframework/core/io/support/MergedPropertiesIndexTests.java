@@ -0,0 +1,353 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link MergedPropertiesIndex}.
+ *
+ * @since 5.1.21
+ */
+public class MergedPropertiesIndexTests {
+
+	private static final String FACTORIES = SpringFactoriesLoader.FACTORIES_RESOURCE_LOCATION;
+
+	private static final String COMPONENTS = "META-INF/spring.components";
+
+	private static final String SERVICE = Service.class.getName();
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void buildMergesEntriesInClasspathOrder() throws IOException {
+		File first = createJar("first.jar", "example.Service=example.First1, example.First2\nexample.Other=example.Other1");
+		File second = createJar("second.jar", "example.Service=example.Second");
+
+		try (URLClassLoader classLoader = classLoader(first, second)) {
+			MergedPropertiesIndex index = MergedPropertiesIndex.build(classLoader, FACTORIES, COMPONENTS);
+			MultiValueMap<String, String> factories = index.getEntries(FACTORIES);
+			assertNotNull(factories);
+			assertEquals(Arrays.asList("example.First1", "example.First2", "example.Second"),
+					factories.get("example.Service"));
+			assertEquals(Arrays.asList("example.Other1"), factories.get("example.Other"));
+			assertTrue(index.getEntries(COMPONENTS).isEmpty());
+			assertNull(index.getEntries("META-INF/unknown"));
+		}
+	}
+
+	@Test
+	public void loadUsesIndexInsteadOfEnumeration() throws IOException {
+		File jar = createJar("lib.jar", SERVICE + "=example.Indexed");
+		File indexDir = writeIndex(jar);
+
+		try (URLClassLoader classLoader = new URLClassLoader(urls(indexDir, jar), null) {
+			@Override
+			public Enumeration<URL> getResources(String name) throws IOException {
+				assertNotEquals("Unexpected enumeration", FACTORIES, name);
+				return super.getResources(name);
+			}
+		}) {
+			MergedPropertiesIndex index = MergedPropertiesIndex.load(classLoader);
+			assertNotNull(index);
+			assertSame(index, MergedPropertiesIndex.load(classLoader));
+			assertEquals(Arrays.asList("example.Indexed"), index.getEntries(FACTORIES).get(SERVICE));
+			assertEquals(Arrays.asList("example.Indexed"),
+					SpringFactoriesLoader.loadFactoryNames(Service.class, classLoader));
+		}
+	}
+
+	@Test
+	public void loadIgnoresIndexForDifferentClasspath() throws IOException {
+		File jar = createJar("lib.jar", SERVICE + "=example.First");
+		File indexDir = writeIndex(jar);
+		File extra = createJar("extra.jar", SERVICE + "=example.Extra");
+
+		try (URLClassLoader classLoader = classLoader(indexDir, jar, extra)) {
+			assertNull(MergedPropertiesIndex.load(classLoader));
+			assertEquals(Arrays.asList("example.First", "example.Extra"),
+					SpringFactoriesLoader.loadFactoryNames(Service.class, classLoader));
+		}
+	}
+
+	@Test
+	public void loadIgnoresIndexForRebuiltJar() throws IOException {
+		File jar = createJar("lib.jar", SERVICE + "=example.First");
+		long lastModified = jar.lastModified();
+		File indexDir = writeIndex(jar);
+		createJar("lib.jar", SERVICE + "=example.Rebuilt");
+		assertTrue(jar.setLastModified(lastModified + 2000));
+
+		try (URLClassLoader classLoader = classLoader(indexDir, jar)) {
+			assertNull(MergedPropertiesIndex.load(classLoader));
+			assertEquals(Arrays.asList("example.Rebuilt"),
+					SpringFactoriesLoader.loadFactoryNames(Service.class, classLoader));
+		}
+	}
+
+	@Test
+	public void loadIgnoresIndexForChangedDirectoryResources() throws IOException {
+		File classesDir = this.temporaryFolder.newFolder("classes");
+		File factories = new File(classesDir, FACTORIES);
+		assertTrue(factories.getParentFile().mkdirs());
+		writeFactories(factories, SERVICE + "=example.First");
+		long lastModified = factories.lastModified();
+		File indexDir = writeIndex(classesDir);
+		writeFactories(factories, SERVICE + "=example.Changed");
+		assertTrue(factories.setLastModified(lastModified + 2000));
+
+		try (URLClassLoader classLoader = classLoader(indexDir, classesDir)) {
+			assertNull(MergedPropertiesIndex.load(classLoader));
+			assertEquals(Arrays.asList("example.Changed"),
+					SpringFactoriesLoader.loadFactoryNames(Service.class, classLoader));
+		}
+	}
+
+	@Test
+	public void loadWithoutIndex() throws IOException {
+		File jar = createJar("lib.jar", "example.Service=example.First");
+		try (URLClassLoader classLoader = classLoader(jar)) {
+			assertNull(MergedPropertiesIndex.load(classLoader));
+		}
+	}
+
+	@Test
+	public void fingerprintIgnoresJarLocationAndUnrelatedDirectories() throws IOException {
+		List<String> locations = Arrays.asList(FACTORIES, COMPONENTS);
+		File jar = createJar("lib.jar", "example.Service=example.First");
+		byte[] fingerprint;
+		try (URLClassLoader first = classLoader(jar)) {
+			fingerprint = MergedPropertiesIndex.fingerprint(first, locations);
+		}
+		File otherJar = new File(this.temporaryFolder.newFolder("other"), "lib.jar");
+		assertTrue(jar.renameTo(otherJar));
+		File classesDir = this.temporaryFolder.newFolder("classes");
+		File factories = new File(classesDir, FACTORIES);
+		assertTrue(factories.getParentFile().mkdirs());
+		writeFactories(factories, "example.Service=example.Local");
+
+		File unrelatedJar = createJar("unrelated.jar", COMPONENTS, "example.Component=example.Stereotype");
+
+		try (URLClassLoader second = classLoader(this.temporaryFolder.getRoot(), otherJar);
+				URLClassLoader third = classLoader(unrelatedJar);
+				URLClassLoader fourth = classLoader(classesDir, otherJar)) {
+			assertArrayEquals(fingerprint, MergedPropertiesIndex.fingerprint(second, locations));
+			assertFalse(Arrays.equals(fingerprint, MergedPropertiesIndex.fingerprint(third, locations)));
+			assertFalse(Arrays.equals(fingerprint, MergedPropertiesIndex.fingerprint(fourth, locations)));
+		}
+	}
+
+	@Test
+	public void loadUsesIndexForPackagedClasspath() throws IOException {
+		File classesDir = createClassesDir(SERVICE + "=example.Application");
+		File jar = createJar("lib.jar", SERVICE + "=example.Library");
+		File indexDir = writeIndex(classesDir, jar);
+		File applicationJar = createJar("application.jar", SERVICE + "=example.Application");
+
+		try (URLClassLoader classLoader = classLoader(indexDir, applicationJar, jar)) {
+			MergedPropertiesIndex index = MergedPropertiesIndex.load(classLoader);
+			assertNotNull(index);
+			assertEquals(Arrays.asList("example.Application", "example.Library"),
+					index.getEntries(FACTORIES).get(SERVICE));
+		}
+	}
+
+	@Test
+	public void loadUsesIndexForNestedJars() throws IOException {
+		File classesDir = createClassesDir(SERVICE + "=example.Application");
+		File jar = createJar("lib.jar", SERVICE + "=example.Library");
+		File indexFile = new File(writeIndex(classesDir, jar), MergedPropertiesIndex.INDEX_RESOURCE_LOCATION);
+		File archive = createArchive("application.jar", SERVICE + "=example.Application", jar);
+
+		try (URLClassLoader classLoader = nestedClassLoader(archive, indexFile)) {
+			MergedPropertiesIndex index = MergedPropertiesIndex.load(classLoader);
+			assertNotNull(index);
+			assertEquals(Arrays.asList("example.Application", "example.Library"),
+					index.getEntries(FACTORIES).get(SERVICE));
+		}
+
+		File changedArchive = createArchive("changed.jar", SERVICE + "=example.Application",
+				createJar("lib.jar", SERVICE + "=example.Changed"));
+		try (URLClassLoader classLoader = nestedClassLoader(changedArchive, indexFile)) {
+			assertNull(MergedPropertiesIndex.load(classLoader));
+		}
+	}
+
+
+	private File createJar(String name, String factories) throws IOException {
+		return createJar(name, FACTORIES, factories);
+	}
+
+	private File createJar(String name, String location, String content) throws IOException {
+		File file = new File(this.temporaryFolder.getRoot(), name);
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+			out.putNextEntry(new JarEntry(location));
+			out.write(content.getBytes(StandardCharsets.ISO_8859_1));
+			out.closeEntry();
+		}
+		return file;
+	}
+
+	private File createClassesDir(String factories) throws IOException {
+		File classesDir = this.temporaryFolder.newFolder();
+		File file = new File(classesDir, FACTORIES);
+		assertTrue(file.getParentFile().mkdirs());
+		writeFactories(file, factories);
+		return classesDir;
+	}
+
+	/**
+	 * Create an application archive with the given factories in its classes
+	 * directory and the given JAR file nested in its lib directory.
+	 */
+	private File createArchive(String name, String factories, File nestedJar) throws IOException {
+		File file = new File(this.temporaryFolder.newFolder(), name);
+		try (JarOutputStream out = new JarOutputStream(new FileOutputStream(file))) {
+			out.putNextEntry(new JarEntry("BOOT-INF/classes/" + FACTORIES));
+			out.write(factories.getBytes(StandardCharsets.ISO_8859_1));
+			out.closeEntry();
+			out.putNextEntry(new JarEntry("BOOT-INF/lib/" + nestedJar.getName()));
+			out.write(Files.readAllBytes(nestedJar.toPath()));
+			out.closeEntry();
+		}
+		return file;
+	}
+
+	/**
+	 * Create a ClassLoader for the classes directory and the nested JAR file
+	 * of the given application archive, exposing the given index file.
+	 */
+	private static URLClassLoader nestedClassLoader(File archive, File indexFile) throws IOException {
+		URLStreamHandler handler = new NestedJarHandler();
+		String prefix = "jar:" + archive.toURI() + "!/BOOT-INF/";
+		URL[] urls = {new URL(null, prefix + "classes!/", handler), new URL(null, prefix + "lib/lib.jar!/", handler)};
+		URL indexUrl = indexFile.toURI().toURL();
+		return new URLClassLoader(urls, null) {
+			@Override
+			public URL getResource(String name) {
+				return (name.equals(MergedPropertiesIndex.INDEX_RESOURCE_LOCATION) ? indexUrl : null);
+			}
+		};
+	}
+
+	private static void writeFactories(File file, String factories) throws IOException {
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(factories.getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+
+	private File writeIndex(File... classpath) throws IOException {
+		File indexDir = this.temporaryFolder.newFolder();
+		try (URLClassLoader classLoader = classLoader(classpath)) {
+			File indexFile = new File(indexDir, MergedPropertiesIndex.INDEX_RESOURCE_LOCATION);
+			assertTrue(indexFile.getParentFile().mkdirs());
+			try (OutputStream out = new FileOutputStream(indexFile)) {
+				MergedPropertiesIndex.build(classLoader, FACTORIES, COMPONENTS).writeTo(out);
+			}
+		}
+		return indexDir;
+	}
+
+	private static URLClassLoader classLoader(File... classpath) throws IOException {
+		return new URLClassLoader(urls(classpath), null);
+	}
+
+	private static URL[] urls(File... classpath) throws IOException {
+		URL[] urls = new URL[classpath.length];
+		for (int i = 0; i < classpath.length; i++) {
+			urls[i] = classpath[i].toURI().toURL();
+		}
+		return urls;
+	}
+
+
+	interface Service {
+	}
+
+
+	/**
+	 * Minimal handler for {@code jar:file:archive.jar!/nested!/entry} URLs,
+	 * as provided for nested JAR files by the launchers of application archives.
+	 */
+	private static class NestedJarHandler extends URLStreamHandler {
+
+		@Override
+		protected URLConnection openConnection(URL url) {
+			return new URLConnection(url) {
+				@Override
+				public void connect() {
+				}
+				@Override
+				public InputStream getInputStream() throws IOException {
+					String[] segments = getURL().toString().substring("jar:".length()).split("!/", -1);
+					try (JarFile archive = new JarFile(ResourceUtils.getFile(new URL(segments[0])))) {
+						if (!segments[1].endsWith(ResourceUtils.JAR_FILE_EXTENSION)) {
+							JarEntry entry = archive.getJarEntry(segments[1] + "/" + segments[2]);
+							if (entry != null) {
+								return new ByteArrayInputStream(
+										StreamUtils.copyToByteArray(archive.getInputStream(entry)));
+							}
+						}
+						else {
+							JarInputStream nested = new JarInputStream(
+									archive.getInputStream(archive.getJarEntry(segments[1])));
+							JarEntry entry;
+							while ((entry = nested.getNextJarEntry()) != null) {
+								if (entry.getName().equals(segments[2])) {
+									return new ByteArrayInputStream(StreamUtils.copyToByteArray(nested));
+								}
+							}
+						}
+					}
+					throw new FileNotFoundException(getURL().toString());
+				}
+			};
+		}
+	}
+
+}
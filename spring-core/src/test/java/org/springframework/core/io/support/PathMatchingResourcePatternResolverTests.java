@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,18 @@
 
 package org.springframework.core.io.support;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.core.io.Resource;
 import org.springframework.util.StringUtils;
@@ -56,6 +60,9 @@ public class PathMatchingResourcePatternResolverTests {
 
 	private PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
 
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
 
 	@Test(expected = FileNotFoundException.class)
 	public void invalidPrefixWithPatternElementInIt() throws IOException {
@@ -118,6 +125,82 @@ public class PathMatchingResourcePatternResolverTests {
 		assertTrue("Could not find aspectj_1_5_0.dtd in the root of the aspectjweaver jar", found);
 	}
 
+	@Test
+	public void classpathStarWithPatternInJarRepeated() throws IOException {
+		Resource[] resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertTrue(resources.length > 0);
+		assertArrayEquals(resources, resolver.getResources("classpath*:org/reactivestreams/*.class"));
+		assertArrayEquals(resources, resolver.getResources("classpath*:org/reactivestreams/**/*.class"));
+	}
+
+	@Test
+	public void classpathStarWithPatternInParallel() throws IOException {
+		PathMatchingResourcePatternResolver parallelResolver = new PathMatchingResourcePatternResolver();
+		parallelResolver.setParallelScanning(true);
+		assertTrue(parallelResolver.isParallelScanning());
+
+		Resource[] resources = resolver.getResources("classpath*:META-INF/*.MF");
+		assertTrue(resources.length > 1);
+		assertArrayEquals(resources, parallelResolver.getResources("classpath*:META-INF/*.MF"));
+
+		resources = resolver.getResources("classpath*:org/springframework/core/io/support/*.class");
+		assertArrayEquals(resources,
+				parallelResolver.getResources("classpath*:org/springframework/core/io/support/*.class"));
+	}
+
+	@Test
+	public void classpathStarWithPatternInParallelWithCustomExecutor() throws IOException {
+		AtomicInteger taskCount = new AtomicInteger();
+		PathMatchingResourcePatternResolver parallelResolver = new PathMatchingResourcePatternResolver();
+		parallelResolver.setParallelScanning(true);
+		parallelResolver.setParallelScanningExecutor(task -> {
+			taskCount.incrementAndGet();
+			new Thread(task).start();
+		});
+
+		Resource[] resources = resolver.getResources("classpath*:META-INF/*.MF");
+		assertArrayEquals(resources, parallelResolver.getResources("classpath*:META-INF/*.MF"));
+		assertTrue(taskCount.get() > 1);
+	}
+
+	@Test
+	public void classpathStarWithPatternInJarWithIndexFile() throws IOException {
+		File indexFile = new File(this.tempFolder.getRoot(), "jar.idx");
+		PathMatchingResourcePatternResolver indexingResolver = new PathMatchingResourcePatternResolver();
+		indexingResolver.setJarIndexFile(indexFile);
+
+		Resource[] resources = resolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertArrayEquals(resources, indexingResolver.getResources("classpath*:org/reactivestreams/*.class"));
+		assertTrue(indexFile.isFile());
+
+		assertArrayEquals(new String[] {"jar.idx"}, this.tempFolder.getRoot().list());
+
+		PathMatchingResourcePatternResolver restartedResolver = new PathMatchingResourcePatternResolver();
+		restartedResolver.setJarIndexFile(indexFile);
+		assertArrayEquals(resources, restartedResolver.getResources("classpath*:org/reactivestreams/*.class"));
+	}
+
+	@Test
+	public void clearCacheReleasesSharedIndexFileState() throws IOException {
+		File indexFile = new File(this.tempFolder.getRoot(), "jar.idx");
+		PathMatchingResourcePatternResolver indexingResolver = new PathMatchingResourcePatternResolver();
+		indexingResolver.setJarIndexFile(indexFile);
+		Resource[] resources = indexingResolver.getResources("classpath*:org/reactivestreams/*.class");
+		assertTrue(indexFile.delete());
+
+		// Shared state: the jar is not enumerated again, so nothing to write
+		PathMatchingResourcePatternResolver otherResolver = new PathMatchingResourcePatternResolver();
+		otherResolver.setJarIndexFile(indexFile);
+		assertArrayEquals(resources, otherResolver.getResources("classpath*:org/reactivestreams/*.class"));
+		assertFalse(indexFile.exists());
+
+		PathMatchingResourcePatternResolver.clearCache();
+		otherResolver = new PathMatchingResourcePatternResolver();
+		otherResolver.setJarIndexFile(indexFile);
+		assertArrayEquals(resources, otherResolver.getResources("classpath*:org/reactivestreams/*.class"));
+		assertTrue(indexFile.isFile());
+	}
+
 
 	private void assertProtocolAndFilenames(Resource[] resources, String protocol, String... filenames)
 			throws IOException {
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link BufferingApplicationStartup}.
+ *
+ * @since 5.1.21
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void defaultApplicationStartupIsNoOp() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("spring.test").tag("key", "value");
+		assertSame(step, ApplicationStartup.DEFAULT.start("spring.other"));
+		assertFalse(step.getTags().iterator().hasNext());
+		step.end();
+		step.end();
+	}
+
+	@Test
+	public void stepsTrackParentOnSameThread() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("spring.outer");
+		StartupStep inner = startup.start("spring.inner").tag("beanName", "testBean");
+		inner.end();
+		StartupStep sibling = startup.start("spring.sibling");
+		sibling.end();
+		outer.end();
+
+		assertNull(outer.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), inner.getParentId());
+		assertEquals(Long.valueOf(outer.getId()), sibling.getParentId());
+
+		List<StartupStep> steps = startup.getBufferedSteps();
+		assertEquals(3, steps.size());
+		assertSame(inner, steps.get(0));
+		assertSame(sibling, steps.get(1));
+		assertSame(outer, steps.get(2));
+
+		Iterator<StartupStep.Tag> tags = inner.getTags().iterator();
+		StartupStep.Tag tag = tags.next();
+		assertEquals("beanName", tag.getKey());
+		assertEquals("testBean", tag.getValue());
+		assertFalse(tags.hasNext());
+	}
+
+	@Test
+	public void unendedChildDoesNotBecomeParentOfLaterSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("spring.outer");
+		startup.start("spring.leaked");
+		outer.end();
+
+		StartupStep next = startup.start("spring.next");
+		assertNull(next.getParentId());
+		next.end();
+	}
+
+	@Test
+	public void tagAfterEndIsRejected() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep step = startup.start("spring.test");
+		step.end();
+		try {
+			step.tag("key", "value");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void oldestStepsAreEvictedWhenCapacityExceeded() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		StartupStep first = startup.start("spring.first");
+		first.end();
+		StartupStep second = startup.start("spring.second");
+		second.end();
+		StartupStep third = startup.start("spring.third");
+		third.end();
+
+		List<StartupStep> steps = startup.getBufferedSteps();
+		assertEquals(2, steps.size());
+		assertSame(second, steps.get(0));
+		assertSame(third, steps.get(1));
+		assertEquals(1, startup.getDroppedStepCount());
+
+		startup.clear();
+		assertTrue(startup.getBufferedSteps().isEmpty());
+		assertEquals(0, startup.getDroppedStepCount());
+	}
+
+	@Test
+	public void jsonRendersStepTree() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("spring.outer");
+		startup.start("spring.inner").tag("beanName", "my\"Bean").end();
+		outer.end();
+
+		String json = startup.toJson();
+		assertThat(json, startsWith("{\"droppedSteps\":0,\"steps\":[{\"id\":" + outer.getId()));
+		assertThat(json, containsString("\"name\":\"spring.outer\""));
+		assertThat(json, containsString("\"children\":[{\"id\":"));
+		assertThat(json, containsString("\"parentId\":" + outer.getId()));
+		assertThat(json, containsString("\"tags\":{\"beanName\":\"my\\\"Bean\"}"));
+		assertThat(json.indexOf("spring.inner"), greaterThan(json.indexOf("spring.outer")));
+	}
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ClassUtils;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ClassFileHeader}.
+ *
+ * @since 5.1.21
+ */
+public class ClassFileHeaderTests {
+
+	@Test
+	public void classHeader() throws IOException {
+		ClassFileHeader header = read(AnnotatedClass.class);
+		assertEquals(AnnotatedClass.class.getName(), header.getClassName());
+		assertEquals(Base.class.getName(), header.getSuperClassName());
+		assertArrayEquals(new String[] {Serializable.class.getName(), Runnable.class.getName()},
+				header.getInterfaceNames());
+		assertTrue(header.isConcrete());
+		assertFalse(header.isInterface());
+		assertFalse(header.isAnnotation());
+	}
+
+	@Test
+	public void annotationTypes() throws IOException {
+		ClassFileHeader header = read(AnnotatedClass.class);
+		assertArrayEquals(new String[] {RuntimeMarker.class.getName(), Values.class.getName(),
+				ClassMarker.class.getName()}, header.getAnnotationTypes());
+		assertTrue(header.hasAnnotation(ClassMarker.class.getName()));
+		assertFalse(header.hasAnnotation(Retention.class.getName()));
+	}
+
+	@Test
+	public void annotationTypesConsistentWithMetadataReader() throws IOException {
+		for (Class<?> clazz : new Class<?>[] {AnnotatedClass.class, PlainClass.class, Base.class,
+				AnnotatedInterface.class, Values.class, ClassFileHeaderTests.class}) {
+			MetadataReader metadataReader = new SimpleMetadataReaderFactory().getMetadataReader(clazz.getName());
+			assertEquals(clazz.getName(), metadataReader.getAnnotationMetadata().getAnnotationTypes(),
+					new HashSet<>(Arrays.asList(read(clazz).getAnnotationTypes())));
+		}
+	}
+
+	@Test
+	public void plainClass() throws IOException {
+		ClassFileHeader header = read(PlainClass.class);
+		assertThat(header.getAnnotationTypes(), emptyArray());
+		assertEquals(Object.class.getName(), header.getSuperClassName());
+		assertThat(header.getInterfaceNames(), emptyArray());
+	}
+
+	@Test
+	public void abstractClass() throws IOException {
+		ClassFileHeader header = read(Base.class);
+		assertTrue(header.isAbstract());
+		assertFalse(header.isConcrete());
+	}
+
+	@Test
+	public void annotatedInterface() throws IOException {
+		ClassFileHeader header = read(AnnotatedInterface.class);
+		assertTrue(header.isInterface());
+		assertFalse(header.isConcrete());
+		assertNull(header.getSuperClassName());
+		assertArrayEquals(new String[] {RuntimeMarker.class.getName()}, header.getAnnotationTypes());
+	}
+
+	@Test
+	public void annotationType() throws IOException {
+		ClassFileHeader header = read(Values.class);
+		assertTrue(header.isInterface());
+		assertTrue(header.isAnnotation());
+		assertThat(header.getInterfaceNames(), arrayContaining("java.lang.annotation.Annotation"));
+		assertTrue(header.hasAnnotation(Retention.class.getName()));
+		assertTrue(header.hasAnnotation(Target.class.getName()));
+	}
+
+	@Test
+	public void fromByteArray() throws IOException {
+		Resource resource = getResource(AnnotatedClass.class);
+		byte[] content = new byte[(int) resource.contentLength()];
+		try (InputStream is = resource.getInputStream()) {
+			int offset = 0;
+			while (offset < content.length) {
+				offset += is.read(content, offset, content.length - offset);
+			}
+		}
+		assertArrayEquals(read(AnnotatedClass.class).getAnnotationTypes(),
+				ClassFileHeader.read(content).getAnnotationTypes());
+	}
+
+
+	private static ClassFileHeader read(Class<?> clazz) throws IOException {
+		return ClassFileHeader.read(getResource(clazz));
+	}
+
+	private static Resource getResource(Class<?> clazz) {
+		return new ClassPathResource(ClassUtils.convertClassNameToResourcePath(clazz.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX, clazz.getClassLoader());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface RuntimeMarker {
+	}
+
+
+	@Retention(RetentionPolicy.CLASS)
+	@interface ClassMarker {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@interface Values {
+
+		String name() default "";
+
+		int[] numbers() default {};
+
+		TimeUnit unit() default TimeUnit.SECONDS;
+
+		Class<?>[] types() default {};
+
+		RuntimeMarker nested() default @RuntimeMarker;
+
+		Values.Nested[] nestedArray() default {};
+
+		@interface Nested {
+
+			String value();
+
+			TimeUnit[] units() default {};
+		}
+	}
+
+
+	abstract static class Base {
+
+		@RuntimeMarker
+		protected String field;
+
+		@RuntimeMarker
+		abstract void method(@RuntimeMarker String arg);
+	}
+
+
+	@RuntimeMarker
+	@Values(name = "test", numbers = {1, 2, 3}, unit = TimeUnit.DAYS, types = {String.class, int[].class},
+			nested = @RuntimeMarker, nestedArray = {@Values.Nested(value = "a", units = TimeUnit.HOURS),
+			@Values.Nested("b")})
+	@ClassMarker
+	@SuppressWarnings("serial")
+	static class AnnotatedClass extends Base implements Serializable, Runnable {
+
+		@RuntimeMarker
+		private static final long CONSTANT = 42L;
+
+		@RuntimeMarker
+		private Object value = new Object();
+
+		@Override
+		@Deprecated
+		void method(String arg) {
+			this.value = arg + CONSTANT;
+		}
+
+		@Override
+		public void run() {
+			method("run");
+		}
+	}
+
+
+	static class PlainClass {
+
+		int counter;
+
+		void increment() {
+			this.counter++;
+		}
+	}
+
+
+	@RuntimeMarker
+	interface AnnotatedInterface {
+
+		void doSomething();
+	}
+
+}
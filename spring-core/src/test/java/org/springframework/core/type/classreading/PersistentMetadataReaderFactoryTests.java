@@ -0,0 +1,339 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link PersistentMetadataReaderFactory}.
+ *
+ * @since 5.1.21
+ */
+public class PersistentMetadataReaderFactoryTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+
+	@Test
+	public void metadataFromCacheFileMatchesParsedMetadata() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		Class<?>[] classes = {AnnotatedClass.class, AnnotatedClass.Member.class, Values.class,
+				PlainClass.class, PersistentMetadataReaderFactoryTests.class};
+		for (Class<?> clazz : classes) {
+			factory.getMetadataReader(clazz.getName());
+		}
+		factory.clearCache();
+		assertTrue(cacheFile.isFile());
+
+		PersistentMetadataReaderFactory cachingFactory = new PersistentMetadataReaderFactory(cacheFile);
+		SimpleMetadataReaderFactory parsingFactory = new SimpleMetadataReaderFactory();
+		for (Class<?> clazz : classes) {
+			assertMetadataEquals(parsingFactory.getMetadataReader(clazz.getName()).getAnnotationMetadata(),
+					cachingFactory.getMetadataReader(clazz.getName()).getAnnotationMetadata());
+		}
+	}
+
+	@Test
+	public void metadataFromCacheFileWithoutReadingClassFile() throws IOException {
+		File classFile = copyClassFile(AnnotatedClass.class);
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(new FileSystemResource(classFile));
+		factory.store();
+
+		// Corrupt the class file, keeping its size and timestamp
+		long lastModified = classFile.lastModified();
+		byte[] garbage = new byte[(int) classFile.length()];
+		Arrays.fill(garbage, (byte) 0xFF);
+		FileCopyUtils.copy(garbage, classFile);
+		assertTrue(classFile.setLastModified(lastModified));
+
+		MetadataReader metadataReader =
+				new PersistentMetadataReaderFactory(cacheFile).getMetadataReader(new FileSystemResource(classFile));
+		assertEquals(AnnotatedClass.class.getName(), metadataReader.getClassMetadata().getClassName());
+		assertTrue(metadataReader.getAnnotationMetadata().hasAnnotation(Values.class.getName()));
+	}
+
+	@Test
+	public void modifiedClassFileInvalidatesEntry() throws IOException {
+		File classFile = copyClassFile(AnnotatedClass.class);
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(new FileSystemResource(classFile));
+		factory.clearCache();
+
+		try (InputStream is = getClassFile(PlainClass.class).getInputStream()) {
+			FileCopyUtils.copy(FileCopyUtils.copyToByteArray(is), classFile);
+		}
+		assertTrue(classFile.setLastModified(classFile.lastModified() + 2000));
+
+		MetadataReader metadataReader =
+				new PersistentMetadataReaderFactory(cacheFile).getMetadataReader(new FileSystemResource(classFile));
+		assertEquals(PlainClass.class.getName(), metadataReader.getClassMetadata().getClassName());
+		assertTrue(metadataReader.getAnnotationMetadata().getAnnotationTypes().isEmpty());
+	}
+
+	@Test
+	public void corruptCacheFileIgnored() throws IOException {
+		File cacheFile = this.temporaryFolder.newFile("metadata.cache");
+		FileCopyUtils.copy(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, cacheFile);
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		MetadataReader metadataReader = factory.getMetadataReader(AnnotatedClass.class.getName());
+		assertTrue(metadataReader.getAnnotationMetadata().hasAnnotation(Values.class.getName()));
+		factory.clearCache();
+		assertTrue(cacheFile.length() > 9);
+	}
+
+	@Test
+	public void unchangedCacheFileNotRewritten() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.clearCache();
+		assertTrue(cacheFile.delete());
+
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.clearCache();
+		assertFalse(cacheFile.exists());
+	}
+
+	@Test
+	public void factoriesDoNotShareCacheFileState() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		new PersistentMetadataReaderFactory(cacheFile).store();
+		assertFalse(cacheFile.exists());
+
+		factory.store();
+		assertTrue(cacheFile.isFile());
+		assertArrayEquals(new String[] {"metadata.cache"}, this.temporaryFolder.getRoot().list());
+	}
+
+	@Test
+	public void cacheFileReplacedAfterLoading() throws IOException {
+		File cacheFile = new File(this.temporaryFolder.getRoot(), "metadata.cache");
+		PersistentMetadataReaderFactory factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.store();
+
+		factory = new PersistentMetadataReaderFactory(cacheFile);
+		factory.getMetadataReader(AnnotatedClass.class.getName());
+		factory.getMetadataReader(PlainClass.class.getName());
+		factory.store();
+		MetadataReader metadataReader = factory.getMetadataReader(AnnotatedClass.class.getName());
+		assertTrue(metadataReader.getAnnotationMetadata().hasAnnotation(Values.class.getName()));
+
+		factory = new PersistentMetadataReaderFactory(cacheFile);
+		SimpleMetadataReaderFactory parsingFactory = new SimpleMetadataReaderFactory();
+		assertMetadataEquals(parsingFactory.getMetadataReader(PlainClass.class.getName()).getAnnotationMetadata(),
+				factory.getMetadataReader(PlainClass.class.getName()).getAnnotationMetadata());
+	}
+
+	@Test(expected = IOException.class)
+	public void unsupportedAnnotationValueNotRecorded() throws IOException {
+		ClassVisitRecorder recorder = new ClassVisitRecorder(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {});
+		recorder.visit(52, 0, "Example", null, "java/lang/Object", new String[0]);
+		recorder.visitAnnotation("LExample;", true).visit("value", new Object());
+		recorder.visitEnd();
+		recorder.toByteArray();
+	}
+
+
+	private File copyClassFile(Class<?> clazz) throws IOException {
+		File classFile = this.temporaryFolder.newFile(clazz.getSimpleName() + ".class");
+		try (InputStream is = getClassFile(clazz).getInputStream()) {
+			Files.write(classFile.toPath(), FileCopyUtils.copyToByteArray(is));
+		}
+		return classFile;
+	}
+
+	private static Resource getClassFile(Class<?> clazz) {
+		return new ClassPathResource(ClassUtils.convertClassNameToResourcePath(clazz.getName()) +
+				ClassUtils.CLASS_FILE_SUFFIX, clazz.getClassLoader());
+	}
+
+	private static void assertMetadataEquals(AnnotationMetadata expected, AnnotationMetadata actual) {
+		String className = expected.getClassName();
+		assertEquals(className, actual.getClassName());
+		assertEquals(className, expected.getSuperClassName(), actual.getSuperClassName());
+		assertArrayEquals(className, expected.getInterfaceNames(), actual.getInterfaceNames());
+		assertArrayEquals(className, expected.getMemberClassNames(), actual.getMemberClassNames());
+		assertEquals(className, expected.getEnclosingClassName(), actual.getEnclosingClassName());
+		assertEquals(className, expected.isIndependent(), actual.isIndependent());
+		assertEquals(className, expected.isAbstract(), actual.isAbstract());
+		assertEquals(className, expected.isAnnotation(), actual.isAnnotation());
+		assertEquals(className, expected.getAnnotationTypes(), actual.getAnnotationTypes());
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(className, expected.getMetaAnnotationTypes(annotationType),
+					actual.getMetaAnnotationTypes(annotationType));
+			assertAttributesEquals(expected.getAllAnnotationAttributes(annotationType),
+					actual.getAllAnnotationAttributes(annotationType));
+			assertAttributesEquals(expected.getAllAnnotationAttributes(annotationType, true),
+					actual.getAllAnnotationAttributes(annotationType, true));
+		}
+		for (String annotationType : expected.getAnnotationTypes()) {
+			assertEquals(className, expected.getAnnotatedMethods(annotationType).size(),
+					actual.getAnnotatedMethods(annotationType).size());
+		}
+		for (MethodMetadata method : expected.getAnnotatedMethods(RuntimeMarker.class.getName())) {
+			assertTrue(actual.getAnnotatedMethods(RuntimeMarker.class.getName()).stream().anyMatch(other ->
+					other.getMethodName().equals(method.getMethodName()) &&
+					other.getReturnTypeName().equals(method.getReturnTypeName()) &&
+					other.isStatic() == method.isStatic()));
+		}
+	}
+
+	private static void assertAttributesEquals(
+			MultiValueMap<String, Object> expected, MultiValueMap<String, Object> actual) {
+
+		assertEquals(toDeepString(expected), toDeepString(actual));
+	}
+
+	private static String toDeepString(@Nullable Object value) {
+		if (value instanceof Map) {
+			StringJoiner joiner = new StringJoiner(", ", "{", "}");
+			((Map<?, ?>) value).forEach((key, element) -> joiner.add(key + "=" + toDeepString(element)));
+			return joiner.toString();
+		}
+		if (value instanceof Collection || ObjectUtils.isArray(value)) {
+			Object[] elements = (value instanceof Collection ? ((Collection<?>) value).toArray() :
+					ObjectUtils.toObjectArray(value));
+			StringJoiner joiner = new StringJoiner(", ", "[", "]");
+			for (Object element : elements) {
+				joiner.add(toDeepString(element));
+			}
+			return joiner.toString();
+		}
+		return String.valueOf(value);
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface RuntimeMarker {
+	}
+
+
+	@Retention(RetentionPolicy.CLASS)
+	@interface ClassMarker {
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@RuntimeMarker
+	@interface Values {
+
+		String name() default "";
+
+		int[] numbers() default {};
+
+		double ratio() default 0.5;
+
+		char[] chars() default {};
+
+		TimeUnit unit() default TimeUnit.SECONDS;
+
+		Class<?>[] types() default {};
+
+		RuntimeMarker nested() default @RuntimeMarker;
+
+		Values.Nested[] nestedArray() default {};
+
+		@interface Nested {
+
+			String value();
+
+			TimeUnit[] units() default {};
+		}
+	}
+
+
+	@Values(name = "test", numbers = {1, 2, 3}, ratio = 1.5, chars = {'a', 'z'}, unit = TimeUnit.DAYS,
+			types = {String.class, int[].class}, nestedArray = {@Values.Nested(value = "a", units = TimeUnit.HOURS),
+			@Values.Nested("b")})
+	@ClassMarker
+	@SuppressWarnings("serial")
+	static class AnnotatedClass implements Serializable {
+
+		@RuntimeMarker
+		private Object value;
+
+		@RuntimeMarker
+		public Object getValue() {
+			return this.value;
+		}
+
+		@RuntimeMarker
+		@Values(name = "method", types = Object.class)
+		public static String create() {
+			return "";
+		}
+
+		public void unannotated() {
+		}
+
+
+		class Member {
+		}
+	}
+
+
+	static class PlainClass {
+
+		int counter;
+
+		void increment() {
+			this.counter++;
+		}
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link AntPathPatternTrie}.
+ */
+public class AntPathPatternTrieTests {
+
+	private static final List<String> PATTERNS = Arrays.asList(
+			"", "*", "**/{name}.jpg", "*.*", "*/*", "*bla*/**/bla/*", "*bla*/**/bla/**", "*test",
+			"*test*", ".**", ".**.*", ".**.test", ".*.**", ".*bla.test", ".?", ".?.a", ".??.a",
+			".a.?", ".a.??", ".bla*bla.test", ".bla.**.**.bla", ".bla.**.bla", ".test", ".test/jpg",
+			"/**", "/**/*", "/**/*bla", "/**/test", "/**/{name}.jpg", "/*/**", "/*/dir/{name}.jpg",
+			"/*bla*/**/bla/*", "/*bla*/**/bla/**", "/*bla/test", "/?", "/?/a", "/??/a", "/????",
+			"/Group/{groupName}/Members", "/a/?", "/a/??", "/bla*bla/test", "/bla/**/**/bla",
+			"/bla/**/bla", "/foo/bar", "/foo/bar/**", "/group/{groupName}/members", "/test",
+			"/test.jpg", "/x/x/**/bla", "/{bla}.*", "??st", "?es?", "bla/**/test.jpg",
+			"https://example.org", "t?st", "te??", "tes?", "test", "test*", "test*aaa", "test/*",
+			"test/**/test.jpg", "test/{name}.jpg", "test?",
+			"/hotels/{hotel}", "/hotels/*", "/hotels/new", "/hotels/{hotel}/bookings/**",
+			"/hotels/**", "/**/*.html", "/Hotels/new", "/hotels//new");
+
+	private static final List<String> PATHS = Arrays.asList(
+			"", ".XXXbla.test", ".a", ".a.a", ".a.b", ".a.bb", ".aa.a", ".bla.bla.bla.bla.bla.bla",
+			".bla.bla.test", ".bla.testing.testing.bla", ".bla.testing.testing.bla.bla",
+			".blaXXXbl.test", ".blaXXXbla.test", ".test", ".testing.testing", "/*/dir/lorem.jpg",
+			"/Group/  Sales/Members", "/Group/Sales/Members", "/XXXbla/test",
+			"/XXXblaXXXX/testing/testing/bla/testing",
+			"/XXXblaXXXX/testing/testing/bla/testing/testing",
+			"/XXXblaXXXX/testing/testing/bla/testing/testing.jpg",
+			"/XXXblaXXXX/testing/testing/bla/testing/testing/", "/a", "/a/a", "/a/b", "/a/bb",
+			"/aa/a", "/bala/bla", "/bla/bla/bla/bbb", "/bla/bla/bla/bla/bla/bla", "/bla/bla/test",
+			"/bla/testing/testing/bla", "/bla/testing/testing/bla/bla", "/blaXXXbl/test",
+			"/blaXXXbla/test", "/foo /bar", "/foo/bar", "/group/  sales/members",
+			"/group/Sales/members", "/group/sales/members", "/test", "/test/lorem.jpg",
+			"/testing.html", "/testing/testing", "/x/x/x/", "Anothertest", "AnothertestTest",
+			"XXXbl.test", "XXXbl/test", "XXXblaXXXX/testing/testing/bla/testing",
+			"XXXblaXXXX/testing/testing/bla/testing/testing",
+			"XXXblaXXXX/testing/testing/bla/testing/testing/", "XXXblab.test", "XXXblab/test",
+			"best", "bla/test.jpg", "https://example.org", "tes", "test", "test.", "test.jpg",
+			"test.test", "test.test.test", "test/", "test/Test", "test/dir/name.jpg", "test/jpg",
+			"test/lorem.jpg", "test/t", "test/test", "test/test/test", "testFf", "testTest",
+			"testblaaaa", "testblaaab", "testian", "testt", "tsst", "tst", "tsttest", "tsttst",
+			"view/test.jpg",
+			"/hotels/1", "/hotels/new", "/HOTELS/NEW", "/hotels/1/bookings/2", "/hotels/",
+			"/hotels/1/index.html", "/x/x/x/index.html", "/", "hotels/new");
+
+
+	@Test
+	public void matchesSameAsAntPathMatcher() {
+		assertSameMatches(new AntPathMatcher());
+	}
+
+	@Test
+	public void matchesSameAsCaseInsensitiveAntPathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		assertSameMatches(pathMatcher);
+	}
+
+	@Test
+	public void matchesSameAsAntPathMatcherWithTrimmedTokens() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setTrimTokens(true);
+		assertSameMatches(pathMatcher);
+	}
+
+	@Test
+	public void matchesSameAsAntPathMatcherWithCustomSeparator() {
+		assertSameMatches(new AntPathMatcher("."));
+	}
+
+	@Test
+	public void matchingPatternsSortedBySpecificity() {
+		AntPathPatternTrie trie = new AntPathPatternTrie();
+		trie.add("/**");
+		trie.add("/hotels/*");
+		trie.add("/hotels/{hotel}");
+		trie.add("/hotels/new");
+		trie.add("/bookings/**");
+
+		assertThat(trie.getMatchingPatterns("/hotels/new"),
+				contains("/hotels/new", "/hotels/{hotel}", "/hotels/*", "/**"));
+		assertThat(trie.getMatchingPatterns("/hotels/1"), contains("/hotels/{hotel}", "/hotels/*", "/**"));
+		assertThat(trie.getMatchingPatterns("/bookings"), contains("/bookings/**", "/**"));
+	}
+
+	@Test
+	public void equallySpecificPatternsInRegistrationOrder() {
+		List<String> patterns = new ArrayList<>();
+		for (int i = 9; i >= 0; i--) {
+			patterns.add("/{type" + i + "}/{id" + i + "}");
+		}
+		AntPathPatternTrie trie = new AntPathPatternTrie(new AntPathMatcher(), patterns);
+
+		assertEquals(patterns, trie.getMatchingPatterns("/hotels/1"));
+		assertEquals(patterns.get(0), trie.getFirstMatchingPattern("/hotels/1"));
+	}
+
+	@Test
+	public void firstMatchingPatternInRegistrationOrder() {
+		AntPathPatternTrie trie = new AntPathPatternTrie();
+		trie.add("/hotels/*");
+		trie.add("/**");
+		trie.add("/hotels/new");
+
+		assertEquals("/hotels/*", trie.getFirstMatchingPattern("/hotels/new"));
+		assertEquals("/**", trie.getFirstMatchingPattern("/bookings/1"));
+		assertFalse(trie.add("/hotels/*"));
+		assertEquals("/hotels/*", trie.getFirstMatchingPattern("/hotels/new"));
+	}
+
+	@Test
+	public void noMatch() {
+		AntPathPatternTrie trie = new AntPathPatternTrie();
+		assertTrue(trie.getMatchingPatterns("/hotels").isEmpty());
+		assertNull(trie.getFirstMatchingPattern("/hotels"));
+
+		trie.add("/hotels/*");
+		assertTrue(trie.getMatchingPatterns("/bookings/1").isEmpty());
+		assertNull(trie.getFirstMatchingPattern("/bookings/1"));
+		assertFalse(trie.matches("/bookings/1"));
+		assertTrue(trie.matches("/hotels/1"));
+	}
+
+	@Test
+	public void removeAndClear() {
+		AntPathPatternTrie trie = new AntPathPatternTrie();
+		trie.add("/hotels/{hotel}");
+		trie.add("/hotels/{hotel}/bookings");
+		trie.add("/hotels/**");
+		assertEquals(3, trie.size());
+
+		assertTrue(trie.remove("/hotels/{hotel}"));
+		assertFalse(trie.remove("/hotels/{hotel}"));
+		assertFalse(trie.contains("/hotels/{hotel}"));
+		assertThat(trie.getMatchingPatterns("/hotels/1"), contains("/hotels/**"));
+		assertThat(trie.getMatchingPatterns("/hotels/1/bookings"),
+				contains("/hotels/{hotel}/bookings", "/hotels/**"));
+
+		assertTrue(trie.remove("/hotels/**"));
+		assertTrue(trie.getMatchingPatterns("/hotels/1").isEmpty());
+		assertThat(trie.getPatterns(), contains("/hotels/{hotel}/bookings"));
+
+		trie.clear();
+		assertTrue(trie.isEmpty());
+		assertTrue(trie.getMatchingPatterns("/hotels/1/bookings").isEmpty());
+	}
+
+	@Test
+	public void supports() {
+		assertTrue(AntPathPatternTrie.supports(new AntPathMatcher()));
+		assertFalse(AntPathPatternTrie.supports(new AntPathMatcher() {}));
+		assertFalse(AntPathPatternTrie.supports(null));
+	}
+
+
+	private void assertSameMatches(AntPathMatcher pathMatcher) {
+		AntPathPatternTrie trie = new AntPathPatternTrie(pathMatcher, PATTERNS);
+		for (String path : PATHS) {
+			List<String> expected = new ArrayList<>();
+			for (String pattern : PATTERNS) {
+				if (pathMatcher.match(pattern, path)) {
+					expected.add(pattern);
+				}
+			}
+			String first = (expected.isEmpty() ? null : expected.get(0));
+			assertEquals("First match for '" + path + "'", first, trie.getFirstMatchingPattern(path));
+			assertEquals("Any match for '" + path + "'", !expected.isEmpty(), trie.matches(path));
+
+			List<String> actual = trie.getMatchingPatterns(path);
+			assertThat("Matches for '" + path + "'", actual, containsInAnyOrder(expected.toArray()));
+			List<String> sorted = new ArrayList<>(actual);
+			Collections.sort(sorted, pathMatcher.getPatternComparator(path));
+			assertEquals(sorted, actual);
+		}
+	}
+
+}
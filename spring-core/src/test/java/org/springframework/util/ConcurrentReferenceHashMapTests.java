@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Ignore;
 import org.junit.Rule;
@@ -37,6 +38,7 @@ import org.junit.rules.ExpectedException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ConcurrentReferenceHashMap.Entry;
 import org.springframework.util.ConcurrentReferenceHashMap.Reference;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
 import org.springframework.util.ConcurrentReferenceHashMap.Restructure;
 import org.springframework.util.comparator.ComparableComparator;
 import org.springframework.util.comparator.NullSafeComparator;
@@ -409,6 +411,21 @@ public class ConcurrentReferenceHashMapTests {
 		assertThat(this.map.containsKey(null), is(false));
 	}
 
+	@Test
+	public void shouldDiscardPendingPurgesOnClear() {
+		this.map = new TestWeakConcurrentCache<>(1, 0.75f, 1);
+		for (int i = 1; i <= 5; i++) {
+			this.map.put(i, String.valueOf(i));
+		}
+		this.map.getMockReference(1, Restructure.NEVER).queueForPurge();
+		this.map.getMockReference(3, Restructure.NEVER).queueForPurge();
+		this.map.clear();
+		assertThat(this.map.hasPendingPurges(), is(false));
+		this.map.put(6, "6");
+		this.map.put(7, "7");
+		assertThat(this.map.size(), is(2));
+	}
+
 	@Test
 	public void shouldGetKeySet() {
 		this.map.put(123, "123");
@@ -512,6 +529,195 @@ public class ConcurrentReferenceHashMapTests {
 		map.createReferenceManager().createReference(null, 1234, null);
 	}
 
+	@Test
+	public void shouldSupportStrongReferences() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG);
+		map.put(1, "1");
+		map.put(2, "2");
+		assertThat(map.remove(1), is("1"));
+		assertThat(map.get(1), is(nullValue()));
+		assertThat(map.get(2), is("2"));
+		map.put(3, "3");
+		assertThat(map.size(), is(2));
+		assertThat(map.isBounded(), is(false));
+		assertThat(map.getHitCount(), is(0L));
+	}
+
+	@Test
+	public void shouldNotCreateBoundedWithoutStrongReferences() {
+		this.thrown.expect(IllegalArgumentException.class);
+		this.thrown.expectMessage("A bounded map requires strong references");
+		new ConcurrentReferenceHashMap<Integer, String>(16, 0.75f, 1, ReferenceType.SOFT, 10, null);
+	}
+
+	@Test
+	public void shouldEvictWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = ConcurrentReferenceHashMap.bounded(100);
+		assertThat(map.isBounded(), is(true));
+		for (int i = 0; i < 1000; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		assertThat(map.size(), is(lessThanOrEqualTo(100)));
+		assertThat(map.getEvictionCount(), is(greaterThanOrEqualTo(900L)));
+		assertThat(map.get(999), is("999"));
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 3, null);
+		map.put(1, "1");
+		map.put(2, "2");
+		map.put(3, "3");
+		assertThat(map.get(1), is("1"));
+		map.put(4, "4");
+		assertThat(map.containsKey(1), is(true));
+		assertThat(map.containsKey(2), is(false));
+		assertThat(map.containsKey(3), is(true));
+		assertThat(map.containsKey(4), is(true));
+		assertThat(map.getEvictionCount(), is(1L));
+	}
+
+	@Test
+	public void shouldEvictByWeightWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 10, (key, value) -> value.length());
+		map.put(1, "aaaa");
+		map.put(2, "bbbb");
+		assertThat(map.size(), is(2));
+		map.put(3, "cccc");
+		assertThat(map.containsKey(1), is(false));
+		assertThat(map.size(), is(2));
+		map.put(2, "bbbbbbbbbb");
+		assertThat(map.containsKey(3), is(false));
+		assertThat(map.get(2), is("bbbbbbbbbb"));
+		map.replace(2, "b");
+		map.put(4, "dddd");
+		map.put(5, "eeee");
+		assertThat(map.size(), is(3));
+		assertThat(map.getEvictionCount(), is(2L));
+	}
+
+	@Test
+	public void shouldEvictWithoutRestructuringWhenBounded() {
+		AtomicInteger createdReferences = new AtomicInteger();
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<Integer, String>(
+				1024, 0.75f, 1, ReferenceType.STRONG, 100, null) {
+			@Override
+			protected ReferenceManager createReferenceManager() {
+				return new ReferenceManager() {
+					@Override
+					public Reference<Integer, String> createReference(
+							Entry<Integer, String> entry, int hash, @Nullable Reference<Integer, String> next) {
+						createdReferences.incrementAndGet();
+						return super.createReference(entry, hash, next);
+					}
+				};
+			}
+		};
+		for (int i = 0; i < 1000; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		assertThat(map.size(), is(100));
+		assertThat(map.getEvictionCount(), is(900L));
+		assertThat(createdReferences.get(), is(lessThan(2000)));
+		for (int i = 900; i < 1000; i++) {
+			assertThat(map.get(i), is(String.valueOf(i)));
+		}
+	}
+
+	@Test
+	public void shouldNotEvictUpdatedEntryByItsOwnUpdateWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 10, (key, value) -> value.length());
+		map.put(1, "aaaa");
+		map.put(2, "bbbb");
+		map.put(1, "aaaaaaaa");
+		assertThat(map.get(1), is("aaaaaaaa"));
+		assertThat(map.containsKey(2), is(false));
+		assertThat(map.getEvictionCount(), is(1L));
+	}
+
+	@Test
+	public void shouldNotTreatUpdateAsAccessWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 3, null);
+		map.put(1, "1");
+		map.put(2, "2");
+		map.put(3, "3");
+		map.put(1, "one");
+		assertThat(map.get(2), is("2"));
+		assertThat(map.get(3), is("3"));
+		map.put(4, "4");
+		assertThat(map.containsKey(1), is(false));
+		assertThat(map.containsKey(2), is(true));
+		assertThat(map.containsKey(3), is(true));
+		assertThat(map.containsKey(4), is(true));
+		assertThat(map.getEvictionCount(), is(1L));
+	}
+
+	@Test
+	public void shouldReleaseWeightOfRemovedEntriesWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 2, null);
+		map.put(1, "1");
+		map.put(2, "2");
+		map.remove(1);
+		map.put(3, "3");
+		assertThat(map.get(2), is("2"));
+		assertThat(map.get(3), is("3"));
+		map.clear();
+		map.put(4, "4");
+		map.put(5, "5");
+		assertThat(map.size(), is(2));
+		assertThat(map.getEvictionCount(), is(0L));
+	}
+
+	@Test
+	public void shouldRefillAfterClearWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = new ConcurrentReferenceHashMap<>(
+				16, 0.75f, 1, ReferenceType.STRONG, 10, null);
+		for (int i = 0; i < 100; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		map.clear();
+		assertThat(map.size(), is(0));
+		for (int i = 0; i < 10; i++) {
+			map.put(i, String.valueOf(i));
+		}
+		assertThat(map.size(), is(10));
+		for (int i = 0; i < 10; i++) {
+			assertThat(map.get(i), is(String.valueOf(i)));
+		}
+		map.put(10, "10");
+		assertThat(map.size(), is(10));
+	}
+
+	@Test
+	public void shouldRecordStatisticsWhenBounded() {
+		ConcurrentReferenceHashMap<Integer, String> map = ConcurrentReferenceHashMap.bounded(10);
+		map.put(1, "1");
+		map.get(1);
+		map.get(1);
+		map.get(2);
+		assertThat(map.getHitCount(), is(2L));
+		assertThat(map.getMissCount(), is(1L));
+		assertThat(map.getEvictionCount(), is(0L));
+	}
+
+	@Test
+	public void shouldCreateInternalCache() {
+		assertThat(ConcurrentReferenceHashMap.forInternalCache(16).isBounded(), is(false));
+		System.setProperty(ConcurrentReferenceHashMap.INTERNAL_CACHE_MAXIMUM_SIZE_PROPERTY_NAME, "64");
+		try {
+			assertThat(ConcurrentReferenceHashMap.forInternalCache(16).isBounded(), is(true));
+		}
+		finally {
+			System.clearProperty(ConcurrentReferenceHashMap.INTERNAL_CACHE_MAXIMUM_SIZE_PROPERTY_NAME);
+		}
+	}
+
 	/**
 	 * Time a multi-threaded access to a cache.
 	 * @return the timing stopwatch
@@ -615,6 +821,10 @@ public class ConcurrentReferenceHashMapTests {
 			};
 		}
 
+		public boolean hasPendingPurges() {
+			return !this.queue.isEmpty();
+		}
+
 		public MockReference<K, V> getMockReference(K key, Restructure restructure) {
 			return (MockReference<K, V>) super.getReference(key, restructure);
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -181,6 +181,22 @@ public class MimeTypeTests {
 		assertEquals("Invalid subtype", "*", mimeType.getSubtype());
 	}
 
+	@Test
+	public void parseMimeTypeCached() {
+		String s = "application/json;charset=UTF-8";
+		MimeType mimeType = MimeTypeUtils.parseMimeType(s);
+		assertSame(mimeType, MimeTypeUtils.parseMimeType(s));
+		assertEquals(StandardCharsets.UTF_8, mimeType.getCharset());
+	}
+
+	@Test
+	public void parseMimeTypeMultipartNotCached() {
+		String s = "multipart/form-data;boundary=" + MimeTypeUtils.generateMultipartBoundaryString();
+		MimeType mimeType = MimeTypeUtils.parseMimeType(s);
+		assertNotSame(mimeType, MimeTypeUtils.parseMimeType(s));
+		assertEquals(mimeType, MimeTypeUtils.parseMimeType(s));
+	}
+
 	@Test(expected = InvalidMimeTypeException.class)
 	public void parseMimeTypeNoSubtype() {
 		MimeTypeUtils.parseMimeType("audio");
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for {@link org.springframework.expression.spel.standard.SpelExpression#getValue}
+ * in interpreted and compiled mode.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SpelExpressionBenchmark {
+
+	@Benchmark
+	public void propertyAccess(ExpressionState state, Blackhole bh) {
+		bh.consume(state.propertyAccess.getValue(state.context, state.root));
+	}
+
+	@Benchmark
+	public void methodInvocation(ExpressionState state, Blackhole bh) {
+		bh.consume(state.methodInvocation.getValue(state.context, state.root));
+	}
+
+	@Benchmark
+	public void arithmeticAndComparison(ExpressionState state, Blackhole bh) {
+		bh.consume(state.arithmetic.getValue(state.context, state.root, Boolean.class));
+	}
+
+	@Benchmark
+	public void mapIndexing(ExpressionState state, Blackhole bh) {
+		bh.consume(state.mapIndexing.getValue(state.context, state.root));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ExpressionState {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public StandardEvaluationContext context;
+
+		public Person root;
+
+		public Expression propertyAccess;
+
+		public Expression methodInvocation;
+
+		public Expression arithmetic;
+
+		public Expression mapIndexing;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SpelParserConfiguration configuration = new SpelParserConfiguration(
+					this.compilerMode, getClass().getClassLoader());
+			SpelExpressionParser parser = new SpelExpressionParser(configuration);
+			this.context = new StandardEvaluationContext();
+			this.root = new Person("Jane", 42);
+			this.root.getAttributes().put("team", "core");
+
+			this.propertyAccess = parser.parseExpression("name");
+			this.methodInvocation = parser.parseExpression("name.substring(1).toUpperCase()");
+			this.arithmetic = parser.parseExpression("age * 2 + 1 > 50 and name != null");
+			this.mapIndexing = parser.parseExpression("attributes['team']");
+
+			// Warm up each expression so that compiled mode has generated its bytecode
+			for (int i = 0; i < 3; i++) {
+				this.propertyAccess.getValue(this.context, this.root);
+				this.methodInvocation.getValue(this.context, this.root);
+				this.arithmetic.getValue(this.context, this.root, Boolean.class);
+				this.mapIndexing.getValue(this.context, this.root);
+			}
+		}
+	}
+
+
+	public static class Person {
+
+		private final String name;
+
+		private final int age;
+
+		private final Map<String, String> attributes = new HashMap<>();
+
+		public Person(String name, int age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public Map<String, String> getAttributes() {
+			return this.attributes;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.messaging.simp.broker;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -40,6 +41,7 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.AntPathMatcher;
+import org.springframework.util.AntPathPatternTrie;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -181,7 +183,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
-				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
+				this.destinationCache.updateAfterRemovedSubscription(info, destination, subsId);
 			}
 		}
 	}
@@ -272,17 +274,40 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 					}
 				};
 
+		/** Map from subscribed destination pattern to the ids of the sessions subscribed to it. */
+		private final Map<String, Set<String>> sessionIdsByDestination = new HashMap<>();
+
+		/** Trie of subscribed destination patterns, if supported by the PathMatcher. */
+		@Nullable
+		private AntPathPatternTrie destinationTrie;
+
 
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
 				synchronized (this.updateCache) {
 					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
+					AntPathPatternTrie destinationTrie = getDestinationTrie();
+					if (destinationTrie != null) {
+						for (String destinationPattern : destinationTrie.getMatchingPatterns(destination)) {
+							for (String sessionId : this.sessionIdsByDestination.get(destinationPattern)) {
+								SessionSubscriptionInfo info = subscriptionRegistry.getSubscriptions(sessionId);
+								Set<Subscription> subs = (info != null ? info.getSubscriptions(destinationPattern) : null);
+								if (subs != null) {
+									for (Subscription sub : subs) {
+										result.add(sessionId, sub.getId());
+									}
+								}
+							}
+						}
+					}
+					else {
+						for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
+							for (String destinationPattern : info.getDestinations()) {
+								if (getPathMatcher().match(destinationPattern, destination)) {
+									for (Subscription sub : info.getSubscriptions(destinationPattern)) {
+										result.add(info.sessionId, sub.getId());
+									}
 								}
 							}
 						}
@@ -298,6 +323,15 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
 			synchronized (this.updateCache) {
+				Set<String> sessionIds = this.sessionIdsByDestination.get(destination);
+				if (sessionIds == null) {
+					sessionIds = new HashSet<>(4);
+					this.sessionIdsByDestination.put(destination, sessionIds);
+					if (this.destinationTrie != null) {
+						this.destinationTrie.add(destination);
+					}
+				}
+				sessionIds.add(sessionId);
 				this.updateCache.forEach((cachedDestination, subscriptions) -> {
 					if (getPathMatcher().match(destination, cachedDestination)) {
 						// Subscription id's may also be populated via getSubscriptions()
@@ -311,8 +345,14 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			}
 		}
 
-		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
+		public void updateAfterRemovedSubscription(
+				SessionSubscriptionInfo info, String subscribedDestination, String subsId) {
+
+			String sessionId = info.getSessionId();
 			synchronized (this.updateCache) {
+				if (info.getSubscriptions(subscribedDestination) == null) {
+					removeSessionId(subscribedDestination, sessionId);
+				}
 				Set<String> destinationsToRemove = new HashSet<>();
 				this.updateCache.forEach((destination, sessionMap) -> {
 					List<String> subscriptions = sessionMap.get(sessionId);
@@ -338,6 +378,9 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
 			synchronized (this.updateCache) {
+				for (String destination : info.getDestinations()) {
+					removeSessionId(destination, info.getSessionId());
+				}
 				Set<String> destinationsToRemove = new HashSet<>();
 				this.updateCache.forEach((destination, sessionMap) -> {
 					if (sessionMap.remove(info.getSessionId()) != null) {
@@ -356,6 +399,31 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			}
 		}
 
+		private void removeSessionId(String destination, String sessionId) {
+			Set<String> sessionIds = this.sessionIdsByDestination.get(destination);
+			if (sessionIds != null && sessionIds.remove(sessionId) && sessionIds.isEmpty()) {
+				this.sessionIdsByDestination.remove(destination);
+				if (this.destinationTrie != null) {
+					this.destinationTrie.remove(destination);
+				}
+			}
+		}
+
+		/**
+		 * Return the trie of subscribed destination patterns, (re-)building it
+		 * for the current PathMatcher, or {@code null} if the PathMatcher does
+		 * not allow for it.
+		 */
+		@Nullable
+		private AntPathPatternTrie getDestinationTrie() {
+			PathMatcher pathMatcher = getPathMatcher();
+			if (this.destinationTrie == null || this.destinationTrie.getPathMatcher() != pathMatcher) {
+				this.destinationTrie = (AntPathPatternTrie.supports(pathMatcher) ? new AntPathPatternTrie(
+						(AntPathMatcher) pathMatcher, this.sessionIdsByDestination.keySet()) : null);
+			}
+			return this.destinationTrie;
+		}
+
 		@Override
 		public String toString() {
 			return "cache[" + this.accessCache.size() + " destination(s)]";
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.json;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks for an encode/decode round trip through {@link Jackson2JsonEncoder}
+ * and {@link Jackson2JsonDecoder}.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class Jackson2JsonCodecBenchmark {
+
+	private static final Map<String, Object> NO_HINTS = Collections.emptyMap();
+
+
+	@Benchmark
+	public void encodeValue(CodecState state, Blackhole bh) {
+		DataBuffer buffer = state.encoder.encodeValue(state.message, state.bufferFactory,
+				state.messageType, MediaType.APPLICATION_JSON, NO_HINTS);
+		bh.consume(buffer);
+		DataBufferUtils.release(buffer);
+	}
+
+	@Benchmark
+	public void roundTripMono(CodecState state, Blackhole bh) {
+		Flux<DataBuffer> encoded = state.encoder.encode(Mono.just(state.message), state.bufferFactory,
+				state.messageType, MediaType.APPLICATION_JSON, NO_HINTS);
+		bh.consume(state.decoder.decodeToMono(encoded, state.messageType, MediaType.APPLICATION_JSON, NO_HINTS).block());
+	}
+
+	@Benchmark
+	public void roundTripFlux(CodecState state, Blackhole bh) {
+		Flux<DataBuffer> encoded = state.encoder.encode(Flux.fromIterable(state.messages), state.bufferFactory,
+				state.messageType, MediaType.APPLICATION_JSON, NO_HINTS);
+		bh.consume(state.decoder.decode(encoded, state.messageType, MediaType.APPLICATION_JSON, NO_HINTS)
+				.collectList().block());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class CodecState {
+
+		public final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder();
+
+		public final Jackson2JsonDecoder decoder = new Jackson2JsonDecoder();
+
+		public final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public final ResolvableType messageType = ResolvableType.forClass(Message.class);
+
+		public Message message;
+
+		public List<Message> messages;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.message = new Message("greeting", "Hello World", 42L, Collections.singletonList("jmh"));
+			this.messages = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				this.messages.add(new Message("message" + i, "Hello World " + i, i, Collections.singletonList("tag" + i)));
+			}
+		}
+	}
+
+
+	public static class Message {
+
+		private String name;
+
+		private String text;
+
+		private long timestamp;
+
+		private List<String> tags;
+
+		public Message() {
+		}
+
+		public Message(String name, String text, long timestamp, List<String> tags) {
+			this.name = name;
+			this.text = text;
+			this.timestamp = timestamp;
+			this.tags = tags;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public String getText() {
+			return this.text;
+		}
+
+		public void setText(String text) {
+			this.text = text;
+		}
+
+		public long getTimestamp() {
+			return this.timestamp;
+		}
+
+		public void setTimestamp(long timestamp) {
+			this.timestamp = timestamp;
+		}
+
+		public List<String> getTags() {
+			return this.tags;
+		}
+
+		public void setTags(List<String> tags) {
+			this.tags = tags;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmarks for {@link PathPattern#matches(PathContainer)}.
+ *
+ * @since 5.1.21
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@Benchmark
+	public void matchAll(PatternsState state, Blackhole bh) {
+		for (PathContainer path : state.paths) {
+			for (PathPattern pattern : state.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndSort(PatternsState state, Blackhole bh) {
+		for (PathContainer path : state.paths) {
+			List<PathPattern> matches = new ArrayList<>();
+			for (PathPattern pattern : state.patterns) {
+				if (pattern.matches(path)) {
+					matches.add(pattern);
+				}
+			}
+			Collections.sort(matches);
+			bh.consume(matches);
+		}
+	}
+
+	@Benchmark
+	public void parseAndMatch(PatternsState state, Blackhole bh) {
+		for (String path : state.rawPaths) {
+			bh.consume(state.patterns.get(4).matches(PathContainer.parsePath(path)));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsState {
+
+		public final List<PathPattern> patterns = new ArrayList<>();
+
+		public final List<String> rawPaths = new ArrayList<>();
+
+		public final List<PathContainer> paths = new ArrayList<>();
+
+		@Setup(Level.Trial)
+		public void setup() {
+			PathPatternParser parser = new PathPatternParser();
+			String[] patterns = new String[] {"/", "/static/**", "/resources/*.css", "/api/users",
+					"/api/users/{id}", "/api/users/{id}/orders/{orderId}", "/api/products/*",
+					"/api/products/{id:[0-9]+}", "/api/products/{id}/reviews", "/admin/**", "/{*path}"};
+			for (String pattern : patterns) {
+				this.patterns.add(parser.parse(pattern));
+			}
+
+			Collections.addAll(this.rawPaths, "/", "/static/js/app.js", "/resources/site.css", "/api/users/42",
+					"/api/users/42/orders/1337", "/api/products/123", "/api/products/123/reviews", "/docs/index.html");
+			for (String path : this.rawPaths) {
+				this.paths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+}
@@ -30,6 +30,7 @@ import java.util.stream.Collectors;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
@@ -319,6 +320,9 @@ public class MediaType extends MimeType implements Serializable {
 
 	private static final String PARAM_QUALITY_FACTOR = "q";
 
+	private static final ConcurrentLruCache<String, MediaType> cachedMediaTypes =
+			new ConcurrentLruCache<>(64, MediaType::parseMediaTypeInternal);
+
 
 	static {
 		ALL = valueOf(ALL_VALUE);
@@ -519,11 +523,20 @@ public class MediaType extends MimeType implements Serializable {
 
 	/**
 	 * Parse the given String into a single {@code MediaType}.
+	 * Recently parsed {@code MediaType} are cached for further retrieval.
 	 * @param mediaType the string to parse
 	 * @return the media type
 	 * @throws InvalidMediaTypeException if the media type value cannot be parsed
 	 */
 	public static MediaType parseMediaType(String mediaType) {
+		if (!StringUtils.hasLength(mediaType) || mediaType.startsWith("multipart")) {
+			// Do not cache multipart media types with random boundaries
+			return parseMediaTypeInternal(mediaType);
+		}
+		return cachedMediaTypes.get(mediaType);
+	}
+
+	private static MediaType parseMediaTypeInternal(String mediaType) {
 		MimeType type;
 		try {
 			type = MimeTypeUtils.parseMimeType(mediaType);
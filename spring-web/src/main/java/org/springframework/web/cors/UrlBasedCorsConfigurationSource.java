@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
+import org.springframework.util.AntPathPatternTrie;
 import org.springframework.util.Assert;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.util.UrlPathHelper;
@@ -34,6 +35,8 @@ import org.springframework.web.util.UrlPathHelper;
  *
  * <p>Exact path mapping URIs (such as {@code "/admin"}) are supported
  * as well as Ant-style path patterns (such as {@code "/admin/**"}).
+ * With the default {@link AntPathMatcher}, patterns are looked up through an
+ * {@link AntPathPatternTrie} rather than matched one by one.
  *
  * @author Sebastien Deleuze
  * @since 4.2
@@ -46,6 +49,9 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 
 	private UrlPathHelper urlPathHelper = new UrlPathHelper();
 
+	@Nullable
+	private volatile AntPathPatternTrie patternTrie;
+
 
 	/**
 	 * Set the PathMatcher implementation to use for matching URL paths
@@ -55,6 +61,7 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 	public void setPathMatcher(PathMatcher pathMatcher) {
 		Assert.notNull(pathMatcher, "PathMatcher must not be null");
 		this.pathMatcher = pathMatcher;
+		this.patternTrie = null;
 	}
 
 	/**
@@ -98,6 +105,7 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 		if (corsConfigurations != null) {
 			this.corsConfigurations.putAll(corsConfigurations);
 		}
+		this.patternTrie = null;
 	}
 
 	/**
@@ -112,6 +120,7 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 	 */
 	public void registerCorsConfiguration(String path, CorsConfiguration config) {
 		this.corsConfigurations.put(path, config);
+		this.patternTrie = null;
 	}
 
 
@@ -119,6 +128,11 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 	@Nullable
 	public CorsConfiguration getCorsConfiguration(HttpServletRequest request) {
 		String lookupPath = this.urlPathHelper.getLookupPathForRequest(request);
+		AntPathPatternTrie patternTrie = getPatternTrie();
+		if (patternTrie != null) {
+			String pattern = patternTrie.getFirstMatchingPattern(lookupPath);
+			return (pattern != null ? this.corsConfigurations.get(pattern) : null);
+		}
 		for (Map.Entry<String, CorsConfiguration> entry : this.corsConfigurations.entrySet()) {
 			if (this.pathMatcher.match(entry.getKey(), lookupPath)) {
 				return entry.getValue();
@@ -127,4 +141,14 @@ public class UrlBasedCorsConfigurationSource implements CorsConfigurationSource
 		return null;
 	}
 
+	@Nullable
+	private AntPathPatternTrie getPatternTrie() {
+		AntPathPatternTrie patternTrie = this.patternTrie;
+		if (patternTrie == null && AntPathPatternTrie.supports(this.pathMatcher)) {
+			patternTrie = new AntPathPatternTrie((AntPathMatcher) this.pathMatcher, this.corsConfigurations.keySet());
+			this.patternTrie = patternTrie;
+		}
+		return patternTrie;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -67,6 +67,14 @@ public class MediaTypeTests {
 		assertEquals("Invalid quality factor", 0.2D, mediaType.getQualityValue(), 0D);
 	}
 
+	@Test
+	public void parseMediaTypeCached() {
+		String s = "application/json;charset=UTF-8";
+		MediaType mediaType = MediaType.parseMediaType(s);
+		assertSame(mediaType, MediaType.parseMediaType(s));
+		assertEquals(MediaType.APPLICATION_JSON_UTF8, mediaType);
+	}
+
 	@Test(expected = InvalidMediaTypeException.class)
 	public void parseMediaTypeNoSubtype() {
 		MediaType.parseMediaType("audio");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,8 +29,11 @@ import javax.servlet.http.HttpServletResponse;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.AntPathPatternTrie;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.servlet.HandlerExecutionChain;
 
 /**
@@ -46,7 +49,9 @@ import org.springframework.web.servlet.HandlerExecutionChain;
  *
  * <p>Will search all path patterns to find the most exact match for the
  * current request path. The most exact match is defined as the longest
- * path pattern that matches the current request path.
+ * path pattern that matches the current request path. With the default
+ * {@link AntPathMatcher}, candidate patterns are found through an
+ * {@link AntPathPatternTrie} instead of matching every registered pattern.
  *
  * @author Juergen Hoeller
  * @author Arjen Poutsma
@@ -63,6 +68,9 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 
 	private final Map<String, Object> handlerMap = new LinkedHashMap<>();
 
+	@Nullable
+	private volatile AntPathPatternTrie patternTrie;
+
 
 	/**
 	 * Set the root handler for this handler mapping, that is,
@@ -186,13 +194,19 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		// Pattern match?
 		// ／通配符匹配的处理
 		List<String> matchingPatterns = new ArrayList<>();
-		for (String registeredPattern : this.handlerMap.keySet()) {
-			if (getPathMatcher().match(registeredPattern, urlPath)) {
-				matchingPatterns.add(registeredPattern);
-			}
-			else if (useTrailingSlashMatch()) {
-				if (!registeredPattern.endsWith("/") && getPathMatcher().match(registeredPattern + "/", urlPath)) {
-					matchingPatterns.add(registeredPattern + "/");
+		AntPathPatternTrie patternTrie = (!useTrailingSlashMatch() ? getPatternTrie() : null);
+		if (patternTrie != null) {
+			matchingPatterns.addAll(patternTrie.getMatchingPatterns(urlPath));
+		}
+		else {
+			for (String registeredPattern : this.handlerMap.keySet()) {
+				if (getPathMatcher().match(registeredPattern, urlPath)) {
+					matchingPatterns.add(registeredPattern);
+				}
+				else if (useTrailingSlashMatch()) {
+					if (!registeredPattern.endsWith("/") && getPathMatcher().match(registeredPattern + "/", urlPath)) {
+						matchingPatterns.add(registeredPattern + "/");
+					}
 				}
 			}
 		}
@@ -391,6 +405,7 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 			}
 			else {
 				this.handlerMap.put(urlPath, resolvedHandler);
+				this.patternTrie = null;
 				if (logger.isTraceEnabled()) {
 					logger.trace("Mapped [" + urlPath + "] onto " + getHandlerDescription(handler));
 				}
@@ -402,6 +417,25 @@ public abstract class AbstractUrlHandlerMapping extends AbstractHandlerMapping i
 		return (handler instanceof String ? "'" + handler + "'" : handler.toString());
 	}
 
+	/**
+	 * Return a trie of the registered URL paths for the configured
+	 * {@link #getPathMatcher() PathMatcher}, or {@code null} if the trie
+	 * does not apply to it and patterns need to be matched one by one.
+	 */
+	@Nullable
+	private AntPathPatternTrie getPatternTrie() {
+		AntPathPatternTrie patternTrie = this.patternTrie;
+		PathMatcher pathMatcher = getPathMatcher();
+		if (patternTrie == null || patternTrie.getPathMatcher() != pathMatcher) {
+			if (!AntPathPatternTrie.supports(pathMatcher)) {
+				return null;
+			}
+			patternTrie = new AntPathPatternTrie((AntPathMatcher) pathMatcher, this.handlerMap.keySet());
+			this.patternTrie = patternTrie;
+		}
+		return patternTrie;
+	}
+
 
 	/**
 	 * Return the registered handlers as an unmodifiable Map, with the registered path
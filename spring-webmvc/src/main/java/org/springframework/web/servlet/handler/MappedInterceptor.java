@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,16 @@
 
 package org.springframework.web.servlet.handler;
 
+import java.util.Arrays;
+import java.util.Map;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.AntPathPatternTrie;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.PathMatcher;
 import org.springframework.web.context.request.WebRequestInterceptor;
@@ -55,6 +61,10 @@ public final class MappedInterceptor implements HandlerInterceptor {
 	@Nullable
 	private PathMatcher pathMatcher;
 
+	private final Map<PathMatcher, AntPathPatternTrie> includePatternTries = new ConcurrentReferenceHashMap<>(4);
+
+	private final Map<PathMatcher, AntPathPatternTrie> excludePatternTries = new ConcurrentReferenceHashMap<>(4);
+
 
 	/**
 	 * Create a new MappedInterceptor instance.
@@ -146,17 +156,32 @@ public final class MappedInterceptor implements HandlerInterceptor {
 	public boolean matches(String lookupPath, PathMatcher pathMatcher) {
 		PathMatcher pathMatcherToUse = (this.pathMatcher != null ? this.pathMatcher : pathMatcher);
 		if (!ObjectUtils.isEmpty(this.excludePatterns)) {
-			for (String pattern : this.excludePatterns) {
-				if (pathMatcherToUse.match(pattern, lookupPath)) {
-					return false;
-				}
+			if (matchesAny(this.excludePatterns, this.excludePatternTries, lookupPath, pathMatcherToUse)) {
+				return false;
 			}
 		}
 		if (ObjectUtils.isEmpty(this.includePatterns)) {
 			return true;
 		}
-		for (String pattern : this.includePatterns) {
-			if (pathMatcherToUse.match(pattern, lookupPath)) {
+		return matchesAny(this.includePatterns, this.includePatternTries, lookupPath, pathMatcherToUse);
+	}
+
+	/**
+	 * Match the given patterns through an {@link AntPathPatternTrie} if the
+	 * PathMatcher allows for it, building and caching the trie per PathMatcher
+	 * since a globally registered interceptor is shared by handler mappings
+	 * with individual PathMatcher instances.
+	 */
+	private boolean matchesAny(String[] patterns, Map<PathMatcher, AntPathPatternTrie> patternTries,
+			String lookupPath, PathMatcher pathMatcher) {
+
+		if (AntPathPatternTrie.supports(pathMatcher)) {
+			AntPathPatternTrie patternTrie = patternTries.computeIfAbsent(pathMatcher,
+					key -> new AntPathPatternTrie((AntPathMatcher) key, Arrays.asList(patterns)));
+			return patternTrie.matches(lookupPath);
+		}
+		for (String pattern : patterns) {
+			if (pathMatcher.match(pattern, lookupPath)) {
 				return true;
 			}
 		}